@@ -4,15 +4,187 @@ import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 @ConfigurationProperties(prefix = "app")
 @Data
 public class AppConfig {
     
     private SignupConfig signup = new SignupConfig();
+    private PlanGeneratorConfig planGenerator = new PlanGeneratorConfig();
+    private PlanArchiveConfig planArchive = new PlanArchiveConfig();
+    private OpenFoodFactsConfig openFoodFacts = new OpenFoodFactsConfig();
+    private BarcodeCacheConfig barcodeCache = new BarcodeCacheConfig();
+    private IngredientSyncConfig ingredientSync = new IngredientSyncConfig();
+    private OpenFoodFactsImportConfig openFoodFactsImport = new OpenFoodFactsImportConfig();
+    private ProductStoreConfig productStore = new ProductStoreConfig();
+    private CategoryTaxonomyConfig categoryTaxonomy = new CategoryTaxonomyConfig();
+    private BarcodeFilterConfig barcodeFilter = new BarcodeFilterConfig();
+    private IngredientDeduplicationConfig ingredientDeduplication = new IngredientDeduplicationConfig();
+    private OrphanCleanupConfig orphanCleanup = new OrphanCleanupConfig();
+    private IngredientUsageConfig ingredientUsage = new IngredientUsageConfig();
+    private IngredientPairingConfig ingredientPairing = new IngredientPairingConfig();
+    private IngredientSynonymConfig ingredientSynonym = new IngredientSynonymConfig();
+    private DictionaryConfig dictionary = new DictionaryConfig();
     
     @Data
     public static class SignupConfig {
         private boolean enabled = true;
     }
-}
\ No newline at end of file
+
+    @Data
+    public static class PlanGeneratorConfig {
+        // Budget de recherche par génération (ms)
+        private long timeBudgetMs = 1500;
+        // Nombre de chaînes de recuit en parallèle (0 = nombre de cœurs)
+        private int chains = 0;
+    }
+
+    @Data
+    public static class PlanArchiveConfig {
+        private boolean enabled = true;
+        // Les plannings terminés depuis plus de horizonDays jours sont archivés
+        private int horizonDays = 365;
+        // Nombre de plannings archivés par transaction
+        private int batchSize = 100;
+        private String cron = "0 30 3 * * *";
+    }
+
+    @Data
+    public static class OpenFoodFactsConfig {
+        // Surchargeable pour pointer vers un serveur de test local
+        private String baseUrl = "https://world.openfoodfacts.org";
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        // Délai maximal d'attente de la réponse complète
+        private Duration readTimeout = Duration.ofSeconds(5);
+        private String userAgent = "KitchenCraft/1.0";
+        // Appels simultanés maximum pour les résolutions groupées
+        private int maxConcurrentRequests = 16;
+        // Échéance d'une résolution groupée de codes-barres
+        private Duration batchDeadline = Duration.ofSeconds(8);
+        // Cloison : appels simultanés maximum vers OpenFoodFacts, tous appelants confondus
+        private int bulkheadMaxConcurrent = 24;
+        private Duration bulkheadMaxWait = Duration.ofMillis(200);
+        // Délai adaptatif, borné par readTimeout
+        private Duration minTimeout = Duration.ofMillis(500);
+        // Disjoncteur : ouvert si la moitié des derniers appels échouent ou sont lents
+        private int circuitWindowSize = 50;
+        private int circuitMinimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        private double slowCallRateThreshold = 0.5;
+        private Duration slowCallThreshold = Duration.ofSeconds(2);
+        private Duration circuitOpenDuration = Duration.ofSeconds(30);
+        private int halfOpenCalls = 3;
+    }
+
+    @Data
+    public static class BarcodeCacheConfig {
+        private int maxEntries = 10_000;
+        // Produits trouvés
+        private Duration positiveTtl = Duration.ofHours(24);
+        // Codes-barres inconnus d'OpenFoodFacts
+        private Duration negativeTtl = Duration.ofHours(1);
+    }
+
+    @Data
+    public static class IngredientSyncConfig {
+        private boolean enabled = true;
+        private String cron = "0 0 4 * * *";
+        // Un ingrédient est resynchronisé si sa dernière synchronisation date de plus de staleDays jours
+        private int staleDays = 30;
+        private int batchSize = 100;
+        // Débit maximal vers OpenFoodFacts (limite publique : 100 lectures produit par minute)
+        private double requestsPerSecond = 1.5;
+        private int maxConcurrent = 4;
+    }
+
+    @Data
+    public static class OpenFoodFactsImportConfig {
+        // Seuls les fichiers de ce répertoire peuvent être importés
+        private String directory = "./imports";
+        // Lignes par lot (une transaction COPY + upsert par lot)
+        private int batchSize = 2000;
+        // Threads d'analyse et d'écriture (0 = nombre de cœurs)
+        private int workers = 0;
+    }
+
+    @Data
+    public static class ProductStoreConfig {
+        // Magasin local des produits par code-barres (fichier mappé en mémoire)
+        private boolean enabled = false;
+        private String directory = "./data";
+        private String rebuildCron = "0 15 4 * * *";
+    }
+
+    @Data
+    public static class CategoryTaxonomyConfig {
+        // Fichier motif;catégorie;priorité (classpath: ou file:)
+        private String location = "classpath:category-taxonomy.csv";
+        // Arbre des catégories code;parent;libellé;motifs (table de fermeture)
+        private String treeLocation = "classpath:category-tree.csv";
+        // Ingrédients par lot lors d'une reclassification
+        private int batchSize = 1000;
+    }
+
+    @Data
+    public static class BarcodeFilterConfig {
+        private boolean enabled = true;
+        private double falsePositiveRate = 0.01;
+        // Taille minimale du filtre des codes-barres connus (marge pour les ajouts entre reconstructions)
+        private long minExpectedBarcodes = 100_000;
+        private String rebuildCron = "0 45 4 * * *";
+        // Codes-barres inconnus d'OpenFoodFacts : oubliés après une à deux périodes
+        private Duration missingTtl = Duration.ofHours(24);
+        private long expectedMissingBarcodes = 100_000;
+    }
+
+    @Data
+    public static class IngredientDeduplicationConfig {
+        // Similarité minimale (Jaccard des trigrammes) entre deux noms normalisés différents
+        private double similarityThreshold = 0.8;
+        // Au-delà, un bloc de noms est redécoupé sur un préfixe plus long
+        private int maxBlockSize = 2000;
+        // Groupes conservés après une détection
+        private int maxGroups = 2000;
+        // Parallélisme du calcul des similarités (0 = nombre de cœurs)
+        private int parallelism = 0;
+    }
+
+    @Data
+    public static class OrphanCleanupConfig {
+        // Ingrédients supprimés par transaction
+        private int batchSize = 1000;
+    }
+
+    @Data
+    public static class IngredientUsageConfig {
+        // Noms de recettes renvoyés avec le résumé d'utilisation d'un ingrédient
+        private int recipeNamesLimit = 10;
+        // Recalcul des compteurs d'utilisation depuis les tables de références
+        private String reconcileCron = "0 30 4 * * *";
+    }
+
+    @Data
+    public static class IngredientPairingConfig {
+        // Recettes communes minimales pour proposer une association
+        private int minCooccurrence = 2;
+        // Associations renvoyées par défaut et au plus
+        private int defaultLimit = 10;
+        private int maxLimit = 50;
+    }
+
+    @Data
+    public static class IngredientSynonymConfig {
+        // Dictionnaire initial canonique;synonymes (classpath: ou file:), chargé si la table est vide
+        private String seedLocation = "classpath:ingredient-synonyms.csv";
+        // Groupes de synonymes ajoutés au plus à une autocomplétion
+        private int maxAutocompleteGroups = 5;
+    }
+
+    @Data
+    public static class DictionaryConfig {
+        // Suppression des anciennes colonnes texte, une fois toutes les lignes migrées vers dictionary_value
+        private boolean dropLegacyColumns = false;
+    }
+}
@@ -0,0 +1,197 @@
+package com.kitchencraft.recipe.config;
+
+import com.kitchencraft.recipe.model.DictionaryValue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Passage des colonnes texte à faible cardinalité aux identifiants de dictionary_value (voir DictionaryService),
+ * exécuté avant l'initialisation de JPA : aucune requête ne voit un schéma à moitié migré, et le schéma
+ * est complet pour ddl-auto=validate.
+ *
+ * Expansion, à chaque démarrage (sans effet une fois faite) :
+ * - table dictionary_value et colonnes *_id créées si besoin ; l'ancienne colonne devient facultative,
+ *   l'application n'y écrivant plus
+ * - valeurs distinctes ajoutées au dictionnaire, lignes sans identifiant renseignées, clé étrangère posée
+ *
+ * Contraction, seulement avec app.dictionary.drop-legacy-columns et si toutes les lignes ont leur identifiant :
+ * NOT NULL sur la nouvelle colonne et suppression de l'ancienne. Sur une base vide, Hibernate crée le schéma.
+ */
+@Component
+@Slf4j
+public class DictionarySchemaMigration implements InitializingBean {
+
+    private record Migration(String table, String oldColumn, String column, DictionaryValue.Domain domain, boolean notNull) {
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration("recipe", "type", "type_id", DictionaryValue.Domain.RECIPE_TYPE, true),
+            new Migration("recipe", "origin", "origin_id", DictionaryValue.Domain.RECIPE_ORIGIN, false),
+            new Migration("recipe_ingredient", "unit", "unit_id", DictionaryValue.Domain.UNIT, true),
+            new Migration("shopping_list_item", "unit", "unit_id", DictionaryValue.Domain.UNIT, true),
+            new Migration("plan_recipe", "meal_type", "meal_type_id", DictionaryValue.Domain.MEAL_TYPE, false),
+            new Migration("ingredient", "basic_category", "basic_category_id", DictionaryValue.Domain.INGREDIENT_CATEGORY, false),
+            new Migration("ingredient", "data_source", "data_source_id", DictionaryValue.Domain.DATA_SOURCE, false));
+
+    private static final String CREATE_DICTIONARY_SQL = "CREATE TABLE IF NOT EXISTS dictionary_value ("
+            + "id integer GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, "
+            + "domain varchar(30) NOT NULL, "
+            + "value varchar(255) NOT NULL, "
+            + "CONSTRAINT uk_dictionary_value_domain_value UNIQUE (domain, value))";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+
+    public DictionarySchemaMigration(DataSource dataSource, JdbcTemplate jdbcTemplate, AppConfig appConfig) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * L'EntityManagerFactory, et donc tout accès JPA, attend la fin de la migration.
+     */
+    @Component
+    static class EntityManagerFactoryDependsOnMigration extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependsOnMigration() {
+            super(DictionarySchemaMigration.class);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!tableExists("recipe")) {
+            return;
+        }
+        jdbcTemplate.execute(CREATE_DICTIONARY_SQL);
+        // Contrainte CHECK posée par Hibernate à la création de la table, jamais mise à jour quand un domaine est ajouté
+        jdbcTemplate.execute("ALTER TABLE dictionary_value DROP CONSTRAINT IF EXISTS dictionary_value_domain_check");
+        boolean contract = appConfig.getDictionary().isDropLegacyColumns();
+        for (Migration migration : MIGRATIONS) {
+            if (tableExists(migration.table())) {
+                migrate(migration, contract);
+            }
+        }
+    }
+
+    private void migrate(Migration migration, boolean contract) {
+        String table = migration.table();
+        String oldColumn = migration.oldColumn();
+        String column = migration.column();
+        boolean legacy = columnExists(table, oldColumn);
+        if (legacy) {
+            // ALTER TABLE verrouille la table même sans effet : seulement si nécessaire
+            boolean addColumn = !columnExists(table, column);
+            boolean relaxOldColumn = !isNullable(table, oldColumn);
+            inTransaction(table + "." + oldColumn, transaction -> {
+                if (addColumn) {
+                    transaction.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " integer");
+                }
+                if (relaxOldColumn) {
+                    transaction.execute("ALTER TABLE " + table + " ALTER COLUMN " + oldColumn + " DROP NOT NULL");
+                }
+                int migrated = backfill(transaction, migration);
+                if (migrated > 0) {
+                    log.info("Backfilled {}.{} from {}: {} rows", table, column, oldColumn, migrated);
+                }
+            });
+        } else if (!columnExists(table, column)) {
+            return;
+        }
+        addForeignKey(table, column);
+
+        if (legacy && contract) {
+            inTransaction(table + "." + oldColumn, transaction -> {
+                // Plus d'écriture concurrente (ancienne version de l'application) entre la vérification et la suppression
+                transaction.execute("LOCK TABLE " + table + " IN EXCLUSIVE MODE");
+                backfill(transaction, migration);
+                Long pending = transaction.queryForObject("SELECT count(*) FROM " + table + " WHERE " + oldColumn
+                        + " IS NOT NULL AND " + column + " IS NULL", Long.class);
+                if (pending != null && pending > 0) {
+                    log.warn("Keeping {}.{}: {} rows without {}", table, oldColumn, pending, column);
+                    return;
+                }
+                if (migration.notNull()) {
+                    transaction.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " SET NOT NULL");
+                }
+                transaction.execute("ALTER TABLE " + table + " DROP COLUMN " + oldColumn);
+                log.info("Dropped legacy column {}.{}", table, oldColumn);
+            });
+        } else if (!legacy && migration.notNull() && isNullable(table, column)) {
+            // Colonne créée par Hibernate sur une base vide, ou contraction interrompue
+            try {
+                jdbcTemplate.execute("ALTER TABLE " + table + " ALTER COLUMN " + column + " SET NOT NULL");
+            } catch (DataAccessException e) {
+                log.warn("NOT NULL on {}.{} not applied: {}", table, column, e.getMessage());
+            }
+        }
+    }
+
+    private static int backfill(JdbcTemplate transaction, Migration migration) {
+        String table = migration.table();
+        String oldColumn = migration.oldColumn();
+        String column = migration.column();
+        transaction.update("INSERT INTO dictionary_value (domain, value) SELECT DISTINCT ?, " + oldColumn
+                + " FROM " + table + " WHERE " + oldColumn + " IS NOT NULL AND " + column + " IS NULL"
+                + " ON CONFLICT (domain, value) DO NOTHING", migration.domain().name());
+        return transaction.update("UPDATE " + table + " t SET " + column + " = d.id FROM dictionary_value d "
+                + "WHERE d.domain = ? AND d.value = t." + oldColumn + " AND t." + column + " IS NULL",
+                migration.domain().name());
+    }
+
+    private void addForeignKey(String table, String column) {
+        String constraint = "fk_" + table + "_" + column;
+        Integer constraints = jdbcTemplate.queryForObject("SELECT count(*) FROM pg_constraint WHERE conname = ?",
+                Integer.class, constraint);
+        if (constraints == null || constraints == 0) {
+            jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + constraint + " FOREIGN KEY (" + column
+                    + ") REFERENCES dictionary_value (id)");
+        }
+    }
+
+    // Une transaction par colonne, sur une connexion dédiée : le gestionnaire de transactions JPA n'existe pas encore
+    private void inTransaction(String target, Consumer<JdbcTemplate> work) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                work.accept(new JdbcTemplate(new SingleConnectionDataSource(connection, true)));
+                connection.commit();
+            } catch (DataAccessException e) {
+                connection.rollback();
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Migration impossible de " + target, e);
+        }
+    }
+
+    private boolean tableExists(String table) {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.tables "
+                + "WHERE table_schema = current_schema() AND table_name = ?", Integer.class, table);
+        return count != null && count > 0;
+    }
+
+    private boolean columnExists(String table, String column) {
+        Integer count = jdbcTemplate.queryForObject("SELECT count(*) FROM information_schema.columns "
+                + "WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?", Integer.class, table, column);
+        return count != null && count > 0;
+    }
+
+    private boolean isNullable(String table, String column) {
+        List<String> nullable = jdbcTemplate.queryForList("SELECT is_nullable FROM information_schema.columns "
+                + "WHERE table_schema = current_schema() AND table_name = ? AND column_name = ?", String.class, table, column);
+        return !nullable.isEmpty() && "YES".equals(nullable.get(0));
+    }
+}
@@ -0,0 +1,47 @@
+package com.kitchencraft.recipe.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.net.http.HttpClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Client HTTP vers OpenFoodFacts : HttpClient JDK (connexions keep-alive mutualisées),
+ * délais de connexion et de lecture explicites, et exécuteur de threads virtuels
+ * pour les appels asynchrones afin de ne jamais bloquer les threads Tomcat.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService openFoodFactsExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+
+    @Bean
+    public HttpClient openFoodFactsHttpClient(AppConfig appConfig,
+                                              @Qualifier("openFoodFactsExecutor") ExecutorService executor) {
+        return HttpClient.newBuilder()
+                .connectTimeout(appConfig.getOpenFoodFacts().getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(executor)
+                .build();
+    }
+
+    @Bean
+    public RestClient openFoodFactsRestClient(AppConfig appConfig, HttpClient openFoodFactsHttpClient) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(openFoodFactsHttpClient);
+        requestFactory.setReadTimeout(appConfig.getOpenFoodFacts().getReadTimeout());
+        return RestClient.builder()
+                .baseUrl(appConfig.getOpenFoodFacts().getBaseUrl())
+                .requestFactory(requestFactory)
+                .defaultHeader(HttpHeaders.USER_AGENT, appConfig.getOpenFoodFacts().getUserAgent())
+                .build();
+    }
+}
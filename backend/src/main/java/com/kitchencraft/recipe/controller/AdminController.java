@@ -1,8 +1,19 @@
 package com.kitchencraft.recipe.controller;
 
 import com.kitchencraft.recipe.dto.*;
+import com.kitchencraft.recipe.model.IngredientSynonym;
+import com.kitchencraft.recipe.model.SyncProgress;
 import com.kitchencraft.recipe.service.AdminService;
 import com.kitchencraft.recipe.service.AuthService;
+import com.kitchencraft.recipe.service.BarcodeProductStore;
+import com.kitchencraft.recipe.service.CategoryClassificationService;
+import com.kitchencraft.recipe.service.CategoryTreeService;
+import com.kitchencraft.recipe.service.IngredientDeduplicationService;
+import com.kitchencraft.recipe.service.IngredientSynonymService;
+import com.kitchencraft.recipe.service.IngredientSyncService;
+import com.kitchencraft.recipe.service.OpenFoodFactsImportService;
+import com.kitchencraft.recipe.service.OrphanIngredientCleanupService;
+import com.kitchencraft.recipe.service.PlanArchiveService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,6 +34,15 @@ public class AdminController {
 
     private final AdminService adminService;
     private final AuthService authService;
+    private final PlanArchiveService planArchiveService;
+    private final IngredientSyncService ingredientSyncService;
+    private final OpenFoodFactsImportService openFoodFactsImportService;
+    private final BarcodeProductStore barcodeProductStore;
+    private final CategoryClassificationService categoryClassificationService;
+    private final CategoryTreeService categoryTreeService;
+    private final IngredientSynonymService ingredientSynonymService;
+    private final IngredientDeduplicationService ingredientDeduplicationService;
+    private final OrphanIngredientCleanupService orphanIngredientCleanupService;
 
     /**
      * Récupère tous les utilisateurs du système
@@ -102,19 +122,233 @@ public class AdminController {
     }
 
     /**
-     * Nettoie les données orphelines
+     * Lance en arrière-plan le nettoyage des ingrédients orphelins ;
+     * avec dryRun, compte seulement les ingrédients qui seraient supprimés
      */
     @DeleteMapping("/data/cleanup")
-    public ResponseEntity<Map<String, Object>> cleanupOrphanData() {
+    public ResponseEntity<Map<String, Object>> cleanupOrphanData(@RequestParam(defaultValue = "false") boolean dryRun) {
+        if (dryRun) {
+            return ResponseEntity.ok(Map.of(
+                "dryRun", true,
+                "orphanCount", orphanIngredientCleanupService.countOrphans()
+            ));
+        }
         log.info("Admin request: Cleanup orphan data");
-        int deletedCount = adminService.cleanupOrphanData();
+        orphanIngredientCleanupService.startCleanup();
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "Nettoyage lancé",
+            "description", "Ingrédients orphelins supprimés par lots"
+        ));
+    }
+
+    /**
+     * Avancement du dernier nettoyage des ingrédients orphelins
+     */
+    @GetMapping("/data/cleanup")
+    public ResponseEntity<Map<String, Object>> getCleanupStatus() {
+        return ResponseEntity.ok(orphanIngredientCleanupService.getStatus());
+    }
+
+    /**
+     * Archive immédiatement les plannings terminés depuis plus de horizonDays jours
+     * (par défaut app.plan-archive.horizon-days)
+     */
+    @PostMapping("/plans/archive")
+    public ResponseEntity<Map<String, Object>> archivePlans(@RequestParam(required = false) Integer horizonDays) {
+        log.info("Admin request: Archive plans ended more than {} days ago", horizonDays);
+        int archivedCount = planArchiveService.archiveExpiredPlans(horizonDays);
+        return ResponseEntity.ok(Map.of(
+            "message", "Archivage terminé",
+            "archivedCount", archivedCount
+        ));
+    }
+
+    /**
+     * Lance en arrière-plan la resynchronisation OpenFoodFacts des ingrédients obsolètes
+     */
+    @PostMapping("/ingredients/sync")
+    public ResponseEntity<Map<String, Object>> startIngredientSync() {
+        log.info("Admin request: Start OpenFoodFacts ingredient sync");
+        ingredientSyncService.startSync();
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "Synchronisation lancée"
+        ));
+    }
+
+    /**
+     * Avancement de la dernière resynchronisation OpenFoodFacts
+     */
+    @GetMapping("/ingredients/sync")
+    public ResponseEntity<SyncProgress> getIngredientSyncProgress() {
+        return ingredientSyncService.getProgress()
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.noContent().build());
+    }
+
+    /**
+     * Lance l'import d'un dump OpenFoodFacts (JSONL ou CSV, .gz accepté) du répertoire d'import
+     */
+    @PostMapping("/ingredients/import")
+    public ResponseEntity<Map<String, Object>> startOpenFoodFactsImport(@RequestParam String file) {
+        log.info("Admin request: Import OpenFoodFacts dump {}", file);
+        openFoodFactsImportService.startImport(file);
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "Import lancé",
+            "file", file
+        ));
+    }
+
+    /**
+     * Avancement et débit de l'import OpenFoodFacts en cours
+     */
+    @GetMapping("/ingredients/import")
+    public ResponseEntity<Map<String, Object>> getOpenFoodFactsImportStatus() {
+        return ResponseEntity.ok(openFoodFactsImportService.getStatus());
+    }
+
+    /**
+     * Lance en arrière-plan la reconstruction du magasin local de produits par code-barres
+     */
+    @PostMapping("/ingredients/product-store/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildProductStore() {
+        log.info("Admin request: Rebuild barcode product store");
+        barcodeProductStore.startRebuild();
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "Reconstruction lancée"
+        ));
+    }
+
+    /**
+     * État et statistiques du magasin local de produits
+     */
+    @GetMapping("/ingredients/product-store")
+    public ResponseEntity<Map<String, Object>> getProductStoreStats() {
+        return ResponseEntity.ok(barcodeProductStore.getStats());
+    }
+
+    /**
+     * Recharge la taxonomie des catégories de base
+     */
+    @PostMapping("/ingredients/taxonomy/reload")
+    public ResponseEntity<Map<String, Object>> reloadCategoryTaxonomy() {
+        log.info("Admin request: Reload category taxonomy");
+        int rules = categoryClassificationService.reloadTaxonomy();
+        return ResponseEntity.ok(Map.of(
+            "message", "Taxonomie rechargée",
+            "rules", rules
+        ));
+    }
+
+    /**
+     * Recharge l'arbre des catégories et relance le rattachement des ingrédients
+     */
+    @PostMapping("/ingredients/category-tree/reload")
+    public ResponseEntity<Map<String, Object>> reloadCategoryTree() {
+        log.info("Admin request: Reload category tree");
+        int nodes = categoryTreeService.reloadTree();
         return ResponseEntity.ok(Map.of(
-            "message", "Nettoyage terminé",
-            "deletedCount", deletedCount,
-            "description", "Ingrédients orphelins supprimés"
+            "message", "Arbre des catégories rechargé",
+            "nodes", nodes
+        ));
+    }
+
+    /**
+     * État de l'arbre des catégories et du dernier rattachement
+     */
+    @GetMapping("/ingredients/category-tree")
+    public ResponseEntity<Map<String, Object>> getCategoryTreeStatus() {
+        return ResponseEntity.ok(categoryTreeService.getStatus());
+    }
+
+    /**
+     * Dictionnaire des synonymes d'ingrédients
+     */
+    @GetMapping("/ingredients/synonyms")
+    public ResponseEntity<List<IngredientSynonym>> getIngredientSynonyms() {
+        return ResponseEntity.ok(ingredientSynonymService.listSynonyms());
+    }
+
+    /**
+     * Rattache des termes à un terme canonique
+     */
+    @PutMapping("/ingredients/synonyms")
+    public ResponseEntity<Map<String, Object>> saveIngredientSynonyms(@Valid @RequestBody IngredientSynonymRequest request) {
+        log.info("Admin request: Save synonyms of {}", request.getCanonical());
+        int saved = ingredientSynonymService.saveSynonyms(request);
+        return ResponseEntity.ok(Map.of(
+            "message", "Synonymes enregistrés",
+            "saved", saved
+        ));
+    }
+
+    /**
+     * Supprime un synonyme
+     */
+    @DeleteMapping("/ingredients/synonyms/{term}")
+    public ResponseEntity<Void> deleteIngredientSynonym(@PathVariable String term) {
+        log.info("Admin request: Delete synonym {}", term);
+        ingredientSynonymService.deleteSynonym(term);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Lance en arrière-plan la reclassification des ingrédients OpenFoodFacts
+     */
+    @PostMapping("/ingredients/reclassify")
+    public ResponseEntity<Map<String, Object>> startReclassification() {
+        log.info("Admin request: Reclassify OpenFoodFacts ingredients");
+        categoryClassificationService.startReclassification();
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "Reclassification lancée"
+        ));
+    }
+
+    /**
+     * Avancement de la dernière reclassification
+     */
+    @GetMapping("/ingredients/reclassify")
+    public ResponseEntity<Map<String, Object>> getReclassificationStatus() {
+        return ResponseEntity.ok(categoryClassificationService.getReclassificationStatus());
+    }
+
+    /**
+     * Lance en arrière-plan la détection des ingrédients en double
+     */
+    @PostMapping("/ingredients/duplicates/detect")
+    public ResponseEntity<Map<String, Object>> startDuplicateDetection() {
+        log.info("Admin request: Detect duplicate ingredients");
+        ingredientDeduplicationService.startDetection();
+        return ResponseEntity.accepted().body(Map.of(
+            "message", "Détection lancée"
         ));
     }
 
+    /**
+     * Avancement de la dernière détection des doublons
+     */
+    @GetMapping("/ingredients/duplicates/detect")
+    public ResponseEntity<Map<String, Object>> getDuplicateDetectionStatus() {
+        return ResponseEntity.ok(ingredientDeduplicationService.getDetectionStatus());
+    }
+
+    /**
+     * Groupes de doublons trouvés par la dernière détection
+     */
+    @GetMapping("/ingredients/duplicates")
+    public ResponseEntity<List<DuplicateIngredientGroupDto>> getDuplicateGroups(
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(ingredientDeduplicationService.getDuplicateGroups(limit));
+    }
+
+    /**
+     * Fusionne les doublons choisis dans leur ingrédient survivant
+     */
+    @PostMapping("/ingredients/duplicates/merge")
+    public ResponseEntity<Map<String, Object>> mergeDuplicateIngredients(@Valid @RequestBody IngredientMergeRequest request) {
+        log.info("Admin request: Merge {} duplicate ingredient groups", request.getMerges().size());
+        return ResponseEntity.ok(ingredientDeduplicationService.merge(request));
+    }
+
     /**
      * Endpoint de test pour vérifier les permissions admin
      */
@@ -1,10 +1,24 @@
 package com.kitchencraft.recipe.controller;
 
+import com.kitchencraft.recipe.dto.CategoryNodeDto;
 import com.kitchencraft.recipe.dto.IngredientDto;
+import com.kitchencraft.recipe.dto.IngredientPairingDto;
 import com.kitchencraft.recipe.dto.IngredientRequest;
+import com.kitchencraft.recipe.dto.IngredientStatsDto;
+import com.kitchencraft.recipe.dto.BarcodeBatchRequest;
+import com.kitchencraft.recipe.dto.BarcodeBatchResultDto;
+import com.kitchencraft.recipe.service.BarcodeBatchService;
+import com.kitchencraft.recipe.service.BarcodeFilterService;
+import com.kitchencraft.recipe.service.BarcodeLookupService;
+import com.kitchencraft.recipe.service.CategoryTreeService;
+import com.kitchencraft.recipe.service.IngredientPairingService;
 import com.kitchencraft.recipe.service.IngredientService;
+import com.kitchencraft.recipe.service.IngredientStatsService;
+import com.kitchencraft.recipe.service.OpenFoodFactsService;
 import com.kitchencraft.recipe.model.Ingredient;
 import com.kitchencraft.recipe.mapper.IngredientMapper;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -12,15 +26,37 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/ingredients")
 public class IngredientController {
 
     private final IngredientService ingredientService;
+    private final BarcodeLookupService barcodeLookupService;
+    private final BarcodeBatchService barcodeBatchService;
+    private final OpenFoodFactsService openFoodFactsService;
+    private final BarcodeFilterService barcodeFilterService;
+    private final IngredientStatsService ingredientStatsService;
+    private final CategoryTreeService categoryTreeService;
+    private final IngredientPairingService ingredientPairingService;
 
-    public IngredientController(IngredientService ingredientService) {
+    public IngredientController(IngredientService ingredientService,
+                                BarcodeLookupService barcodeLookupService,
+                                BarcodeBatchService barcodeBatchService,
+                                OpenFoodFactsService openFoodFactsService,
+                                BarcodeFilterService barcodeFilterService,
+                                IngredientStatsService ingredientStatsService,
+                                CategoryTreeService categoryTreeService,
+                                IngredientPairingService ingredientPairingService) {
         this.ingredientService = ingredientService;
+        this.barcodeLookupService = barcodeLookupService;
+        this.barcodeBatchService = barcodeBatchService;
+        this.openFoodFactsService = openFoodFactsService;
+        this.barcodeFilterService = barcodeFilterService;
+        this.ingredientStatsService = ingredientStatsService;
+        this.categoryTreeService = categoryTreeService;
+        this.ingredientPairingService = ingredientPairingService;
     }
 
     @PostMapping
@@ -33,14 +69,37 @@ public class IngredientController {
         return ResponseEntity.ok(ingredientService.updateIngredient(id, request));
     }
 
+    // Résumé pour la confirmation de suppression : compteurs et premiers noms de recettes
+    @GetMapping("/{id}/usage")
+    public ResponseEntity<IngredientService.IngredientUsage> getIngredientUsage(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ingredientService.checkIngredientUsage(id, limit));
+    }
+
+    // Ingrédients souvent utilisés avec celui-ci dans les recettes
+    @GetMapping("/{id}/pairings")
+    public ResponseEntity<List<IngredientPairingDto>> getPairings(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(ingredientPairingService.getPairings(id, limit));
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteIngredient(@PathVariable Long id) {
         ingredientService.deleteIngredient(id);
         return ResponseEntity.noContent().build();
     }
 
+    // Sans limit ni cursor : liste complète historique ; sinon page allégée (full=true pour les DTO complets)
     @GetMapping
-    public ResponseEntity<List<IngredientDto>> getAllIngredients() {
+    public ResponseEntity<?> getAllIngredients(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean full) {
+        if (isPaged(limit, cursor)) {
+            return ResponseEntity.ok(ingredientService.listPage(null, null, null, limit, cursor, full));
+        }
         return ResponseEntity.ok(ingredientService.getAllIngredients());
     }
 
@@ -90,19 +149,38 @@ public class IngredientController {
     // Nouveaux endpoints pour le système nutritionnel fusionné
     
     @GetMapping("/search")
-    public ResponseEntity<List<IngredientDto>> searchIngredients(
+    public ResponseEntity<?> searchIngredients(
             @RequestParam(required = false) String name,
-            @RequestParam(required = false) String basicCategory) {
+            @RequestParam(required = false) String basicCategory,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean full) {
+        if (isPaged(limit, cursor)) {
+            return ResponseEntity.ok(ingredientService.listPage(name, basicCategory, null, limit, cursor, full));
+        }
         List<IngredientDto> results = ingredientService.findByFilters(name, basicCategory);
         return ResponseEntity.ok(results);
     }
     
     @GetMapping("/category/{basicCategory}")
-    public ResponseEntity<List<IngredientDto>> getByBasicCategory(@PathVariable String basicCategory) {
+    public ResponseEntity<?> getByBasicCategory(
+            @PathVariable String basicCategory,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean full) {
+        if (isPaged(limit, cursor)) {
+            return ResponseEntity.ok(ingredientService.listPage(null, basicCategory, null, limit, cursor, full));
+        }
         List<IngredientDto> results = ingredientService.findByBasicCategory(basicCategory);
         return ResponseEntity.ok(results);
     }
     
+    // Nœuds de l'arbre des catégories, parents avant enfants
+    @GetMapping("/category-tree")
+    public ResponseEntity<List<CategoryNodeDto>> getCategoryTree() {
+        return ResponseEntity.ok(categoryTreeService.getNodes());
+    }
+    
     @GetMapping("/barcode/{barcode}")
     public ResponseEntity<IngredientDto> findByBarcode(@PathVariable String barcode) {
         return ingredientService.findByBarcode(barcode)
@@ -110,16 +188,22 @@ public class IngredientController {
                 .orElse(ResponseEntity.notFound().build());
     }
     
+    // Traitement asynchrone : le thread Tomcat est libéré pendant l'appel OpenFoodFacts
     @GetMapping("/search-barcode/{barcode}")
-    public ResponseEntity<IngredientDto> searchByBarcode(@PathVariable String barcode) {
-        IngredientDto result = ingredientService.searchByBarcodeWithFallback(barcode);
-        return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+    public CompletableFuture<ResponseEntity<IngredientDto>> searchByBarcode(@PathVariable String barcode) {
+        return ingredientService.searchByBarcodeWithFallbackAsync(barcode)
+                .thenApply(result -> result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/search-barcodes")
+    public ResponseEntity<BarcodeBatchResultDto> searchByBarcodes(@Valid @RequestBody BarcodeBatchRequest request) {
+        return ResponseEntity.ok(barcodeBatchService.resolve(request));
     }
     
     @GetMapping("/search-openfoodfacts/{barcode}")
-    public ResponseEntity<IngredientDto> searchOpenFoodFactsOnly(@PathVariable String barcode) {
-        IngredientDto result = ingredientService.searchOpenFoodFactsOnly(barcode);
-        return result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build();
+    public CompletableFuture<ResponseEntity<IngredientDto>> searchOpenFoodFactsOnly(@PathVariable String barcode) {
+        return ingredientService.searchOpenFoodFactsOnlyAsync(barcode)
+                .thenApply(result -> result != null ? ResponseEntity.ok(result) : ResponseEntity.notFound().build());
     }
     
     @GetMapping("/{id}")
@@ -265,24 +349,63 @@ public class IngredientController {
         }
     }
     
+    @GetMapping("/stats")
+    public ResponseEntity<IngredientStatsDto> getStats() {
+        return ResponseEntity.ok(ingredientStatsService.getStats());
+    }
+    
     @GetMapping("/stats/nutritional")
     public ResponseEntity<Long> countWithNutritionalData() {
-        return ResponseEntity.ok(ingredientService.countItemsWithNutritionalData());
+        return ResponseEntity.ok(ingredientStatsService.countWithNutritionalData());
     }
     
     @GetMapping("/stats/openfoodfacts")
     public ResponseEntity<Long> countFromOpenFoodFacts() {
-        return ResponseEntity.ok(ingredientService.countItemsFromOpenFoodFacts());
+        return ResponseEntity.ok(ingredientStatsService.countFromOpenFoodFacts());
+    }
+    
+    @GetMapping("/stats/barcode-cache")
+    public ResponseEntity<Map<String, Object>> getBarcodeCacheStats() {
+        return ResponseEntity.ok(barcodeLookupService.getStats());
+    }
+    
+    @GetMapping("/stats/barcode-filter")
+    public ResponseEntity<Map<String, Object>> getBarcodeFilterStats() {
+        return ResponseEntity.ok(barcodeFilterService.getStats());
+    }
+    
+    // Santé de la dépendance OpenFoodFacts (503 tant que le disjoncteur est ouvert)
+    @GetMapping("/stats/openfoodfacts-health")
+    public ResponseEntity<Map<String, Object>> getOpenFoodFactsHealth() {
+        Map<String, Object> health = openFoodFactsService.getHealth();
+        HttpStatus status = "DOWN".equals(health.get("status")) ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+        return ResponseEntity.status(status).body(health);
     }
     
     @GetMapping("/openfoodfacts")
-    public ResponseEntity<List<IngredientDto>> getAllFromOpenFoodFacts() {
+    public ResponseEntity<?> getAllFromOpenFoodFacts(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean full) {
+        if (isPaged(limit, cursor)) {
+            return ResponseEntity.ok(ingredientService.listPage(null, null, "OPENFOODFACTS", limit, cursor, full));
+        }
         return ResponseEntity.ok(ingredientService.findAllFromOpenFoodFacts());
     }
     
     @GetMapping("/manual")
-    public ResponseEntity<List<IngredientDto>> getAllManual() {
+    public ResponseEntity<?> getAllManual(
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "false") boolean full) {
+        if (isPaged(limit, cursor)) {
+            return ResponseEntity.ok(ingredientService.listPage(null, null, "MANUAL", limit, cursor, full));
+        }
         return ResponseEntity.ok(ingredientService.findAllManual());
     }
 
+    private static boolean isPaged(Integer limit, String cursor) {
+        return limit != null || cursor != null;
+    }
+
 }
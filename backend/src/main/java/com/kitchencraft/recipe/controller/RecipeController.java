@@ -144,10 +144,11 @@ public class RecipeController {
             @RequestParam(required = false) Integer maxTime,
             @RequestParam(required = false) List<String> origins,
             @RequestParam(required = false) Boolean isBabyFriendly,
+            @RequestParam(required = false) List<String> categories,
             @RequestParam(required = false) Integer scaledPerson) {
 
         List<RecipeDto> recipes = recipeService.filterRecipes(
-                searchTerm, ingredients, minTime, maxTime, origins, isBabyFriendly, scaledPerson);
+                searchTerm, ingredients, minTime, maxTime, origins, isBabyFriendly, categories, scaledPerson);
         
         return recipes.isEmpty() ?
                 ResponseEntity.ok(recipes) :  // Retourner 200 avec liste vide au lieu de 404
@@ -1,7 +1,12 @@
 package com.kitchencraft.recipe.controller;
 
 import com.kitchencraft.recipe.dto.*;
+import com.kitchencraft.recipe.service.LeftoverSuggestionService;
+import com.kitchencraft.recipe.service.MealPlanGeneratorService;
+import com.kitchencraft.recipe.service.PlanArchiveService;
+import com.kitchencraft.recipe.service.PlanNutritionService;
 import com.kitchencraft.recipe.service.WeeklyPlanService;
+import jakarta.validation.Valid;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -14,9 +19,21 @@ import java.util.List;
 public class WeeklyPlanController {
 
     private final WeeklyPlanService weeklyPlanService;
-
-    public WeeklyPlanController(WeeklyPlanService weeklyPlanService) {
+    private final PlanNutritionService planNutritionService;
+    private final MealPlanGeneratorService mealPlanGeneratorService;
+    private final LeftoverSuggestionService leftoverSuggestionService;
+    private final PlanArchiveService planArchiveService;
+
+    public WeeklyPlanController(WeeklyPlanService weeklyPlanService,
+                                PlanNutritionService planNutritionService,
+                                MealPlanGeneratorService mealPlanGeneratorService,
+                                LeftoverSuggestionService leftoverSuggestionService,
+                                PlanArchiveService planArchiveService) {
         this.weeklyPlanService = weeklyPlanService;
+        this.planNutritionService = planNutritionService;
+        this.mealPlanGeneratorService = mealPlanGeneratorService;
+        this.leftoverSuggestionService = leftoverSuggestionService;
+        this.planArchiveService = planArchiveService;
     }
 
     @GetMapping
@@ -38,6 +55,24 @@ public class WeeklyPlanController {
         return ResponseEntity.ok(created);
     }
 
+    @GetMapping("/archive")
+    public ResponseEntity<List<ArchivedPlanDto>> getArchivedPlans() {
+        List<ArchivedPlanDto> plans = planArchiveService.getArchivedPlans();
+        return ResponseEntity.ok(plans);
+    }
+
+    @GetMapping("/archive/{id}")
+    public ResponseEntity<ArchivedPlanDto> getArchivedPlan(@PathVariable Long id) {
+        ArchivedPlanDto plan = planArchiveService.getArchivedPlan(id);
+        return ResponseEntity.ok(plan);
+    }
+
+    @PostMapping("/generate")
+    public ResponseEntity<MealPlanGenerationResultDto> generatePlan(@Valid @RequestBody MealPlanGenerationRequest request) {
+        MealPlanGenerationResultDto generated = mealPlanGeneratorService.generatePlan(request);
+        return ResponseEntity.ok(generated);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<WeeklyPlanDto> updatePlan(@PathVariable Long id, @RequestBody WeeklyPlanRequest request) {
         WeeklyPlanDto updated = weeklyPlanService.updatePlan(id, request);
@@ -58,6 +93,11 @@ public class WeeklyPlanController {
         return ResponseEntity.ok(copied);
     }
 
+    @GetMapping("/{id}/nutrition")
+    public ResponseEntity<PlanNutritionDto> getPlanNutrition(@PathVariable Long id) {
+        return ResponseEntity.ok(planNutritionService.getPlanNutrition(id));
+    }
+
     // Gestion des recettes dans les plannings
     @PostMapping("/{id}/recipes")
     public ResponseEntity<PlanRecipeDto> addRecipeToPlan(
@@ -99,4 +139,21 @@ public class WeeklyPlanController {
         ShoppingListItemDto updated = weeklyPlanService.updateShoppingListItem(itemId, request);
         return ResponseEntity.ok(updated);
     }
-}
\ No newline at end of file
+
+    @PutMapping("/{id}/shopping-list/items")
+    public ResponseEntity<ShoppingListBulkUpdateResultDto> bulkUpdateShoppingListItems(
+            @PathVariable Long id,
+            @RequestBody ShoppingListBulkUpdateRequest request) {
+        ShoppingListBulkUpdateResultDto result = weeklyPlanService.bulkUpdateShoppingListItems(id, request);
+        return ResponseEntity.ok(result);
+    }
+
+    @PostMapping("/{id}/shopping-list/leftover-suggestions")
+    public ResponseEntity<LeftoverSuggestionResultDto> suggestLeftoverRecipes(
+            @PathVariable Long id,
+            @Valid @RequestBody(required = false) LeftoverSuggestionRequest request) {
+        LeftoverSuggestionResultDto result = leftoverSuggestionService.suggest(id,
+                request != null ? request : new LeftoverSuggestionRequest());
+        return ResponseEntity.ok(result);
+    }
+}
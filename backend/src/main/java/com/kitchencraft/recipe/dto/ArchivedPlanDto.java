@@ -0,0 +1,26 @@
+package com.kitchencraft.recipe.dto;
+
+import com.kitchencraft.recipe.model.ArchivedPlan;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Planning archivé en lecture seule ; recipes et shoppingItems ne sont renseignés
+ * que pour la consultation d'un planning précis.
+ */
+@Data
+public class ArchivedPlanDto {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Integer durationWeeks;
+    private LocalDate createdDate;
+    private LocalDate archivedDate;
+    private Integer totalRecipes;
+    private List<ArchivedPlan.Recipe> recipes;
+    private List<ArchivedPlan.ShoppingItem> shoppingItems;
+}
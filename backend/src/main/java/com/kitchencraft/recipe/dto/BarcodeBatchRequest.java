@@ -0,0 +1,18 @@
+package com.kitchencraft.recipe.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class BarcodeBatchRequest {
+    @NotEmpty
+    @Size(max = 200)
+    private List<String> barcodes = new ArrayList<>();
+
+    // false : ne pas enregistrer les produits trouvés sur OpenFoodFacts
+    private boolean save = true;
+}
@@ -0,0 +1,31 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Résultat d'une résolution groupée de codes-barres, dans l'ordre de la requête.
+ * status : LOCAL, OPENFOODFACTS, NOT_FOUND, ERROR ou TIMEOUT.
+ */
+@Data
+public class BarcodeBatchResultDto {
+    private List<Resolution> results = new ArrayList<>();
+    private int localHits;
+    private int upstreamHits;
+    private int notFound;
+    private int failed;
+    private long elapsedMs;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Resolution {
+        private String barcode;
+        private String status;
+        private IngredientDto ingredient;
+    }
+}
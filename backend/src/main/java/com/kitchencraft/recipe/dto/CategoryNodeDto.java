@@ -0,0 +1,7 @@
+package com.kitchencraft.recipe.dto;
+
+/**
+ * Nœud de l'arbre des catégories ; parentCode = null pour la racine.
+ */
+public record CategoryNodeDto(Long id, String code, String parentCode, String label, int depth) {
+}
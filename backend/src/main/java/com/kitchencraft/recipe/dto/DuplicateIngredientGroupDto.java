@@ -0,0 +1,32 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Groupe d'ingrédients probablement en double. Le premier membre est l'ingrédient proposé
+ * comme survivant (winnerId) ; similarity est mesurée par rapport à son nom normalisé.
+ */
+@Data
+public class DuplicateIngredientGroupDto {
+    private String normalizedName;
+    private Long winnerId;
+    private List<Member> members = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Member {
+        private Long id;
+        private String name;
+        private String brand;
+        private String barcode;
+        private String dataSource;
+        private int usageCount;
+        private double similarity;
+    }
+}
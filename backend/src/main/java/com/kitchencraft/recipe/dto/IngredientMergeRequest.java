@@ -0,0 +1,25 @@
+package com.kitchencraft.recipe.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class IngredientMergeRequest {
+    @NotEmpty
+    @Valid
+    private List<Merge> merges = new ArrayList<>();
+
+    @Data
+    public static class Merge {
+        @NotNull
+        private Long winnerId;
+
+        @NotEmpty
+        private List<Long> loserIds = new ArrayList<>();
+    }
+}
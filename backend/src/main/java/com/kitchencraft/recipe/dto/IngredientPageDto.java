@@ -0,0 +1,14 @@
+package com.kitchencraft.recipe.dto;
+
+import java.util.List;
+
+/**
+ * Page d'ingrédients triés par nom ; nextCursor (opaque) est à repasser en paramètre cursor
+ * pour obtenir la page suivante, null sur la dernière page.
+ */
+public record IngredientPageDto<T>(
+        List<T> items,
+        String nextCursor,
+        boolean hasMore
+) {
+}
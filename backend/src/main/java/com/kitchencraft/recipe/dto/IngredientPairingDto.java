@@ -0,0 +1,8 @@
+package com.kitchencraft.recipe.dto;
+
+/**
+ * Ingrédient souvent utilisé avec un autre : recettes communes et PMI (plus elle est haute,
+ * plus l'association dépasse ce que la fréquence des deux ingrédients laisserait attendre).
+ */
+public record IngredientPairingDto(Long ingredientId, String name, int recipeCount, double pmi) {
+}
@@ -0,0 +1,35 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Statistiques des ingrédients : totaux et répartitions par catégorie de base, source et marque
+ * (marques limitées aux plus représentées), triées par effectif décroissant.
+ */
+@Data
+public class IngredientStatsDto {
+    private long total;
+    private long withNutritionalData;
+    private long fromOpenFoodFacts;
+    private List<GroupCount> byBasicCategory = new ArrayList<>();
+    private List<GroupCount> byDataSource = new ArrayList<>();
+    private List<GroupCount> topBrands = new ArrayList<>();
+    private long brandCount;
+    private LocalDateTime computedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class GroupCount {
+        private String key;
+        private long total;
+        private long withNutritionalData;
+        private long fromOpenFoodFacts;
+    }
+}
@@ -0,0 +1,13 @@
+package com.kitchencraft.recipe.dto;
+
+/**
+ * Vue allégée d'un ingrédient pour les listes, lue directement par une expression constructeur.
+ */
+public record IngredientSummaryDto(
+        Long id,
+        String name,
+        String basicCategory,
+        String brand,
+        Boolean hasNutrition
+) {
+}
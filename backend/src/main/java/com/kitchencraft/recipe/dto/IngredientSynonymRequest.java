@@ -0,0 +1,17 @@
+package com.kitchencraft.recipe.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class IngredientSynonymRequest {
+    @NotBlank
+    private String canonical;
+
+    @NotEmpty
+    private List<String> terms = new ArrayList<>();
+}
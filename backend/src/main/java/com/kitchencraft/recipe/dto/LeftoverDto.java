@@ -0,0 +1,15 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeftoverDto {
+    private Long ingredientId;
+    private String ingredientName;
+    private String unit;
+    private Double quantity;
+}
@@ -0,0 +1,29 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Combinaison de recettes proposée pour consommer les restes.
+ * consumedRatio : part moyenne des restes consommée (0..1), remaining : restes après les recettes.
+ */
+@Data
+public class LeftoverSuggestionDto {
+    private List<SuggestedRecipe> recipes = new ArrayList<>();
+    private double score;
+    private double consumedRatio;
+    private int missingIngredients;
+    private List<LeftoverDto> remaining = new ArrayList<>();
+
+    @Data
+    public static class SuggestedRecipe {
+        private Long recipeId;
+        private String name;
+        private Integer totalTime;
+        private Integer person;
+        private int leftoversUsed;
+        private int missingIngredients;
+    }
+}
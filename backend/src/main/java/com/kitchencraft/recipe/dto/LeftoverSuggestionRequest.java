@@ -0,0 +1,32 @@
+package com.kitchencraft.recipe.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Paramètres de recherche de recettes "anti-restes" pour une liste de courses.
+ * purchased : quantité réellement achetée par item (ex. sachet de 1 kg) ;
+ * à défaut, la quantité possédée de l'item est utilisée.
+ */
+@Data
+public class LeftoverSuggestionRequest {
+    private Map<Long, BigDecimal> purchased = new HashMap<>();
+
+    @Min(1)
+    @Max(4)
+    private Integer maxRecipes = 2;
+
+    @Min(1)
+    @Max(20)
+    private Integer limit = 5;
+
+    @Min(1)
+    private Integer servings;
+
+    private Integer maxTotalTime;
+}
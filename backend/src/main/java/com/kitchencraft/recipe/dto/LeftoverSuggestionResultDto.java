@@ -0,0 +1,16 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class LeftoverSuggestionResultDto {
+    private Long planId;
+    private List<LeftoverDto> leftovers = new ArrayList<>();
+    private List<LeftoverSuggestionDto> suggestions = new ArrayList<>();
+    private int candidatesScored;
+    private int nodesExpanded;
+    private long elapsedMs;
+}
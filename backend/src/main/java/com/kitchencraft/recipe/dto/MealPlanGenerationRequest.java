@@ -0,0 +1,55 @@
+package com.kitchencraft.recipe.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class MealPlanGenerationRequest {
+
+    @NotBlank(message = "Le nom du planning est obligatoire")
+    private String name;
+
+    private String description;
+
+    @NotNull(message = "La date de début est obligatoire")
+    private LocalDate startDate;
+
+    @NotNull(message = "La durée est obligatoire")
+    @Min(value = 1, message = "La durée doit être d'au moins 1 semaine")
+    @Max(value = 12, message = "La durée ne peut pas dépasser 12 semaines")
+    private Integer durationWeeks;
+
+    // Un repas par entrée et par jour (défaut : déjeuner, dîner)
+    @Size(max = 6, message = "6 repas par jour au maximum")
+    private List<String> mealTypes;
+
+    // Types de recette éligibles (défaut : Plat principal)
+    private List<String> recipeTypes;
+
+    // Objectifs journaliers par personne (optionnels)
+    @Positive(message = "L'objectif calorique doit être positif")
+    private Double targetKcalPerDay;
+
+    @Positive(message = "L'objectif protéique doit être positif")
+    private Double targetProteinPerDay;
+
+    // Temps total maximal (minutes) des recettes du lundi au vendredi
+    @Min(value = 0, message = "Le temps maximal ne peut pas être négatif")
+    private Integer maxWeekdayTotalTime;
+
+    @Min(value = 1, message = "Le nombre de personnes doit être d'au moins 1")
+    @Max(value = 100, message = "Le nombre de personnes ne peut pas dépasser 100")
+    private Integer scaledPerson;
+
+    private Boolean babyFriendlyOnly;
+
+    // Poids relatifs des objectifs secondaires (1.0 = défaut, 0 = ignoré)
+    @PositiveOrZero
+    private Double originVarietyWeight = 1.0;
+
+    @PositiveOrZero
+    private Double ingredientReuseWeight = 1.0;
+}
@@ -0,0 +1,16 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+@Data
+public class MealPlanGenerationResultDto {
+    private WeeklyPlanDto plan;
+    private double cost;
+    private int chains;
+    private long iterations;
+    private long elapsedMs;
+    private int distinctIngredients;
+    private int repeatedRecipes;
+    private double averageDailyKcal;
+    private double averageDailyProtein;
+}
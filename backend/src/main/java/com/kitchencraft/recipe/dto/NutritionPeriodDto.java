@@ -0,0 +1,24 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Agrégat nutritionnel d'une période (jour ou semaine) d'un planning.
+ * Les valeurs sont pondérées par le nombre de personnes planifié (scaledPerson).
+ */
+@Data
+public class NutritionPeriodDto {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private int plannedDays;
+    private int recipeCount;
+    private Map<String, BigDecimal> totals = new LinkedHashMap<>();
+    // Moyenne par jour planifié (jours sans recette exclus)
+    private Map<String, BigDecimal> dailyAverages = new LinkedHashMap<>();
+    private Map<String, Map<String, BigDecimal>> byMealType = new LinkedHashMap<>();
+}
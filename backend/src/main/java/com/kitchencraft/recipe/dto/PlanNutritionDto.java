@@ -0,0 +1,14 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class PlanNutritionDto {
+    private Long planId;
+    private NutritionPeriodDto plan;
+    private List<NutritionPeriodDto> weeks = new ArrayList<>();
+    private List<NutritionPeriodDto> days = new ArrayList<>();
+}
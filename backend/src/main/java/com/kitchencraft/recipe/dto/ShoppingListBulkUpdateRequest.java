@@ -0,0 +1,15 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ShoppingListBulkUpdateRequest {
+    private List<ShoppingListItemUpdate> items = new ArrayList<>();
+
+    // true : le moindre conflit de version annule toute la requête (409)
+    // false : les items sans conflit sont appliqués, les conflits sont renvoyés
+    private boolean atomic = false;
+}
@@ -0,0 +1,18 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ShoppingListBulkUpdateResultDto {
+    // Items effectivement modifiés, dans leur état après écriture
+    private List<ShoppingListItemDto> updated = new ArrayList<>();
+
+    // Items modifiés entre-temps par un autre membre du foyer (état actuel en base)
+    private List<ShoppingListItemDto> conflicts = new ArrayList<>();
+
+    // Identifiants inconnus ou n'appartenant pas au planning
+    private List<Long> notFound = new ArrayList<>();
+}
@@ -15,4 +15,5 @@ public class ShoppingListItemDto {
     private String unit;
     private Boolean isChecked;
     private Boolean isValidated;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.kitchencraft.recipe.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/**
+ * Mise à jour partielle d'un item de liste de courses dans une requête groupée.
+ * Seuls les champs non nuls sont écrits ; la version, si fournie, doit correspondre
+ * à celle de la base pour que la mise à jour soit appliquée.
+ */
+@Data
+public class ShoppingListItemUpdate {
+    private Long itemId;
+    private BigDecimal quantityOwned;
+    private Boolean isChecked;
+    private Boolean isValidated;
+    private Long version;
+}
@@ -0,0 +1,14 @@
+package com.kitchencraft.recipe.event;
+
+/**
+ * Publié après création, modification ou suppression d'un ingrédient.
+ * created = true pour un nouvel ingrédient, qui n'est encore référencé par aucune recette.
+ * nameChanged = true si le nom normalisé a changé (rattachement aux synonymes à recalculer).
+ * ingredientId = null pour une modification en masse (import).
+ */
+public record IngredientChangedEvent(Long ingredientId, boolean created, boolean nameChanged) {
+
+    public IngredientChangedEvent(Long ingredientId, boolean created) {
+        this(ingredientId, created, false);
+    }
+}
@@ -0,0 +1,10 @@
+package com.kitchencraft.recipe.event;
+
+import java.util.Set;
+
+/**
+ * Publié par une fusion d'ingrédients en double : les perdants sont supprimés, leurs références
+ * reportées sur les survivants. Reçu après commit, pour ne pas refléter une fusion annulée.
+ */
+public record IngredientsMergedEvent(Set<Long> loserIds, Set<Long> winnerIds) {
+}
@@ -0,0 +1,7 @@
+package com.kitchencraft.recipe.event;
+
+/**
+ * Publié après toute modification du contenu d'un planning (recettes ajoutées, retirées, planning supprimé).
+ */
+public record PlanChangedEvent(Long planId) {
+}
@@ -0,0 +1,8 @@
+package com.kitchencraft.recipe.event;
+
+/**
+ * Publié après création, modification ou suppression d'une recette.
+ * Permet aux index et caches en mémoire de s'invalider sans couplage direct avec RecipeService.
+ */
+public record RecipeChangedEvent(Long recipeId) {
+}
@@ -0,0 +1,18 @@
+package com.kitchencraft.recipe.exception;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Échec d'appel à l'API OpenFoodFacts (réseau, délai, réponse invalide).
+ * Distinct d'un produit inconnu, qui n'est pas une erreur.
+ */
+public class OpenFoodFactsException extends BusinessException {
+
+    public OpenFoodFactsException(String message, Throwable cause) {
+        super(message, cause, HttpStatus.BAD_GATEWAY, "Upstream Error");
+    }
+
+    public OpenFoodFactsException(String message) {
+        super(message, HttpStatus.BAD_GATEWAY, "Upstream Error");
+    }
+}
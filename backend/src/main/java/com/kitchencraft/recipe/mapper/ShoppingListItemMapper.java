@@ -20,6 +20,7 @@ public class ShoppingListItemMapper {
         dto.setUnit(item.getUnit());
         dto.setIsChecked(item.getIsChecked());
         dto.setIsValidated(item.getIsValidated());
+        dto.setVersion(item.getVersion());
 
         return dto;
     }
@@ -0,0 +1,90 @@
+package com.kitchencraft.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Planning archivé : une seule ligne par planning, recettes et liste de courses
+ * dénormalisées en jsonb (compressé par TOAST). Les noms sont figés au moment de
+ * l'archivage pour que la lecture ne dépende plus des tables actives.
+ *
+ * L'identifiant étant affecté, Persistable évite à saveAll un SELECT par planning :
+ * une instance créée est neuve, une instance chargée ne l'est plus.
+ */
+@Entity
+@Table(name = "weekly_plan_archive", indexes = {
+        @Index(name = "idx_weekly_plan_archive_start_date", columnList = "start_date")
+})
+@Getter
+@Setter
+public class ArchivedPlan implements Persistable<Long> {
+
+    // Même identifiant que le planning d'origine
+    @Id
+    private Long id;
+
+    @Column(nullable = false, name = "name")
+    private String name;
+
+    @Column(nullable = true, name = "description")
+    private String description;
+
+    @Column(nullable = false, name = "start_date")
+    private LocalDate startDate;
+
+    @Column(nullable = false, name = "end_date")
+    private LocalDate endDate;
+
+    @Column(nullable = false, name = "duration_weeks")
+    private Integer durationWeeks;
+
+    @Column(nullable = false, name = "created_date")
+    private LocalDate createdDate;
+
+    @Column(nullable = false, name = "archived_date")
+    private LocalDate archivedDate;
+
+    @Column(nullable = false, name = "recipe_count")
+    private Integer recipeCount;
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, name = "recipes", columnDefinition = "jsonb")
+    private List<Recipe> recipes = new ArrayList<>();
+
+    @JdbcTypeCode(SqlTypes.JSON)
+    @Column(nullable = false, name = "shopping_items", columnDefinition = "jsonb")
+    private List<ShoppingItem> shoppingItems = new ArrayList<>();
+
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean isNew = true;
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
+    public record Recipe(Long recipeId, String recipeName, LocalDate plannedDate, String mealType, Integer scaledPerson) {
+    }
+
+    public record ShoppingItem(Long ingredientId, String ingredientName, String unit,
+                               BigDecimal quantityNeeded, BigDecimal quantityOwned, Boolean isChecked) {
+    }
+}
@@ -0,0 +1,39 @@
+package com.kitchencraft.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.io.Serializable;
+
+/**
+ * Table de fermeture de l'arbre des catégories : une ligne par couple (ancêtre, descendant),
+ * nœud lui-même compris (depth = 0). Un sous-arbre se lit par une seule jointure sur ancestor_id.
+ */
+@Entity
+@Table(name = "category_closure", indexes = {
+        @Index(name = "idx_category_closure_descendant", columnList = "descendant_id")
+})
+@IdClass(CategoryClosure.Key.class)
+@Getter
+@Setter
+public class CategoryClosure {
+
+    @Id
+    @Column(name = "ancestor_id")
+    private Long ancestorId;
+
+    @Id
+    @Column(name = "descendant_id")
+    private Long descendantId;
+
+    @Column(nullable = false, name = "depth")
+    private int depth;
+
+    @Data
+    public static class Key implements Serializable {
+        private Long ancestorId;
+        private Long descendantId;
+    }
+}
@@ -0,0 +1,32 @@
+package com.kitchencraft.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Nœud de l'arbre des catégories d'ingrédients (voir CategoryTreeService).
+ * Les catégories de base sont les enfants directs de la racine, leur libellé est celui de Ingredient.basicCategory.
+ */
+@Entity
+@Table(name = "category_node")
+@Getter
+@Setter
+public class CategoryNode {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, name = "code", length = 100)
+    private String code;
+
+    @Column(nullable = false, name = "label")
+    private String label;
+
+    @Column(name = "parent_id")
+    private Long parentId;
+
+    @Column(nullable = false, name = "depth")
+    private int depth;
+}
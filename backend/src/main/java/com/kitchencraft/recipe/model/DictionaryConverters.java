@@ -0,0 +1,79 @@
+package com.kitchencraft.recipe.model;
+
+import com.kitchencraft.recipe.service.DictionaryService;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Conversions texte <-> identifiant de dictionary_value, une par domaine.
+ * Instanciées par Hibernate via le conteneur Spring ; les valeurs lues sont les instances
+ * partagées du cache de DictionaryService.
+ */
+public final class DictionaryConverters {
+
+    private DictionaryConverters() {
+    }
+
+    private abstract static class DictionaryConverter implements AttributeConverter<String, Integer> {
+
+        private final DictionaryService dictionaryService;
+        private final DictionaryValue.Domain domain;
+
+        DictionaryConverter(DictionaryService dictionaryService, DictionaryValue.Domain domain) {
+            this.dictionaryService = dictionaryService;
+            this.domain = domain;
+        }
+
+        @Override
+        public Integer convertToDatabaseColumn(String value) {
+            return value != null ? dictionaryService.idOf(domain, value) : null;
+        }
+
+        @Override
+        public String convertToEntityAttribute(Integer id) {
+            return id != null ? dictionaryService.valueOf(id) : null;
+        }
+    }
+
+    @Converter
+    public static class Unit extends DictionaryConverter {
+        public Unit(DictionaryService dictionaryService) {
+            super(dictionaryService, DictionaryValue.Domain.UNIT);
+        }
+    }
+
+    @Converter
+    public static class RecipeType extends DictionaryConverter {
+        public RecipeType(DictionaryService dictionaryService) {
+            super(dictionaryService, DictionaryValue.Domain.RECIPE_TYPE);
+        }
+    }
+
+    @Converter
+    public static class RecipeOrigin extends DictionaryConverter {
+        public RecipeOrigin(DictionaryService dictionaryService) {
+            super(dictionaryService, DictionaryValue.Domain.RECIPE_ORIGIN);
+        }
+    }
+
+    @Converter
+    public static class MealType extends DictionaryConverter {
+        public MealType(DictionaryService dictionaryService) {
+            super(dictionaryService, DictionaryValue.Domain.MEAL_TYPE);
+        }
+    }
+
+    @Converter
+    public static class IngredientCategory extends DictionaryConverter {
+        public IngredientCategory(DictionaryService dictionaryService) {
+            super(dictionaryService, DictionaryValue.Domain.INGREDIENT_CATEGORY);
+        }
+    }
+
+    @Converter
+    public static class DataSource extends DictionaryConverter {
+        public DataSource(DictionaryService dictionaryService) {
+            super(dictionaryService, DictionaryValue.Domain.DATA_SOURCE);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.kitchencraft.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Valeur d'un dictionnaire de colonnes à faible cardinalité (unités, types et origines de recettes,
+ * types de repas, catégories de base et sources des ingrédients) : les lignes ne stockent que l'identifiant (voir DictionaryService et DictionaryConverters).
+ */
+@Entity
+@Table(name = "dictionary_value",
+       uniqueConstraints = @UniqueConstraint(name = "uk_dictionary_value_domain_value", columnNames = {"domain", "value"}))
+@Getter
+@Setter
+public class DictionaryValue {
+
+    public enum Domain {
+        UNIT,
+        RECIPE_TYPE,
+        RECIPE_ORIGIN,
+        MEAL_TYPE,
+        INGREDIENT_CATEGORY,
+        DATA_SOURCE
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, name = "domain", length = 30)
+    private Domain domain;
+
+    @Column(nullable = false, name = "value")
+    private String value;
+}
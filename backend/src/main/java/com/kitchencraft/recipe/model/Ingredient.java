@@ -1,6 +1,8 @@
 package com.kitchencraft.recipe.model;
 
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -10,6 +12,14 @@ import java.time.LocalDateTime;
 import java.math.BigDecimal;
 
 @Entity
+@Table(indexes = {
+        // Listes paginées par clé (nom, id)
+        @Index(name = "idx_ingredient_name_id", columnList = "name, id"),
+        @Index(name = "idx_ingredient_category_node", columnList = "category_node_id"),
+        // Ingrédients les plus utilisés, lus dans l'ordre des compteurs
+        @Index(name = "idx_ingredient_recipe_usage", columnList = "recipe_usage_count DESC, id"),
+        @Index(name = "idx_ingredient_shopping_list_usage", columnList = "shopping_list_usage_count DESC, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -23,6 +33,10 @@ public class Ingredient {
     @Column(nullable = false, name = "name")
     private String name;
 
+    // Nom sans accents ni casse, recalculé à chaque écriture ; index créés par NormalizedNameService
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
     @Column(nullable = false, name = "category")
     private String category;
 
@@ -33,15 +47,31 @@ public class Ingredient {
     @Column(unique = true)
     private String barcode;
 
-    @Column(name = "basic_category")
+    // Identifiants de dictionary_value (voir DictionaryService)
+    @Convert(converter = DictionaryConverters.IngredientCategory.class)
+    @Column(name = "basic_category_id")
     private String basicCategory;
 
+    // Mêmes colonnes en lecture seule : filtres par identifiant, sans créer de valeur dans le dictionnaire
+    @Column(name = "basic_category_id", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer basicCategoryId;
+
+    // Nœud de l'arbre des catégories, rattaché par CategoryTreeService (jamais écrit par Hibernate)
+    @Column(name = "category_node_id", insertable = false, updatable = false)
+    private Long categoryNodeId;
+
     @Column(name = "openfoodfacts_id")
     private String openFoodFactsId;
 
-    @Column(name = "data_source")
+    @Convert(converter = DictionaryConverters.DataSource.class)
+    @Column(name = "data_source_id")
     private String dataSource = "MANUAL";
 
+    @Column(name = "data_source_id", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer dataSourceId;
+
     @Column(name = "last_sync")
     private LocalDateTime lastSync;
 
@@ -51,6 +81,15 @@ public class Ingredient {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Compteurs d'utilisation tenus à jour par trigger (IngredientUsageService), jamais écrits par Hibernate
+    @Column(name = "recipe_usage_count", insertable = false, updatable = false,
+            columnDefinition = "integer default 0 not null")
+    private int recipeUsageCount;
+
+    @Column(name = "shopping_list_usage_count", insertable = false, updatable = false,
+            columnDefinition = "integer default 0 not null")
+    private int shoppingListUsageCount;
+
     // Macronutrients per 100g (all nullable)
     @Column(precision = 8, scale = 3)
     private BigDecimal energy; // kJ
@@ -174,9 +213,15 @@ public class Ingredient {
     @Column(precision = 8, scale = 3)
     private BigDecimal fluoride; // mg
 
+    @PrePersist
+    public void prePersist() {
+        normalizedName = IngredientNameNormalizer.fold(name);
+    }
+
     @PreUpdate
     public void preUpdate() {
         updatedAt = LocalDateTime.now();
+        normalizedName = IngredientNameNormalizer.fold(name);
     }
 
     // Helper method to determine if this item has nutritional data
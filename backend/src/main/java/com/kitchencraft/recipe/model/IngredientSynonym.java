@@ -0,0 +1,27 @@
+package com.kitchencraft.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Entrée du dictionnaire des synonymes d'ingrédients (voir IngredientSynonymService) :
+ * term est un autre nom de canonical (traduction, pluriel, variante d'écriture, variété).
+ * Les deux sont stockés sous forme normalisée (IngredientNameNormalizer.fold).
+ */
+@Entity
+@Table(name = "ingredient_synonym")
+@Getter
+@Setter
+public class IngredientSynonym {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, unique = true, name = "term", length = 200)
+    private String term;
+
+    @Column(nullable = false, name = "canonical", length = 200)
+    private String canonical;
+}
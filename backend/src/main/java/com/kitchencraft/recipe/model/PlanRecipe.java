@@ -7,6 +7,10 @@ import lombok.Setter;
 import java.time.LocalDate;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_plan_recipe_plan_date", columnList = "weekly_plan_id, planned_date"),
+        @Index(name = "idx_plan_recipe_planned_date", columnList = "planned_date")
+})
 @Getter
 @Setter
 public class PlanRecipe {
@@ -26,7 +30,8 @@ public class PlanRecipe {
     @Column(nullable = false, name = "planned_date")
     private LocalDate plannedDate;
 
-    @Column(nullable = true, name = "meal_type")
+    @Convert(converter = DictionaryConverters.MealType.class)
+    @Column(nullable = true, name = "meal_type_id")
     private String mealType; // "déjeuner", "dîner", etc.
 
     @Column(nullable = true, name = "scaled_person")
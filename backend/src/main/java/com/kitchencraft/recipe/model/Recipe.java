@@ -1,6 +1,8 @@
 package com.kitchencraft.recipe.model;
 
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
@@ -22,15 +24,32 @@ public class Recipe {
     @Column(nullable = false, name = "name")
     private String name;
 
-    @Column(nullable = false, name = "type")
+    // Nom sans accents ni casse, recalculé à chaque écriture ; index créés par NormalizedNameService
+    @Column(name = "normalized_name")
+    private String normalizedName;
+
+    // Identifiants de dictionary_value (voir DictionaryService)
+    @Convert(converter = DictionaryConverters.RecipeType.class)
+    @Column(name = "type_id")
     private String type;
 
+    // Même colonne en lecture seule : filtres par identifiant, sans passer par le dictionnaire
+    @Column(name = "type_id", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer typeId;
+
     @Column(nullable = true, name = "description")
     private String description;
 
-    @Column(nullable = true, name = "origin")
+    @Convert(converter = DictionaryConverters.RecipeOrigin.class)
+    @Column(nullable = true, name = "origin_id")
     private String origin;
 
+    // Même colonne en lecture seule : filtres par identifiant, sans passer par le dictionnaire
+    @Column(name = "origin_id", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer originId;
+
     @Column(nullable = false, name = "preparation_time")
     private Integer preparationTime;
 
@@ -74,6 +93,7 @@ public class Recipe {
     @PreUpdate
     public void prePersist() {
         calculateTotalTime();
+        normalizedName = IngredientNameNormalizer.fold(name);
     }
 
 }
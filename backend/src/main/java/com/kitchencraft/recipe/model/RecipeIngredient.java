@@ -1,10 +1,14 @@
 package com.kitchencraft.recipe.model;
 
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_recipe_ingredient_ingredient", columnList = "ingredient_id")
+})
 @Getter
 @Setter
 public class RecipeIngredient {
@@ -24,7 +28,13 @@ public class RecipeIngredient {
     @Column(nullable = false, name = "quantity")
     private double quantity;
 
-    @Column(nullable = false, name = "unit")
+    @Convert(converter = DictionaryConverters.Unit.class)
+    @Column(name = "unit_id")
     private String unit;
 
+    // Même colonne en lecture seule : regroupements par identifiant, sans passer par le dictionnaire
+    @Column(name = "unit_id", insertable = false, updatable = false)
+    @Setter(AccessLevel.NONE)
+    private Integer unitId;
+
 }
@@ -7,6 +7,10 @@ import lombok.Setter;
 import java.math.BigDecimal;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_shopping_list_item_plan", columnList = "weekly_plan_id"),
+        @Index(name = "idx_shopping_list_item_ingredient", columnList = "ingredient_id")
+})
 @Getter
 @Setter
 public class ShoppingListItem {
@@ -32,7 +36,8 @@ public class ShoppingListItem {
     @Column(nullable = false, name = "quantity_to_buy", precision = 10, scale = 2)
     private BigDecimal quantityToBuy;
 
-    @Column(nullable = false, name = "unit")
+    @Convert(converter = DictionaryConverters.Unit.class)
+    @Column(name = "unit_id")
     private String unit;
 
     @Column(nullable = false, name = "is_checked")
@@ -41,6 +46,11 @@ public class ShoppingListItem {
     @Column(nullable = false, name = "is_validated")
     private Boolean isValidated = false;
 
+    // Version optimiste, incrémentée à chaque écriture (unitaire ou en masse)
+    @Version
+    @Column(nullable = false, name = "version", columnDefinition = "bigint default 0 not null")
+    private Long version = 0L;
+
     public void calculateQuantityToBuy() {
         this.quantityToBuy = this.quantityNeeded.subtract(this.quantityOwned);
         if (this.quantityToBuy.compareTo(BigDecimal.ZERO) < 0) {
@@ -0,0 +1,66 @@
+package com.kitchencraft.recipe.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Avancement d'un traitement de fond par lots, pour reprendre après un arrêt.
+ * cursor : dernier identifiant traité (parcours par clé croissante), ou dernière ligne validée d'un import.
+ * Compteurs de la resynchronisation : changed, unchanged, not_found ; d'un import de dump : upserted, skipped.
+ */
+@Entity
+@Table(name = "sync_progress")
+@Getter
+@Setter
+public class SyncProgress {
+
+    @Id
+    @Column(name = "job_name")
+    private String jobName;
+
+    @Column(nullable = false, name = "cursor_id")
+    private Long cursor = 0L;
+
+    @Column(nullable = true, name = "cutoff")
+    private LocalDateTime cutoff;
+
+    @Column(nullable = true, name = "checkpoint_data", length = 1024)
+    private String checkpoint;
+
+    @Column(nullable = false, name = "started_at")
+    private LocalDateTime startedAt;
+
+    @Column(nullable = true, name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = true, name = "completed_at")
+    private LocalDateTime completedAt;
+
+    @Column(nullable = false, name = "processed")
+    private Long processed = 0L;
+
+    @Column(nullable = false, name = "changed")
+    private Long changed = 0L;
+
+    @Column(nullable = false, name = "unchanged")
+    private Long unchanged = 0L;
+
+    @Column(nullable = false, name = "not_found")
+    private Long notFound = 0L;
+
+    @Column(nullable = false, name = "failed")
+    private Long failed = 0L;
+
+    @Column(nullable = false, name = "upserted", columnDefinition = "bigint default 0 not null")
+    private Long upserted = 0L;
+
+    @Column(nullable = false, name = "skipped", columnDefinition = "bigint default 0 not null")
+    private Long skipped = 0L;
+
+    public boolean isRunning() {
+        return completedAt == null;
+    }
+}
@@ -9,6 +9,10 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_weekly_plan_start_date", columnList = "start_date"),
+        @Index(name = "idx_weekly_plan_end_date", columnList = "end_date")
+})
 @Getter
 @Setter
 public class WeeklyPlan {
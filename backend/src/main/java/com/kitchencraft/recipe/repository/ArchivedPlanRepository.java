@@ -0,0 +1,16 @@
+package com.kitchencraft.recipe.repository;
+
+import com.kitchencraft.recipe.model.ArchivedPlan;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ArchivedPlanRepository extends JpaRepository<ArchivedPlan, Long> {
+
+    // Liste des plannings archivés sans les colonnes jsonb
+    @Query("SELECT ap.id, ap.name, ap.description, ap.startDate, ap.endDate, ap.durationWeeks, ap.createdDate, ap.archivedDate, ap.recipeCount FROM ArchivedPlan ap ORDER BY ap.startDate DESC")
+    List<Object[]> findSummaries();
+}
@@ -1,35 +1,46 @@
 package com.kitchencraft.recipe.repository;
 
+import com.kitchencraft.recipe.dto.IngredientSummaryDto;
 import com.kitchencraft.recipe.model.Ingredient;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Pageable;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
-    Optional<Ingredient> findByNameIgnoreCase(String name);
+    // Recherche exacte sur le nom normalisé (IngredientNameNormalizer.fold)
+    Optional<Ingredient> findFirstByNormalizedNameOrderByIdAsc(String normalizedName);
 
-    // Autocomplétion basique
-    @Query("SELECT i.name FROM Ingredient i WHERE LOWER(i.name) LIKE LOWER(CONCAT(:prefix, '%')) ORDER BY i.name")
+    List<Ingredient> findByBarcodeIn(Collection<String> barcodes);
+
+    // Autocomplétion basique (préfixe normalisé)
+    @Query("SELECT i.name FROM Ingredient i WHERE i.normalizedName LIKE CONCAT(:prefix, '%') ORDER BY i.name")
     List<String> findIngredientNamesByPrefix(@Param("prefix") String prefix, Pageable pageable);
 
     // Autocomplétion plus souple (contient le texte)
-    @Query("SELECT i.name FROM Ingredient i WHERE LOWER(i.name) LIKE LOWER(CONCAT('%', :search, '%')) ORDER BY i.name")
+    @Query("SELECT i.name FROM Ingredient i WHERE i.normalizedName LIKE CONCAT('%', :search, '%') ORDER BY i.name")
     List<String> findIngredientNamesContaining(@Param("search") String search, Pageable pageable);
 
-    // Recherche par catégorie aussi
+    // Recherche par catégorie aussi ; synonyms : noms normalisés des groupes de synonymes correspondant à la saisie
     @Query("""
-        SELECT CONCAT(i.name, ' (', COALESCE(i.basicCategory, i.category, 'Autres'), ')') FROM Ingredient i 
-        WHERE (LOWER(i.name) LIKE LOWER(CONCAT('%', :search, '%')) 
-               OR LOWER(COALESCE(i.basicCategory, i.category, '')) LIKE LOWER(CONCAT('%', :search, '%')))
+        SELECT CONCAT(i.name, ' (', COALESCE(c.value, i.category, 'Autres'), ')') FROM Ingredient i 
+        LEFT JOIN DictionaryValue c ON c.id = i.basicCategoryId
+        WHERE (i.normalizedName LIKE CONCAT('%', :search, '%') 
+               OR i.normalizedName IN :synonyms
+               OR LOWER(COALESCE(c.value, i.category, '')) LIKE LOWER(CONCAT('%', :categorySearch, '%')))
         ORDER BY 
-            CASE WHEN LOWER(i.name) LIKE LOWER(CONCAT(:search, '%')) THEN 1 ELSE 2 END,
+            CASE WHEN i.normalizedName LIKE CONCAT(:search, '%') OR i.normalizedName IN :synonyms THEN 1 ELSE 2 END,
             i.name
     """)
-    List<String> findIngredientNamesWithBasicCategory(@Param("search") String search, Pageable pageable);
+    List<String> findIngredientNamesWithBasicCategory(@Param("search") String search,
+                                                      @Param("categorySearch") String categorySearch,
+                                                      @Param("synonyms") List<String> synonyms,
+                                                      Pageable pageable);
 
     // Catégorie la plus utilisée
     @Query("""
@@ -41,39 +52,89 @@ public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
     """)
     Optional<String> findMostUsedCategory();
 
-    // Ingrédients orphelins (non utilisés dans aucune recette)
+    // Ingrédients orphelins (utilisés dans aucune recette ni aucune liste de courses)
     @Query("""
         SELECT i.name
         FROM Ingredient i
-        WHERE i.id NOT IN (
-            SELECT DISTINCT ri.ingredient.id
-            FROM RecipeIngredient ri
-        )
+        WHERE NOT EXISTS (SELECT 1 FROM RecipeIngredient ri WHERE ri.ingredient = i)
+          AND NOT EXISTS (SELECT 1 FROM ShoppingListItem s WHERE s.ingredient = i)
+        ORDER BY i.name
     """)
     List<String> findOrphanIngredients();
 
-    // Supprimer par nom
-    void deleteByName(String name);
-
     // Nouvelles méthodes pour le système nutritionnel fusionné
+    // Catégories et sources filtrées par identifiant de dictionary_value (DictionaryService.find)
     
     @Query("""
         SELECT i FROM Ingredient i
-        WHERE (:name IS NULL OR LOWER(i.name) LIKE LOWER(CONCAT('%', :name, '%')))
-        AND (:basicCategory IS NULL OR i.basicCategory = :basicCategory)
+        WHERE (:name IS NULL OR i.normalizedName LIKE CONCAT('%', :name, '%'))
+        AND (:basicCategoryId IS NULL OR i.basicCategoryId = :basicCategoryId)
         """)
-    List<Ingredient> findByFilters(@Param("name") String name, @Param("basicCategory") String basicCategory);
+    List<Ingredient> findByFilters(@Param("name") String name, @Param("basicCategoryId") Integer basicCategoryId);
     
-    List<Ingredient> findByBasicCategory(String basicCategory);
+    List<Ingredient> findByBasicCategoryId(Integer basicCategoryId);
+
+    // Ingrédients rattachés au nœud ou à l'un de ses descendants (table de fermeture)
+    @Query("""
+        SELECT i FROM Ingredient i
+        JOIN CategoryClosure c ON c.descendantId = i.categoryNodeId
+        WHERE c.ancestorId = :nodeId
+        ORDER BY i.name
+        """)
+    List<Ingredient> findUnderCategory(@Param("nodeId") Long nodeId);
+
+    // Première page allégée, dans l'ordre (nom, id) de idx_ingredient_name_id
+    @Query("""
+        SELECT new com.kitchencraft.recipe.dto.IngredientSummaryDto(i.id, i.name, i.basicCategory, i.brand,
+            CASE WHEN i.energy IS NOT NULL OR i.energyKcal IS NOT NULL OR i.carbohydrates IS NOT NULL
+                      OR i.protein IS NOT NULL OR i.fat IS NOT NULL THEN true ELSE false END)
+        FROM Ingredient i
+        WHERE (:name IS NULL OR i.normalizedName LIKE CONCAT('%', :name, '%'))
+        AND (:basicCategoryId IS NULL OR i.basicCategoryId = :basicCategoryId)
+        AND (:dataSourceId IS NULL OR i.dataSourceId = :dataSourceId)
+        ORDER BY i.name, i.id
+        """)
+    List<IngredientSummaryDto> findSummaryFirstPage(@Param("name") String name,
+                                                    @Param("basicCategoryId") Integer basicCategoryId,
+                                                    @Param("dataSourceId") Integer dataSourceId,
+                                                    Pageable pageable);
+
+    // Page suivante : comparaison de tuples (name, id) > (?, ?), que Postgres résout en parcours d'index
+    // à partir du curseur, contrairement à la disjonction équivalente
+    @Query("""
+        SELECT new com.kitchencraft.recipe.dto.IngredientSummaryDto(i.id, i.name, i.basicCategory, i.brand,
+            CASE WHEN i.energy IS NOT NULL OR i.energyKcal IS NOT NULL OR i.carbohydrates IS NOT NULL
+                      OR i.protein IS NOT NULL OR i.fat IS NOT NULL THEN true ELSE false END)
+        FROM Ingredient i
+        WHERE (i.name, i.id) > (:afterName, :afterId)
+        AND (:name IS NULL OR i.normalizedName LIKE CONCAT('%', :name, '%'))
+        AND (:basicCategoryId IS NULL OR i.basicCategoryId = :basicCategoryId)
+        AND (:dataSourceId IS NULL OR i.dataSourceId = :dataSourceId)
+        ORDER BY i.name, i.id
+        """)
+    List<IngredientSummaryDto> findSummaryPageAfter(@Param("name") String name,
+                                                    @Param("basicCategoryId") Integer basicCategoryId,
+                                                    @Param("dataSourceId") Integer dataSourceId,
+                                                    @Param("afterName") String afterName,
+                                                    @Param("afterId") Long afterId,
+                                                    Pageable pageable);
     
     Optional<Ingredient> findByBarcode(String barcode);
+
+    // Parcours par clé des ingrédients à resynchroniser : (id, code-barres)
+    @Query("""
+        SELECT i.id, i.barcode FROM Ingredient i
+        WHERE i.barcode IS NOT NULL AND (i.lastSync IS NULL OR i.lastSync < :cutoff) AND i.id > :afterId
+        ORDER BY i.id
+        """)
+    List<Object[]> findStaleForSync(@Param("cutoff") LocalDateTime cutoff, @Param("afterId") Long afterId, Pageable pageable);
     
-    long countByBasicCategory(String basicCategory);
+    long countByBasicCategoryId(Integer basicCategoryId);
     
-    @Query("SELECT i FROM Ingredient i WHERE i.dataSource = 'OPENFOODFACTS'")
+    @Query("SELECT i FROM Ingredient i JOIN DictionaryValue s ON s.id = i.dataSourceId WHERE s.value = 'OPENFOODFACTS'")
     List<Ingredient> findAllFromOpenFoodFacts();
     
-    @Query("SELECT i FROM Ingredient i WHERE i.dataSource = 'MANUAL'")
+    @Query("SELECT i FROM Ingredient i JOIN DictionaryValue s ON s.id = i.dataSourceId WHERE s.value = 'MANUAL'")
     List<Ingredient> findAllManual();
     
     @Query("SELECT i FROM Ingredient i WHERE i.openFoodFactsId IS NOT NULL")
@@ -87,7 +148,14 @@ public interface IngredientRepository extends JpaRepository<Ingredient, Long> {
     @Query("SELECT DISTINCT i.brand FROM Ingredient i WHERE i.brand IS NOT NULL ORDER BY i.brand")
     List<String> findAllBrands();
     
-    @Query("SELECT DISTINCT i.basicCategory FROM Ingredient i WHERE i.basicCategory IS NOT NULL ORDER BY i.basicCategory")
+    @Query("SELECT DISTINCT c.value FROM Ingredient i JOIN DictionaryValue c ON c.id = i.basicCategoryId ORDER BY c.value")
     List<String> findAllBasicCategories();
 
+    // Compteurs tenus par trigger (IngredientUsageService), lus dans l'ordre des index idx_ingredient_*_usage
+    @Query("SELECT i.name FROM Ingredient i ORDER BY i.recipeUsageCount DESC, i.id")
+    List<String> findNamesByRecipeUsage(Pageable pageable);
+
+    @Query("SELECT i.name FROM Ingredient i WHERE i.shoppingListUsageCount > 0 ORDER BY i.shoppingListUsageCount DESC, i.id")
+    List<String> findNamesByShoppingListUsage(Pageable pageable);
+
 }
@@ -0,0 +1,18 @@
+package com.kitchencraft.recipe.repository;
+
+import com.kitchencraft.recipe.model.IngredientSynonym;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IngredientSynonymRepository extends JpaRepository<IngredientSynonym, Long> {
+
+    Optional<IngredientSynonym> findByTerm(String term);
+
+    List<IngredientSynonym> findAllByOrderByCanonicalAscTermAsc();
+
+    long deleteByTerm(String term);
+}
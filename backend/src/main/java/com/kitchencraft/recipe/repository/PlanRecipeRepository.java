@@ -2,15 +2,17 @@ package com.kitchencraft.recipe.repository;
 
 import com.kitchencraft.recipe.model.PlanRecipe;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface PlanRecipeRepository extends JpaRepository<PlanRecipe, Long> {
+public interface PlanRecipeRepository extends JpaRepository<PlanRecipe, Long>, PlanRecipeRepositoryCustom {
 
     List<PlanRecipe> findByWeeklyPlanIdOrderByPlannedDateAsc(Long weeklyPlanId);
 
@@ -22,5 +24,17 @@ public interface PlanRecipeRepository extends JpaRepository<PlanRecipe, Long> {
     @Query("SELECT pr FROM PlanRecipe pr WHERE pr.weeklyPlan.id = :planId AND pr.plannedDate BETWEEN :startDate AND :endDate")
     List<PlanRecipe> findByPlanIdAndDateRange(@Param("planId") Long planId, @Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
 
+    // Projection légère pour les agrégats nutritionnels : date, repas, portions planifiées, recette, portions de base
+    @Query("SELECT pr.plannedDate, pr.mealType, pr.scaledPerson, r.id, r.person FROM PlanRecipe pr JOIN pr.recipe r WHERE pr.weeklyPlan.id = :planId ORDER BY pr.plannedDate")
+    List<Object[]> findNutritionRowsByPlanId(@Param("planId") Long planId);
+
+    // Projection pour l'archivage : planning, recette, nom, date, repas, portions
+    @Query("SELECT pr.weeklyPlan.id, r.id, r.name, pr.plannedDate, pr.mealType, pr.scaledPerson FROM PlanRecipe pr JOIN pr.recipe r WHERE pr.weeklyPlan.id IN :planIds ORDER BY pr.plannedDate")
+    List<Object[]> findArchiveRowsByPlanIds(@Param("planIds") Collection<Long> planIds);
+
+    @Modifying
+    @Query("DELETE FROM PlanRecipe pr WHERE pr.weeklyPlan.id IN :planIds")
+    int deleteByWeeklyPlanIdIn(@Param("planIds") Collection<Long> planIds);
+
     void deleteByWeeklyPlanIdAndRecipeId(Long weeklyPlanId, Long recipeId);
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.kitchencraft.recipe.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface PlanRecipeRepositoryCustom {
+
+    /**
+     * Ligne à insérer, identifiants de dictionnaire déjà résolus par le service appelant.
+     */
+    record Row(Long recipeId, LocalDate plannedDate, Integer mealTypeId, Integer scaledPerson) {
+    }
+
+    /**
+     * Insère les recettes planifiées d'un planning en un seul INSERT JDBC batché.
+     * Le scaledPerson doit être renseigné par l'appelant (pas de @PrePersist ici).
+     */
+    void batchInsert(Long weeklyPlanId, List<Row> rows);
+}
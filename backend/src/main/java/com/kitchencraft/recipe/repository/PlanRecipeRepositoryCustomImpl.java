@@ -0,0 +1,36 @@
+package com.kitchencraft.recipe.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public class PlanRecipeRepositoryCustomImpl implements PlanRecipeRepositoryCustom {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO plan_recipe (weekly_plan_id, recipe_id, planned_date, meal_type_id, scaled_person, added_date)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PlanRecipeRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void batchInsert(Long weeklyPlanId, List<Row> rows) {
+        LocalDate today = LocalDate.now();
+        List<Object[]> batchArgs = rows.stream()
+                .map(row -> new Object[] {
+                        weeklyPlanId,
+                        row.recipeId(),
+                        row.plannedDate(),
+                        row.mealTypeId(),
+                        row.scaledPerson(),
+                        today
+                })
+                .toList();
+        jdbcTemplate.batchUpdate(INSERT_SQL, batchArgs);
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,10 +15,14 @@ public interface RecipeIngredientRepository extends JpaRepository<RecipeIngredie
     // Compter combien de recettes utilisent un ingrédient donné
     long countByIngredient_Id(Long ingredientId);
     
-    // Récupérer les noms des recettes qui utilisent un ingrédient donné
-    @Query("SELECT r.name FROM RecipeIngredient ri JOIN ri.recipe r WHERE ri.ingredient.id = :ingredientId")
-    List<String> findRecipeNamesByIngredientId(@Param("ingredientId") Long ingredientId);
-    
     // Récupérer tous les RecipeIngredient pour un ingrédient donné
     List<RecipeIngredient> findByIngredient_Id(Long ingredientId);
+
+    // Lignes (recette, ingrédient, quantité, unité) pour le catalogue en mémoire
+    @Query("SELECT ri.recipe.id, ri.ingredient.id, ri.quantity, ri.unit FROM RecipeIngredient ri ORDER BY ri.recipe.id")
+    List<Object[]> findCatalogRows();
+
+    // Couples (recette, ingrédient) pour les ingrédients donnés
+    @Query("SELECT ri.recipe.id, ri.ingredient.id FROM RecipeIngredient ri WHERE ri.ingredient.id IN :ingredientIds")
+    List<Object[]> findRecipeIngredientPairs(@Param("ingredientIds") Collection<Long> ingredientIds);
 }
\ No newline at end of file
@@ -7,43 +7,45 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface RecipeRepository extends JpaRepository<Recipe, Long> {
-    List<Recipe> findByNameContainingIgnoreCase(String name);
-
-    @Query("""
-    SELECT DISTINCT r
-    FROM Recipe r
-    JOIN r.ingredients ri
-    JOIN ri.ingredient i
-    WHERE LOWER(i.name) IN :ingredientNames
-    GROUP BY r.id
-    HAVING COUNT(DISTINCT LOWER(i.name)) = :ingredientCount
-    """)
-    List<Recipe> findByIngredientNames(@Param("ingredientNames") List<String> ingredientNames,
-                                       @Param("ingredientCount") long ingredientCount);
+    // Nom normalisé (IngredientNameNormalizer.fold) contenant le texte
+    List<Recipe> findByNormalizedNameContaining(String normalizedName);
 
     // Autocomplétion par préfixe
-    @Query("SELECT r.name FROM Recipe r WHERE LOWER(r.name) LIKE LOWER(CONCAT(:prefix, '%')) ORDER BY r.name")
+    @Query("SELECT r.name FROM Recipe r WHERE r.normalizedName LIKE CONCAT(:prefix, '%') ORDER BY r.name")
     List<String> findRecipeNamesByPrefix(@Param("prefix") String prefix, Pageable pageable);
 
     // Autocomplétion contenant le texte
-    @Query("SELECT r.name FROM Recipe r WHERE LOWER(r.name) LIKE LOWER(CONCAT('%', :search, '%')) ORDER BY r.name")
+    @Query("SELECT r.name FROM Recipe r WHERE r.normalizedName LIKE CONCAT('%', :search, '%') ORDER BY r.name")
     List<String> findRecipeNamesContaining(@Param("search") String search, Pageable pageable);
 
-    // Recherche incluant le type de recette
+    // Recherche incluant le type de recette (identifiants des types du dictionnaire correspondant à la saisie)
+    @Query("""
+        SELECT r.name FROM Recipe r 
+        WHERE (r.normalizedName LIKE CONCAT('%', :search, '%') 
+               OR r.typeId IN :typeIds)
+        ORDER BY 
+            CASE WHEN r.normalizedName LIKE CONCAT(:search, '%') THEN 1 ELSE 2 END,
+            r.name
+    """)
+    List<String> findRecipeNamesWithType(@Param("search") String search,
+                                         @Param("typeIds") List<Integer> typeIds,
+                                         Pageable pageable);
+
+    // Même recherche quand aucun type ne correspond
     @Query("""
         SELECT r.name FROM Recipe r 
-        WHERE (LOWER(r.name) LIKE LOWER(CONCAT('%', :search, '%')) 
-               OR LOWER(r.type) LIKE LOWER(CONCAT('%', :search, '%')))
+        WHERE r.normalizedName LIKE CONCAT('%', :search, '%')
         ORDER BY 
-            CASE WHEN LOWER(r.name) LIKE LOWER(CONCAT(:search, '%')) THEN 1 ELSE 2 END,
+            CASE WHEN r.normalizedName LIKE CONCAT(:search, '%') THEN 1 ELSE 2 END,
             r.name
     """)
-    List<String> findRecipeNamesWithType(@Param("search") String search, Pageable pageable);
+    List<String> findRecipeNamesMatching(@Param("search") String search, Pageable pageable);
 
     // Test simple : filtrage par temps seulement
     @Query("""
@@ -57,47 +59,29 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
             @Param("maxTime") Integer maxTime
     );
 
-    // Test simple : filtrage par origine seulement
-    @Query("""
-        SELECT r
-        FROM Recipe r
-        WHERE r.origin = :origin
-    """)
-    List<Recipe> findRecipesByOrigin(@Param("origin") String origin);
-
     // Filtrage simple pour bébé uniquement
     @Query("SELECT r FROM Recipe r WHERE r.isBabyFriendly = :isBabyFriendly")
     List<Recipe> findByIsBabyFriendly(@Param("isBabyFriendly") Boolean isBabyFriendly);
     
     // Filtrage par nom uniquement
-    @Query("SELECT r FROM Recipe r WHERE LOWER(r.name) LIKE LOWER(CONCAT('%', :searchTerm, '%'))")
+    @Query("SELECT r FROM Recipe r WHERE r.normalizedName LIKE CONCAT('%', :searchTerm, '%')")
     List<Recipe> findByNameContaining(@Param("searchTerm") String searchTerm);
     
     // Filtrage par temps uniquement  
     @Query("SELECT r FROM Recipe r WHERE r.totalTime >= :minTime AND r.totalTime <= :maxTime")
     List<Recipe> findByTimeRange(@Param("minTime") Integer minTime, @Param("maxTime") Integer maxTime);
-    
-    // Filtrage par origine uniquement
-    @Query("SELECT r FROM Recipe r WHERE r.origin IN :origins")
-    List<Recipe> findByOriginIn(@Param("origins") List<String> origins);
 
-    // Filtrage simple par ingrédients (reprise de l'ancienne méthode)
+    // Recettes contenant au moins un ingrédient sous l'un des nœuds de catégorie
     @Query("""
-        SELECT DISTINCT r
-        FROM Recipe r
-        JOIN r.ingredients ri
-        JOIN ri.ingredient i
-        WHERE LOWER(i.name) IN :ingredientNames
-        GROUP BY r.id
-        HAVING COUNT(DISTINCT LOWER(i.name)) = :ingredientCount
+        SELECT DISTINCT ri.recipe.id
+        FROM RecipeIngredient ri
+        JOIN CategoryClosure c ON c.descendantId = ri.ingredient.categoryNodeId
+        WHERE c.ancestorId IN :nodeIds
     """)
-    List<Recipe> findRecipesWithIngredients(
-            @Param("ingredientNames") List<String> ingredientNames,
-            @Param("ingredientCount") long ingredientCount
-    );
+    List<Long> findRecipeIdsWithIngredientsUnder(@Param("nodeIds") Collection<Long> nodeIds);
 
     // Obtenir toutes les origines distinctes
-    @Query("SELECT DISTINCT r.origin FROM Recipe r WHERE r.origin IS NOT NULL ORDER BY r.origin")
+    @Query("SELECT DISTINCT r.origin FROM Recipe r WHERE r.origin IS NOT NULL")
     List<String> findAllDistinctOrigins();
 
     // Origine la plus populaire
@@ -111,4 +95,8 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     """)
     Optional<String> findMostPopularOrigin();
 
+    // Projection compacte du catalogue (voir RecipeCatalogService)
+    @Query("SELECT r.id, r.name, r.totalTime, r.person, r.origin, r.type, r.isBabyFriendly FROM Recipe r ORDER BY r.id")
+    List<Object[]> findCatalogRows();
+
 }
@@ -2,26 +2,41 @@ package com.kitchencraft.recipe.repository;
 
 import com.kitchencraft.recipe.model.ShoppingListItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ShoppingListItemRepository extends JpaRepository<ShoppingListItem, Long> {
+public interface ShoppingListItemRepository extends JpaRepository<ShoppingListItem, Long>, ShoppingListItemRepositoryCustom {
 
-    @Query("SELECT sli FROM ShoppingListItem sli WHERE sli.weeklyPlan.id = :weeklyPlanId ORDER BY sli.ingredient.basicCategory, sli.ingredient.name")
+    // Catégorie de base stockée par identifiant : tri sur le libellé du dictionnaire
+    @Query("SELECT sli FROM ShoppingListItem sli JOIN sli.ingredient i LEFT JOIN DictionaryValue c ON c.id = i.basicCategoryId WHERE sli.weeklyPlan.id = :weeklyPlanId ORDER BY c.value, i.name")
     List<ShoppingListItem> findByWeeklyPlanIdOrderByIngredientBasicCategory(@Param("weeklyPlanId") Long weeklyPlanId);
 
     List<ShoppingListItem> findByWeeklyPlanIdAndIsValidated(Long weeklyPlanId, Boolean isValidated);
 
-    @Query("SELECT sli.ingredient.id, COUNT(sli) FROM ShoppingListItem sli GROUP BY sli.ingredient.id ORDER BY COUNT(sli) DESC")
-    List<Object[]> findMostUsedIngredients();
-
-    @Query("SELECT sli FROM ShoppingListItem sli WHERE sli.weeklyPlan.id = :planId AND sli.ingredient.basicCategory = :basicCategory ORDER BY sli.ingredient.name")
+    @Query("SELECT sli FROM ShoppingListItem sli JOIN sli.ingredient i JOIN DictionaryValue c ON c.id = i.basicCategoryId WHERE sli.weeklyPlan.id = :planId AND c.value = :basicCategory ORDER BY i.name")
     List<ShoppingListItem> findByPlanIdAndBasicCategory(@Param("planId") Long planId, @Param("basicCategory") String basicCategory);
 
+    @Query("SELECT sli FROM ShoppingListItem sli JOIN FETCH sli.ingredient i LEFT JOIN DictionaryValue c ON c.id = i.basicCategoryId WHERE sli.weeklyPlan.id = :planId AND sli.id IN :ids ORDER BY c.value, i.name")
+    List<ShoppingListItem> findByPlanIdAndIdInWithIngredient(@Param("planId") Long planId, @Param("ids") Collection<Long> ids);
+
+    // Projection légère pour le calcul des restes : id, ingrédient, nom, unité, besoin, possédé
+    @Query("SELECT sli.id, i.id, i.name, sli.unit, sli.quantityNeeded, sli.quantityOwned FROM ShoppingListItem sli JOIN sli.ingredient i WHERE sli.weeklyPlan.id = :planId")
+    List<Object[]> findLeftoverRowsByPlanId(@Param("planId") Long planId);
+
+    // Projection pour l'archivage : planning, ingrédient, nom, unité, besoin, possédé, coché
+    @Query("SELECT sli.weeklyPlan.id, i.id, i.name, sli.unit, sli.quantityNeeded, sli.quantityOwned, sli.isChecked FROM ShoppingListItem sli JOIN sli.ingredient i WHERE sli.weeklyPlan.id IN :planIds ORDER BY i.name")
+    List<Object[]> findArchiveRowsByPlanIds(@Param("planIds") Collection<Long> planIds);
+
+    @Modifying
+    @Query("DELETE FROM ShoppingListItem sli WHERE sli.weeklyPlan.id IN :planIds")
+    int deleteByWeeklyPlanIdIn(@Param("planIds") Collection<Long> planIds);
+
     void deleteByWeeklyPlanId(Long weeklyPlanId);
     
     // Compter combien de listes de courses utilisent un ingrédient donné
@@ -0,0 +1,15 @@
+package com.kitchencraft.recipe.repository;
+
+import com.kitchencraft.recipe.dto.ShoppingListItemUpdate;
+
+import java.util.List;
+
+public interface ShoppingListItemRepositoryCustom {
+
+    /**
+     * Applique un lot de mises à jour partageant le même ensemble de colonnes modifiées
+     * via un unique UPDATE JDBC batché. Retourne le nombre de lignes touchées par item
+     * (0 = item absent du planning ou version périmée).
+     */
+    int[] batchUpdate(Long weeklyPlanId, List<ShoppingListItemUpdate> updates);
+}
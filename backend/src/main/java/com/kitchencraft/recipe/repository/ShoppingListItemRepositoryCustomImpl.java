@@ -0,0 +1,69 @@
+package com.kitchencraft.recipe.repository;
+
+import com.kitchencraft.recipe.dto.ShoppingListItemUpdate;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShoppingListItemRepositoryCustomImpl implements ShoppingListItemRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ShoppingListItemRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] batchUpdate(Long weeklyPlanId, List<ShoppingListItemUpdate> updates) {
+        if (updates.isEmpty()) {
+            return new int[0];
+        }
+
+        // Toutes les mises à jour du lot ont le même ensemble de colonnes : le premier item fait référence
+        ShoppingListItemUpdate model = updates.get(0);
+        boolean withOwned = model.getQuantityOwned() != null;
+        boolean withChecked = model.getIsChecked() != null;
+        boolean withValidated = model.getIsValidated() != null;
+        boolean withVersion = model.getVersion() != null;
+
+        StringBuilder sql = new StringBuilder("UPDATE shopping_list_item SET ");
+        if (withOwned) {
+            // quantity_to_buy est recalculée côté base, @PreUpdate n'étant pas déclenché ici
+            sql.append("quantity_owned = ?, quantity_to_buy = GREATEST(quantity_needed - ?, 0), ");
+        }
+        if (withChecked) {
+            sql.append("is_checked = ?, ");
+        }
+        if (withValidated) {
+            sql.append("is_validated = ?, ");
+        }
+        sql.append("version = version + 1 WHERE id = ? AND weekly_plan_id = ?");
+        if (withVersion) {
+            sql.append(" AND version = ?");
+        }
+
+        List<Object[]> batchArgs = new ArrayList<>(updates.size());
+        for (ShoppingListItemUpdate update : updates) {
+            List<Object> args = new ArrayList<>(7);
+            if (withOwned) {
+                args.add(update.getQuantityOwned());
+                args.add(update.getQuantityOwned());
+            }
+            if (withChecked) {
+                args.add(update.getIsChecked());
+            }
+            if (withValidated) {
+                args.add(update.getIsValidated());
+            }
+            args.add(update.getItemId());
+            args.add(weeklyPlanId);
+            if (withVersion) {
+                args.add(update.getVersion());
+            }
+            batchArgs.add(args.toArray());
+        }
+
+        return jdbcTemplate.batchUpdate(sql.toString(), batchArgs);
+    }
+}
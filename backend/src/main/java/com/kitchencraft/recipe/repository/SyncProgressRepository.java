@@ -0,0 +1,9 @@
+package com.kitchencraft.recipe.repository;
+
+import com.kitchencraft.recipe.model.SyncProgress;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface SyncProgressRepository extends JpaRepository<SyncProgress, String> {
+}
@@ -1,11 +1,15 @@
 package com.kitchencraft.recipe.repository;
 
 import com.kitchencraft.recipe.model.WeeklyPlan;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -20,4 +24,12 @@ public interface WeeklyPlanRepository extends JpaRepository<WeeklyPlan, Long> {
 
     @Query("SELECT wp FROM WeeklyPlan wp WHERE wp.endDate < :endDate ORDER BY wp.startDate DESC")
     List<WeeklyPlan> findPastPlans(LocalDate endDate);
+
+    // Plannings terminés avant la date donnée, candidats à l'archivage (par lots)
+    @Query("SELECT wp.id FROM WeeklyPlan wp WHERE wp.endDate < :endDate ORDER BY wp.endDate ASC")
+    List<Long> findIdsEndedBefore(@Param("endDate") LocalDate endDate, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM WeeklyPlan wp WHERE wp.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
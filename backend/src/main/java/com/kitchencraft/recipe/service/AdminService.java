@@ -175,21 +175,6 @@ public class AdminService {
         return ingredientRepository.findOrphanIngredients();
     }
 
-    @Transactional
-    public int cleanupOrphanData() {
-        // Supprimer les ingrédients qui ne sont utilisés dans aucune recette
-        List<String> orphanIngredients = ingredientRepository.findOrphanIngredients();
-        
-        int deletedCount = 0;
-        for (String ingredientName : orphanIngredients) {
-            ingredientRepository.deleteByName(ingredientName);
-            deletedCount++;
-        }
-        
-        log.info("Cleaned up {} orphan ingredients", deletedCount);
-        return deletedCount;
-    }
-
     private AdminUserDto convertToAdminUserDto(User user) {
         return new AdminUserDto(
                 user.getId(),
@@ -0,0 +1,269 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.BarcodeBatchRequest;
+import com.kitchencraft.recipe.dto.BarcodeBatchResultDto;
+import com.kitchencraft.recipe.dto.IngredientDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.mapper.IngredientMapper;
+import com.kitchencraft.recipe.model.DictionaryValue;
+import com.kitchencraft.recipe.model.Ingredient;
+import com.kitchencraft.recipe.repository.IngredientRepository;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
+import com.kitchencraft.recipe.util.OpenFoodFactsColumns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
+
+/**
+ * Résolution groupée de codes-barres (scan de ticket de caisse).
+ * Les produits déjà connus sont lus en une requête IN ; les autres sont recherchés
+ * sur OpenFoodFacts en parallèle sur des threads virtuels, sous un sémaphore global
+ * qui plafonne les appels simultanés, avec une échéance par requête.
+ * La latence totale est ainsi proche de celle de la recherche la plus lente.
+ */
+@Service
+@Slf4j
+public class BarcodeBatchService {
+
+    private static final String LOCAL = "LOCAL";
+    private static final String OPENFOODFACTS = "OPENFOODFACTS";
+    private static final String NOT_FOUND = "NOT_FOUND";
+    private static final String ERROR = "ERROR";
+    private static final String TIMEOUT = "TIMEOUT";
+
+    // Un produit inséré entre-temps par une autre requête est ignoré ; seules les lignes insérées sont renvoyées
+    private static final String INSERT_SQL = "INSERT INTO ingredient (name, normalized_name, category, brand, barcode, "
+            + "basic_category_id, openfoodfacts_id, data_source_id, last_sync, created_at, "
+            + OpenFoodFactsColumns.NUTRIENTS.stream()
+                    .map(OpenFoodFactsColumns.NutrientColumn::column)
+                    .collect(Collectors.joining(", "))
+            + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?"
+            + ", ?".repeat(OpenFoodFactsColumns.NUTRIENTS.size())
+            + ") ON CONFLICT (barcode) DO NOTHING";
+    private static final int FIRST_NUTRIENT_PARAMETER = 11;
+
+    private final IngredientRepository ingredientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final BarcodeLookupService barcodeLookupService;
+    private final BarcodeFilterService barcodeFilterService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppConfig appConfig;
+    private final DictionaryService dictionaryService;
+    private final Semaphore upstreamPermits;
+
+    public BarcodeBatchService(IngredientRepository ingredientRepository,
+                               JdbcTemplate jdbcTemplate,
+                               BarcodeLookupService barcodeLookupService,
+                               BarcodeFilterService barcodeFilterService,
+                               ApplicationEventPublisher eventPublisher,
+                               AppConfig appConfig,
+                               DictionaryService dictionaryService) {
+        this.ingredientRepository = ingredientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.barcodeLookupService = barcodeLookupService;
+        this.barcodeFilterService = barcodeFilterService;
+        this.eventPublisher = eventPublisher;
+        this.appConfig = appConfig;
+        this.dictionaryService = dictionaryService;
+        this.upstreamPermits = new Semaphore(appConfig.getOpenFoodFacts().getMaxConcurrentRequests());
+    }
+
+    public BarcodeBatchResultDto resolve(BarcodeBatchRequest request) {
+        long startNs = System.nanoTime();
+        long deadline = startNs + appConfig.getOpenFoodFacts().getBatchDeadline().toNanos();
+
+        Set<String> barcodes = new LinkedHashSet<>();
+        for (String barcode : request.getBarcodes()) {
+            if (barcode != null && !barcode.isBlank()) {
+                barcodes.add(barcode.trim());
+            }
+        }
+
+        // 1. Produits déjà en base, en une seule requête (sauf codes-barres certainement absents)
+        Map<String, BarcodeBatchResultDto.Resolution> resolutions = new HashMap<>();
+        List<String> candidates = barcodes.stream().filter(barcodeFilterService::mightBeKnown).toList();
+        if (!candidates.isEmpty()) {
+            for (Ingredient ingredient : ingredientRepository.findByBarcodeIn(candidates)) {
+                resolutions.put(ingredient.getBarcode(),
+                        new BarcodeBatchResultDto.Resolution(ingredient.getBarcode(), LOCAL, IngredientMapper.toDto(ingredient)));
+            }
+        }
+
+        // 2. Recherche parallèle des manquants sur OpenFoodFacts
+        List<String> misses = barcodes.stream().filter(barcode -> !resolutions.containsKey(barcode)).toList();
+        Map<String, IngredientDto> found = new LinkedHashMap<>();
+        if (!misses.isEmpty()) {
+            ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+            try {
+                Map<String, Future<Optional<IngredientDto>>> futures = new LinkedHashMap<>();
+                for (String barcode : misses) {
+                    futures.put(barcode, executor.submit(() -> lookupWithPermit(barcode, deadline)));
+                }
+                for (Map.Entry<String, Future<Optional<IngredientDto>>> entry : futures.entrySet()) {
+                    String barcode = entry.getKey();
+                    String status;
+                    try {
+                        Optional<IngredientDto> product = entry.getValue()
+                                .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                        if (product.isPresent()) {
+                            found.put(barcode, product.get());
+                            status = OPENFOODFACTS;
+                        } else {
+                            status = NOT_FOUND;
+                        }
+                    } catch (TimeoutException e) {
+                        status = TIMEOUT;
+                    } catch (ExecutionException e) {
+                        status = e.getCause() instanceof TimeoutException ? TIMEOUT : ERROR;
+                        if (status.equals(ERROR)) {
+                            log.warn("Erreur lors de la recherche OpenFoodFacts pour le code-barres {}: {}",
+                                    barcode, e.getCause().getMessage());
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        status = ERROR;
+                    }
+                    resolutions.put(barcode, new BarcodeBatchResultDto.Resolution(barcode, status, found.get(barcode)));
+                }
+            } finally {
+                // Sans attente : les recherches encore en cours à l'échéance alimenteront seulement le cache
+                executor.shutdownNow();
+            }
+        }
+
+        // 3. Enregistrement groupé des nouveaux produits
+        if (request.isSave() && !found.isEmpty()) {
+            saveFound(found, resolutions);
+        }
+
+        BarcodeBatchResultDto result = new BarcodeBatchResultDto();
+        for (String barcode : barcodes) {
+            BarcodeBatchResultDto.Resolution resolution = resolutions.get(barcode);
+            result.getResults().add(resolution);
+            switch (resolution.getStatus()) {
+                case LOCAL -> result.setLocalHits(result.getLocalHits() + 1);
+                case OPENFOODFACTS -> result.setUpstreamHits(result.getUpstreamHits() + 1);
+                case NOT_FOUND -> result.setNotFound(result.getNotFound() + 1);
+                default -> result.setFailed(result.getFailed() + 1);
+            }
+        }
+        result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+        log.info("Resolved {} barcodes: {} local, {} upstream, {} not found, {} failed in {} ms",
+                barcodes.size(), result.getLocalHits(), result.getUpstreamHits(), result.getNotFound(),
+                result.getFailed(), result.getElapsedMs());
+        return result;
+    }
+
+    private Optional<IngredientDto> lookupWithPermit(String barcode, long deadline) throws Exception {
+        if (!upstreamPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            throw new TimeoutException("Aucun créneau OpenFoodFacts disponible avant l'échéance");
+        }
+        try {
+            // Attente bornée par l'échéance (l'appel partagé continue et alimente le cache)
+            return barcodeLookupService.lookupAsync(barcode)
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } finally {
+            upstreamPermits.release();
+        }
+    }
+
+    private void saveFound(Map<String, IngredientDto> found, Map<String, BarcodeBatchResultDto.Resolution> resolutions) {
+        if (found.isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, Ingredient> toSave = new LinkedHashMap<>();
+        found.forEach((barcode, dto) -> {
+            Ingredient ingredient = IngredientMapper.fromDto(dto);
+            ingredient.setCreatedAt(now);
+            ingredient.setNormalizedName(IngredientNameNormalizer.fold(ingredient.getName()));
+            toSave.put(barcode, ingredient);
+        });
+
+        // Un seul aller-retour : lot d'INSERT ... ON CONFLICT DO NOTHING, identifiants des lignes insérées
+        Map<String, Long> insertedIds = jdbcTemplate.execute((ConnectionCallback<Map<String, Long>>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_SQL, new String[] {"id", "barcode"})) {
+                for (Ingredient ingredient : toSave.values()) {
+                    bind(statement, ingredient);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+                Map<String, Long> ids = new HashMap<>();
+                try (ResultSet keys = statement.getGeneratedKeys()) {
+                    while (keys.next()) {
+                        ids.put(keys.getString("barcode"), keys.getLong("id"));
+                    }
+                }
+                return ids;
+            }
+        });
+
+        toSave.forEach((barcode, ingredient) -> {
+            Long id = insertedIds != null ? insertedIds.get(ingredient.getBarcode()) : null;
+            if (id != null) {
+                ingredient.setId(id);
+                resolutions.put(barcode, new BarcodeBatchResultDto.Resolution(
+                        barcode, OPENFOODFACTS, IngredientMapper.toDto(ingredient)));
+                eventPublisher.publishEvent(new IngredientChangedEvent(id, true));
+            }
+        });
+        // Produits insérés entre-temps par une autre requête : version en base
+        Set<String> conflicts = new LinkedHashSet<>();
+        toSave.values().forEach(ingredient -> conflicts.add(ingredient.getBarcode()));
+        if (insertedIds != null) {
+            conflicts.removeAll(insertedIds.keySet());
+        }
+        if (!conflicts.isEmpty()) {
+            for (Ingredient existing : ingredientRepository.findByBarcodeIn(conflicts)) {
+                resolutions.put(existing.getBarcode(), new BarcodeBatchResultDto.Resolution(
+                        existing.getBarcode(), LOCAL, IngredientMapper.toDto(existing)));
+            }
+        }
+    }
+
+    private void bind(PreparedStatement statement, Ingredient ingredient) throws SQLException {
+        statement.setString(1, ingredient.getName());
+        statement.setString(2, ingredient.getNormalizedName());
+        statement.setString(3, ingredient.getCategory());
+        statement.setString(4, ingredient.getBrand());
+        statement.setString(5, ingredient.getBarcode());
+        statement.setObject(6, idOf(DictionaryValue.Domain.INGREDIENT_CATEGORY, ingredient.getBasicCategory()), Types.INTEGER);
+        statement.setString(7, ingredient.getOpenFoodFactsId());
+        statement.setObject(8, idOf(DictionaryValue.Domain.DATA_SOURCE, ingredient.getDataSource()), Types.INTEGER);
+        statement.setTimestamp(9, ingredient.getLastSync() != null ? Timestamp.valueOf(ingredient.getLastSync()) : null);
+        statement.setTimestamp(10, Timestamp.valueOf(ingredient.getCreatedAt()));
+        int parameter = FIRST_NUTRIENT_PARAMETER;
+        for (OpenFoodFactsColumns.NutrientColumn column : OpenFoodFactsColumns.NUTRIENTS) {
+            statement.setObject(parameter++, OpenFoodFactsColumns.normalize(column.getter().apply(ingredient)), Types.NUMERIC);
+        }
+    }
+
+    private Integer idOf(DictionaryValue.Domain domain, String value) {
+        return value != null ? dictionaryService.idOf(domain, value) : null;
+    }
+}
@@ -0,0 +1,265 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.util.BloomFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtres de Bloom devant les recherches par code-barres :
+ *
+ * - codes-barres connus (table ingredient) : un absent certain évite la requête Postgres.
+ *   Construit au démarrage, alimenté à chaque création, reconstruit périodiquement
+ *   (suppressions, croissance) et après un import en masse
+ * - codes-barres inconnus d'OpenFoodFacts : évite de rappeler l'API. Deux générations tournantes
+ *   de missingTtl, un code-barres est donc oublié au bout d'une à deux périodes
+ *
+ * Tant que le filtre des codes-barres connus n'est pas construit, la base est toujours interrogée.
+ *
+ * Les filtres sont propres à chaque instance : un code-barres inséré par une autre instance reste
+ * "certainement absent" ici jusqu'à la prochaine reconstruction. La recherche part alors sur OpenFoodFacts
+ * et l'insertion qui suit bute sur la contrainte d'unicité : la ligne existante est relue (IngredientService,
+ * BarcodeBatchService), le résultat reste juste, seul un appel OpenFoodFacts est en trop.
+ */
+@Service
+@Slf4j
+public class BarcodeFilterService {
+
+    private static final int FETCH_SIZE = 5000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppConfig appConfig;
+
+    private volatile BloomFilter known;
+    // Filtre en construction : les ajouts concurrents y sont aussi reportés
+    private volatile BloomFilter building;
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+    private volatile LocalDateTime builtAt;
+
+    private volatile BloomFilter missing;
+    private volatile BloomFilter previousMissing;
+    private volatile long missingRotatedAt = System.nanoTime();
+
+    private final LongAdder definiteMisses = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder knownMissingSkips = new LongAdder();
+
+    public BarcodeFilterService(JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.appConfig = appConfig;
+        AppConfig.BarcodeFilterConfig config = appConfig.getBarcodeFilter();
+        this.missing = new BloomFilter(config.getExpectedMissingBarcodes(), config.getFalsePositiveRate());
+        this.previousMissing = new BloomFilter(1, config.getFalsePositiveRate());
+    }
+
+    /**
+     * false si le code-barres n'est certainement pas en base ; true s'il peut l'être
+     * (ou si le filtre n'est pas disponible).
+     */
+    public boolean mightBeKnown(String barcode) {
+        BloomFilter filter = known;
+        if (filter == null || barcode == null) {
+            return true;
+        }
+        if (filter.mightContain(barcode)) {
+            return true;
+        }
+        definiteMisses.increment();
+        return false;
+    }
+
+    /**
+     * À appeler quand mightBeKnown a répondu true mais que la base n'a rien trouvé.
+     */
+    public void recordFalsePositive() {
+        if (known != null) {
+            falsePositives.increment();
+        }
+    }
+
+    /**
+     * true si OpenFoodFacts a récemment répondu que ce code-barres est inconnu.
+     */
+    public boolean isKnownMissing(String barcode) {
+        if (!appConfig.getBarcodeFilter().isEnabled() || barcode == null) {
+            return false;
+        }
+        rotateMissingIfDue();
+        if (missing.mightContain(barcode) || previousMissing.mightContain(barcode)) {
+            knownMissingSkips.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void addMissing(String barcode) {
+        if (appConfig.getBarcodeFilter().isEnabled() && barcode != null) {
+            rotateMissingIfDue();
+            missing.put(barcode);
+        }
+    }
+
+    public void addKnown(String barcode) {
+        if (barcode == null) {
+            return;
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(barcode);
+        }
+        BloomFilter filter = known;
+        if (filter != null) {
+            filter.put(barcode);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (appConfig.getBarcodeFilter().isEnabled()) {
+            rebuildInBackground();
+        }
+    }
+
+    // Hors du planificateur (un seul thread) : la reconstruction bloquerait les autres tâches planifiées
+    @Scheduled(cron = "${app.barcode-filter.rebuild-cron:0 45 4 * * *}")
+    public void scheduledRebuild() {
+        if (appConfig.getBarcodeFilter().isEnabled()) {
+            rebuildInBackground();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        if (known == null && building == null) {
+            return;
+        }
+        if (event.ingredientId() == null) {
+            // Import en masse : reconstruction complète
+            rebuildInBackground();
+            return;
+        }
+        // Création ou changement de code-barres ; les suppressions attendent la prochaine reconstruction
+        List<String> barcodes = jdbcTemplate.queryForList(
+                "SELECT barcode FROM ingredient WHERE id = ? AND barcode IS NOT NULL", String.class, event.ingredientId());
+        barcodes.forEach(this::addKnown);
+    }
+
+    public Map<String, Object> getStats() {
+        BloomFilter filter = known;
+        long misses = definiteMisses.sum();
+        long falsePositiveCount = falsePositives.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", appConfig.getBarcodeFilter().isEnabled());
+        stats.put("ready", filter != null);
+        stats.put("builtAt", builtAt);
+        if (filter != null) {
+            stats.put("knownBarcodes", filter.approximateSize());
+            stats.put("sizeBytes", filter.sizeInBytes());
+            stats.put("hashFunctions", filter.hashCount());
+            stats.put("estimatedFalsePositiveRate", filter.estimatedFalsePositiveRate());
+        }
+        stats.put("definiteMisses", misses);
+        stats.put("falsePositives", falsePositiveCount);
+        // Parmi les codes-barres absents de la base, part que le filtre n'a pas su écarter
+        stats.put("observedFalsePositiveRate",
+                misses + falsePositiveCount > 0 ? (double) falsePositiveCount / (misses + falsePositiveCount) : 0.0);
+        stats.put("knownMissingBarcodes", missing.approximateSize() + previousMissing.approximateSize());
+        stats.put("knownMissingSkips", knownMissingSkips.sum());
+        stats.put("knownMissingEstimatedFalsePositiveRate", missing.estimatedFalsePositiveRate());
+        return stats;
+    }
+
+    private void rebuildInBackground() {
+        rebuildRequested.set(true);
+        if (rebuilding.get()) {
+            // La reconstruction en cours repartira pour couvrir la demande
+            return;
+        }
+        Thread.ofVirtual().name("barcode-filter-rebuild").start(() -> {
+            try {
+                rebuildKnown();
+            } catch (RuntimeException e) {
+                log.error("Barcode filter rebuild failed", e);
+            }
+        });
+    }
+
+    private void rebuildKnown() {
+        rebuildRequested.set(true);
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            // Un import terminé pendant la lecture a pu écrire des lignes déjà parcourues : on relit
+            while (rebuildRequested.getAndSet(false)) {
+                buildKnown();
+            }
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private void buildKnown() {
+        try {
+            AppConfig.BarcodeFilterConfig config = appConfig.getBarcodeFilter();
+            long start = System.nanoTime();
+            Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM ingredient WHERE barcode IS NOT NULL", Long.class);
+            long expected = Math.max(config.getMinExpectedBarcodes(), (count != null ? count : 0) * 2);
+            BloomFilter next = new BloomFilter(expected, config.getFalsePositiveRate());
+            building = next;
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT barcode FROM ingredient WHERE barcode IS NOT NULL");
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> next.put(resultSet.getString(1))));
+            known = next;
+            builtAt = LocalDateTime.now();
+            definiteMisses.reset();
+            falsePositives.reset();
+            log.info("Barcode filter rebuilt: ~{} barcodes, {} KB, estimated FPR {} in {} ms",
+                    next.approximateSize(), next.sizeInBytes() / 1024,
+                    String.format("%.5f", next.estimatedFalsePositiveRate()), (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            building = null;
+        }
+    }
+
+    private void rotateMissingIfDue() {
+        long ttl = appConfig.getBarcodeFilter().getMissingTtl().toNanos();
+        if (System.nanoTime() - missingRotatedAt < ttl) {
+            return;
+        }
+        synchronized (this) {
+            if (System.nanoTime() - missingRotatedAt >= ttl) {
+                previousMissing = missing;
+                missing = new BloomFilter(appConfig.getBarcodeFilter().getExpectedMissingBarcodes(),
+                        appConfig.getBarcodeFilter().getFalsePositiveRate());
+                missingRotatedAt = System.nanoTime();
+            }
+        }
+    }
+}
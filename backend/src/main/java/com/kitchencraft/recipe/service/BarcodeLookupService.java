@@ -0,0 +1,207 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.IngredientDto;
+import com.kitchencraft.recipe.exception.OpenFoodFactsException;
+import com.kitchencraft.recipe.mapper.IngredientMapper;
+import com.kitchencraft.recipe.model.Ingredient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache borné (LRU) des recherches de codes-barres sur OpenFoodFacts.
+ *
+ * - entrées positives (produit trouvé) et négatives (produit inconnu) avec des TTL distincts ;
+ *   les erreurs d'appel ne sont jamais mises en cache
+ * - single-flight : les recherches simultanées d'un même code-barres partagent un seul appel,
+ *   exposé aussi en asynchrone (lookupAsync) pour ne pas bloquer les threads de requête
+ * - les valeurs sont des IngredientDto immuables, chaque appelant reçoit sa propre entité
+ */
+@Service
+@Slf4j
+public class BarcodeLookupService {
+
+    private final OpenFoodFactsService openFoodFactsService;
+    private final BarcodeFilterService barcodeFilterService;
+    private final AppConfig appConfig;
+
+    private final Map<String, Entry> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<IngredientDto>>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder upstreamCalls = new LongAdder();
+    private final LongAdder upstreamErrors = new LongAdder();
+    private final LongAdder upstreamNanos = new LongAdder();
+    private final AtomicLong upstreamMaxNanos = new AtomicLong();
+
+    public BarcodeLookupService(OpenFoodFactsService openFoodFactsService,
+                                BarcodeFilterService barcodeFilterService,
+                                AppConfig appConfig) {
+        this.openFoodFactsService = openFoodFactsService;
+        this.barcodeFilterService = barcodeFilterService;
+        this.appConfig = appConfig;
+        int maxEntries = appConfig.getBarcodeCache().getMaxEntries();
+        this.cache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        });
+    }
+
+    /**
+     * Recherche un produit, depuis le cache ou OpenFoodFacts.
+     * Optional vide si le produit est inconnu ; OpenFoodFactsException si l'appel échoue.
+     */
+    public Optional<IngredientDto> lookup(String barcode) {
+        return await(lookupAsync(barcode));
+    }
+
+    /**
+     * Version non bloquante : immédiate sur un succès de cache, sinon complétée
+     * par l'appel OpenFoodFacts partagé (exécuté sur un thread virtuel).
+     */
+    public CompletableFuture<Optional<IngredientDto>> lookupAsync(String barcode) {
+        Entry entry = freshEntry(barcode);
+        if (entry != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(entry.product()));
+        }
+        // Inconnu d'OpenFoodFacts lors d'une recherche récente, au-delà du TTL du cache
+        if (barcodeFilterService.isKnownMissing(barcode)) {
+            negativeHits.increment();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        CompletableFuture<Optional<IngredientDto>> flight = new CompletableFuture<>();
+        CompletableFuture<Optional<IngredientDto>> existing = inFlight.putIfAbsent(barcode, flight);
+        if (existing != null) {
+            misses.increment();
+            coalesced.increment();
+            return existing.copy();
+        }
+        // Vol obtenu : un vol concurrent a pu remplir le cache et se retirer depuis la première lecture
+        entry = freshEntry(barcode);
+        if (entry != null) {
+            Optional<IngredientDto> cached = Optional.ofNullable(entry.product());
+            inFlight.remove(barcode, flight);
+            flight.complete(cached);
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.increment();
+
+        long start = System.nanoTime();
+        upstreamCalls.increment();
+        openFoodFactsService.fetchProductAsync(barcode).whenComplete((product, error) -> {
+            long elapsed = System.nanoTime() - start;
+            upstreamNanos.add(elapsed);
+            upstreamMaxNanos.accumulateAndGet(elapsed, Math::max);
+            if (error != null) {
+                upstreamErrors.increment();
+                inFlight.remove(barcode, flight);
+                flight.completeExceptionally(error instanceof CompletionException ? error.getCause() : error);
+                return;
+            }
+            Optional<IngredientDto> result = product.map(IngredientMapper::toDto);
+            if (result.isEmpty()) {
+                barcodeFilterService.addMissing(barcode);
+            }
+            AppConfig.BarcodeCacheConfig config = appConfig.getBarcodeCache();
+            long ttl = (result.isPresent() ? config.getPositiveTtl() : config.getNegativeTtl()).toNanos();
+            // Mise en cache avant de libérer le vol en cours : aucun appelant ne peut relancer l'appel entre-temps
+            cache.put(barcode, new Entry(result.orElse(null), System.nanoTime() + ttl));
+            inFlight.remove(barcode, flight);
+            flight.complete(result);
+        });
+        return flight.copy();
+    }
+
+    /**
+     * Variante tolérante : nouvelle entité Ingredient, ou null si inconnu ou en cas d'erreur.
+     */
+    public Ingredient findIngredient(String barcode) {
+        try {
+            return lookup(barcode).map(IngredientMapper::fromDto).orElse(null);
+        } catch (OpenFoodFactsException e) {
+            log.warn("Erreur lors de la recherche OpenFoodFacts pour le code-barres {}: {}", barcode, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Variante asynchrone tolérante : Optional vide si inconnu ou en cas d'erreur d'appel.
+     */
+    public CompletableFuture<Optional<IngredientDto>> findAsync(String barcode) {
+        return lookupAsync(barcode).exceptionally(error -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            log.warn("Erreur lors de la recherche OpenFoodFacts pour le code-barres {}: {}", barcode, cause.getMessage());
+            return Optional.empty();
+        });
+    }
+
+    public void evict(String barcode) {
+        cache.remove(barcode);
+    }
+
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long negativeCount = negativeHits.sum();
+        long missCount = misses.sum();
+        long lookups = hitCount + negativeCount + missCount;
+        long calls = upstreamCalls.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", cache.size());
+        stats.put("maxEntries", appConfig.getBarcodeCache().getMaxEntries());
+        stats.put("hits", hitCount);
+        stats.put("negativeHits", negativeCount);
+        stats.put("misses", missCount);
+        stats.put("coalesced", coalesced.sum());
+        stats.put("hitRatio", lookups > 0 ? (double) (hitCount + negativeCount) / lookups : 0.0);
+        stats.put("upstreamCalls", calls);
+        stats.put("upstreamErrors", upstreamErrors.sum());
+        stats.put("upstreamAvgMs", calls > 0 ? upstreamNanos.sum() / 1e6 / calls : 0.0);
+        stats.put("upstreamMaxMs", upstreamMaxNanos.get() / 1e6);
+        return stats;
+    }
+
+    // Entrée non expirée (comptée comme succès de cache), null si absente ou expirée
+    private Entry freshEntry(String barcode) {
+        Entry entry = cache.get(barcode);
+        if (entry == null || entry.expiresAt() - System.nanoTime() <= 0) {
+            return null;
+        }
+        if (entry.product() != null) {
+            hits.increment();
+        } else {
+            negativeHits.increment();
+        }
+        return entry;
+    }
+
+    private static Optional<IngredientDto> await(CompletableFuture<Optional<IngredientDto>> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // product null = entrée négative
+    private record Entry(IngredientDto product, long expiresAt) {
+    }
+}
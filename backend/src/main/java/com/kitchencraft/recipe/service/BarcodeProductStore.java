@@ -0,0 +1,547 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.IngredientDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.mapper.IngredientMapper;
+import com.kitchencraft.recipe.model.Ingredient;
+import com.kitchencraft.recipe.util.OpenFoodFactsColumns;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Magasin local en lecture seule des ingrédients à code-barres, consulté avant Postgres et OpenFoodFacts.
+ *
+ * Fichier products.store, mappé en mémoire :
+ * - en-tête (magic, version, nombre d'entrées, capacité, date de construction)
+ * - table à adressage ouvert : capacité × (code-barres compacté en long + position de l'enregistrement)
+ * - enregistrements compacts (id, dates, textes UTF-8, nutriments en millièmes)
+ *
+ * Construit depuis la table ingredient (un dump OpenFoodFacts passe par l'import puis une reconstruction),
+ * dans un fichier temporaire substitué atomiquement. Les ingrédients modifiés depuis la construction
+ * sont ignorés jusqu'à la suivante ; une modification en masse met le magasin hors service.
+ */
+@Service
+@Slf4j
+public class BarcodeProductStore {
+
+    private static final String FILE_NAME = "products.store";
+    private static final int MAGIC = 0x4b435053;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    // Clé long + position int
+    private static final int SLOT_SIZE = 12;
+    // 17 chiffres tiennent sur 58 bits, la longueur occupe les bits de poids fort
+    private static final int MAX_BARCODE_DIGITS = 17;
+    private static final int NULL_NUTRIENT = Integer.MIN_VALUE;
+    private static final int FETCH_SIZE = 1000;
+
+    // Catégorie de base et source lues en texte depuis le dictionnaire
+    private static final String SELECT_SQL = "SELECT i.id, i.barcode, i.created_at, i.last_sync, i.updated_at, i.name, i.category, "
+            + "i.brand, c.value, i.openfoodfacts_id, s.value, "
+            + OpenFoodFactsColumns.NUTRIENTS.stream()
+                    .map(column -> "i." + column.column())
+                    .collect(Collectors.joining(", "))
+            + " FROM ingredient i"
+            + " LEFT JOIN dictionary_value c ON c.id = i.basic_category_id"
+            + " LEFT JOIN dictionary_value s ON s.id = i.data_source_id"
+            + " WHERE i.barcode IS NOT NULL";
+    private static final int FIRST_NUTRIENT_COLUMN = 12;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final AppConfig appConfig;
+
+    private volatile Store store;
+    private final AtomicBoolean building = new AtomicBoolean();
+    // Modifications reçues pendant une reconstruction, reportées sur le nouveau magasin
+    private volatile Set<Long> pendingInvalidated;
+    private volatile boolean pendingStale;
+    private volatile long lastBuildMs;
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleSkips = new LongAdder();
+
+    public BarcodeProductStore(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Produit enregistré pour ce code-barres, ou vide s'il est absent, modifié depuis la construction
+     * ou si le magasin n'est pas disponible.
+     */
+    public Optional<IngredientDto> find(String barcode) {
+        Store current = store;
+        if (current == null || current.stale) {
+            return Optional.empty();
+        }
+        long key = pack(barcode);
+        if (key == 0) {
+            return Optional.empty();
+        }
+        lookups.increment();
+        int position = current.lookup(key);
+        if (position < 0) {
+            return Optional.empty();
+        }
+        if (current.invalidated.contains(current.buffer.getLong(position))) {
+            staleSkips.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(IngredientMapper.toDto(decode(current.buffer, position, barcode)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        // Un fichier existant peut dater d'avant des modifications faites hors de cette instance :
+        // il est toujours reconstruit au démarrage, les recherches passent par la base en attendant
+        if (appConfig.getProductStore().isEnabled() && building.compareAndSet(false, true)) {
+            rebuildInBackground();
+        }
+    }
+
+    // Hors du planificateur (un seul thread) : la reconstruction bloquerait les autres tâches planifiées
+    @Scheduled(cron = "${app.product-store.rebuild-cron:0 15 4 * * *}")
+    public void scheduledRebuild() {
+        if (appConfig.getProductStore().isEnabled() && building.compareAndSet(false, true)) {
+            rebuildInBackground();
+        }
+    }
+
+    /**
+     * Lance la reconstruction en arrière-plan (thread virtuel).
+     */
+    public void startRebuild() {
+        if (!appConfig.getProductStore().isEnabled()) {
+            throw new BusinessException("Le magasin de produits est désactivé", HttpStatus.BAD_REQUEST);
+        }
+        if (!building.compareAndSet(false, true)) {
+            throw new BusinessException("Une reconstruction est déjà en cours", HttpStatus.CONFLICT);
+        }
+        rebuildInBackground();
+    }
+
+    private void rebuildInBackground() {
+        Thread.ofVirtual().name("product-store-rebuild").start(() -> {
+            try {
+                build();
+            } catch (RuntimeException e) {
+                log.error("Product store rebuild failed", e);
+            } finally {
+                building.set(false);
+            }
+        });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        if (event.created()) {
+            // Un nouvel ingrédient n'est pas dans le magasin : sa recherche retombe sur la base
+            return;
+        }
+        // Lire pendingInvalidated avant store : null signifie que la substitution est déjà visible
+        Set<Long> pending = pendingInvalidated;
+        if (event.ingredientId() == null) {
+            pendingStale = true;
+            Store current = store;
+            if (current != null) {
+                current.stale = true;
+            }
+            return;
+        }
+        if (pending != null) {
+            pending.add(event.ingredientId());
+        }
+        Store current = store;
+        if (current != null) {
+            current.invalidated.add(event.ingredientId());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Store current = store;
+        long lookupCount = lookups.sum();
+        long hitCount = hits.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", appConfig.getProductStore().isEnabled());
+        stats.put("loaded", current != null);
+        stats.put("building", building.get());
+        if (current != null) {
+            stats.put("entries", current.count);
+            stats.put("capacity", current.mask + 1);
+            stats.put("fileSizeBytes", current.fileSize);
+            stats.put("builtAt", current.builtAt);
+            stats.put("stale", current.stale);
+            stats.put("invalidated", current.invalidated.size());
+        }
+        stats.put("lastBuildMs", lastBuildMs);
+        stats.put("lookups", lookupCount);
+        stats.put("hits", hitCount);
+        stats.put("staleSkips", staleSkips.sum());
+        stats.put("hitRatio", lookupCount > 0 ? (double) hitCount / lookupCount : 0.0);
+        return stats;
+    }
+
+    // Appelé avec building détenu
+    private void build() {
+        long start = System.nanoTime();
+        pendingStale = false;
+        pendingInvalidated = ConcurrentHashMap.newKeySet();
+        try {
+            Path directory = Path.of(appConfig.getProductStore().getDirectory());
+            Files.createDirectories(directory);
+            Path target = directory.resolve(FILE_NAME);
+            Path tmp = directory.resolve(FILE_NAME + ".tmp");
+            Path records = Files.createTempFile(directory, "products", ".records");
+            try {
+                KeyIndex index = readOnlyTransaction.execute(status -> writeRecords(records));
+                writeStore(tmp, index, records);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Store built = open(target);
+                carryOverPending(built);
+                store = built;
+                // Reprise des événements arrivés pendant la substitution
+                carryOverPending(built);
+                lastBuildMs = (System.nanoTime() - start) / 1_000_000;
+                log.info("Product store rebuilt: {} entries, {} bytes, {} barcodes skipped, {} ms",
+                        index.size, built.fileSize, index.skipped, lastBuildMs);
+            } finally {
+                Files.deleteIfExists(records);
+                Files.deleteIfExists(tmp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Product store rebuild failed", e);
+        } finally {
+            pendingInvalidated = null;
+        }
+    }
+
+    private void carryOverPending(Store built) {
+        built.invalidated.addAll(pendingInvalidated);
+        if (pendingStale) {
+            built.stale = true;
+        }
+    }
+
+    // Écrit les enregistrements à la suite dans un fichier intermédiaire, en lecture par curseur
+    private KeyIndex writeRecords(Path records) {
+        KeyIndex index = new KeyIndex();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records), 1 << 16))) {
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_SQL);
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, (RowCallbackHandler) resultSet -> {
+                long key = pack(resultSet.getString(2));
+                if (key == 0) {
+                    // Code-barres non numérique ou trop long : recherche par la base
+                    index.skipped++;
+                    return;
+                }
+                if (out.size() == Integer.MAX_VALUE) {
+                    throw new IllegalStateException("Product store exceeds the 2 GB mapping limit");
+                }
+                index.add(key, out.size());
+                try {
+                    writeRecord(out, resultSet);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return index;
+    }
+
+    private static void writeRecord(DataOutputStream out, ResultSet resultSet) throws IOException, SQLException {
+        out.writeLong(resultSet.getLong(1));
+        out.writeLong(toEpochSecond(resultSet.getTimestamp(3)));
+        out.writeLong(toEpochSecond(resultSet.getTimestamp(4)));
+        out.writeLong(toEpochSecond(resultSet.getTimestamp(5)));
+        for (int column = 6; column < FIRST_NUTRIENT_COLUMN; column++) {
+            writeString(out, resultSet.getString(column));
+        }
+        for (int i = 0; i < OpenFoodFactsColumns.NUTRIENTS.size(); i++) {
+            BigDecimal value = OpenFoodFactsColumns.normalize(resultSet.getBigDecimal(FIRST_NUTRIENT_COLUMN + i));
+            out.writeInt(value == null ? NULL_NUTRIENT : value.unscaledValue().intValueExact());
+        }
+    }
+
+    private void writeStore(Path tmp, KeyIndex index, Path records) throws IOException {
+        int capacity = 16;
+        while (capacity < index.size * 2L) {
+            capacity <<= 1;
+        }
+        int mask = capacity - 1;
+        long[] tableKeys = new long[capacity];
+        int[] tableOffsets = new int[capacity];
+        for (int i = 0; i < index.size; i++) {
+            int slot = (int) (mix(index.keys[i]) & mask);
+            while (tableKeys[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            tableKeys[slot] = index.keys[i];
+            tableOffsets[slot] = index.offsets[i];
+        }
+
+        long recordsSize = Files.size(records);
+        long total = HEADER_SIZE + (long) capacity * SLOT_SIZE + recordsSize;
+        if (total > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Product store exceeds the 2 GB mapping limit");
+        }
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+             FileChannel in = FileChannel.open(records, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).putInt(index.size).putInt(capacity)
+                    .putLong(Instant.now().getEpochSecond());
+            header.position(HEADER_SIZE).flip();
+            writeFully(out, header);
+
+            ByteBuffer chunk = ByteBuffer.allocate(SLOT_SIZE * 4096);
+            for (int slot = 0; slot < capacity; slot++) {
+                if (!chunk.hasRemaining()) {
+                    writeFully(out, chunk.flip());
+                    chunk.clear();
+                }
+                chunk.putLong(tableKeys[slot]).putInt(tableOffsets[slot]);
+            }
+            writeFully(out, chunk.flip());
+
+            long transferred = 0;
+            while (transferred < recordsSize) {
+                transferred += in.transferTo(transferred, recordsSize - transferred, out);
+            }
+            out.force(true);
+        }
+    }
+
+    private static Store open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid product store size: " + size);
+            }
+            // Le mappage reste valide après la fermeture du canal
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int capacity = buffer.getInt(12);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                    || Integer.bitCount(capacity) != 1
+                    || HEADER_SIZE + (long) capacity * SLOT_SIZE > size) {
+                throw new IOException("Invalid product store header: " + file);
+            }
+            LocalDateTime builtAt = LocalDateTime.ofEpochSecond(buffer.getLong(16), 0, ZoneOffset.UTC);
+            return new Store(buffer, buffer.getInt(8), capacity, size, builtAt);
+        }
+    }
+
+    private static Ingredient decode(ByteBuffer buffer, int position, String barcode) {
+        RecordReader reader = new RecordReader(buffer, position);
+        Ingredient ingredient = new Ingredient();
+        ingredient.setId(reader.readLong());
+        ingredient.setBarcode(barcode);
+        ingredient.setCreatedAt(reader.readDateTime());
+        ingredient.setLastSync(reader.readDateTime());
+        ingredient.setUpdatedAt(reader.readDateTime());
+        ingredient.setName(reader.readString());
+        ingredient.setCategory(reader.readString());
+        ingredient.setBrand(reader.readString());
+        ingredient.setBasicCategory(reader.readString());
+        ingredient.setOpenFoodFactsId(reader.readString());
+        ingredient.setDataSource(reader.readString());
+        for (OpenFoodFactsColumns.NutrientColumn column : OpenFoodFactsColumns.NUTRIENTS) {
+            int value = reader.readInt();
+            column.setter().accept(ingredient, value == NULL_NUTRIENT ? null : BigDecimal.valueOf(value, 3));
+        }
+        return ingredient;
+    }
+
+    /**
+     * Code-barres numérique compacté : longueur (zéros de tête conservés) puis valeur. 0 si non compactable.
+     */
+    static long pack(String barcode) {
+        if (barcode == null || barcode.isEmpty() || barcode.length() > MAX_BARCODE_DIGITS) {
+            return 0;
+        }
+        long value = 0;
+        for (int i = 0; i < barcode.length(); i++) {
+            char c = barcode.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return ((long) barcode.length() << 58) | value;
+    }
+
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static long toEpochSecond(Timestamp timestamp) {
+        return timestamp == null ? 0 : timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeShort(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static final class Store {
+        final ByteBuffer buffer;
+        final int count;
+        final int mask;
+        final int recordsStart;
+        final long fileSize;
+        final LocalDateTime builtAt;
+        // Ingrédients modifiés ou supprimés depuis la construction
+        final Set<Long> invalidated = ConcurrentHashMap.newKeySet();
+        volatile boolean stale;
+
+        Store(ByteBuffer buffer, int count, int capacity, long fileSize, LocalDateTime builtAt) {
+            this.buffer = buffer;
+            this.count = count;
+            this.mask = capacity - 1;
+            this.recordsStart = HEADER_SIZE + capacity * SLOT_SIZE;
+            this.fileSize = fileSize;
+            this.builtAt = builtAt;
+        }
+
+        // Position absolue de l'enregistrement, -1 si absent (lectures absolues : sûr entre threads)
+        int lookup(long key) {
+            int slot = (int) (mix(key) & mask);
+            while (true) {
+                int base = HEADER_SIZE + slot * SLOT_SIZE;
+                long candidate = buffer.getLong(base);
+                if (candidate == 0) {
+                    return -1;
+                }
+                if (candidate == key) {
+                    return recordsStart + buffer.getInt(base + 8);
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+    }
+
+    private static final class RecordReader {
+        private final ByteBuffer buffer;
+        private int position;
+
+        RecordReader(ByteBuffer buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        long readLong() {
+            long value = buffer.getLong(position);
+            position += 8;
+            return value;
+        }
+
+        int readInt() {
+            int value = buffer.getInt(position);
+            position += 4;
+            return value;
+        }
+
+        LocalDateTime readDateTime() {
+            long epochSecond = readLong();
+            return epochSecond == 0 ? null : LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+        }
+
+        String readString() {
+            short length = buffer.getShort(position);
+            position += 2;
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Clés et positions dans l'ordre de lecture, avant répartition dans la table
+    private static final class KeyIndex {
+        long[] keys = new long[1024];
+        int[] offsets = new int[1024];
+        int size;
+        int skipped;
+
+        void add(long key, int offset) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                offsets = Arrays.copyOf(offsets, size * 2);
+            }
+            keys[size] = key;
+            offsets[size++] = offset;
+        }
+    }
+}
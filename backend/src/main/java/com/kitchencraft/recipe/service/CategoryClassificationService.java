@@ -0,0 +1,195 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.model.DictionaryValue;
+import com.kitchencraft.recipe.util.CategoryClassifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Catégorie de base des produits OpenFoodFacts, d'après la taxonomie chargée depuis
+ * app.category-taxonomy.location, et reclassification en lots des ingrédients déjà importés.
+ */
+@Service
+@Slf4j
+public class CategoryClassificationService {
+
+    public static final String DEFAULT_CATEGORY = "Autres";
+
+    private final ResourceLoader resourceLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final DictionaryService dictionaryService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppConfig appConfig;
+
+    private volatile CategoryClassifier classifier;
+
+    private final AtomicBoolean reclassifying = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+
+    public CategoryClassificationService(ResourceLoader resourceLoader,
+                                         JdbcTemplate jdbcTemplate,
+                                         DictionaryService dictionaryService,
+                                         ApplicationEventPublisher eventPublisher,
+                                         AppConfig appConfig) {
+        this.resourceLoader = resourceLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionaryService = dictionaryService;
+        this.eventPublisher = eventPublisher;
+        this.appConfig = appConfig;
+        this.classifier = loadTaxonomy();
+    }
+
+    /**
+     * Catégorie de base pour un texte de catégories OpenFoodFacts, "Autres" si rien ne correspond.
+     */
+    public String classify(String categories) {
+        String category = classifier.classify(categories);
+        return category != null ? category : DEFAULT_CATEGORY;
+    }
+
+    /**
+     * Recharge la taxonomie ; l'ancienne reste en place si le fichier est invalide.
+     * @return nombre de règles chargées
+     */
+    public int reloadTaxonomy() {
+        try {
+            classifier = loadTaxonomy();
+        } catch (IllegalStateException e) {
+            throw new BusinessException(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        return classifier.size();
+    }
+
+    /**
+     * Lance en arrière-plan la reclassification des ingrédients OpenFoodFacts avec la taxonomie courante.
+     */
+    public void startReclassification() {
+        if (!reclassifying.compareAndSet(false, true)) {
+            throw new BusinessException("Une reclassification est déjà en cours", HttpStatus.CONFLICT);
+        }
+        Thread.ofVirtual().name("ingredient-reclassification").start(() -> {
+            try {
+                reclassify();
+            } catch (RuntimeException e) {
+                log.error("Ingredient reclassification failed", e);
+            } finally {
+                reclassifying.set(false);
+            }
+        });
+    }
+
+    public Map<String, Object> getReclassificationStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", reclassifying.get());
+        status.put("rules", classifier.size());
+        status.put("startedAt", startedAt);
+        status.put("completedAt", completedAt);
+        status.put("processed", processed.get());
+        status.put("changed", changed.get());
+        return status;
+    }
+
+    // Parcours par clé ; seules les lignes dont la catégorie change sont réécrites
+    private void reclassify() {
+        startedAt = LocalDateTime.now();
+        completedAt = null;
+        processed.set(0);
+        changed.set(0);
+        CategoryClassifier current = classifier;
+        int batchSize = appConfig.getCategoryTaxonomy().getBatchSize();
+        // Aucun ingrédient OpenFoodFacts tant que la source n'est pas dans le dictionnaire
+        Integer openFoodFactsId = dictionaryService.find(DictionaryValue.Domain.DATA_SOURCE, "OPENFOODFACTS");
+        long cursor = 0;
+        while (openFoodFactsId != null) {
+            List<Object[]> updates = new ArrayList<>();
+            List<Long> ids = jdbcTemplate.query(
+                    "SELECT id, category, basic_category_id FROM ingredient "
+                            + "WHERE data_source_id = ? AND id > ? ORDER BY id LIMIT ?",
+                    (resultSet, rowNum) -> {
+                        long id = resultSet.getLong(1);
+                        String category = current.classify(resultSet.getString(2));
+                        int basicCategoryId = dictionaryService.idOf(DictionaryValue.Domain.INGREDIENT_CATEGORY,
+                                category != null ? category : DEFAULT_CATEGORY);
+                        if (!Objects.equals(basicCategoryId, resultSet.getObject(3, Integer.class))) {
+                            updates.add(new Object[] {basicCategoryId, id});
+                        }
+                        return id;
+                    }, openFoodFactsId, cursor, batchSize);
+            if (ids.isEmpty()) {
+                break;
+            }
+            if (!updates.isEmpty()) {
+                Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                jdbcTemplate.batchUpdate("UPDATE ingredient SET basic_category_id = ?, updated_at = ? WHERE id = ?",
+                        updates, updates.size(), (ps, update) -> {
+                            ps.setInt(1, (Integer) update[0]);
+                            ps.setTimestamp(2, now);
+                            ps.setLong(3, (Long) update[1]);
+                        });
+            }
+            processed.addAndGet(ids.size());
+            changed.addAndGet(updates.size());
+            cursor = ids.get(ids.size() - 1);
+        }
+        completedAt = LocalDateTime.now();
+        if (changed.get() > 0) {
+            eventPublisher.publishEvent(new IngredientChangedEvent(null, false));
+        }
+        log.info("Ingredient reclassification completed: {} processed, {} changed", processed.get(), changed.get());
+    }
+
+    private CategoryClassifier loadTaxonomy() {
+        String location = appConfig.getCategoryTaxonomy().getLocation();
+        Resource resource = resourceLoader.getResource(location);
+        List<CategoryClassifier.Rule> rules = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";");
+                if (fields.length != 3 || fields[0].isBlank() || fields[1].isBlank()) {
+                    throw new IllegalStateException("Ligne de taxonomie invalide (" + location + ":" + lineNumber + ")");
+                }
+                try {
+                    rules.add(new CategoryClassifier.Rule(fields[0].trim(), fields[1].trim(), Integer.parseInt(fields[2].trim())));
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Priorité invalide (" + location + ":" + lineNumber + ")");
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Taxonomie illisible : " + location, e);
+        }
+        log.info("Loaded {} category rules from {}", rules.size(), location);
+        return new CategoryClassifier(rules);
+    }
+}
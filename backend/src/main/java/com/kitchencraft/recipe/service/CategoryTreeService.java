@@ -0,0 +1,372 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.CategoryNodeDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.util.CategoryClassifier;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Arbre des catégories d'ingrédients, chargé depuis app.category-taxonomy.tree-location.
+ *
+ * - tables category_node et category_closure réécrites au démarrage et au rechargement
+ * - chaque ingrédient est rattaché à un nœud (ingredient.category_node_id) : sa catégorie de base,
+ *   ou pour un produit OpenFoodFacts le nœud le plus profond de cette catégorie dont un motif
+ *   apparaît dans ses catégories OpenFoodFacts
+ * - rattachement tenu à jour à chaque modification d'ingrédient ; complet en arrière-plan au démarrage,
+ *   au rechargement et après une modification en masse
+ *
+ * "Ingrédients / recettes sous la catégorie X" se lit alors par une jointure sur category_closure.ancestor_id.
+ */
+@Service
+@Slf4j
+public class CategoryTreeService {
+
+    private static final int BATCH_SIZE = 1000;
+
+    // Source et catégorie de base lues en texte depuis le dictionnaire
+    private static final String SELECT_SQL = "SELECT i.id, s.value, i.category, c.value, i.category_node_id FROM ingredient i "
+            + "LEFT JOIN dictionary_value s ON s.id = i.data_source_id "
+            + "LEFT JOIN dictionary_value c ON c.id = i.basic_category_id ";
+
+    private record Node(String code, String parentCode, String label, int depth, List<String> patterns) {
+    }
+
+    private record Tree(List<CategoryNodeDto> nodes,
+                        Map<String, Long> idByCode,
+                        Map<String, Long> idByLabel,
+                        Map<String, Long> basicIdByLabel,
+                        Map<Long, CategoryClassifier> classifierByBasicId,
+                        long rootId,
+                        Long otherId) {
+    }
+
+    private final ResourceLoader resourceLoader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig appConfig;
+
+    private volatile Tree tree;
+    // true une fois un rattachement complet terminé avec l'arbre courant
+    private volatile boolean linked;
+
+    private final AtomicBoolean relinking = new AtomicBoolean();
+    private final AtomicBoolean relinkRequested = new AtomicBoolean();
+    private final AtomicLong processed = new AtomicLong();
+    private final AtomicLong changed = new AtomicLong();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+
+    public CategoryTreeService(ResourceLoader resourceLoader,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               AppConfig appConfig) {
+        this.resourceLoader = resourceLoader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.appConfig = appConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            tree = store(loadNodes());
+            startRelink();
+        } catch (RuntimeException e) {
+            log.error("Category tree initialization failed", e);
+        }
+    }
+
+    /**
+     * Recharge l'arbre, réécrit les tables puis relance le rattachement des ingrédients.
+     * @return nombre de nœuds
+     */
+    public int reloadTree() {
+        List<Node> nodes;
+        try {
+            nodes = loadNodes();
+        } catch (IllegalStateException e) {
+            throw new BusinessException(e.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        tree = store(nodes);
+        linked = false;
+        startRelink();
+        return nodes.size();
+    }
+
+    public List<CategoryNodeDto> getNodes() {
+        Tree current = tree;
+        return current != null ? current.nodes() : List.of();
+    }
+
+    /**
+     * Nœud désigné par son code ou son libellé (sans accents ni casse).
+     */
+    public Optional<Long> findNodeId(String codeOrLabel) {
+        Tree current = tree;
+        if (current == null || codeOrLabel == null) {
+            return Optional.empty();
+        }
+        Long id = current.idByCode().get(codeOrLabel.trim());
+        return Optional.ofNullable(id != null ? id : current.idByLabel().get(IngredientNameNormalizer.fold(codeOrLabel)));
+    }
+
+    /**
+     * true si les rattachements en base reflètent l'arbre courant ; sinon les requêtes par sous-arbre
+     * peuvent être incomplètes et l'appelant se rabat sur basicCategory.
+     */
+    public boolean isLinked() {
+        return linked;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        if (tree == null) {
+            return;
+        }
+        if (event.ingredientId() == null) {
+            startRelink();
+            return;
+        }
+        List<Object[]> updates = new ArrayList<>();
+        jdbcTemplate.query(SELECT_SQL + "WHERE i.id = ?",
+                (ResultSet resultSet) -> {
+                    collectChange(tree, resultSet, updates);
+                }, event.ingredientId());
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE ingredient SET category_node_id = ? WHERE id = ?", updates);
+        }
+    }
+
+    public Map<String, Object> getStatus() {
+        Tree current = tree;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("nodes", current != null ? current.nodes().size() : 0);
+        status.put("linked", linked);
+        status.put("running", relinking.get());
+        status.put("startedAt", startedAt);
+        status.put("completedAt", completedAt);
+        status.put("processed", processed.get());
+        status.put("changed", changed.get());
+        return status;
+    }
+
+    private void startRelink() {
+        relinkRequested.set(true);
+        if (!relinking.compareAndSet(false, true)) {
+            // Le rattachement en cours repartira pour couvrir la demande
+            return;
+        }
+        Thread.ofVirtual().name("category-relink").start(() -> {
+            try {
+                while (relinkRequested.getAndSet(false)) {
+                    relink();
+                }
+            } catch (RuntimeException e) {
+                log.error("Ingredient category relink failed", e);
+            } finally {
+                relinking.set(false);
+            }
+        });
+    }
+
+    // Parcours par clé ; seules les lignes dont le nœud change sont réécrites
+    private void relink() {
+        Tree current = tree;
+        startedAt = LocalDateTime.now();
+        completedAt = null;
+        processed.set(0);
+        changed.set(0);
+        long cursor = 0;
+        while (true) {
+            List<Object[]> updates = new ArrayList<>();
+            List<Long> ids = jdbcTemplate.query(
+                    SELECT_SQL + "WHERE i.id > ? ORDER BY i.id LIMIT ?",
+                    (resultSet, rowNum) -> collectChange(current, resultSet, updates), cursor, BATCH_SIZE);
+            if (ids.isEmpty()) {
+                break;
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE ingredient SET category_node_id = ? WHERE id = ?", updates);
+            }
+            processed.addAndGet(ids.size());
+            changed.addAndGet(updates.size());
+            cursor = ids.get(ids.size() - 1);
+        }
+        completedAt = LocalDateTime.now();
+        linked = current == tree;
+        log.info("Ingredient category relink completed: {} processed, {} changed", processed.get(), changed.get());
+    }
+
+    private static long collectChange(Tree tree, ResultSet resultSet, List<Object[]> updates) throws SQLException {
+        long id = resultSet.getLong(1);
+        long nodeId = nodeFor(tree, resultSet.getString(2), resultSet.getString(3), resultSet.getString(4));
+        if (!Objects.equals(nodeId, resultSet.getObject(5, Long.class))) {
+            updates.add(new Object[] {nodeId, id});
+        }
+        return id;
+    }
+
+    private static long nodeFor(Tree tree, String dataSource, String category, String basicCategory) {
+        Long basicId = basicCategory != null ? tree.basicIdByLabel().get(IngredientNameNormalizer.fold(basicCategory)) : null;
+        if (basicId == null) {
+            // Sans catégorie : "Autres" ; catégorie hors arbre : racine seulement
+            return basicCategory == null && tree.otherId() != null ? tree.otherId() : tree.rootId();
+        }
+        CategoryClassifier classifier = tree.classifierByBasicId().get(basicId);
+        if ("OPENFOODFACTS".equals(dataSource) && classifier != null) {
+            String code = classifier.classify(category);
+            if (code != null) {
+                return tree.idByCode().get(code);
+            }
+        }
+        return basicId;
+    }
+
+    // Réécrit category_node et category_closure dans une transaction ; les nœuds retirés du fichier sont supprimés
+    private Tree store(List<Node> nodes) {
+        return transactionTemplate.execute(status -> {
+            Map<String, Long> idByCode = new HashMap<>();
+            for (Node node : nodes) {
+                Long id = jdbcTemplate.queryForObject(
+                        "INSERT INTO category_node (code, label, parent_id, depth) VALUES (?, ?, ?, ?) "
+                                + "ON CONFLICT (code) DO UPDATE SET label = EXCLUDED.label, parent_id = EXCLUDED.parent_id, "
+                                + "depth = EXCLUDED.depth RETURNING id",
+                        Long.class, node.code(), node.label(),
+                        node.parentCode() != null ? idByCode.get(node.parentCode()) : null, node.depth());
+                idByCode.put(node.code(), id);
+            }
+            String[] codes = nodes.stream().map(Node::code).toArray(String[]::new);
+            jdbcTemplate.update("UPDATE ingredient SET category_node_id = NULL WHERE category_node_id IN "
+                    + "(SELECT id FROM category_node WHERE NOT (code = ANY (?)))",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", codes)));
+            jdbcTemplate.update("DELETE FROM category_closure");
+            jdbcTemplate.update("DELETE FROM category_node WHERE NOT (code = ANY (?))",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("text", codes)));
+
+            Map<String, Node> byCode = new HashMap<>();
+            nodes.forEach(node -> byCode.put(node.code(), node));
+            List<Object[]> closure = new ArrayList<>();
+            for (Node node : nodes) {
+                Node ancestor = node;
+                while (ancestor != null) {
+                    closure.add(new Object[] {idByCode.get(ancestor.code()), idByCode.get(node.code()),
+                            node.depth() - ancestor.depth()});
+                    ancestor = ancestor.parentCode() != null ? byCode.get(ancestor.parentCode()) : null;
+                }
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)", closure);
+            log.info("Stored category tree: {} nodes, {} closure rows", nodes.size(), closure.size());
+            return buildTree(nodes, idByCode, byCode);
+        });
+    }
+
+    private static Tree buildTree(List<Node> nodes, Map<String, Long> idByCode, Map<String, Node> byCode) {
+        List<CategoryNodeDto> dtos = new ArrayList<>();
+        Map<String, Long> idByLabel = new HashMap<>();
+        Map<String, Long> basicIdByLabel = new HashMap<>();
+        Map<Long, List<CategoryClassifier.Rule>> rulesByBasicId = new HashMap<>();
+        long rootId = 0;
+        for (Node node : nodes) {
+            long id = idByCode.get(node.code());
+            dtos.add(new CategoryNodeDto(id, node.code(), node.parentCode(), node.label(), node.depth()));
+            idByLabel.putIfAbsent(IngredientNameNormalizer.fold(node.label()), id);
+            if (node.depth() == 0) {
+                rootId = id;
+                continue;
+            }
+            // Catégorie de base : l'ancêtre de profondeur 1 ; les plus profonds l'emportent
+            Node basic = node;
+            while (basic.depth() > 1) {
+                basic = byCode.get(basic.parentCode());
+            }
+            long basicId = idByCode.get(basic.code());
+            if (node == basic) {
+                basicIdByLabel.put(IngredientNameNormalizer.fold(node.label()), basicId);
+            }
+            for (String pattern : node.patterns()) {
+                rulesByBasicId.computeIfAbsent(basicId, key -> new ArrayList<>())
+                        .add(new CategoryClassifier.Rule(pattern, node.code(), node.depth()));
+            }
+        }
+        Map<Long, CategoryClassifier> classifiers = new HashMap<>();
+        rulesByBasicId.forEach((basicId, rules) -> classifiers.put(basicId, new CategoryClassifier(rules)));
+        return new Tree(List.copyOf(dtos), Map.copyOf(idByCode), Map.copyOf(idByLabel), Map.copyOf(basicIdByLabel),
+                Map.copyOf(classifiers), rootId,
+                basicIdByLabel.get(IngredientNameNormalizer.fold(CategoryClassificationService.DEFAULT_CATEGORY)));
+    }
+
+    private List<Node> loadNodes() {
+        String location = appConfig.getCategoryTaxonomy().getTreeLocation();
+        Resource resource = resourceLoader.getResource(location);
+        List<Node> nodes = new ArrayList<>();
+        Map<String, Node> byCode = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";", -1);
+                if (fields.length != 4 || fields[0].isBlank() || fields[2].isBlank() || byCode.containsKey(fields[0].trim())) {
+                    throw new IllegalStateException("Ligne d'arbre des catégories invalide (" + location + ":" + lineNumber + ")");
+                }
+                String code = fields[0].trim();
+                String parentCode = fields[1].isBlank() ? null : fields[1].trim();
+                Node parent = parentCode != null ? byCode.get(parentCode) : null;
+                if (parentCode != null ? parent == null : !nodes.isEmpty()) {
+                    // Parent déclaré plus haut ; seule la première ligne est la racine
+                    throw new IllegalStateException("Parent inconnu ou racine multiple (" + location + ":" + lineNumber + ")");
+                }
+                List<String> patterns = new ArrayList<>();
+                for (String pattern : fields[3].split(",")) {
+                    if (!pattern.isBlank()) {
+                        patterns.add(pattern.trim());
+                    }
+                }
+                Node node = new Node(code, parentCode, fields[2].trim(), parent != null ? parent.depth() + 1 : 0, patterns);
+                nodes.add(node);
+                byCode.put(code, node);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Arbre des catégories illisible : " + location, e);
+        }
+        if (nodes.isEmpty()) {
+            throw new IllegalStateException("Arbre des catégories vide : " + location);
+        }
+        log.info("Loaded {} category nodes from {}", nodes.size(), location);
+        return nodes;
+    }
+}
@@ -0,0 +1,126 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.model.DictionaryValue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionnaires des colonnes à faible cardinalité : les lignes de recipe, recipe_ingredient,
+ * shopping_list_item, plan_recipe et ingredient stockent un entier (table dictionary_value) au lieu du texte répété.
+ * Les écritures JDBC (import COPY, lots) passent aussi par idOf.
+ *
+ * - valeurs en cache dans les deux sens ; les entités reçoivent toutes la même instance de chaque chaîne
+ * - une valeur inconnue est créée à la volée, sur une connexion dédiée en autocommit pour qu'un rollback
+ *   de la transaction appelante ne laisse pas en cache un identifiant inexistant
+ * - les anciennes colonnes texte sont migrées avant l'initialisation de JPA (DictionarySchemaMigration)
+ */
+@Service
+@Slf4j
+public class DictionaryService {
+
+    private static final String UPSERT_SQL = "INSERT INTO dictionary_value (domain, value) VALUES (?, ?) "
+            + "ON CONFLICT (domain, value) DO UPDATE SET value = EXCLUDED.value RETURNING id";
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final Map<DictionaryValue.Domain, Map<String, Integer>> idsByDomain = new EnumMap<>(DictionaryValue.Domain.class);
+    private final Map<Integer, String> values = new ConcurrentHashMap<>();
+
+    // Pas de gestionnaire de transactions : les convertisseurs, donc ce service, sont créés pendant
+    // l'initialisation de l'EntityManagerFactory, dont dépend le gestionnaire JPA
+    public DictionaryService(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        for (DictionaryValue.Domain domain : DictionaryValue.Domain.values()) {
+            idsByDomain.put(domain, new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        jdbcTemplate.query("SELECT id, domain, value FROM dictionary_value", (RowCallbackHandler) resultSet ->
+                register(DictionaryValue.Domain.valueOf(resultSet.getString(2)), resultSet.getString(3), resultSet.getInt(1)));
+        log.info("Dictionary loaded: {} values", values.size());
+    }
+
+    /**
+     * Identifiant de la valeur, créée si besoin.
+     */
+    public int idOf(DictionaryValue.Domain domain, String value) {
+        Integer id = idsByDomain.get(domain).get(value);
+        return id != null ? id : create(domain, value);
+    }
+
+    /**
+     * Identifiant d'une valeur existante, null sinon ; pour les filtres, qui ne doivent pas enrichir le dictionnaire.
+     */
+    public Integer find(DictionaryValue.Domain domain, String value) {
+        return value != null ? idsByDomain.get(domain).get(value) : null;
+    }
+
+    public String valueOf(int id) {
+        String value = values.get(id);
+        if (value != null) {
+            return value;
+        }
+        // Valeur créée par une autre instance de l'application
+        List<String> found = jdbcTemplate.query("SELECT domain, value FROM dictionary_value WHERE id = ?",
+                (resultSet, rowNum) -> register(DictionaryValue.Domain.valueOf(resultSet.getString(1)), resultSet.getString(2), id),
+                id);
+        if (found.isEmpty()) {
+            throw new IllegalStateException("Valeur de dictionnaire inconnue : " + id);
+        }
+        return found.get(0);
+    }
+
+    /**
+     * Valeurs connues du domaine, y compris celles qui ne sont plus utilisées.
+     */
+    public List<String> values(DictionaryValue.Domain domain) {
+        return List.copyOf(idsByDomain.get(domain).keySet());
+    }
+
+    private synchronized int create(DictionaryValue.Domain domain, String value) {
+        Integer existing = idsByDomain.get(domain).get(value);
+        if (existing != null) {
+            return existing;
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            try (PreparedStatement statement = connection.prepareStatement(UPSERT_SQL)) {
+                statement.setString(1, domain.name());
+                statement.setString(2, value);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    int id = resultSet.getInt(1);
+                    register(domain, value, id);
+                    return id;
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Création impossible de la valeur " + domain + " '" + value + "'", e);
+        }
+    }
+
+    // Renvoie l'instance partagée de la valeur
+    private String register(DictionaryValue.Domain domain, String value, int id) {
+        String shared = values.computeIfAbsent(id, key -> value);
+        idsByDomain.get(domain).putIfAbsent(shared, id);
+        return shared;
+    }
+}
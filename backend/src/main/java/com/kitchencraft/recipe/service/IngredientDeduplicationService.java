@@ -0,0 +1,472 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.DuplicateIngredientGroupDto;
+import com.kitchencraft.recipe.dto.IngredientMergeRequest;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.IngredientsMergedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * Détection et fusion des ingrédients en double ("Tomate", "tomates", "Tomate ").
+ *
+ * Détection, en arrière-plan :
+ * - noms normalisés (accents, casse, ponctuation, pluriels) : même clé = doublon certain
+ * - clés distinctes regroupées en blocs par préfixe, redécoupés tant qu'ils dépassent maxBlockSize,
+ *   puis comparées deux à deux dans chaque bloc (Jaccard des trigrammes) sur un ForkJoinPool
+ * - deux produits avec chacun un code-barres, ou de marques différentes, ne sont jamais regroupés
+ *
+ * Fusion : les lignes d'une même recette (ou liste de courses) qui désigneraient ensuite le même
+ * ingrédient dans la même unité sont cumulées, les autres références sont reportées sur le survivant
+ * par des UPDATE ensemblistes, puis les perdants sont supprimés, le tout dans une transaction.
+ * Les groupes en mémoire ne sont mis à jour qu'après le commit de la fusion.
+ */
+@Service
+@Slf4j
+public class IngredientDeduplicationService {
+
+    private static final int FETCH_SIZE = 5000;
+    private static final int BLOCK_PREFIX = 3;
+    private static final int MAX_BLOCK_PREFIX = 16;
+
+    // Ingrédients touchés par la fusion, chacun avec son survivant (lui-même pour un survivant)
+    private static final String MERGE_MAPPING = "WITH m AS (SELECT * FROM unnest(?::bigint[], ?::bigint[]) AS m(loser_id, winner_id))"
+            + ", targets AS (SELECT loser_id AS ingredient_id, winner_id FROM m"
+            + " UNION SELECT winner_id, winner_id FROM m)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppConfig appConfig;
+
+    private final AtomicBoolean detecting = new AtomicBoolean();
+    private final LongAdder comparisons = new LongAdder();
+    private volatile String phase;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile int ingredientCount;
+    private volatile int keyCount;
+    private volatile int blockCount;
+    private volatile int groupCount;
+    private volatile List<DuplicateIngredientGroupDto> groups = List.of();
+
+    public IngredientDeduplicationService(JdbcTemplate jdbcTemplate,
+                                          PlatformTransactionManager transactionManager,
+                                          ApplicationEventPublisher eventPublisher,
+                                          AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.eventPublisher = eventPublisher;
+        this.appConfig = appConfig;
+    }
+
+    private record Row(long id, String name, String brand, String barcode, String dataSource, boolean hasNutrition,
+                       int usage) {
+    }
+
+    /**
+     * Lance en arrière-plan la détection des doublons ; le résultat remplace celui de la détection précédente.
+     */
+    public void startDetection() {
+        if (!detecting.compareAndSet(false, true)) {
+            throw new BusinessException("Une détection des doublons est déjà en cours", HttpStatus.CONFLICT);
+        }
+        Thread.ofVirtual().name("ingredient-deduplication").start(() -> {
+            try {
+                detect();
+            } catch (RuntimeException e) {
+                phase = "FAILED";
+                log.error("Ingredient duplicate detection failed", e);
+            } finally {
+                detecting.set(false);
+            }
+        });
+    }
+
+    public Map<String, Object> getDetectionStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", detecting.get());
+        status.put("phase", phase);
+        status.put("startedAt", startedAt);
+        status.put("completedAt", completedAt);
+        status.put("ingredients", ingredientCount);
+        status.put("distinctNames", keyCount);
+        status.put("blocks", blockCount);
+        status.put("comparisons", comparisons.sum());
+        status.put("groups", groupCount);
+        return status;
+    }
+
+    /**
+     * Groupes de la dernière détection, les plus gros d'abord.
+     */
+    public List<DuplicateIngredientGroupDto> getDuplicateGroups(int limit) {
+        List<DuplicateIngredientGroupDto> current = groups;
+        return current.subList(0, Math.min(Math.max(limit, 0), current.size()));
+    }
+
+    /**
+     * Fusionne chaque ensemble de perdants dans son survivant. Un ingrédient ne peut apparaître
+     * que dans une seule fusion ; tout identifiant inconnu annule l'ensemble.
+     */
+    @Transactional
+    public Map<String, Object> merge(IngredientMergeRequest request) {
+        Set<Long> seen = new HashSet<>();
+        List<Long> winners = new ArrayList<>();
+        List<Long> losers = new ArrayList<>();
+        for (IngredientMergeRequest.Merge merge : request.getMerges()) {
+            requireOnce(seen, merge.getWinnerId());
+            for (Long loserId : merge.getLoserIds()) {
+                requireOnce(seen, loserId);
+                winners.add(merge.getWinnerId());
+                losers.add(loserId);
+            }
+        }
+        Long[] allIds = seen.toArray(Long[]::new);
+        Long[] loserIds = losers.toArray(Long[]::new);
+        Long[] winnerIds = winners.toArray(Long[]::new);
+
+        // Verrouille les ingrédients concernés pour la durée de la fusion, par identifiant croissant :
+        // deux fusions qui se recouvrent prennent les verrous dans le même ordre
+        List<Long> existing = jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id FROM ingredient WHERE id = ANY (?) ORDER BY id FOR UPDATE");
+            statement.setArray(1, connection.createArrayOf("bigint", allIds));
+            return statement;
+        }, (resultSet, rowNum) -> resultSet.getLong(1));
+        if (existing.size() != allIds.length) {
+            Set<Long> missing = new HashSet<>(seen);
+            existing.forEach(missing::remove);
+            throw new BusinessException("Ingrédients introuvables : " + missing, HttpStatus.NOT_FOUND);
+        }
+
+        // Une recette (ou une liste) qui contenait déjà le survivant et un perdant, dans la même unité,
+        // aurait deux lignes pour le même ingrédient : les quantités sont cumulées sur une seule
+        // ligne et les autres supprimées, avant de rediriger le reste
+        int recipeIngredientsCollapsed = jdbcTemplate.update(MERGE_MAPPING
+                + ", collapsed AS (SELECT min(r.id) AS keep_id, array_agg(r.id) AS ids, sum(r.quantity) AS quantity"
+                + " FROM recipe_ingredient r JOIN targets t ON t.ingredient_id = r.ingredient_id"
+                + " GROUP BY r.recipe_id, t.winner_id, r.unit_id HAVING count(*) > 1)"
+                + ", kept AS (UPDATE recipe_ingredient r SET quantity = c.quantity FROM collapsed c WHERE r.id = c.keep_id)"
+                + " DELETE FROM recipe_ingredient r USING collapsed c WHERE r.id = ANY (c.ids) AND r.id <> c.keep_id",
+                ps -> bindMapping(ps, loserIds, winnerIds));
+        int shoppingListItemsCollapsed = jdbcTemplate.update(MERGE_MAPPING
+                + ", collapsed AS (SELECT min(s.id) AS keep_id, array_agg(s.id) AS ids,"
+                + " sum(s.quantity_needed) AS needed, sum(s.quantity_owned) AS owned,"
+                + " bool_and(s.is_checked) AS checked, bool_and(s.is_validated) AS validated"
+                + " FROM shopping_list_item s JOIN targets t ON t.ingredient_id = s.ingredient_id"
+                + " GROUP BY s.weekly_plan_id, t.winner_id, s.unit_id HAVING count(*) > 1)"
+                + ", kept AS (UPDATE shopping_list_item s SET quantity_needed = c.needed, quantity_owned = c.owned,"
+                + " quantity_to_buy = GREATEST(c.needed - c.owned, 0), is_checked = c.checked,"
+                + " is_validated = c.validated, version = s.version + 1 FROM collapsed c WHERE s.id = c.keep_id)"
+                + " DELETE FROM shopping_list_item s USING collapsed c WHERE s.id = ANY (c.ids) AND s.id <> c.keep_id",
+                ps -> bindMapping(ps, loserIds, winnerIds));
+
+        String mapping = "unnest(?::bigint[], ?::bigint[]) AS m(loser_id, winner_id)";
+        int recipeIngredients = jdbcTemplate.update(
+                "UPDATE recipe_ingredient r SET ingredient_id = m.winner_id FROM " + mapping
+                        + " WHERE r.ingredient_id = m.loser_id", ps -> bindMapping(ps, loserIds, winnerIds));
+        int shoppingListItems = jdbcTemplate.update(
+                "UPDATE shopping_list_item s SET ingredient_id = m.winner_id, version = s.version + 1 FROM " + mapping
+                        + " WHERE s.ingredient_id = m.loser_id", ps -> bindMapping(ps, loserIds, winnerIds));
+        int deleted = jdbcTemplate.update("DELETE FROM ingredient WHERE id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", loserIds)));
+
+        eventPublisher.publishEvent(new IngredientsMergedEvent(Set.copyOf(losers), Set.copyOf(winners)));
+        eventPublisher.publishEvent(new IngredientChangedEvent(null, false));
+        log.info("Merged {} duplicate ingredients into {} survivors ({} recipe lines, {} shopping list items repointed; "
+                        + "{} recipe lines, {} shopping list items folded into another line)",
+                deleted, request.getMerges().size(), recipeIngredients, shoppingListItems,
+                recipeIngredientsCollapsed, shoppingListItemsCollapsed);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("merges", request.getMerges().size());
+        result.put("deletedIngredients", deleted);
+        result.put("recipeIngredientsUpdated", recipeIngredients);
+        result.put("shoppingListItemsUpdated", shoppingListItems);
+        result.put("recipeIngredientsCollapsed", recipeIngredientsCollapsed);
+        result.put("shoppingListItemsCollapsed", shoppingListItemsCollapsed);
+        return result;
+    }
+
+    @TransactionalEventListener
+    public synchronized void onIngredientsMerged(IngredientsMergedEvent event) {
+        groups = withoutMerged(groups, event.loserIds(), event.winnerIds());
+    }
+
+    private static void bindMapping(PreparedStatement statement, Long[] loserIds, Long[] winnerIds) throws SQLException {
+        statement.setArray(1, statement.getConnection().createArrayOf("bigint", loserIds));
+        statement.setArray(2, statement.getConnection().createArrayOf("bigint", winnerIds));
+    }
+
+    private void detect() {
+        long start = System.nanoTime();
+        startedAt = LocalDateTime.now();
+        completedAt = null;
+        comparisons.reset();
+        AppConfig.IngredientDeduplicationConfig config = appConfig.getIngredientDeduplication();
+
+        phase = "LOADING";
+        List<Row> rows = loadRows();
+        ingredientCount = rows.size();
+
+        // Clés normalisées distinctes ; les lignes de même clé sont déjà des doublons
+        phase = "NORMALIZING";
+        String[] rowKeys = rows.parallelStream()
+                .map(row -> IngredientNameNormalizer.dedupKey(row.name()))
+                .toArray(String[]::new);
+        Map<String, Integer> keyIndex = new HashMap<>();
+        List<String> keys = new ArrayList<>();
+        int[] rowKey = new int[rows.size()];
+        for (int i = 0; i < rowKeys.length; i++) {
+            rowKey[i] = rowKeys[i].isEmpty() ? -1 : keyIndex.computeIfAbsent(rowKeys[i], key -> {
+                keys.add(key);
+                return keys.size() - 1;
+            });
+        }
+        keyCount = keys.size();
+        long[][] grams = keys.parallelStream().map(IngredientNameNormalizer::trigrams).toArray(long[][]::new);
+
+        phase = "SCORING";
+        Integer[] sorted = IntStream.range(0, keys.size()).boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, Comparator.comparing(keys::get));
+        List<int[]> blocks = new ArrayList<>();
+        block(sorted, 0, sorted.length, BLOCK_PREFIX, keys, config.getMaxBlockSize(), blocks);
+        blockCount = blocks.size();
+        long[] pairs = scoreBlocks(blocks, grams, config);
+
+        phase = "GROUPING";
+        int[] parent = IntStream.range(0, keys.size()).toArray();
+        for (long pair : pairs) {
+            union(parent, (int) (pair >>> 32), (int) pair);
+        }
+        Map<Integer, List<Integer>> clusters = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (rowKey[i] >= 0) {
+                clusters.computeIfAbsent(find(parent, rowKey[i]), root -> new ArrayList<>(2)).add(i);
+            }
+        }
+        List<DuplicateIngredientGroupDto> found = new ArrayList<>();
+        for (List<Integer> cluster : clusters.values()) {
+            if (cluster.size() > 1) {
+                buildGroups(cluster, rows, rowKey, keys, grams, found);
+            }
+        }
+        found.sort(Comparator.comparingInt((DuplicateIngredientGroupDto group) -> group.getMembers().size()).reversed()
+                .thenComparing(DuplicateIngredientGroupDto::getNormalizedName));
+        groupCount = found.size();
+        groups = List.copyOf(found.subList(0, Math.min(found.size(), config.getMaxGroups())));
+        phase = "COMPLETED";
+        completedAt = LocalDateTime.now();
+        log.info("Ingredient duplicate detection: {} ingredients, {} names, {} blocks, {} comparisons, {} groups in {} ms",
+                rows.size(), keys.size(), blocks.size(), comparisons.sum(), found.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private List<Row> loadRows() {
+        List<Row> rows = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT i.id, i.name, i.brand, i.barcode, s.value, i.energy_kcal IS NOT NULL, "
+                            + "i.recipe_usage_count + i.shopping_list_usage_count FROM ingredient i "
+                            + "LEFT JOIN dictionary_value s ON s.id = i.data_source_id");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) resultSet -> rows.add(new Row(resultSet.getLong(1), resultSet.getString(2),
+                resultSet.getString(3), resultSet.getString(4), resultSet.getString(5), resultSet.getBoolean(6),
+                resultSet.getInt(7)))));
+        return rows;
+    }
+
+    // Découpe [from, to) des clés triées en blocs de même préfixe ; un bloc trop gros est redécoupé sur un préfixe plus long
+    private static void block(Integer[] sorted, int from, int to, int prefixLength, List<String> keys,
+                              int maxBlockSize, List<int[]> blocks) {
+        int runStart = from;
+        while (runStart < to) {
+            String prefix = prefix(keys.get(sorted[runStart]), prefixLength);
+            int runEnd = runStart + 1;
+            while (runEnd < to && prefix.equals(prefix(keys.get(sorted[runEnd]), prefixLength))) {
+                runEnd++;
+            }
+            if (runEnd - runStart > maxBlockSize && prefixLength < MAX_BLOCK_PREFIX) {
+                block(sorted, runStart, runEnd, prefixLength + 2, keys, maxBlockSize, blocks);
+            } else if (runEnd - runStart > 1) {
+                int[] block = new int[runEnd - runStart];
+                for (int i = 0; i < block.length; i++) {
+                    block[i] = sorted[runStart + i];
+                }
+                blocks.add(block);
+            }
+            runStart = runEnd;
+        }
+    }
+
+    private static String prefix(String key, int length) {
+        return key.length() <= length ? key : key.substring(0, length);
+    }
+
+    private long[] scoreBlocks(List<int[]> blocks, long[][] grams, AppConfig.IngredientDeduplicationConfig config) {
+        int parallelism = config.getParallelism() > 0 ? config.getParallelism() : Runtime.getRuntime().availableProcessors();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.submit(() -> blocks.parallelStream()
+                    .map(block -> scoreBlock(block, grams, config.getSimilarityThreshold()))
+                    .flatMapToLong(Arrays::stream)
+                    .toArray()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Détection des doublons interrompue", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec du calcul des similarités", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Paires (i << 32 | j) du bloc dont la similarité atteint le seuil.
+     * Jaccard(a, b) <= |a| / |b| : une fois les clés triées par nombre de trigrammes,
+     * la comparaison s'arrête dès que l'écart de taille rend le seuil inatteignable.
+     */
+    private long[] scoreBlock(int[] block, long[][] grams, double threshold) {
+        int[] bySize = Arrays.stream(block).boxed()
+                .sorted(Comparator.comparingInt(key -> grams[key].length))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        long[] pairs = new long[8];
+        int count = 0;
+        long compared = 0;
+        for (int i = 0; i < bySize.length; i++) {
+            long[] a = grams[bySize[i]];
+            for (int j = i + 1; j < bySize.length; j++) {
+                long[] b = grams[bySize[j]];
+                if (a.length < threshold * b.length) {
+                    break;
+                }
+                compared++;
+                if (IngredientNameNormalizer.jaccard(a, b) >= threshold) {
+                    if (count == pairs.length) {
+                        pairs = Arrays.copyOf(pairs, count * 2);
+                    }
+                    pairs[count++] = ((long) bySize[i] << 32) | bySize[j];
+                }
+            }
+        }
+        comparisons.add(compared);
+        return Arrays.copyOf(pairs, count);
+    }
+
+    // Un groupe par marque ; plusieurs produits avec code-barres sont des produits distincts et restent à l'écart
+    private static void buildGroups(List<Integer> cluster, List<Row> rows, int[] rowKey, List<String> keys,
+                                    long[][] grams, List<DuplicateIngredientGroupDto> found) {
+        Map<String, List<Row>> byBrand = new HashMap<>();
+        Map<Long, Integer> keyOf = new HashMap<>();
+        for (int index : cluster) {
+            Row row = rows.get(index);
+            keyOf.put(row.id(), rowKey[index]);
+            byBrand.computeIfAbsent(IngredientNameNormalizer.fold(row.brand()), brand -> new ArrayList<>()).add(row);
+        }
+        for (List<Row> members : byBrand.values()) {
+            if (members.stream().filter(row -> row.barcode() != null).count() > 1) {
+                members = new ArrayList<>(members.stream().filter(row -> row.barcode() == null).toList());
+            }
+            if (members.size() < 2) {
+                continue;
+            }
+            members.sort(Comparator.comparing((Row row) -> row.barcode() == null)
+                    .thenComparing(row -> !row.hasNutrition())
+                    .thenComparing(row -> -row.usage())
+                    .thenComparingLong(Row::id));
+            Row winner = members.get(0);
+            long[] winnerGrams = grams[keyOf.get(winner.id())];
+            DuplicateIngredientGroupDto group = new DuplicateIngredientGroupDto();
+            group.setNormalizedName(keys.get(keyOf.get(winner.id())));
+            group.setWinnerId(winner.id());
+            for (Row row : members) {
+                group.getMembers().add(new DuplicateIngredientGroupDto.Member(row.id(), row.name(), row.brand(),
+                        row.barcode(), row.dataSource(), row.usage(),
+                        IngredientNameNormalizer.jaccard(grams[keyOf.get(row.id())], winnerGrams)));
+            }
+            found.add(group);
+        }
+    }
+
+    // Retire des groupes en mémoire les ingrédients supprimés et les groupes déjà fusionnés
+    private static List<DuplicateIngredientGroupDto> withoutMerged(List<DuplicateIngredientGroupDto> current,
+                                                                   Set<Long> losers, Set<Long> winners) {
+        List<DuplicateIngredientGroupDto> remaining = new ArrayList<>();
+        for (DuplicateIngredientGroupDto group : current) {
+            if (winners.contains(group.getWinnerId()) || losers.contains(group.getWinnerId())) {
+                continue;
+            }
+            List<DuplicateIngredientGroupDto.Member> members = group.getMembers().stream()
+                    .filter(member -> !losers.contains(member.getId()))
+                    .toList();
+            if (members.size() == group.getMembers().size()) {
+                remaining.add(group);
+            } else if (members.size() > 1) {
+                DuplicateIngredientGroupDto copy = new DuplicateIngredientGroupDto();
+                copy.setNormalizedName(group.getNormalizedName());
+                copy.setWinnerId(group.getWinnerId());
+                copy.setMembers(new ArrayList<>(members));
+                remaining.add(copy);
+            }
+        }
+        return List.copyOf(remaining);
+    }
+
+    private static void requireOnce(Set<Long> seen, Long id) {
+        if (id == null) {
+            throw new BusinessException("Identifiant d'ingrédient manquant", HttpStatus.BAD_REQUEST);
+        }
+        if (!seen.add(id)) {
+            throw new BusinessException("L'ingrédient " + id + " apparaît dans plusieurs fusions", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+
+    private static void union(int[] parent, int a, int b) {
+        int rootA = find(parent, a);
+        int rootB = find(parent, b);
+        if (rootA != rootB) {
+            parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+        }
+    }
+}
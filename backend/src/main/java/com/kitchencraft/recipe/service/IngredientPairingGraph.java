@@ -0,0 +1,304 @@
+package com.kitchencraft.recipe.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Graphe creux de co-occurrence des ingrédients : pour chaque ingrédient, ses voisins et le nombre
+ * de recettes qu'ils partagent, en tableaux primitifs triés par code d'ingrédient.
+ *
+ * - construction initiale par tri des paires encodées sur un long, sans table de hachage par paire
+ * - mise à jour par recette (setRecipe) : seules les lignes des ingrédients ajoutés, retirés ou
+ *   associés à ceux-ci sont réécrites, chacune en une fusion linéaire
+ * - PMI calculée à la lecture depuis les comptes, le nombre de recettes changeant à chaque écriture
+ *
+ * Lectures concurrentes, écritures exclusives.
+ */
+public final class IngredientPairingGraph {
+
+    public record Pairing(long ingredientId, int recipeCount, double pmi) {
+    }
+
+    // Voisins triés et nombre de recettes communes ; remplacée en bloc à chaque modification
+    private record Row(int[] neighbors, int[] counts) {
+    }
+
+    private static final Row EMPTY_ROW = new Row(new int[0], new int[0]);
+    private static final int[] NO_CODES = new int[0];
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> codeByIngredientId = new HashMap<>();
+    private long[] ingredientIds = new long[64];
+    // Nombre de recettes contenant l'ingrédient
+    private int[] frequencies = new int[64];
+    private Row[] rows = new Row[64];
+    private int size;
+    // Codes triés sans doublon des ingrédients de chaque recette qui en a au moins un
+    private final Map<Long, int[]> codesByRecipeId = new HashMap<>();
+
+    IngredientPairingGraph() {
+    }
+
+    /**
+     * Construit le graphe depuis les ingrédients de chaque recette.
+     */
+    static IngredientPairingGraph build(Map<Long, long[]> ingredientIdsByRecipeId) {
+        IngredientPairingGraph graph = new IngredientPairingGraph();
+        long pairTotal = 0;
+        for (Map.Entry<Long, long[]> entry : ingredientIdsByRecipeId.entrySet()) {
+            int[] codes = graph.encode(entry.getValue());
+            if (codes.length == 0) {
+                continue;
+            }
+            graph.codesByRecipeId.put(entry.getKey(), codes);
+            for (int code : codes) {
+                graph.frequencies[code]++;
+            }
+            pairTotal += (long) codes.length * (codes.length - 1) / 2;
+        }
+        if (pairTotal > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Trop de paires d'ingrédients : " + pairTotal);
+        }
+
+        // Paires (a < b) encodées a << 32 | b, triées : chaque suite de valeurs égales est une arête
+        long[] pairs = new long[(int) pairTotal];
+        int p = 0;
+        for (int[] codes : graph.codesByRecipeId.values()) {
+            for (int i = 0; i < codes.length; i++) {
+                for (int j = i + 1; j < codes.length; j++) {
+                    pairs[p++] = ((long) codes[i] << 32) | codes[j];
+                }
+            }
+        }
+        Arrays.sort(pairs);
+
+        int[] degrees = new int[graph.size];
+        for (int i = 0; i < pairs.length; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                degrees[(int) (pairs[i] >>> 32)]++;
+                degrees[(int) pairs[i]]++;
+            }
+        }
+        int[][] neighbors = new int[graph.size][];
+        int[][] counts = new int[graph.size][];
+        for (int code = 0; code < graph.size; code++) {
+            neighbors[code] = new int[degrees[code]];
+            counts[code] = new int[degrees[code]];
+        }
+        // Dans l'ordre du tri, les voisins de chaque ligne arrivent déjà croissants
+        int[] fill = new int[graph.size];
+        for (int i = 0; i < pairs.length; ) {
+            int j = i;
+            while (j < pairs.length && pairs[j] == pairs[i]) {
+                j++;
+            }
+            int a = (int) (pairs[i] >>> 32);
+            int b = (int) pairs[i];
+            neighbors[a][fill[a]] = b;
+            counts[a][fill[a]++] = j - i;
+            neighbors[b][fill[b]] = a;
+            counts[b][fill[b]++] = j - i;
+            i = j;
+        }
+        for (int code = 0; code < graph.size; code++) {
+            graph.rows[code] = degrees[code] == 0 ? EMPTY_ROW : new Row(neighbors[code], counts[code]);
+        }
+        return graph;
+    }
+
+    /**
+     * Remplace les ingrédients d'une recette (tableau vide pour une recette supprimée).
+     * Idempotent : l'écart est calculé avec l'état connu de la recette.
+     */
+    public void setRecipe(long recipeId, long[] ingredientIds) {
+        lock.writeLock().lock();
+        try {
+            int[] previous = codesByRecipeId.getOrDefault(recipeId, NO_CODES);
+            int[] current = encode(ingredientIds);
+            if (Arrays.equals(previous, current)) {
+                return;
+            }
+            int[] removed = difference(previous, current);
+            int[] added = difference(current, previous);
+            for (int code : removed) {
+                frequencies[code]--;
+                applyDeltas(code, without(previous, code), -1);
+            }
+            for (int code : added) {
+                frequencies[code]++;
+                applyDeltas(code, without(current, code), 1);
+            }
+            for (int code : difference(current, added)) {
+                applyDeltas(code, removed, -1);
+                applyDeltas(code, added, 1);
+            }
+            if (current.length == 0) {
+                codesByRecipeId.remove(recipeId);
+            } else {
+                codesByRecipeId.put(recipeId, current);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ingrédients les plus associés, par PMI décroissante : ln(n(a,b) * N / (n(a) * n(b))),
+     * N étant le nombre de recettes. Les paires vues dans moins de minCount recettes sont ignorées,
+     * la PMI surestimant les associations rares.
+     */
+    public List<Pairing> topPairings(long ingredientId, int limit, int minCount) {
+        lock.readLock().lock();
+        try {
+            Integer code = codeByIngredientId.get(ingredientId);
+            if (code == null || limit <= 0) {
+                return List.of();
+            }
+            Row row = rows[code];
+            double recipes = codesByRecipeId.size();
+            Comparator<Pairing> order = Comparator.comparingDouble(Pairing::pmi).thenComparingInt(Pairing::recipeCount);
+            PriorityQueue<Pairing> top = new PriorityQueue<>(limit + 1, order);
+            for (int i = 0; i < row.neighbors().length; i++) {
+                int count = row.counts()[i];
+                if (count < minCount) {
+                    continue;
+                }
+                int neighbor = row.neighbors()[i];
+                double pmi = Math.log(count * recipes / ((double) frequencies[code] * frequencies[neighbor]));
+                top.add(new Pairing(ingredientIds[neighbor], count, pmi));
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<Pairing> result = new ArrayList<>(top);
+            result.sort(order.reversed());
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int recipeCount() {
+        lock.readLock().lock();
+        try {
+            return codesByRecipeId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long edgeCount() {
+        lock.readLock().lock();
+        try {
+            long degrees = 0;
+            for (int code = 0; code < size; code++) {
+                degrees += rows[code].neighbors().length;
+            }
+            return degrees / 2;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ajoute delta au compte de chaque voisin (trié) en une fusion ; les comptes tombés à zéro sont retirés
+    private void applyDeltas(int code, int[] sortedNeighbors, int delta) {
+        if (sortedNeighbors.length == 0) {
+            return;
+        }
+        Row row = rows[code];
+        int[] neighbors = new int[row.neighbors().length + sortedNeighbors.length];
+        int[] counts = new int[neighbors.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        while (i < row.neighbors().length || j < sortedNeighbors.length) {
+            int neighbor;
+            int count;
+            if (j == sortedNeighbors.length || (i < row.neighbors().length && row.neighbors()[i] < sortedNeighbors[j])) {
+                neighbor = row.neighbors()[i];
+                count = row.counts()[i++];
+            } else if (i == row.neighbors().length || sortedNeighbors[j] < row.neighbors()[i]) {
+                neighbor = sortedNeighbors[j++];
+                count = delta;
+            } else {
+                neighbor = row.neighbors()[i];
+                count = row.counts()[i++] + delta;
+                j++;
+            }
+            if (count > 0) {
+                neighbors[n] = neighbor;
+                counts[n++] = count;
+            }
+        }
+        rows[code] = n == 0 ? EMPTY_ROW : new Row(Arrays.copyOf(neighbors, n), Arrays.copyOf(counts, n));
+    }
+
+    // Codes triés sans doublon, attribués aux nouveaux ingrédients
+    private int[] encode(long[] ids) {
+        if (ids.length == 0) {
+            return NO_CODES;
+        }
+        int[] codes = new int[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            codes[i] = codeOf(ids[i]);
+        }
+        Arrays.sort(codes);
+        int unique = 0;
+        for (int i = 0; i < codes.length; i++) {
+            if (i == 0 || codes[i] != codes[i - 1]) {
+                codes[unique++] = codes[i];
+            }
+        }
+        return Arrays.copyOf(codes, unique);
+    }
+
+    private int codeOf(long ingredientId) {
+        Integer code = codeByIngredientId.get(ingredientId);
+        if (code != null) {
+            return code;
+        }
+        if (size == ingredientIds.length) {
+            int capacity = size * 2;
+            ingredientIds = Arrays.copyOf(ingredientIds, capacity);
+            frequencies = Arrays.copyOf(frequencies, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+        ingredientIds[size] = ingredientId;
+        rows[size] = EMPTY_ROW;
+        codeByIngredientId.put(ingredientId, size);
+        return size++;
+    }
+
+    // Éléments de a absents de b (tableaux triés)
+    private static int[] difference(int[] a, int[] b) {
+        int[] result = new int[a.length];
+        int n = 0;
+        int j = 0;
+        for (int value : a) {
+            while (j < b.length && b[j] < value) {
+                j++;
+            }
+            if (j == b.length || b[j] != value) {
+                result[n++] = value;
+            }
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    private static int[] without(int[] sorted, int value) {
+        int index = Arrays.binarySearch(sorted, value);
+        if (index < 0) {
+            return sorted;
+        }
+        int[] result = new int[sorted.length - 1];
+        System.arraycopy(sorted, 0, result, 0, index);
+        System.arraycopy(sorted, index + 1, result, index, sorted.length - index - 1);
+        return result;
+    }
+}
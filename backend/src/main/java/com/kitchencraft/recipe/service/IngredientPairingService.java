@@ -0,0 +1,170 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.IngredientPairingDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Suggestions "souvent utilisé avec" depuis le graphe de co-occurrence des ingrédients (IngredientPairingGraph).
+ *
+ * Le graphe est construit en arrière-plan au démarrage en une lecture de recipe_ingredient, puis mis à jour
+ * recette par recette après chaque écriture. Une modification d'ingrédients en masse (fusion de doublons)
+ * déclenche une reconstruction complète.
+ */
+@Service
+@Slf4j
+public class IngredientPairingService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+
+    private volatile IngredientPairingGraph graph;
+
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    public IngredientPairingService(JdbcTemplate jdbcTemplate, AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.appConfig = appConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        startRebuild();
+    }
+
+    /**
+     * Ingrédients les plus associés à un ingrédient dans les recettes, par PMI décroissante.
+     */
+    public List<IngredientPairingDto> getPairings(Long ingredientId, Integer limit) {
+        IngredientPairingGraph current = graph;
+        if (current == null) {
+            throw new BusinessException("Graphe des associations en cours de construction", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        AppConfig.IngredientPairingConfig config = appConfig.getIngredientPairing();
+        int size = limit != null && limit > 0 ? Math.min(limit, config.getMaxLimit()) : config.getDefaultLimit();
+        List<IngredientPairingGraph.Pairing> pairings = current.topPairings(ingredientId, size, config.getMinCooccurrence());
+
+        // Noms des voisins et existence de l'ingrédient demandé en une requête
+        Long[] ids = new Long[pairings.size() + 1];
+        ids[0] = ingredientId;
+        for (int i = 0; i < pairings.size(); i++) {
+            ids[i + 1] = pairings.get(i).ingredientId();
+        }
+        Map<Long, String> names = new HashMap<>();
+        jdbcTemplate.query("SELECT id, name FROM ingredient WHERE id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids)),
+                (RowCallbackHandler) resultSet -> names.put(resultSet.getLong(1), resultSet.getString(2)));
+        if (!names.containsKey(ingredientId)) {
+            throw new BusinessException("Ingrédient introuvable : " + ingredientId, HttpStatus.NOT_FOUND);
+        }
+        return pairings.stream()
+                .filter(pairing -> names.containsKey(pairing.ingredientId()))
+                .map(pairing -> new IngredientPairingDto(pairing.ingredientId(), names.get(pairing.ingredientId()),
+                        pairing.recipeCount(), pairing.pmi()))
+                .toList();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        if (event.recipeId() == null) {
+            startRebuild();
+            return;
+        }
+        long[] ingredientIds = jdbcTemplate.queryForList(
+                "SELECT ingredient_id FROM recipe_ingredient WHERE recipe_id = ?", Long.class, event.recipeId())
+                .stream().mapToLong(Long::longValue).toArray();
+        if (rebuilding.get()) {
+            // La lecture de la reconstruction en cours peut précéder cette écriture
+            rebuildRequested.set(true);
+        }
+        // setRecipe est idempotent : réappliqué si une reconstruction a remplacé le graphe entre-temps
+        IngredientPairingGraph current;
+        do {
+            current = graph;
+            if (current == null) {
+                return;
+            }
+            current.setRecipe(event.recipeId(), ingredientIds);
+        } while (current != graph);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        // Un ingrédient utilisé ne peut pas être supprimé seul ; seules les opérations en masse changent les recettes
+        if (event.ingredientId() == null) {
+            startRebuild();
+        }
+    }
+
+    private void startRebuild() {
+        rebuildRequested.set(true);
+        if (!rebuilding.compareAndSet(false, true)) {
+            return;
+        }
+        Thread.ofVirtual().name("ingredient-pairing-rebuild").start(() -> {
+            try {
+                while (rebuildRequested.getAndSet(false)) {
+                    long start = System.currentTimeMillis();
+                    IngredientPairingGraph built = IngredientPairingGraph.build(loadRecipes());
+                    graph = built;
+                    log.info("Ingredient pairing graph built: {} recipes, {} pairs in {} ms",
+                            built.recipeCount(), built.edgeCount(), System.currentTimeMillis() - start);
+                }
+            } catch (RuntimeException e) {
+                log.error("Ingredient pairing graph build failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+    }
+
+    // Ingrédients de chaque recette, lus en flux triés par recette
+    private Map<Long, long[]> loadRecipes() {
+        Map<Long, long[]> ingredientIdsByRecipeId = new HashMap<>();
+        try (Stream<long[]> rows = jdbcTemplate.queryForStream(
+                "SELECT recipe_id, ingredient_id FROM recipe_ingredient ORDER BY recipe_id",
+                (resultSet, rowNum) -> new long[] {resultSet.getLong(1), resultSet.getLong(2)})) {
+            Iterator<long[]> iterator = rows.iterator();
+            long recipeId = -1;
+            long[] buffer = new long[16];
+            int count = 0;
+            while (iterator.hasNext()) {
+                long[] row = iterator.next();
+                if (row[0] != recipeId) {
+                    if (count > 0) {
+                        ingredientIdsByRecipeId.put(recipeId, Arrays.copyOf(buffer, count));
+                    }
+                    recipeId = row[0];
+                    count = 0;
+                }
+                if (count == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, count * 2);
+                }
+                buffer[count++] = row[1];
+            }
+            if (count > 0) {
+                ingredientIdsByRecipeId.put(recipeId, Arrays.copyOf(buffer, count));
+            }
+        }
+        return ingredientIdsByRecipeId;
+    }
+}
@@ -1,45 +1,85 @@
 package com.kitchencraft.recipe.service;
 
+import com.kitchencraft.recipe.config.AppConfig;
 import com.kitchencraft.recipe.dto.IngredientDto;
+import com.kitchencraft.recipe.dto.IngredientPageDto;
 import com.kitchencraft.recipe.dto.IngredientRequest;
+import com.kitchencraft.recipe.dto.IngredientSummaryDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
 import com.kitchencraft.recipe.mapper.IngredientMapper;
+import com.kitchencraft.recipe.model.DictionaryValue;
 import com.kitchencraft.recipe.model.Ingredient;
 import com.kitchencraft.recipe.repository.IngredientRepository;
 import com.kitchencraft.recipe.repository.ShoppingListItemRepository;
-import com.kitchencraft.recipe.repository.RecipeIngredientRepository;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.PageRequest;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @Service
 public class IngredientService {
 
     private final IngredientRepository ingredientRepository;
     private final ShoppingListItemRepository shoppingListItemRepository;
-    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final IngredientUsageService ingredientUsageService;
     private final OpenFoodFactsService openFoodFactsService;
+    private final BarcodeLookupService barcodeLookupService;
+    private final BarcodeProductStore barcodeProductStore;
+    private final BarcodeFilterService barcodeFilterService;
+    private final CategoryTreeService categoryTreeService;
+    private final IngredientSynonymService ingredientSynonymService;
+    private final DictionaryService dictionaryService;
+    private final AppConfig appConfig;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
 
     public IngredientService(IngredientRepository ingredientRepository,
                             ShoppingListItemRepository shoppingListItemRepository,
-                            RecipeIngredientRepository recipeIngredientRepository,
-                            OpenFoodFactsService openFoodFactsService) {
+                            IngredientUsageService ingredientUsageService,
+                            OpenFoodFactsService openFoodFactsService,
+                            BarcodeLookupService barcodeLookupService,
+                            BarcodeProductStore barcodeProductStore,
+                            BarcodeFilterService barcodeFilterService,
+                            CategoryTreeService categoryTreeService,
+                            IngredientSynonymService ingredientSynonymService,
+                            DictionaryService dictionaryService,
+                            AppConfig appConfig,
+                            ApplicationEventPublisher eventPublisher) {
         this.ingredientRepository = ingredientRepository;
         this.shoppingListItemRepository = shoppingListItemRepository;
-        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.ingredientUsageService = ingredientUsageService;
         this.openFoodFactsService = openFoodFactsService;
+        this.barcodeLookupService = barcodeLookupService;
+        this.barcodeProductStore = barcodeProductStore;
+        this.barcodeFilterService = barcodeFilterService;
+        this.categoryTreeService = categoryTreeService;
+        this.ingredientSynonymService = ingredientSynonymService;
+        this.dictionaryService = dictionaryService;
+        this.appConfig = appConfig;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
     public IngredientDto createIngredient(IngredientRequest request) {
         // Vérification si l'ingrédient existe déjà
-        ingredientRepository.findByNameIgnoreCase(request.getName())
+        ingredientRepository.findFirstByNormalizedNameOrderByIdAsc(IngredientNameNormalizer.fold(request.getName()))
                 .ifPresent(existing -> {
                     throw new ResponseStatusException(HttpStatus.CONFLICT, "Ingredient already exists");
                 });
@@ -51,20 +91,25 @@ public class IngredientService {
         ingredient.setDataSource("MANUAL");
         ingredient.setCreatedAt(LocalDateTime.now());
 
-        return IngredientMapper.toDto(ingredientRepository.save(ingredient));
+        Ingredient saved = ingredientRepository.save(ingredient);
+        eventPublisher.publishEvent(new IngredientChangedEvent(saved.getId(), true));
+        return IngredientMapper.toDto(saved);
     }
 
     @Transactional
     public IngredientDto updateIngredient(Long id, IngredientRequest request) {
         Ingredient ingredient = ingredientRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found"));
+        String previousName = ingredient.getName();
 
         ingredient.setName(request.getName());
         ingredient.setBasicCategory(request.getBasicCategory());
         ingredient.setCategory(request.getBasicCategory()); // For backward compatibility
         ingredient.setUpdatedAt(LocalDateTime.now());
 
-        return IngredientMapper.toDto(ingredientRepository.save(ingredient));
+        Ingredient saved = ingredientRepository.save(ingredient);
+        eventPublisher.publishEvent(new IngredientChangedEvent(saved.getId(), false, nameChanged(previousName, saved)));
+        return IngredientMapper.toDto(saved);
     }
 
     // Classe interne pour représenter les utilisations d'un ingrédient
@@ -89,31 +134,29 @@ public class IngredientService {
     }
     
     public IngredientUsage checkIngredientUsage(Long ingredientId) {
-        try {
-            // Vérifier utilisation dans les recettes
-            long recipeCount = recipeIngredientRepository.countByIngredient_Id(ingredientId);
-            List<String> recipeNames = recipeIngredientRepository.findRecipeNamesByIngredientId(ingredientId);
-            
-            // Vérifier utilisation dans les listes de courses
-            long shoppingListCount = shoppingListItemRepository.countByIngredient_Id(ingredientId);
-            
-            return new IngredientUsage(recipeCount, shoppingListCount, recipeNames);
-        } catch (Exception e) {
-            System.err.println("Erreur lors de la vérification des utilisations de l'ingrédient " + ingredientId + ": " + e.getMessage());
-            e.printStackTrace();
-            // En cas d'erreur, considérer que l'ingrédient est utilisé par sécurité
-            return new IngredientUsage(1, 0, List.of("Erreur lors de la vérification"));
-        }
+        return checkIngredientUsage(ingredientId, null);
+    }
+
+    /**
+     * Compteurs d'utilisation et premiers noms de recettes (recipeNamesLimit, par défaut app.ingredient-usage.recipe-names-limit)
+     */
+    public IngredientUsage checkIngredientUsage(Long ingredientId, Integer recipeNamesLimit) {
+        return ingredientUsageService.getUsage(ingredientId, recipeNamesLimit)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found"));
     }
 
     @Transactional
     public void deleteIngredient(Long id) {
         try {
-            if (!ingredientRepository.existsById(id)) {
-                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found");
+            Ingredient ingredient = ingredientRepository.findById(id)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found"));
+            if (ingredient.getRecipeUsageCount() > 0 || ingredient.getShoppingListUsageCount() > 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Impossible de supprimer cet ingrédient car il est utilisé dans des recettes ou des listes de courses.");
             }
             
             ingredientRepository.deleteById(id);
+            eventPublisher.publishEvent(new IngredientChangedEvent(id, false));
             
         } catch (ResponseStatusException e) {
             throw e;
@@ -142,7 +185,7 @@ public class IngredientService {
     }
 
     public IngredientDto getIngredientByName(String name) {
-        Ingredient ingredient = ingredientRepository.findByNameIgnoreCase(name)
+        Ingredient ingredient = ingredientRepository.findFirstByNormalizedNameOrderByIdAsc(IngredientNameNormalizer.fold(name))
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found"));
         return IngredientMapper.toDto(ingredient);
     }
@@ -155,7 +198,12 @@ public class IngredientService {
         String search = query.trim();
         Pageable pageable = PageRequest.of(0, Math.min(limit, 50)); // Max 50 résultats
 
-        return ingredientRepository.findIngredientNamesWithBasicCategory(search, pageable);
+        String folded = IngredientNameNormalizer.fold(search);
+        // Noms des groupes de synonymes dont un terme commence par la saisie ("egg" propose "Œuf")
+        List<String> synonyms = ingredientSynonymService.expandPrefix(folded,
+                appConfig.getIngredientSynonym().getMaxAutocompleteGroups());
+        return ingredientRepository.findIngredientNamesWithBasicCategory(folded, search,
+                synonyms.isEmpty() ? List.of(folded) : synonyms, pageable);
     }
 
     public List<String> autocompleteIngredients(String query) {
@@ -163,12 +211,7 @@ public class IngredientService {
     }
 
     public List<String> getPopularIngredients(int limit) {
-        Pageable pageable = PageRequest.of(0, Math.min(limit, 50));
-        return ingredientRepository.findAll(pageable)
-                .getContent()
-                .stream()
-                .map(Ingredient::getName)
-                .toList();
+        return ingredientRepository.findNamesByRecipeUsage(PageRequest.of(0, Math.min(limit, 50)));
     }
 
     public List<String> getPopularIngredients() {
@@ -176,17 +219,7 @@ public class IngredientService {
     }
 
     public List<String> getPopularIngredientsFromPlans(int limit) {
-        List<Object[]> results = shoppingListItemRepository.findMostUsedIngredients();
-        return results.stream()
-                .limit(Math.min(limit, 50))
-                .map(row -> {
-                    Long ingredientId = (Long) row[0];
-                    return ingredientRepository.findById(ingredientId)
-                            .map(Ingredient::getName)
-                            .orElse(null);
-                })
-                .filter(name -> name != null)
-                .toList();
+        return ingredientRepository.findNamesByShoppingListUsage(PageRequest.of(0, Math.min(limit, 50)));
     }
 
     public List<String> findIngredientsByPrefix(String prefix, int limit) {
@@ -195,7 +228,7 @@ public class IngredientService {
         }
 
         Pageable pageable = PageRequest.of(0, Math.min(limit, 30));
-        return ingredientRepository.findIngredientNamesByPrefix(prefix.trim(), pageable);
+        return ingredientRepository.findIngredientNamesByPrefix(IngredientNameNormalizer.fold(prefix), pageable);
     }
 
     public List<String> findIngredientsContaining(String search, int limit) {
@@ -204,53 +237,184 @@ public class IngredientService {
         }
 
         Pageable pageable = PageRequest.of(0, Math.min(limit, 30));
-        return ingredientRepository.findIngredientNamesContaining(search.trim(), pageable);
+        return ingredientRepository.findIngredientNamesContaining(IngredientNameNormalizer.fold(search), pageable);
     }
 
     // Nouvelles méthodes pour le système nutritionnel fusionné
     
     public List<IngredientDto> findByFilters(String name, String basicCategory) {
-        return ingredientRepository.findByFilters(name, basicCategory)
+        Integer basicCategoryId = dictionaryService.find(DictionaryValue.Domain.INGREDIENT_CATEGORY, basicCategory);
+        if (basicCategory != null && basicCategoryId == null) {
+            // Catégorie absente du dictionnaire : aucun ingrédient ne peut correspondre
+            return List.of();
+        }
+        return ingredientRepository.findByFilters(name != null ? IngredientNameNormalizer.fold(name) : null, basicCategoryId)
+                .stream()
+                .map(IngredientMapper::toDto)
+                .toList();
+    }
+
+    /**
+     * Page d'ingrédients triés par nom, filtrée comme les listes historiques (null = pas de filtre).
+     * Vue allégée par défaut ; full = true renvoie les IngredientDto complets de la page.
+     */
+    public IngredientPageDto<?> listPage(String name, String basicCategory, String dataSource,
+                                         Integer limit, String cursor, boolean full) {
+        int pageSize = Math.min(Math.max(limit != null ? limit : DEFAULT_PAGE_SIZE, 1), MAX_PAGE_SIZE);
+        String afterName = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = decoded.indexOf(':');
+                afterId = Long.parseLong(decoded.substring(0, separator));
+                afterName = decoded.substring(separator + 1);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        // Filtres par identifiant de dictionnaire ; une valeur inconnue ne peut correspondre à aucune ligne
+        String categoryFilter = blankToNull(basicCategory);
+        Integer basicCategoryId = dictionaryService.find(DictionaryValue.Domain.INGREDIENT_CATEGORY, categoryFilter);
+        Integer dataSourceId = dictionaryService.find(DictionaryValue.Domain.DATA_SOURCE, dataSource);
+        if ((categoryFilter != null && basicCategoryId == null) || (dataSource != null && dataSourceId == null)) {
+            return new IngredientPageDto<>(List.of(), null, false);
+        }
+
+        // Une ligne de plus pour savoir s'il reste une page
+        String nameFilter = blankToNull(IngredientNameNormalizer.fold(name));
+        Pageable window = PageRequest.of(0, pageSize + 1);
+        List<IngredientSummaryDto> rows = afterId == null
+                ? ingredientRepository.findSummaryFirstPage(nameFilter, basicCategoryId, dataSourceId, window)
+                : ingredientRepository.findSummaryPageAfter(nameFilter, basicCategoryId, dataSourceId,
+                        afterName, afterId, window);
+        boolean hasMore = rows.size() > pageSize;
+        List<IngredientSummaryDto> page = hasMore ? rows.subList(0, pageSize) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            IngredientSummaryDto last = page.get(page.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.id() + ":" + last.name()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        if (!full) {
+            return new IngredientPageDto<>(List.copyOf(page), nextCursor, hasMore);
+        }
+        Map<Long, Ingredient> byId = ingredientRepository.findAllById(page.stream().map(IngredientSummaryDto::id).toList())
                 .stream()
+                .collect(Collectors.toMap(Ingredient::getId, ingredient -> ingredient));
+        List<IngredientDto> items = page.stream()
+                .map(summary -> byId.get(summary.id()))
+                .filter(Objects::nonNull)
                 .map(IngredientMapper::toDto)
                 .toList();
+        return new IngredientPageDto<>(items, nextCursor, hasMore);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
     }
 
+    /**
+     * Ingrédients de la catégorie et de ses sous-catégories (code ou libellé d'un nœud de l'arbre).
+     * Tant que le rattachement à l'arbre n'est pas terminé, égalité sur basicCategory.
+     */
     public List<IngredientDto> findByBasicCategory(String basicCategory) {
-        return ingredientRepository.findByBasicCategory(basicCategory)
+        Optional<Long> nodeId = categoryTreeService.isLinked() ? categoryTreeService.findNodeId(basicCategory) : Optional.empty();
+        Integer basicCategoryId = dictionaryService.find(DictionaryValue.Domain.INGREDIENT_CATEGORY, basicCategory);
+        List<Ingredient> ingredients = nodeId.isPresent()
+                ? ingredientRepository.findUnderCategory(nodeId.get())
+                : basicCategoryId != null ? ingredientRepository.findByBasicCategoryId(basicCategoryId) : List.of();
+        return ingredients
                 .stream()
                 .map(IngredientMapper::toDto)
                 .toList();
     }
 
     public Optional<IngredientDto> findByBarcode(String barcode) {
-        return ingredientRepository.findByBarcode(barcode)
+        return findExistingByBarcode(barcode)
                 .map(IngredientMapper::toDto);
     }
 
+    // Le filtre de Bloom évite la requête pour un code-barres certainement absent de la base
+    private Optional<Ingredient> findExistingByBarcode(String barcode) {
+        if (!barcodeFilterService.mightBeKnown(barcode)) {
+            return Optional.empty();
+        }
+        Optional<Ingredient> existing = ingredientRepository.findByBarcode(barcode);
+        if (existing.isEmpty()) {
+            barcodeFilterService.recordFalsePositive();
+        }
+        return existing;
+    }
+
     public IngredientDto searchByBarcodeWithFallback(String barcode) {
-        // D'abord vérifier en base de données
-        Optional<Ingredient> existingItem = ingredientRepository.findByBarcode(barcode);
+        // D'abord le magasin local, sans aller-retour base
+        Optional<IngredientDto> stored = barcodeProductStore.find(barcode);
+        if (stored.isPresent()) {
+            return stored.get();
+        }
+
+        // Puis vérifier en base de données
+        Optional<Ingredient> existingItem = findExistingByBarcode(barcode);
         if (existingItem.isPresent()) {
             return IngredientMapper.toDto(existingItem.get());
         }
 
-        // Sinon chercher dans OpenFoodFacts
-        Ingredient fromApi = openFoodFactsService.searchByBarcodeAsIngredient(barcode);
+        // Sinon chercher dans OpenFoodFacts (via le cache)
+        Ingredient fromApi = barcodeLookupService.findIngredient(barcode);
         if (fromApi != null) {
             // Sauvegarder en base
-            fromApi.setCreatedAt(LocalDateTime.now());
-            return IngredientMapper.toDto(ingredientRepository.save(fromApi));
+            return IngredientMapper.toDto(saveFromApi(fromApi));
         }
 
         // Si pas trouvé, retourner null (permet la saisie manuelle)
         return null;
     }
     
+    /**
+     * Variante non bloquante de searchByBarcodeWithFallback : la recherche OpenFoodFacts
+     * s'exécute sur un thread virtuel et la sauvegarde se fait à sa complétion.
+     */
+    public CompletableFuture<IngredientDto> searchByBarcodeWithFallbackAsync(String barcode) {
+        Optional<IngredientDto> stored = barcodeProductStore.find(barcode);
+        if (stored.isPresent()) {
+            return CompletableFuture.completedFuture(stored.get());
+        }
+        Optional<Ingredient> existingItem = findExistingByBarcode(barcode);
+        if (existingItem.isPresent()) {
+            return CompletableFuture.completedFuture(IngredientMapper.toDto(existingItem.get()));
+        }
+        return barcodeLookupService.findAsync(barcode)
+                .thenApply(product -> product
+                        .map(dto -> IngredientMapper.toDto(saveFromApi(IngredientMapper.fromDto(dto))))
+                        .orElse(null));
+    }
+
+    // Un faux négatif du filtre (reconstruction en retard) ou une recherche concurrente sur le même
+    // code-barres fait échouer l'insertion sur la contrainte d'unicité : on relit alors la ligne existante
+    private Ingredient saveFromApi(Ingredient fromApi) {
+        fromApi.setCreatedAt(LocalDateTime.now());
+        Ingredient saved;
+        try {
+            saved = ingredientRepository.save(fromApi);
+        } catch (DataIntegrityViolationException e) {
+            return ingredientRepository.findByBarcode(fromApi.getBarcode()).orElseThrow(() -> e);
+        }
+        eventPublisher.publishEvent(new IngredientChangedEvent(saved.getId(), true));
+        return saved;
+    }
+
+    public CompletableFuture<IngredientDto> searchOpenFoodFactsOnlyAsync(String barcode) {
+        return barcodeLookupService.findAsync(barcode)
+                .thenApply(product -> product.orElse(null));
+    }
+
     // Nouvelle méthode : rechercher OpenFoodFacts sans sauvegarder automatiquement
     public IngredientDto searchOpenFoodFactsOnly(String barcode) {
-        // Utiliser directement l'API Ingredient
-        Ingredient ingredient = openFoodFactsService.searchByBarcodeAsIngredient(barcode);
+        // Utiliser directement l'API Ingredient (via le cache)
+        Ingredient ingredient = barcodeLookupService.findIngredient(barcode);
         if (ingredient != null) {
             return IngredientMapper.toDto(ingredient);
         }
@@ -259,6 +423,7 @@ public class IngredientService {
 
     public IngredientDto saveIngredient(IngredientDto ingredientDto) {
         Ingredient ingredient;
+        String previousName = null;
         
         if (ingredientDto.id() == null) {
             // Création d'un nouvel ingrédient
@@ -273,6 +438,7 @@ public class IngredientService {
             if (existingOpt.isPresent()) {
                 // Mise à jour d'un ingrédient existant dans notre base
                 ingredient = existingOpt.get();
+                previousName = ingredient.getName();
                 
                 // Mettre à jour uniquement les champs modifiables
                 ingredient.setName(ingredientDto.name());
@@ -338,11 +504,20 @@ public class IngredientService {
             }
         }
         
-        return IngredientMapper.toDto(ingredientRepository.save(ingredient));
+        Ingredient saved = ingredientRepository.save(ingredient);
+        eventPublisher.publishEvent(new IngredientChangedEvent(saved.getId(), ingredientDto.id() == null,
+                previousName != null && nameChanged(previousName, saved)));
+        return IngredientMapper.toDto(saved);
+    }
+
+    // Le dictionnaire des synonymes groupe les ingrédients par nom normalisé
+    private static boolean nameChanged(String previousName, Ingredient saved) {
+        return !IngredientNameNormalizer.fold(previousName).equals(IngredientNameNormalizer.fold(saved.getName()));
     }
 
     public long countByBasicCategory(String category) {
-        return ingredientRepository.countByBasicCategory(category);
+        Integer basicCategoryId = dictionaryService.find(DictionaryValue.Domain.INGREDIENT_CATEGORY, category);
+        return basicCategoryId != null ? ingredientRepository.countByBasicCategoryId(basicCategoryId) : 0;
     }
 
     public List<IngredientDto> findAllFromOpenFoodFacts() {
@@ -370,32 +545,25 @@ public class IngredientService {
             throw new RuntimeException("Cannot sync item without barcode");
         }
 
+        // Synchronisation explicite : toujours interroger OpenFoodFacts, puis invalider le cache
         Ingredient updated = openFoodFactsService.searchByBarcodeAsIngredient(ingredient.getBarcode());
+        barcodeLookupService.evict(ingredient.getBarcode());
         if (updated == null) {
             throw new RuntimeException("Product not found in OpenFoodFacts");
         }
 
         // Conserver l'ID existant et mettre à jour les données
+        String previousName = ingredient.getName();
         updated.setId(ingredient.getId());
         updated.setCreatedAt(ingredient.getCreatedAt());
         updated.setLastSync(LocalDateTime.now());
         
-        return IngredientMapper.toDto(ingredientRepository.save(updated));
+        Ingredient saved = ingredientRepository.save(updated);
+        eventPublisher.publishEvent(new IngredientChangedEvent(saved.getId(), false, nameChanged(previousName, saved)));
+        return IngredientMapper.toDto(saved);
     }
 
     // Statistiques nutritionnelles
-    public long countItemsWithNutritionalData() {
-        return ingredientRepository.findAll().stream()
-                .filter(Ingredient::hasNutritionalData)
-                .count();
-    }
-
-    public long countItemsFromOpenFoodFacts() {
-        return ingredientRepository.findAll().stream()
-                .filter(Ingredient::isFromOpenFoodFacts)
-                .count();
-    }
-
     public IngredientDto getIngredientById(Long id) {
         Ingredient ingredient = ingredientRepository.findById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ingredient not found"));
@@ -0,0 +1,128 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.dto.IngredientStatsDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.model.DictionaryValue;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Statistiques des ingrédients calculées par Postgres en une requête agrégée (GROUPING SETS),
+ * sans charger d'entité. L'instantané est mis en cache jusqu'à la prochaine écriture d'ingrédient.
+ */
+@Service
+@Slf4j
+public class IngredientStatsService {
+
+    private static final int TOP_BRANDS = 50;
+
+    // Mêmes critères que Ingredient.hasNutritionalData et Ingredient.isFromOpenFoodFacts ;
+    // regroupement sur les identifiants de dictionnaire, traduits à la lecture
+    private static final String STATS_SQL = """
+            SELECT GROUPING(basic_category_id) AS by_category,
+                   GROUPING(data_source_id) AS by_source,
+                   GROUPING(brand) AS by_brand,
+                   basic_category_id, data_source_id, brand,
+                   count(*) AS total,
+                   count(*) FILTER (WHERE energy IS NOT NULL OR energy_kcal IS NOT NULL
+                                      OR carbohydrates IS NOT NULL OR protein IS NOT NULL
+                                      OR fat IS NOT NULL) AS with_nutrition,
+                   count(*) FILTER (WHERE data_source_id = ?
+                                      AND openfoodfacts_id IS NOT NULL) AS from_off
+            FROM ingredient
+            GROUP BY GROUPING SETS ((basic_category_id), (data_source_id), (brand), ())
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DictionaryService dictionaryService;
+
+    private volatile IngredientStatsDto snapshot;
+    private final AtomicLong epoch = new AtomicLong();
+
+    public IngredientStatsService(JdbcTemplate jdbcTemplate, DictionaryService dictionaryService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dictionaryService = dictionaryService;
+    }
+
+    public IngredientStatsDto getStats() {
+        IngredientStatsDto current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (snapshot != null) {
+                return snapshot;
+            }
+            long startEpoch = epoch.get();
+            IngredientStatsDto computed = compute();
+            if (epoch.get() == startEpoch) {
+                snapshot = computed;
+            }
+            return computed;
+        }
+    }
+
+    public long countWithNutritionalData() {
+        return getStats().getWithNutritionalData();
+    }
+
+    public long countFromOpenFoodFacts() {
+        return getStats().getFromOpenFoodFacts();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        epoch.incrementAndGet();
+        snapshot = null;
+    }
+
+    private IngredientStatsDto compute() {
+        IngredientStatsDto stats = new IngredientStatsDto();
+        // Aucun ingrédient OpenFoodFacts tant que la valeur n'existe pas : data_source_id = NULL ne compte rien
+        Integer openFoodFactsId = dictionaryService.find(DictionaryValue.Domain.DATA_SOURCE, "OPENFOODFACTS");
+        jdbcTemplate.query(STATS_SQL, resultSet -> {
+            IngredientStatsDto.GroupCount count = new IngredientStatsDto.GroupCount(null,
+                    resultSet.getLong("total"), resultSet.getLong("with_nutrition"), resultSet.getLong("from_off"));
+            if (resultSet.getInt("by_category") == 0) {
+                count.setKey(value(resultSet.getObject("basic_category_id", Integer.class)));
+                stats.getByBasicCategory().add(count);
+            } else if (resultSet.getInt("by_source") == 0) {
+                count.setKey(value(resultSet.getObject("data_source_id", Integer.class)));
+                stats.getByDataSource().add(count);
+            } else if (resultSet.getInt("by_brand") == 0) {
+                // Les ingrédients sans marque ne forment pas une marque
+                if (resultSet.getString("brand") != null) {
+                    count.setKey(resultSet.getString("brand"));
+                    stats.getTopBrands().add(count);
+                }
+            } else {
+                stats.setTotal(count.getTotal());
+                stats.setWithNutritionalData(count.getWithNutritionalData());
+                stats.setFromOpenFoodFacts(count.getFromOpenFoodFacts());
+            }
+        }, openFoodFactsId);
+
+        Comparator<IngredientStatsDto.GroupCount> byTotal =
+                Comparator.comparingLong(IngredientStatsDto.GroupCount::getTotal).reversed();
+        stats.getByBasicCategory().sort(byTotal);
+        stats.getByDataSource().sort(byTotal);
+        List<IngredientStatsDto.GroupCount> brands = stats.getTopBrands();
+        brands.sort(byTotal);
+        stats.setBrandCount(brands.size());
+        stats.setTopBrands(new ArrayList<>(brands.subList(0, Math.min(TOP_BRANDS, brands.size()))));
+        stats.setComputedAt(LocalDateTime.now());
+        return stats;
+    }
+
+    private String value(Integer id) {
+        return id != null ? dictionaryService.valueOf(id) : null;
+    }
+}
@@ -0,0 +1,282 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.model.Ingredient;
+import com.kitchencraft.recipe.model.SyncProgress;
+import com.kitchencraft.recipe.repository.IngredientRepository;
+import com.kitchencraft.recipe.repository.SyncProgressRepository;
+import com.kitchencraft.recipe.util.OpenFoodFactsColumns;
+import com.kitchencraft.recipe.util.RateLimiter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+/**
+ * Resynchronisation périodique des ingrédients OpenFoodFacts dont lastSync est ancien.
+ *
+ * - parcours par clé (id croissant) en lots, sur une date limite figée au démarrage
+ * - appels parallèles sur threads virtuels, plafonnés en concurrence et en débit
+ * - seules les lignes dont les nutriments ont changé sont réécrites (batch JDBC),
+ *   les autres ne voient que lastSync avancer (un UPDATE ensembliste)
+ * - l'avancement est enregistré dans sync_progress avec chaque lot : un arrêt reprend au lot suivant
+ * - un verrou consultatif Postgres garantit une seule exécution à la fois entre plusieurs nœuds
+ */
+@Service
+@Slf4j
+public class IngredientSyncService {
+
+    private static final String JOB_NAME = "ingredient-openfoodfacts-sync";
+    private static final long ADVISORY_LOCK_KEY = 0x4b43_5359_4e43L;
+
+    private final IngredientRepository ingredientRepository;
+    private final SyncProgressRepository syncProgressRepository;
+    private final OpenFoodFactsService openFoodFactsService;
+    private final BarcodeLookupService barcodeLookupService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig appConfig;
+
+    public IngredientSyncService(IngredientRepository ingredientRepository,
+                                 SyncProgressRepository syncProgressRepository,
+                                 OpenFoodFactsService openFoodFactsService,
+                                 BarcodeLookupService barcodeLookupService,
+                                 ApplicationEventPublisher eventPublisher,
+                                 JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 AppConfig appConfig) {
+        this.ingredientRepository = ingredientRepository;
+        this.syncProgressRepository = syncProgressRepository;
+        this.openFoodFactsService = openFoodFactsService;
+        this.barcodeLookupService = barcodeLookupService;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.appConfig = appConfig;
+    }
+
+    @Scheduled(cron = "${app.ingredient-sync.cron:0 0 4 * * *}")
+    public void scheduledSync() {
+        // Hors du planificateur (un seul thread) : la synchronisation dure des heures
+        if (appConfig.getIngredientSync().isEnabled()) {
+            startSync();
+        }
+    }
+
+    /**
+     * Lance la synchronisation en arrière-plan (thread virtuel).
+     */
+    public void startSync() {
+        Thread.ofVirtual().name("ingredient-sync").start(() -> {
+            try {
+                runSync();
+            } catch (RuntimeException e) {
+                log.error("Ingredient sync failed", e);
+            }
+        });
+    }
+
+    /**
+     * Exécute la synchronisation si aucun autre nœud ne la détient.
+     * @return false si le verrou est déjà pris
+     */
+    public boolean runSync() {
+        Boolean ran = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            if (!tryAdvisoryLock(connection)) {
+                log.info("Ingredient sync already running on another node, skipping");
+                return false;
+            }
+            try {
+                sync();
+                return true;
+            } finally {
+                advisoryUnlock(connection);
+            }
+        });
+        return Boolean.TRUE.equals(ran);
+    }
+
+    public Optional<SyncProgress> getProgress() {
+        return syncProgressRepository.findById(JOB_NAME);
+    }
+
+    private void sync() {
+        AppConfig.IngredientSyncConfig config = appConfig.getIngredientSync();
+        SyncProgress progress = syncProgressRepository.findById(JOB_NAME)
+                .filter(SyncProgress::isRunning)
+                .orElseGet(() -> newRun(config));
+        if (progress.getCursor() > 0) {
+            log.info("Resuming ingredient sync after id {} ({} processed)", progress.getCursor(), progress.getProcessed());
+        }
+
+        RateLimiter rateLimiter = new RateLimiter(config.getRequestsPerSecond());
+        Semaphore permits = new Semaphore(config.getMaxConcurrent());
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            while (true) {
+                if (openFoodFactsService.isCircuitOpen()) {
+                    // Le lot suivant reprendra à la prochaine exécution
+                    log.warn("OpenFoodFacts circuit open, pausing ingredient sync after id {}", progress.getCursor());
+                    return;
+                }
+                List<Object[]> rows = ingredientRepository.findStaleForSync(
+                        progress.getCutoff(), progress.getCursor(), PageRequest.of(0, config.getBatchSize()));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                Map<Long, Future<Optional<Ingredient>>> fetches = new HashMap<>();
+                for (Object[] row : rows) {
+                    String barcode = (String) row[1];
+                    fetches.put((Long) row[0], executor.submit(() -> {
+                        permits.acquire();
+                        try {
+                            rateLimiter.acquire();
+                            return openFoodFactsService.fetchProduct(barcode);
+                        } finally {
+                            permits.release();
+                        }
+                    }));
+                }
+                Map<Long, Optional<Ingredient>> fetched = new HashMap<>();
+                int failed = 0;
+                for (Map.Entry<Long, Future<Optional<Ingredient>>> entry : fetches.entrySet()) {
+                    try {
+                        fetched.put(entry.getKey(), entry.getValue().get());
+                    } catch (ExecutionException e) {
+                        failed++;
+                        log.debug("Sync fetch failed for ingredient {}: {}", entry.getKey(), e.getCause().getMessage());
+                    }
+                }
+                long lastId = (Long) rows.get(rows.size() - 1)[0];
+                int failedInBatch = failed;
+                progress = transactionTemplate.execute(status -> applyBatch(JOB_NAME, fetched, failedInBatch, lastId));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Ingredient sync interrupted, will resume from id {}", progress.getCursor());
+            return;
+        } finally {
+            executor.shutdownNow();
+        }
+
+        progress.setCompletedAt(LocalDateTime.now());
+        syncProgressRepository.save(progress);
+        log.info("Ingredient sync completed: {} processed, {} changed, {} unchanged, {} not found, {} failed",
+                progress.getProcessed(), progress.getChanged(), progress.getUnchanged(),
+                progress.getNotFound(), progress.getFailed());
+    }
+
+    private SyncProgress newRun(AppConfig.IngredientSyncConfig config) {
+        SyncProgress progress = new SyncProgress();
+        progress.setJobName(JOB_NAME);
+        progress.setStartedAt(LocalDateTime.now());
+        progress.setCutoff(LocalDateTime.now().minusDays(config.getStaleDays()));
+        return syncProgressRepository.save(progress);
+    }
+
+    // Écrit un lot et l'avancement dans la même transaction
+    private SyncProgress applyBatch(String jobName, Map<Long, Optional<Ingredient>> fetched, int failed, long lastId) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, Ingredient> current = ingredientRepository.findAllById(fetched.keySet()).stream()
+                .collect(Collectors.toMap(Ingredient::getId, ingredient -> ingredient));
+
+        List<Ingredient> changed = new ArrayList<>();
+        List<Long> touched = new ArrayList<>();
+        int notFound = 0;
+        for (Map.Entry<Long, Optional<Ingredient>> entry : fetched.entrySet()) {
+            Ingredient existing = current.get(entry.getKey());
+            if (existing == null) {
+                continue;
+            }
+            if (entry.getValue().isEmpty()) {
+                notFound++;
+                touched.add(existing.getId());
+            } else if (OpenFoodFactsColumns.nutrientsDiffer(existing, entry.getValue().get())) {
+                Ingredient fresh = entry.getValue().get();
+                fresh.setId(existing.getId());
+                changed.add(fresh);
+            } else {
+                touched.add(existing.getId());
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            String assignments = OpenFoodFactsColumns.NUTRIENTS.stream()
+                    .map(column -> column.column() + " = ?")
+                    .collect(Collectors.joining(", "));
+            jdbcTemplate.batchUpdate("UPDATE ingredient SET " + assignments + ", last_sync = ?, updated_at = ? WHERE id = ?",
+                    changed, changed.size(), (ps, ingredient) -> {
+                        int index = 1;
+                        for (OpenFoodFactsColumns.NutrientColumn column : OpenFoodFactsColumns.NUTRIENTS) {
+                            ps.setBigDecimal(index++, OpenFoodFactsColumns.normalize(column.getter().apply(ingredient)));
+                        }
+                        ps.setTimestamp(index++, Timestamp.valueOf(now));
+                        ps.setTimestamp(index++, Timestamp.valueOf(now));
+                        ps.setLong(index, ingredient.getId());
+                    });
+        }
+        if (!touched.isEmpty()) {
+            jdbcTemplate.update("UPDATE ingredient SET last_sync = ? WHERE id = ANY (?)", ps -> {
+                ps.setTimestamp(1, Timestamp.valueOf(now));
+                ps.setArray(2, ps.getConnection().createArrayOf("bigint", touched.toArray()));
+            });
+        }
+
+        SyncProgress progress = syncProgressRepository.findById(jobName).orElseThrow();
+        progress.setCursor(lastId);
+        progress.setUpdatedAt(now);
+        progress.setProcessed(progress.getProcessed() + fetched.size() + failed);
+        progress.setChanged(progress.getChanged() + changed.size());
+        progress.setUnchanged(progress.getUnchanged() + touched.size() - notFound);
+        progress.setNotFound(progress.getNotFound() + notFound);
+        progress.setFailed(progress.getFailed() + failed);
+        SyncProgress saved = syncProgressRepository.save(progress);
+
+        for (Ingredient ingredient : changed) {
+            barcodeLookupService.evict(ingredient.getBarcode());
+            eventPublisher.publishEvent(new IngredientChangedEvent(ingredient.getId(), false));
+        }
+        return saved;
+    }
+
+    private static boolean tryAdvisoryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private static void advisoryUnlock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, ADVISORY_LOCK_KEY);
+            statement.execute();
+        }
+    }
+}
@@ -0,0 +1,295 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.IngredientSynonymRequest;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.model.IngredientSynonym;
+import com.kitchencraft.recipe.repository.IngredientSynonymRepository;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dictionnaire des synonymes d'ingrédients (table ingredient_synonym), compilé en mémoire avec les
+ * ingrédients utilisés dans des recettes.
+ *
+ * Chaque nom est réduit à sa clé (IngredientNameNormalizer.dedupKey : accents, casse, ligatures, pluriel),
+ * puis rattaché au groupe de son terme canonique. Un terme de recherche est ainsi traduit une seule fois
+ * en identifiants d'ingrédients, sans comparaison de chaînes ligne à ligne.
+ * Compilation paresseuse, invalidée après toute modification de recette, du dictionnaire, d'ingrédients en masse
+ * ou renommage d'un ingrédient.
+ */
+@Service
+@Slf4j
+public class IngredientSynonymService {
+
+    // Groupes de synonymes : clé -> groupe, puis identifiants et noms normalisés de chaque groupe
+    private record Dictionary(Map<String, Integer> groupByKey,
+                              long[][] idsByGroup,
+                              String[][] namesByGroup,
+                              String[] sortedTerms,
+                              int[] groupBySortedTerm) {
+    }
+
+    private static final long[] NO_IDS = new long[0];
+
+    private final IngredientSynonymRepository ingredientSynonymRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ResourceLoader resourceLoader;
+    private final AppConfig appConfig;
+
+    private volatile Dictionary dictionary;
+    private final AtomicLong epoch = new AtomicLong();
+
+    public IngredientSynonymService(IngredientSynonymRepository ingredientSynonymRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    ResourceLoader resourceLoader,
+                                    AppConfig appConfig) {
+        this.ingredientSynonymRepository = ingredientSynonymRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.resourceLoader = resourceLoader;
+        this.appConfig = appConfig;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (ingredientSynonymRepository.count() > 0) {
+            return;
+        }
+        try {
+            List<IngredientSynonym> seed = loadSeed();
+            ingredientSynonymRepository.saveAll(seed);
+            log.info("Ingredient synonym dictionary seeded with {} terms", seed.size());
+        } catch (RuntimeException e) {
+            log.error("Ingredient synonym dictionary seeding failed", e);
+        }
+        invalidate();
+    }
+
+    /**
+     * Identifiants des ingrédients (utilisés dans des recettes) correspondant à chaque terme, synonymes compris.
+     * Les termes synonymes entre eux sont fusionnés ; un tableau vide signale un terme sans correspondance.
+     */
+    public List<long[]> resolve(List<String> terms) {
+        Dictionary current = getDictionary();
+        Map<Integer, long[]> groups = new LinkedHashMap<>();
+        List<long[]> result = new ArrayList<>();
+        for (String term : terms) {
+            String key = IngredientNameNormalizer.dedupKey(term);
+            if (key.isEmpty()) {
+                continue;
+            }
+            Integer group = current.groupByKey().get(key);
+            if (group == null) {
+                result.add(NO_IDS);
+            } else {
+                groups.putIfAbsent(group, current.idsByGroup()[group]);
+            }
+        }
+        result.addAll(groups.values());
+        return result;
+    }
+
+    /**
+     * Noms normalisés des groupes dont un terme du dictionnaire commence par le préfixe (normalisé),
+     * pour que l'autocomplétion propose "Œuf" à la saisie de "egg".
+     */
+    public List<String> expandPrefix(String prefix, int maxGroups) {
+        Dictionary current = getDictionary();
+        String[] terms = current.sortedTerms();
+        int index = Arrays.binarySearch(terms, prefix);
+        Set<Integer> groups = new LinkedHashSet<>();
+        for (int i = index < 0 ? -index - 1 : index; i < terms.length && terms[i].startsWith(prefix)
+                && groups.size() < maxGroups; i++) {
+            groups.add(current.groupBySortedTerm()[i]);
+        }
+        List<String> names = new ArrayList<>();
+        for (int group : groups) {
+            names.addAll(Arrays.asList(current.namesByGroup()[group]));
+        }
+        return names;
+    }
+
+    public List<IngredientSynonym> listSynonyms() {
+        return ingredientSynonymRepository.findAllByOrderByCanonicalAscTermAsc();
+    }
+
+    /**
+     * Rattache les termes au terme canonique (créés ou déplacés depuis un autre groupe).
+     * @return nombre de termes enregistrés
+     */
+    @Transactional
+    public int saveSynonyms(IngredientSynonymRequest request) {
+        String canonical = IngredientNameNormalizer.fold(request.getCanonical());
+        if (canonical.isEmpty()) {
+            throw new BusinessException("Terme canonique vide");
+        }
+        int saved = 0;
+        for (String value : request.getTerms()) {
+            String term = IngredientNameNormalizer.fold(value);
+            if (term.isEmpty() || term.equals(canonical)) {
+                continue;
+            }
+            IngredientSynonym synonym = ingredientSynonymRepository.findByTerm(term).orElseGet(IngredientSynonym::new);
+            synonym.setTerm(term);
+            synonym.setCanonical(canonical);
+            ingredientSynonymRepository.save(synonym);
+            saved++;
+        }
+        invalidate();
+        return saved;
+    }
+
+    @Transactional
+    public void deleteSynonym(String term) {
+        if (ingredientSynonymRepository.deleteByTerm(IngredientNameNormalizer.fold(term)) == 0) {
+            throw new BusinessException("Synonyme introuvable : " + term, HttpStatus.NOT_FOUND);
+        }
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        // Un ingrédient seul n'entre dans une recette que par une écriture de recette (onRecipeChanged) ;
+        // un ingrédient déjà utilisé ne change de groupe que par un renommage ou une opération en masse (fusion, import)
+        if (event.ingredientId() == null || event.nameChanged()) {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        epoch.incrementAndGet();
+        dictionary = null;
+    }
+
+    private Dictionary getDictionary() {
+        Dictionary current = dictionary;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (dictionary != null) {
+                return dictionary;
+            }
+            long startEpoch = epoch.get();
+            long start = System.currentTimeMillis();
+            Dictionary built = compile();
+            log.info("Ingredient synonym dictionary compiled: {} terms, {} groups in {} ms",
+                    built.sortedTerms().length, built.idsByGroup().length, System.currentTimeMillis() - start);
+            if (epoch.get() == startEpoch) {
+                dictionary = built;
+            }
+            return built;
+        }
+    }
+
+    private Dictionary compile() {
+        Map<String, Integer> groupByKey = new HashMap<>();
+        List<Set<String>> names = new ArrayList<>();
+        List<List<Long>> ids = new ArrayList<>();
+        Map<String, Integer> groupByTerm = new HashMap<>();
+
+        for (IngredientSynonym synonym : ingredientSynonymRepository.findAll()) {
+            int group = groupOf(IngredientNameNormalizer.dedupKey(synonym.getCanonical()), groupByKey, names, ids);
+            // Une clé déjà rattachée (pluriel d'un terme d'un autre groupe) garde son premier groupe
+            groupByKey.putIfAbsent(IngredientNameNormalizer.dedupKey(synonym.getTerm()), group);
+            names.get(group).add(synonym.getCanonical());
+            names.get(group).add(synonym.getTerm());
+            groupByTerm.putIfAbsent(synonym.getCanonical(), group);
+            groupByTerm.putIfAbsent(synonym.getTerm(), group);
+        }
+        jdbcTemplate.query("SELECT id, normalized_name FROM ingredient "
+                        + "WHERE id IN (SELECT ingredient_id FROM recipe_ingredient) AND normalized_name IS NOT NULL",
+                (RowCallbackHandler) resultSet -> {
+                    String name = resultSet.getString(2);
+                    int group = groupOf(IngredientNameNormalizer.dedupKey(name), groupByKey, names, ids);
+                    ids.get(group).add(resultSet.getLong(1));
+                    names.get(group).add(name);
+                });
+
+        String[] sortedTerms = groupByTerm.keySet().stream().sorted().toArray(String[]::new);
+        int[] groupBySortedTerm = new int[sortedTerms.length];
+        for (int i = 0; i < sortedTerms.length; i++) {
+            groupBySortedTerm[i] = groupByTerm.get(sortedTerms[i]);
+        }
+        long[][] idsByGroup = new long[ids.size()][];
+        String[][] namesByGroup = new String[names.size()][];
+        for (int group = 0; group < ids.size(); group++) {
+            idsByGroup[group] = ids.get(group).stream().mapToLong(Long::longValue).toArray();
+            namesByGroup[group] = names.get(group).toArray(String[]::new);
+        }
+        return new Dictionary(Map.copyOf(groupByKey), idsByGroup, namesByGroup, sortedTerms, groupBySortedTerm);
+    }
+
+    private static int groupOf(String key, Map<String, Integer> groupByKey, List<Set<String>> names, List<List<Long>> ids) {
+        return groupByKey.computeIfAbsent(key, k -> {
+            names.add(new LinkedHashSet<>());
+            ids.add(new ArrayList<>());
+            return names.size() - 1;
+        });
+    }
+
+    // Lignes canonique;synonyme1,synonyme2 ; '#' en début de ligne pour un commentaire
+    private List<IngredientSynonym> loadSeed() {
+        String location = appConfig.getIngredientSynonym().getSeedLocation();
+        Resource resource = resourceLoader.getResource(location);
+        Map<String, IngredientSynonym> byTerm = new LinkedHashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split(";", 2);
+                String canonical = IngredientNameNormalizer.fold(fields[0]);
+                if (fields.length < 2 || canonical.isEmpty()) {
+                    log.warn("Ignoring invalid synonym line: {}", line);
+                    continue;
+                }
+                for (String value : fields[1].split(",")) {
+                    String term = IngredientNameNormalizer.fold(value);
+                    if (!term.isEmpty() && !term.equals(canonical) && !byTerm.containsKey(term)) {
+                        IngredientSynonym synonym = new IngredientSynonym();
+                        synonym.setTerm(term);
+                        synonym.setCanonical(canonical);
+                        byTerm.put(term, synonym);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Dictionnaire des synonymes illisible : " + location, e);
+        }
+        return new ArrayList<>(byTerm.values());
+    }
+}
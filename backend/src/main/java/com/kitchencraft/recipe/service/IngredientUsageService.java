@@ -0,0 +1,152 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Array;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Compteurs d'utilisation des ingrédients (ingredient.recipe_usage_count et shopping_list_usage_count).
+ *
+ * Les références changent aussi par des requêtes en masse (suppression de plannings, archivage,
+ * fusion de doublons) : les compteurs sont donc tenus par des triggers Postgres par instruction sur
+ * recipe_ingredient et shopping_list_item, installés au démarrage une fois le schéma à jour, puis recalculés
+ * périodiquement depuis les tables de références. Chaque instruction ne touche qu'une fois chaque ingrédient
+ * concerné, en ordre d'id : pas d'interblocage entre deux sauvegardes de recettes partageant des ingrédients.
+ */
+@Service
+@Slf4j
+public class IngredientUsageService {
+
+    // Trigger par instruction : écarts agrégés par ingrédient depuis les tables de transition, puis lignes
+    // d'ingrédient verrouillées par id croissant (deux transactions ne se croisent jamais) et mises à jour une fois
+    private static final String TRIGGER_FUNCTION = """
+            CREATE OR REPLACE FUNCTION ingredient_usage_count() RETURNS trigger LANGUAGE plpgsql AS $$
+            DECLARE
+                ids bigint[];
+                deltas integer[];
+            BEGIN
+                IF TG_OP = 'INSERT' THEN
+                    SELECT array_agg(ingredient_id ORDER BY ingredient_id), array_agg(n ORDER BY ingredient_id) INTO ids, deltas
+                    FROM (SELECT ingredient_id, count(*)::integer AS n FROM new_rows
+                          WHERE ingredient_id IS NOT NULL GROUP BY ingredient_id) d;
+                ELSIF TG_OP = 'DELETE' THEN
+                    SELECT array_agg(ingredient_id ORDER BY ingredient_id), array_agg(n ORDER BY ingredient_id) INTO ids, deltas
+                    FROM (SELECT ingredient_id, -count(*)::integer AS n FROM old_rows
+                          WHERE ingredient_id IS NOT NULL GROUP BY ingredient_id) d;
+                ELSE
+                    SELECT array_agg(ingredient_id ORDER BY ingredient_id), array_agg(n ORDER BY ingredient_id) INTO ids, deltas
+                    FROM (SELECT ingredient_id, sum(n)::integer AS n
+                          FROM (SELECT ingredient_id, 1 AS n FROM new_rows
+                                UNION ALL SELECT ingredient_id, -1 FROM old_rows) u
+                          WHERE ingredient_id IS NOT NULL GROUP BY ingredient_id HAVING sum(n) <> 0) d;
+                END IF;
+                IF ids IS NULL THEN
+                    RETURN NULL;
+                END IF;
+                PERFORM 1 FROM ingredient WHERE id = ANY(ids) ORDER BY id FOR NO KEY UPDATE;
+                IF TG_TABLE_NAME = 'recipe_ingredient' THEN
+                    UPDATE ingredient i SET recipe_usage_count = i.recipe_usage_count + d.n
+                    FROM unnest(ids, deltas) AS d(id, n) WHERE i.id = d.id;
+                ELSE
+                    UPDATE ingredient i SET shopping_list_usage_count = i.shopping_list_usage_count + d.n
+                    FROM unnest(ids, deltas) AS d(id, n) WHERE i.id = d.id;
+                END IF;
+                RETURN NULL;
+            END
+            $$""";
+
+    private static final int MAX_RECIPE_NAMES = 100;
+
+    private static final List<String> REFERENCING_TABLES = List.of("recipe_ingredient", "shopping_list_item");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AppConfig appConfig;
+
+    public IngredientUsageService(JdbcTemplate jdbcTemplate, AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Compteurs et premiers noms de recettes (ordre alphabétique) en une requête ; vide si l'ingrédient n'existe pas.
+     */
+    public Optional<IngredientService.IngredientUsage> getUsage(Long ingredientId, Integer recipeNamesLimit) {
+        int limit = recipeNamesLimit != null && recipeNamesLimit >= 0
+                ? Math.min(recipeNamesLimit, MAX_RECIPE_NAMES) : appConfig.getIngredientUsage().getRecipeNamesLimit();
+        List<IngredientService.IngredientUsage> usages = jdbcTemplate.query(
+                "SELECT i.recipe_usage_count, i.shopping_list_usage_count, ARRAY("
+                        + "SELECT DISTINCT r.name FROM recipe_ingredient ri JOIN recipe r ON r.id = ri.recipe_id "
+                        + "WHERE ri.ingredient_id = i.id ORDER BY r.name LIMIT ?) "
+                        + "FROM ingredient i WHERE i.id = ?",
+                (resultSet, rowNum) -> {
+                    Array names = resultSet.getArray(3);
+                    return new IngredientService.IngredientUsage(resultSet.getInt(1), resultSet.getInt(2),
+                            Arrays.asList((String[]) names.getArray()));
+                }, limit, ingredientId);
+        return usages.stream().findFirst();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        installTriggers();
+        reconcile();
+    }
+
+    @Scheduled(cron = "${app.ingredient-usage.reconcile-cron:0 30 4 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Recale les compteurs qui divergent des tables de références.
+     * @return nombre d'ingrédients corrigés
+     */
+    public int reconcile() {
+        long start = System.nanoTime();
+        int corrected = jdbcTemplate.update("""
+                UPDATE ingredient i
+                SET recipe_usage_count = c.recipe_count, shopping_list_usage_count = c.shopping_list_count
+                FROM (
+                    SELECT i2.id,
+                           coalesce(r.n, 0) AS recipe_count,
+                           coalesce(s.n, 0) AS shopping_list_count
+                    FROM ingredient i2
+                    LEFT JOIN (SELECT ingredient_id, count(*) AS n FROM recipe_ingredient GROUP BY ingredient_id) r
+                           ON r.ingredient_id = i2.id
+                    LEFT JOIN (SELECT ingredient_id, count(*) AS n FROM shopping_list_item GROUP BY ingredient_id) s
+                           ON s.ingredient_id = i2.id
+                ) c
+                WHERE c.id = i.id
+                  AND (i.recipe_usage_count <> c.recipe_count OR i.shopping_list_usage_count <> c.shopping_list_count)
+                """);
+        if (corrected > 0) {
+            log.info("Reconciled usage counters of {} ingredients in {} ms", corrected, (System.nanoTime() - start) / 1_000_000);
+        }
+        return corrected;
+    }
+
+    private void installTriggers() {
+        jdbcTemplate.execute(TRIGGER_FUNCTION);
+        for (String table : REFERENCING_TABLES) {
+            // Ancien trigger par ligne
+            jdbcTemplate.execute("DROP TRIGGER IF EXISTS " + table + "_usage_count ON " + table);
+            // Une table de transition exclut une liste de colonnes : un UPDATE sans changement d'ingrédient ne produit aucun écart
+            jdbcTemplate.execute("CREATE OR REPLACE TRIGGER " + table + "_usage_count_insert AFTER INSERT ON " + table
+                    + " REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION ingredient_usage_count()");
+            jdbcTemplate.execute("CREATE OR REPLACE TRIGGER " + table + "_usage_count_delete AFTER DELETE ON " + table
+                    + " REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION ingredient_usage_count()");
+            jdbcTemplate.execute("CREATE OR REPLACE TRIGGER " + table + "_usage_count_update AFTER UPDATE ON " + table
+                    + " REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION ingredient_usage_count()");
+        }
+        log.info("Ingredient usage counter triggers installed");
+    }
+}
@@ -0,0 +1,405 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.dto.LeftoverDto;
+import com.kitchencraft.recipe.dto.LeftoverSuggestionDto;
+import com.kitchencraft.recipe.dto.LeftoverSuggestionRequest;
+import com.kitchencraft.recipe.dto.LeftoverSuggestionResultDto;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.repository.ShoppingListItemRepository;
+import com.kitchencraft.recipe.repository.WeeklyPlanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Suggestions de recettes consommant au mieux les restes d'une liste de courses
+ * (quantité achetée - quantité nécessaire, par ingrédient et unité).
+ *
+ * Les recettes candidates sont notées via un index inversé ingrédient -> (recette, quantité)
+ * construit sur le RecipeCatalog, puis une recherche best-first bornée explore les combinaisons
+ * de quelques recettes. Aucune entité Recipe n'est chargée.
+ */
+@Service
+@Slf4j
+public class LeftoverSuggestionService {
+
+    // Nombre de recettes candidates conservées après la notation individuelle
+    private static final int CANDIDATE_LIMIT = 64;
+    // Nombre maximal de nœuds développés par la recherche
+    private static final int MAX_EXPANSIONS = 5_000;
+    // Pénalité par ingrédient de la recette absent des restes (à acheter)
+    private static final double MISSING_PENALTY = 0.05;
+    private static final double EPSILON = 1e-6;
+
+    private final RecipeCatalogService recipeCatalogService;
+    private final ShoppingListItemRepository shoppingListItemRepository;
+    private final WeeklyPlanRepository weeklyPlanRepository;
+
+    private volatile Postings postings;
+
+    public LeftoverSuggestionService(RecipeCatalogService recipeCatalogService,
+                                     ShoppingListItemRepository shoppingListItemRepository,
+                                     WeeklyPlanRepository weeklyPlanRepository) {
+        this.recipeCatalogService = recipeCatalogService;
+        this.shoppingListItemRepository = shoppingListItemRepository;
+        this.weeklyPlanRepository = weeklyPlanRepository;
+    }
+
+    @Transactional(readOnly = true)
+    public LeftoverSuggestionResultDto suggest(Long planId, LeftoverSuggestionRequest request) {
+        if (!weeklyPlanRepository.existsById(planId)) {
+            throw BusinessException.notFound("Planning", planId);
+        }
+        long startNs = System.nanoTime();
+        RecipeCatalog catalog = recipeCatalogService.getCatalog();
+        Postings index = postings(catalog);
+
+        LeftoverSuggestionResultDto result = new LeftoverSuggestionResultDto();
+        result.setPlanId(planId);
+
+        // 1. Calcul des restes par item de la liste
+        List<Leftover> leftovers = new ArrayList<>();
+        Map<Long, BigDecimal> purchased = request.getPurchased() != null ? request.getPurchased() : Map.of();
+        for (Object[] row : shoppingListItemRepository.findLeftoverRowsByPlanId(planId)) {
+            BigDecimal needed = (BigDecimal) row[4];
+            // Une entrée sans quantité ({"12": null}) vaut quantité possédée
+            BigDecimal bought = purchased.get((Long) row[0]);
+            if (bought == null) {
+                bought = (BigDecimal) row[5];
+            }
+            double amount = bought.subtract(needed).doubleValue();
+            if (amount > EPSILON) {
+                Long ingredientId = (Long) row[1];
+                String unit = (String) row[3];
+                leftovers.add(new Leftover(ingredientId, (String) row[2], unit,
+                        catalog.ingredientCodeOf(ingredientId), catalog.unitCodeOf(unit), amount));
+            }
+        }
+        double[] initial = leftovers.stream().mapToDouble(Leftover::amount).toArray();
+        result.setLeftovers(toDtos(leftovers, initial));
+        if (leftovers.isEmpty()) {
+            result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+            return result;
+        }
+
+        // 2. Notation individuelle des recettes via l'index inversé (accumulateur creux)
+        int servings = request.getServings() != null ? request.getServings() : 0;
+        Integer maxTotalTime = request.getMaxTotalTime();
+        Accumulator accumulator = new Accumulator();
+        Map<Long, Integer> leftoverByKey = new HashMap<>();
+        // Restes parcourus par code d'ingrédient : les lignes d'un même ingrédient (plusieurs unités,
+        // plusieurs lignes) arrivent consécutivement pour chaque recette et ne comptent qu'une fois
+        Integer[] order = new Integer[leftovers.size()];
+        Arrays.setAll(order, l -> l);
+        Arrays.sort(order, Comparator.comparingInt(l -> leftovers.get(l).code()));
+        for (int l : order) {
+            Leftover leftover = leftovers.get(l);
+            if (leftover.code() < 0 || leftover.unitCode() < 0) {
+                continue;
+            }
+            leftoverByKey.put(key(leftover.code(), leftover.unitCode()), l);
+            for (int p = index.offsets[leftover.code()]; p < index.offsets[leftover.code() + 1]; p++) {
+                int position = index.positions[p];
+                if (catalog.unitCode(position) != leftover.unitCode()) {
+                    continue;
+                }
+                int recipe = index.recipes[p];
+                if (maxTotalTime != null && catalog.totalTime(recipe) > maxTotalTime) {
+                    continue;
+                }
+                int entry = accumulator.entry(recipe);
+                double quantity = catalog.quantity(position) * scale(catalog, recipe, servings);
+                accumulator.scores[entry] += (float) (Math.min(quantity, initial[l]) / initial[l]);
+                if (accumulator.lastCodes[entry] != leftover.code()) {
+                    accumulator.lastCodes[entry] = leftover.code();
+                    accumulator.matched[entry]++;
+                }
+            }
+        }
+        result.setCandidatesScored(accumulator.size);
+
+        PriorityQueue<Candidate> top = new PriorityQueue<>(Comparator.comparingDouble(Candidate::score));
+        for (int entry = 0; entry < accumulator.size; entry++) {
+            int recipe = accumulator.recipes[entry];
+            int missing = index.distinctIngredients[recipe] - accumulator.matched[entry];
+            double score = accumulator.scores[entry] - MISSING_PENALTY * missing;
+            if (top.size() < CANDIDATE_LIMIT) {
+                top.add(new Candidate(recipe, score, missing, null, null));
+            } else if (score > top.peek().score()) {
+                top.poll();
+                top.add(new Candidate(recipe, score, missing, null, null));
+            }
+        }
+        Candidate[] candidates = top.stream()
+                .sorted(Comparator.comparingDouble(Candidate::score).reversed())
+                .map(candidate -> withUsage(catalog, candidate, leftoverByKey, servings))
+                .toArray(Candidate[]::new);
+
+        // 3. Recherche best-first bornée sur les combinaisons (indices croissants, sans permutation)
+        int maxRecipes = request.getMaxRecipes() != null ? request.getMaxRecipes() : 2;
+        int limit = request.getLimit() != null ? request.getLimit() : 5;
+        PriorityQueue<Node> open = new PriorityQueue<>(Comparator.comparingDouble(Node::bound).reversed());
+        PriorityQueue<Node> best = new PriorityQueue<>(Comparator.comparingDouble(Node::score));
+        open.add(new Node(new int[0], 0, leftovers.size(), leftovers.size()));
+        int expansions = 0;
+        while (!open.isEmpty() && expansions < MAX_EXPANSIONS) {
+            Node node = open.poll();
+            if (best.size() == limit && node.bound() <= best.peek().score() + EPSILON) {
+                break;
+            }
+            if (node.chosen().length > 0) {
+                best.add(node);
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+            if (node.chosen().length == maxRecipes) {
+                continue;
+            }
+            expansions++;
+            double[] remaining = remaining(initial, candidates, node.chosen());
+            int first = node.chosen().length > 0 ? node.chosen()[node.chosen().length - 1] + 1 : 0;
+            for (int c = first; c < candidates.length; c++) {
+                double gain = 0;
+                Candidate candidate = candidates[c];
+                for (int u = 0; u < candidate.leftovers().length; u++) {
+                    int l = candidate.leftovers()[u];
+                    gain += Math.min(candidate.quantities()[u], remaining[l]) / initial[l];
+                }
+                if (gain <= EPSILON) {
+                    continue;
+                }
+                double score = node.score() + gain - MISSING_PENALTY * candidate.missing();
+                double rest = node.rest() - gain;
+                int[] chosen = Arrays.copyOf(node.chosen(), node.chosen().length + 1);
+                chosen[chosen.length - 1] = c;
+                open.add(new Node(chosen, score, rest, score + rest));
+            }
+        }
+        result.setNodesExpanded(expansions);
+
+        // 4. Construction des suggestions, de la meilleure à la moins bonne
+        List<Node> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble(Node::score).reversed());
+        for (Node node : ranked) {
+            LeftoverSuggestionDto suggestion = new LeftoverSuggestionDto();
+            int missing = 0;
+            for (int c : node.chosen()) {
+                Candidate candidate = candidates[c];
+                int recipe = candidate.recipe();
+                LeftoverSuggestionDto.SuggestedRecipe suggested = new LeftoverSuggestionDto.SuggestedRecipe();
+                suggested.setRecipeId(catalog.recipeId(recipe));
+                suggested.setName(catalog.name(recipe));
+                suggested.setTotalTime(catalog.totalTime(recipe));
+                suggested.setPerson(servings > 0 ? servings : catalog.person(recipe));
+                suggested.setLeftoversUsed(candidate.leftovers().length);
+                suggested.setMissingIngredients(candidate.missing());
+                suggestion.getRecipes().add(suggested);
+                missing += candidate.missing();
+            }
+            suggestion.setScore(node.score());
+            suggestion.setConsumedRatio((leftovers.size() - node.rest()) / leftovers.size());
+            suggestion.setMissingIngredients(missing);
+            suggestion.setRemaining(toDtos(leftovers, remaining(initial, candidates, node.chosen())));
+            result.getSuggestions().add(suggestion);
+        }
+
+        result.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+        log.debug("Leftover suggestions for plan {}: {} leftovers, {} candidates, {} expansions in {} ms",
+                planId, leftovers.size(), accumulator.size, expansions, result.getElapsedMs());
+        return result;
+    }
+
+    private Postings postings(RecipeCatalog catalog) {
+        Postings current = postings;
+        if (current == null || current.catalog != catalog) {
+            current = new Postings(catalog);
+            postings = current;
+        }
+        return current;
+    }
+
+    private static Candidate withUsage(RecipeCatalog catalog, Candidate candidate,
+                                       Map<Long, Integer> leftoverByKey, int servings) {
+        int recipe = candidate.recipe();
+        double factor = scale(catalog, recipe, servings);
+        int[] leftovers = new int[catalog.ingredientEnd(recipe) - catalog.ingredientStart(recipe)];
+        double[] quantities = new double[leftovers.length];
+        int count = 0;
+        for (int position = catalog.ingredientStart(recipe); position < catalog.ingredientEnd(recipe); position++) {
+            Integer l = leftoverByKey.get(key(catalog.ingredientCode(position), catalog.unitCode(position)));
+            if (l == null) {
+                continue;
+            }
+            // Plusieurs lignes sur le même reste : quantités cumulées, le reste n'est compté qu'une fois
+            int u = 0;
+            while (u < count && leftovers[u] != l) {
+                u++;
+            }
+            if (u == count) {
+                leftovers[count++] = l;
+            }
+            quantities[u] += catalog.quantity(position) * factor;
+        }
+        return new Candidate(recipe, candidate.score(), candidate.missing(),
+                Arrays.copyOf(leftovers, count), Arrays.copyOf(quantities, count));
+    }
+
+    private static double[] remaining(double[] initial, Candidate[] candidates, int[] chosen) {
+        double[] remaining = initial.clone();
+        for (int c : chosen) {
+            Candidate candidate = candidates[c];
+            for (int u = 0; u < candidate.leftovers().length; u++) {
+                int l = candidate.leftovers()[u];
+                remaining[l] = Math.max(0, remaining[l] - candidate.quantities()[u]);
+            }
+        }
+        return remaining;
+    }
+
+    private static double scale(RecipeCatalog catalog, int recipe, int servings) {
+        return servings > 0 ? (double) servings / catalog.person(recipe) : 1.0;
+    }
+
+    private static long key(int ingredientCode, int unitCode) {
+        return ((long) ingredientCode << 32) | (unitCode & 0xffffffffL);
+    }
+
+    private static List<LeftoverDto> toDtos(List<Leftover> leftovers, double[] amounts) {
+        List<LeftoverDto> dtos = new ArrayList<>();
+        for (int l = 0; l < leftovers.size(); l++) {
+            if (amounts[l] > EPSILON) {
+                Leftover leftover = leftovers.get(l);
+                dtos.add(new LeftoverDto(leftover.ingredientId(), leftover.name(), leftover.unit(), amounts[l]));
+            }
+        }
+        return dtos;
+    }
+
+    /**
+     * Accumulateur creux des notes par recette : table à adressage ouvert (sondage linéaire)
+     * vers des entrées rangées dans l'ordre d'insertion. Seules les recettes touchées par
+     * l'index inversé occupent de la mémoire, quelle que soit la taille du catalogue.
+     */
+    private static final class Accumulator {
+        int size;
+        int[] recipes = new int[16];
+        float[] scores = new float[16];
+        // Nombre d'ingrédients distincts de la recette présents dans les restes
+        int[] matched = new int[16];
+        // Dernier code d'ingrédient compté pour la recette
+        int[] lastCodes = new int[16];
+        // Indice d'entrée + 1, 0 = case libre
+        private int[] table = new int[32];
+
+        int entry(int recipe) {
+            int mask = table.length - 1;
+            int slot = hash(recipe) & mask;
+            while (table[slot] != 0) {
+                int entry = table[slot] - 1;
+                if (recipes[entry] == recipe) {
+                    return entry;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (size == recipes.length) {
+                recipes = Arrays.copyOf(recipes, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+                matched = Arrays.copyOf(matched, size * 2);
+                lastCodes = Arrays.copyOf(lastCodes, size * 2);
+            }
+            int entry = size++;
+            recipes[entry] = recipe;
+            lastCodes[entry] = -1;
+            table[slot] = entry + 1;
+            if (size * 2 > table.length) {
+                rehash(table.length * 2);
+            }
+            return entry;
+        }
+
+        private void rehash(int capacity) {
+            table = new int[capacity];
+            int mask = capacity - 1;
+            for (int entry = 0; entry < size; entry++) {
+                int slot = hash(recipes[entry]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = entry + 1;
+            }
+        }
+
+        private static int hash(int recipe) {
+            int h = recipe * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    private record Leftover(Long ingredientId, String name, String unit, int code, int unitCode, double amount) {
+    }
+
+    private record Candidate(int recipe, double score, int missing, int[] leftovers, double[] quantities) {
+    }
+
+    // rest : somme des fractions de restes non consommées, bound = score + rest (majorant admissible)
+    private record Node(int[] chosen, double score, double rest, double bound) {
+    }
+
+    /**
+     * Index inversé du catalogue : pour chaque code d'ingrédient, les recettes qui l'utilisent
+     * et la position de la ligne correspondante (quantité, unité) dans le catalogue.
+     */
+    private static final class Postings {
+        final RecipeCatalog catalog;
+        final int[] offsets;
+        final int[] recipes;
+        final int[] positions;
+        // Nombre d'ingrédients distincts par recette (une recette peut lister un ingrédient sur plusieurs lignes)
+        final int[] distinctIngredients;
+
+        Postings(RecipeCatalog catalog) {
+            this.catalog = catalog;
+            int ingredients = catalog.ingredientCount();
+            int total = catalog.size() > 0 ? catalog.ingredientEnd(catalog.size() - 1) : 0;
+            offsets = new int[ingredients + 1];
+            for (int position = 0; position < total; position++) {
+                offsets[catalog.ingredientCode(position) + 1]++;
+            }
+            for (int code = 0; code < ingredients; code++) {
+                offsets[code + 1] += offsets[code];
+            }
+            recipes = new int[total];
+            positions = new int[total];
+            int[] cursor = Arrays.copyOf(offsets, ingredients);
+            for (int recipe = 0; recipe < catalog.size(); recipe++) {
+                for (int position = catalog.ingredientStart(recipe); position < catalog.ingredientEnd(recipe); position++) {
+                    int slot = cursor[catalog.ingredientCode(position)]++;
+                    recipes[slot] = recipe;
+                    positions[slot] = position;
+                }
+            }
+            distinctIngredients = new int[catalog.size()];
+            int[] seenBy = new int[ingredients];
+            for (int recipe = 0; recipe < catalog.size(); recipe++) {
+                for (int position = catalog.ingredientStart(recipe); position < catalog.ingredientEnd(recipe); position++) {
+                    int code = catalog.ingredientCode(position);
+                    if (seenBy[code] != recipe + 1) {
+                        seenBy[code] = recipe + 1;
+                        distinctIngredients[recipe]++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,507 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.MealPlanGenerationRequest;
+import com.kitchencraft.recipe.dto.MealPlanGenerationResultDto;
+import com.kitchencraft.recipe.dto.PlanRecipeRequest;
+import com.kitchencraft.recipe.dto.WeeklyPlanRequest;
+import com.kitchencraft.recipe.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Génération automatique de planning par recuit simulé sur le RecipeCatalog en mémoire.
+ * Chaque génération lance ses propres chaînes indépendantes, une par thread, jusqu'à l'échéance ;
+ * la meilleure affectation trouvée est insérée en un seul batch.
+ *
+ * Coût minimisé (toutes les composantes sont évaluées incrémentalement par mouvement) :
+ *  - écart relatif au carré aux objectifs kcal / protéines de chaque jour
+ *  - recettes répétées dans le planning
+ *  - même origine le même jour ou deux jours consécutifs
+ *  - nombre d'ingrédients distincts (réutilisation = liste de courses plus courte)
+ */
+@Service
+@Slf4j
+public class MealPlanGeneratorService {
+
+    private static final List<String> DEFAULT_MEAL_TYPES = List.of("déjeuner", "dîner");
+    private static final List<String> DEFAULT_RECIPE_TYPES = List.of("Plat principal");
+
+    private static final double NUTRITION_WEIGHT = 10.0;
+    private static final double REPEAT_WEIGHT = 4.0;
+    private static final double ORIGIN_WEIGHT = 0.5;
+    private static final double INGREDIENT_WEIGHT = 0.05;
+
+    // Arrêt anticipé d'une chaîne qui ne progresse plus
+    private static final long MAX_ITERATIONS_WITHOUT_IMPROVEMENT = 500_000;
+
+    // Threads plateforme : calcul pur, le système partage les cœurs entre générations simultanées
+    // au lieu de mettre les chaînes d'une requête en file derrière celles d'une autre
+    private static final ThreadFactory CHAIN_THREADS = Thread.ofPlatform().name("plan-search-", 0).daemon(true).factory();
+
+    private final RecipeCatalogService recipeCatalogService;
+    private final WeeklyPlanService weeklyPlanService;
+    private final AppConfig appConfig;
+
+    public MealPlanGeneratorService(RecipeCatalogService recipeCatalogService,
+                                    WeeklyPlanService weeklyPlanService,
+                                    AppConfig appConfig) {
+        this.recipeCatalogService = recipeCatalogService;
+        this.weeklyPlanService = weeklyPlanService;
+        this.appConfig = appConfig;
+    }
+
+    public MealPlanGenerationResultDto generatePlan(MealPlanGenerationRequest request) {
+        long startNs = System.nanoTime();
+        RecipeCatalog catalog = recipeCatalogService.getCatalog();
+        Problem problem = new Problem(catalog, request);
+
+        AppConfig.PlanGeneratorConfig config = appConfig.getPlanGenerator();
+        int chainCount = config.getChains() > 0 ? config.getChains() : Runtime.getRuntime().availableProcessors();
+        long deadline = startNs + TimeUnit.MILLISECONDS.toNanos(config.getTimeBudgetMs());
+
+        List<Chain> chains = search(problem, chainCount, deadline);
+        Chain best = chains.stream()
+                .min(Comparator.comparingDouble(chain -> chain.bestCost))
+                .orElseThrow();
+        long iterations = chains.stream().mapToLong(chain -> chain.iterations).sum();
+
+        // Recalcul des statistiques sur la meilleure affectation
+        Chain result = new Chain(problem);
+        for (int slot = 0; slot < problem.slots; slot++) {
+            result.place(slot, best.best[slot]);
+        }
+
+        List<PlanRecipeRequest> planRecipes = new ArrayList<>(problem.slots);
+        for (int slot = 0; slot < problem.slots; slot++) {
+            int recipe = best.best[slot];
+            PlanRecipeRequest planRecipe = new PlanRecipeRequest();
+            planRecipe.setRecipeId(catalog.recipeId(recipe));
+            planRecipe.setPlannedDate(request.getStartDate().plusDays(problem.slotDay[slot]));
+            planRecipe.setMealType(problem.mealTypes.get(slot % problem.meals));
+            planRecipe.setScaledPerson(request.getScaledPerson() != null ? request.getScaledPerson() : catalog.person(recipe));
+            planRecipes.add(planRecipe);
+        }
+
+        WeeklyPlanRequest planRequest = new WeeklyPlanRequest();
+        planRequest.setName(request.getName());
+        planRequest.setDescription(request.getDescription());
+        planRequest.setStartDate(request.getStartDate());
+        planRequest.setDurationWeeks(request.getDurationWeeks());
+        Long planId = weeklyPlanService.createPlanWithRecipes(planRequest, planRecipes);
+
+        MealPlanGenerationResultDto dto = new MealPlanGenerationResultDto();
+        dto.setPlan(weeklyPlanService.getPlanById(planId).orElseThrow());
+        dto.setCost(best.bestCost);
+        dto.setChains(chains.size());
+        dto.setIterations(iterations);
+        dto.setElapsedMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs));
+        dto.setDistinctIngredients(result.distinctIngredients);
+        dto.setRepeatedRecipes(result.repeatedRecipes());
+        dto.setAverageDailyKcal(average(result.dayKcal));
+        dto.setAverageDailyProtein(average(result.dayProtein));
+
+        log.info("Generated plan {} ({} slots) from {} candidates: cost={}, {} iterations on {} chains in {} ms",
+                planId, problem.slots, problem.candidates.length, String.format("%.3f", best.bestCost),
+                iterations, chains.size(), dto.getElapsedMs());
+        return dto;
+    }
+
+    /**
+     * Chaînes de la requête, sur un exécuteur qui lui est propre. Une chaîne qui démarrerait après l'échéance
+     * ne fournirait qu'une affectation aléatoire : elle est sautée, sauf la première pour qu'un planning existe.
+     * Une chaîne en échec est ignorée si une autre a abouti.
+     */
+    List<Chain> search(Problem problem, int chainCount, long deadline) {
+        long baseSeed = System.nanoTime();
+        List<Future<Chain>> futures = new ArrayList<>(chainCount);
+        try (ExecutorService executor = Executors.newFixedThreadPool(chainCount, CHAIN_THREADS)) {
+            for (int c = 0; c < chainCount; c++) {
+                long seed = baseSeed + c * 0x9E3779B97F4A7C15L;
+                boolean first = c == 0;
+                futures.add(executor.submit(() -> !first && System.nanoTime() >= deadline
+                        ? null : anneal(problem, new SplittableRandom(seed), deadline)));
+            }
+        }
+        List<Chain> chains = new ArrayList<>(chainCount);
+        Throwable failure = null;
+        for (Future<Chain> future : futures) {
+            if (future.state() == Future.State.SUCCESS) {
+                if (future.resultNow() != null) {
+                    chains.add(future.resultNow());
+                }
+            } else if (future.state() == Future.State.FAILED) {
+                failure = future.exceptionNow();
+                log.warn("Plan search chain failed", failure);
+            }
+        }
+        if (chains.isEmpty()) {
+            throw new IllegalStateException("Aucune chaîne de recherche n'a abouti", failure);
+        }
+        return chains;
+    }
+
+    Chain anneal(Problem problem, SplittableRandom random, long deadline) {
+        Chain chain = new Chain(problem);
+        for (int slot = 0; slot < problem.slots; slot++) {
+            chain.place(slot, problem.randomCandidate(slot, random));
+        }
+        chain.cost = chain.fullCost();
+        chain.keepBest();
+
+        double initialTemperature = chain.calibrateTemperature(random);
+        double finalTemperature = initialTemperature * 1e-3;
+        double temperature = initialTemperature;
+        long startNs = System.nanoTime();
+        double span = Math.max(1, deadline - startNs);
+        long lastImprovement = 0;
+
+        while (true) {
+            if ((chain.iterations & 1023) == 0) {
+                long now = System.nanoTime();
+                if (now >= deadline || chain.iterations - lastImprovement > MAX_ITERATIONS_WITHOUT_IMPROVEMENT) {
+                    break;
+                }
+                temperature = initialTemperature * Math.pow(finalTemperature / initialTemperature, (now - startNs) / span);
+            }
+            chain.iterations++;
+
+            if (problem.slots > 1 && random.nextInt(5) == 0) {
+                // Échange de deux créneaux : conserve l'ensemble des recettes, redistribue jours et origines
+                int a = random.nextInt(problem.slots);
+                int b = random.nextInt(problem.slots);
+                int recipeA = chain.assign[a];
+                int recipeB = chain.assign[b];
+                if (recipeA == recipeB || !problem.fits(a, recipeB) || !problem.fits(b, recipeA)) {
+                    continue;
+                }
+                double delta = chain.delta(a, recipeB);
+                chain.place(a, recipeB);
+                delta += chain.delta(b, recipeA);
+                chain.place(b, recipeA);
+                if (accept(delta, temperature, random)) {
+                    chain.cost += delta;
+                } else {
+                    chain.place(b, recipeB);
+                    chain.place(a, recipeA);
+                    continue;
+                }
+            } else {
+                int slot = random.nextInt(problem.slots);
+                int next = problem.randomCandidate(slot, random);
+                if (next == chain.assign[slot]) {
+                    continue;
+                }
+                double delta = chain.delta(slot, next);
+                if (!accept(delta, temperature, random)) {
+                    continue;
+                }
+                chain.place(slot, next);
+                chain.cost += delta;
+            }
+
+            if (chain.cost < chain.bestCost - 1e-9) {
+                chain.keepBest();
+                lastImprovement = chain.iterations;
+            }
+        }
+        return chain;
+    }
+
+    private static boolean accept(double delta, double temperature, SplittableRandom random) {
+        return delta <= 0 || random.nextDouble() < Math.exp(-delta / temperature);
+    }
+
+    private static double average(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length > 0 ? sum / values.length : 0;
+    }
+
+    /**
+     * Données immuables du problème, partagées par toutes les chaînes.
+     */
+    static final class Problem {
+        final RecipeCatalog catalog;
+        final List<String> mealTypes;
+        final int days;
+        final int meals;
+        final int slots;
+        final int[] slotDay;
+        final boolean[] slotWeekday;
+        final int[] candidates;
+        final int[] weekdayCandidates;
+        final boolean[] weekdayEligible;
+        final double targetKcal;
+        final double targetProtein;
+        final double originWeight;
+        final double ingredientWeight;
+
+        Problem(RecipeCatalog catalog, MealPlanGenerationRequest request) {
+            this.catalog = catalog;
+            this.mealTypes = request.getMealTypes() != null && !request.getMealTypes().isEmpty()
+                    ? request.getMealTypes() : DEFAULT_MEAL_TYPES;
+            this.days = request.getDurationWeeks() * 7;
+            this.meals = mealTypes.size();
+            this.slots = days * meals;
+            this.targetKcal = request.getTargetKcalPerDay() != null ? request.getTargetKcalPerDay() : 0;
+            this.targetProtein = request.getTargetProteinPerDay() != null ? request.getTargetProteinPerDay() : 0;
+            this.originWeight = ORIGIN_WEIGHT * (request.getOriginVarietyWeight() != null ? request.getOriginVarietyWeight() : 1.0);
+            this.ingredientWeight = INGREDIENT_WEIGHT * (request.getIngredientReuseWeight() != null ? request.getIngredientReuseWeight() : 1.0);
+
+            slotDay = new int[slots];
+            slotWeekday = new boolean[slots];
+            for (int slot = 0; slot < slots; slot++) {
+                int day = slot / meals;
+                DayOfWeek dayOfWeek = request.getStartDate().plusDays(day).getDayOfWeek();
+                slotDay[slot] = day;
+                slotWeekday[slot] = dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY;
+            }
+
+            List<String> recipeTypes = request.getRecipeTypes() != null && !request.getRecipeTypes().isEmpty()
+                    ? request.getRecipeTypes() : DEFAULT_RECIPE_TYPES;
+            Set<Integer> typeCodes = new HashSet<>();
+            recipeTypes.forEach(type -> typeCodes.add(catalog.typeCodeOf(type)));
+            boolean babyOnly = Boolean.TRUE.equals(request.getBabyFriendlyOnly());
+            Integer maxWeekdayTime = request.getMaxWeekdayTotalTime();
+
+            List<Integer> all = new ArrayList<>();
+            List<Integer> weekday = new ArrayList<>();
+            weekdayEligible = new boolean[catalog.size()];
+            for (int recipe = 0; recipe < catalog.size(); recipe++) {
+                if (!typeCodes.contains(catalog.typeCode(recipe)) || (babyOnly && !catalog.isBabyFriendly(recipe))) {
+                    continue;
+                }
+                all.add(recipe);
+                if (maxWeekdayTime == null || catalog.totalTime(recipe) <= maxWeekdayTime) {
+                    weekday.add(recipe);
+                    weekdayEligible[recipe] = true;
+                }
+            }
+            if (all.isEmpty()) {
+                throw new BusinessException("Aucune recette ne correspond aux critères de génération",
+                        HttpStatus.UNPROCESSABLE_ENTITY, "Plan Generation Failed");
+            }
+            if (weekday.isEmpty()) {
+                throw new BusinessException("Aucune recette ne respecte le temps maximal en semaine",
+                        HttpStatus.UNPROCESSABLE_ENTITY, "Plan Generation Failed");
+            }
+            candidates = all.stream().mapToInt(Integer::intValue).toArray();
+            weekdayCandidates = weekday.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int randomCandidate(int slot, SplittableRandom random) {
+            int[] pool = slotWeekday[slot] ? weekdayCandidates : candidates;
+            return pool[random.nextInt(pool.length)];
+        }
+
+        boolean fits(int slot, int recipe) {
+            return !slotWeekday[slot] || weekdayEligible[recipe];
+        }
+
+        double nutritionTerm(double kcal, double protein) {
+            double term = 0;
+            if (targetKcal > 0) {
+                double gap = (kcal - targetKcal) / targetKcal;
+                term += gap * gap;
+            }
+            if (targetProtein > 0) {
+                double gap = (protein - targetProtein) / targetProtein;
+                term += gap * gap;
+            }
+            return term;
+        }
+    }
+
+    /**
+     * État mutable d'une chaîne de recuit, avec compteurs permettant une évaluation incrémentale.
+     */
+    static final class Chain {
+        final Problem problem;
+        final RecipeCatalog catalog;
+        final int[] assign;
+        final int[] best;
+        final int[] recipeUses;
+        final int[] ingredientUses;
+        final double[] dayKcal;
+        final double[] dayProtein;
+        final int[][] originCounts;
+        int distinctIngredients;
+        long repeatPairs;
+        long originPenalty;
+        double cost;
+        double bestCost = Double.MAX_VALUE;
+        long iterations;
+
+        Chain(Problem problem) {
+            this.problem = problem;
+            this.catalog = problem.catalog;
+            this.assign = new int[problem.slots];
+            this.best = new int[problem.slots];
+            this.recipeUses = new int[catalog.size()];
+            this.ingredientUses = new int[catalog.ingredientCount()];
+            this.dayKcal = new double[problem.days];
+            this.dayProtein = new double[problem.days];
+            this.originCounts = new int[problem.days][catalog.originCount()];
+            Arrays.fill(assign, -1);
+        }
+
+        // Place une recette dans un créneau en maintenant tous les compteurs
+        void place(int slot, int recipe) {
+            int previous = assign[slot];
+            int day = problem.slotDay[slot];
+            if (previous >= 0) {
+                dayKcal[day] -= catalog.kcalPerPortion(previous);
+                dayProtein[day] -= catalog.proteinPerPortion(previous);
+                repeatPairs -= --recipeUses[previous];
+                int origin = catalog.originCode(previous);
+                if (origin >= 0) {
+                    originPenalty -= (originCounts[day][origin] - 1) + neighbourCount(day, origin);
+                    originCounts[day][origin]--;
+                }
+                for (int k = catalog.ingredientStart(previous); k < catalog.ingredientEnd(previous); k++) {
+                    if (--ingredientUses[catalog.ingredientCode(k)] == 0) {
+                        distinctIngredients--;
+                    }
+                }
+            }
+            assign[slot] = recipe;
+            dayKcal[day] += catalog.kcalPerPortion(recipe);
+            dayProtein[day] += catalog.proteinPerPortion(recipe);
+            repeatPairs += recipeUses[recipe]++;
+            int origin = catalog.originCode(recipe);
+            if (origin >= 0) {
+                originPenalty += originCounts[day][origin] + neighbourCount(day, origin);
+                originCounts[day][origin]++;
+            }
+            for (int k = catalog.ingredientStart(recipe); k < catalog.ingredientEnd(recipe); k++) {
+                if (ingredientUses[catalog.ingredientCode(k)]++ == 0) {
+                    distinctIngredients++;
+                }
+            }
+        }
+
+        // Variation de coût si le créneau recevait la recette next (sans modifier l'état)
+        double delta(int slot, int next) {
+            int previous = assign[slot];
+            int day = problem.slotDay[slot];
+
+            double kcal = dayKcal[day] - catalog.kcalPerPortion(previous) + catalog.kcalPerPortion(next);
+            double protein = dayProtein[day] - catalog.proteinPerPortion(previous) + catalog.proteinPerPortion(next);
+            double delta = NUTRITION_WEIGHT
+                    * (problem.nutritionTerm(kcal, protein) - problem.nutritionTerm(dayKcal[day], dayProtein[day]));
+
+            delta += REPEAT_WEIGHT * (recipeUses[next] - (recipeUses[previous] - 1));
+
+            int oldOrigin = catalog.originCode(previous);
+            int newOrigin = catalog.originCode(next);
+            if (oldOrigin != newOrigin && problem.originWeight > 0) {
+                long originDelta = 0;
+                if (oldOrigin >= 0) {
+                    originDelta -= (originCounts[day][oldOrigin] - 1) + neighbourCount(day, oldOrigin);
+                }
+                if (newOrigin >= 0) {
+                    originDelta += originCounts[day][newOrigin] + neighbourCount(day, newOrigin);
+                }
+                delta += problem.originWeight * originDelta;
+            }
+
+            if (problem.ingredientWeight > 0) {
+                delta += problem.ingredientWeight * ingredientDelta(previous, next);
+            }
+            return delta;
+        }
+
+        private int ingredientDelta(int previous, int next) {
+            int delta = 0;
+            for (int k = catalog.ingredientStart(previous); k < catalog.ingredientEnd(previous); k++) {
+                if (--ingredientUses[catalog.ingredientCode(k)] == 0) {
+                    delta--;
+                }
+            }
+            for (int k = catalog.ingredientStart(next); k < catalog.ingredientEnd(next); k++) {
+                if (ingredientUses[catalog.ingredientCode(k)]++ == 0) {
+                    delta++;
+                }
+            }
+            // Annulation de la simulation
+            for (int k = catalog.ingredientStart(next); k < catalog.ingredientEnd(next); k++) {
+                ingredientUses[catalog.ingredientCode(k)]--;
+            }
+            for (int k = catalog.ingredientStart(previous); k < catalog.ingredientEnd(previous); k++) {
+                ingredientUses[catalog.ingredientCode(k)]++;
+            }
+            return delta;
+        }
+
+        private int neighbourCount(int day, int origin) {
+            int count = 0;
+            if (day > 0) count += originCounts[day - 1][origin];
+            if (day < problem.days - 1) count += originCounts[day + 1][origin];
+            return count;
+        }
+
+        double fullCost() {
+            double nutrition = 0;
+            for (int day = 0; day < problem.days; day++) {
+                nutrition += problem.nutritionTerm(dayKcal[day], dayProtein[day]);
+            }
+            return NUTRITION_WEIGHT * nutrition
+                    + REPEAT_WEIGHT * repeatPairs
+                    + problem.originWeight * originPenalty
+                    + problem.ingredientWeight * distinctIngredients;
+        }
+
+        void keepBest() {
+            System.arraycopy(assign, 0, best, 0, assign.length);
+            bestCost = cost;
+        }
+
+        // Température initiale : une dégradation moyenne est acceptée avec une probabilité de 50 %
+        double calibrateTemperature(SplittableRandom random) {
+            double sum = 0;
+            int count = 0;
+            for (int i = 0; i < 200; i++) {
+                int slot = random.nextInt(problem.slots);
+                int next = problem.randomCandidate(slot, random);
+                if (next == assign[slot]) {
+                    continue;
+                }
+                double delta = delta(slot, next);
+                if (delta > 0) {
+                    sum += delta;
+                    count++;
+                }
+            }
+            return count > 0 ? (sum / count) / Math.log(2) : 1.0;
+        }
+
+        int repeatedRecipes() {
+            int repeated = 0;
+            for (int slot = 0; slot < assign.length; slot++) {
+                if (recipeUses[assign[slot]] > 1) {
+                    repeated++;
+                }
+            }
+            return repeated;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Colonnes normalized_name des ingrédients et des recettes (voir IngredientNameNormalizer.fold).
+ *
+ * Les entités les recalculent à chaque écriture ; au démarrage, les lignes antérieures sont complétées
+ * puis les index sont créés s'ils manquent :
+ * - B-tree text_pattern_ops : égalité et préfixe (LIKE 'abc%') quelle que soit la collation
+ * - GIN trigrammes (pg_trgm) : recherche "contient" (LIKE '%abc%'), si l'extension est disponible
+ */
+@Service
+@Slf4j
+public class NormalizedNameService {
+
+    private static final List<String> TABLES = List.of("ingredient", "recipe");
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NormalizedNameService(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (String table : TABLES) {
+            int filled = backfill(table);
+            if (filled > 0) {
+                log.info("Filled normalized_name of {} {} rows", filled, table);
+            }
+        }
+        createIndexes();
+    }
+
+    // Lignes écrites avant l'ajout de la colonne (ou par SQL direct), par lots
+    private int backfill(String table) {
+        int total = 0;
+        while (true) {
+            List<Object[]> updates = jdbcTemplate.query(
+                    "SELECT id, name FROM " + table + " WHERE normalized_name IS NULL ORDER BY id LIMIT ?",
+                    (resultSet, rowNum) -> new Object[] {IngredientNameNormalizer.fold(resultSet.getString(2)), resultSet.getLong(1)},
+                    BATCH_SIZE);
+            if (updates.isEmpty()) {
+                return total;
+            }
+            jdbcTemplate.batchUpdate("UPDATE " + table + " SET normalized_name = ? WHERE id = ?", updates);
+            total += updates.size();
+        }
+    }
+
+    private void createIndexes() {
+        for (String table : TABLES) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_normalized_name ON " + table
+                    + " (normalized_name text_pattern_ops)");
+        }
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+        } catch (DataAccessException e) {
+            log.warn("pg_trgm unavailable, substring name searches will scan: {}", e.getMessage());
+            return;
+        }
+        for (String table : TABLES) {
+            jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_normalized_name_trgm ON " + table
+                    + " USING gin (normalized_name gin_trgm_ops)");
+        }
+    }
+}
@@ -0,0 +1,508 @@
+package com.kitchencraft.recipe.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.model.DictionaryValue;
+import com.kitchencraft.recipe.model.Ingredient;
+import com.kitchencraft.recipe.model.SyncProgress;
+import com.kitchencraft.recipe.repository.SyncProgressRepository;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
+import com.kitchencraft.recipe.util.OpenFoodFactsColumns;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Import hors ligne d'un dump OpenFoodFacts (JSONL ou CSV tabulé, éventuellement .gz).
+ *
+ * Un thread lit le fichier en flux et découpe les lignes en lots, placés dans une file bornée
+ * (mémoire constante quel que soit la taille du dump). Des workers analysent chaque lot,
+ * le convertissent via OpenFoodFactsService (lecteur JSON sélectif, ou mapProduct pour le CSV)
+ * puis l'écrivent par COPY dans une table temporaire suivie d'un upsert sur barcode.
+ * Le nombre de lignes validées sans trou est enregistré dans sync_progress, dans la transaction
+ * du lot qui le fait avancer : un import interrompu reprend à ce point (l'upsert rend la reprise
+ * idempotente) et les compteurs enregistrés ne portent que sur les lignes avant ce point.
+ * Une erreur d'écriture arrête la lecture et les workers.
+ * Aucun accès réseau : testable sur un fichier local.
+ */
+@Service
+@Slf4j
+public class OpenFoodFactsImportService {
+
+    private static final String JOB_PREFIX = "openfoodfacts-import:";
+    private static final int TEXT_LENGTH = 255;
+    private static final long QUEUE_POLL_MS = 100;
+
+    private static final String CHECKPOINT_SQL = "UPDATE sync_progress SET cursor_id = ?, updated_at = now(), "
+            + "processed = processed + ?, upserted = upserted + ?, skipped = skipped + ?, failed = failed + ? "
+            + "WHERE job_name = ?";
+
+    // Colonnes écrites par l'import, dans l'ordre du COPY
+    private static final List<String> TEXT_COLUMNS = List.of(
+            "name", "normalized_name", "category", "brand", "barcode", "openfoodfacts_id");
+    private static final List<String> COLUMNS = new ArrayList<>();
+
+    static {
+        COLUMNS.addAll(TEXT_COLUMNS);
+        COLUMNS.add("basic_category_id");
+        COLUMNS.add("data_source_id");
+        COLUMNS.add("last_sync");
+        COLUMNS.add("created_at");
+        COLUMNS.add("updated_at");
+        OpenFoodFactsColumns.NUTRIENTS.forEach(column -> COLUMNS.add(column.column()));
+    }
+
+    private final OpenFoodFactsService openFoodFactsService;
+    private final SyncProgressRepository syncProgressRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final AppConfig appConfig;
+    private final DictionaryService dictionaryService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private volatile ImportRun currentRun;
+
+    public OpenFoodFactsImportService(OpenFoodFactsService openFoodFactsService,
+                                      SyncProgressRepository syncProgressRepository,
+                                      ApplicationEventPublisher eventPublisher,
+                                      JdbcTemplate jdbcTemplate,
+                                      ObjectMapper objectMapper,
+                                      AppConfig appConfig,
+                                      DictionaryService dictionaryService) {
+        this.openFoodFactsService = openFoodFactsService;
+        this.syncProgressRepository = syncProgressRepository;
+        this.eventPublisher = eventPublisher;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.appConfig = appConfig;
+        this.dictionaryService = dictionaryService;
+    }
+
+    /**
+     * Lance l'import en arrière-plan. fileName est relatif au répertoire d'import configuré.
+     */
+    public void startImport(String fileName) {
+        Path file = resolve(fileName);
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("Un import est déjà en cours", HttpStatus.CONFLICT);
+        }
+        Thread.ofVirtual().name("openfoodfacts-import").start(() -> {
+            try {
+                importFile(file);
+            } catch (Exception e) {
+                log.error("OpenFoodFacts import of {} failed", file, e);
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        ImportRun run = currentRun;
+        status.put("running", running.get());
+        if (run != null) {
+            long elapsedMs = Math.max(1, (System.nanoTime() - run.startNs) / 1_000_000);
+            status.put("file", run.file.getFileName().toString());
+            status.put("linesRead", run.linesRead.get());
+            status.put("upserted", run.upserted.get());
+            status.put("skipped", run.skipped.get());
+            status.put("errors", run.errors.get());
+            status.put("checkpointLine", run.committedLines());
+            status.put("elapsedMs", elapsedMs);
+            status.put("linesPerSecond", run.linesRead.get() * 1000 / elapsedMs);
+        }
+        return status;
+    }
+
+    void importFile(Path file) throws Exception {
+        AppConfig.OpenFoodFactsImportConfig config = appConfig.getOpenFoodFactsImport();
+        int workers = config.getWorkers() > 0 ? config.getWorkers() : Runtime.getRuntime().availableProcessors();
+        String jobName = JOB_PREFIX + file.getFileName();
+
+        SyncProgress progress = syncProgressRepository.findById(jobName)
+                .filter(SyncProgress::isRunning)
+                .orElseGet(() -> {
+                    SyncProgress created = new SyncProgress();
+                    created.setJobName(jobName);
+                    created.setStartedAt(LocalDateTime.now());
+                    return syncProgressRepository.save(created);
+                });
+        long resumeLine = progress.getCursor();
+        ImportRun run = new ImportRun(file, resumeLine);
+        currentRun = run;
+        if (resumeLine > 0) {
+            log.info("Resuming OpenFoodFacts import of {} after line {}", file, resumeLine);
+        }
+
+        BlockingQueue<Batch> queue = new ArrayBlockingQueue<>(workers * 2);
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        List<Future<?>> futures = new ArrayList<>();
+        try (BufferedReader reader = open(file)) {
+            boolean csv = isCsv(file);
+            String headerLine = csv ? reader.readLine() : null;
+            String[] header = headerLine != null ? headerLine.split("\t", -1) : null;
+            for (int w = 0; w < workers; w++) {
+                futures.add(pool.submit(() -> work(queue, header, run, jobName)));
+            }
+
+            long lineNumber = 0;
+            long sequence = 0;
+            List<String> lines = new ArrayList<>(config.getBatchSize());
+            String line;
+            // Arrêt de la lecture dès qu'un lot a échoué : la reprise repartira du dernier point valide
+            while (run.failure == null && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= resumeLine) {
+                    continue;
+                }
+                run.linesRead.incrementAndGet();
+                lines.add(line);
+                if (lines.size() == config.getBatchSize()) {
+                    offer(queue, new Batch(sequence++, lineNumber, lines), run);
+                    lines = new ArrayList<>(config.getBatchSize());
+                }
+            }
+            if (!lines.isEmpty()) {
+                offer(queue, new Batch(sequence++, lineNumber, lines), run);
+            }
+        } finally {
+            run.readerDone = true;
+            pool.shutdown();
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        if (run.failure != null) {
+            throw new IllegalStateException("Import interrompu, reprise possible après la ligne " + run.committedLines(), run.failure);
+        }
+
+        progress = syncProgressRepository.findById(jobName).orElseThrow();
+        progress.setCompletedAt(LocalDateTime.now());
+        syncProgressRepository.save(progress);
+        eventPublisher.publishEvent(new IngredientChangedEvent(null, false));
+        log.info("OpenFoodFacts import of {} completed: {} lines, {} upserted, {} skipped, {} errors",
+                file, run.linesRead.get(), run.upserted.get(), run.skipped.get(), run.errors.get());
+    }
+
+    // Attente bornée : les workers s'arrêtent à la première erreur, la file pleine ne bloque pas la lecture
+    private static void offer(BlockingQueue<Batch> queue, Batch batch, ImportRun run) throws InterruptedException {
+        while (run.failure == null && !queue.offer(batch, QUEUE_POLL_MS, TimeUnit.MILLISECONDS)) {
+            // nouvelle tentative
+        }
+    }
+
+    private Void work(BlockingQueue<Batch> queue, String[] header, ImportRun run, String jobName) {
+        try {
+            while (run.failure == null) {
+                Batch batch = queue.poll(QUEUE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (batch == null) {
+                    // readerDone est posé après le dernier dépôt : file vide = plus aucun lot à venir
+                    if (run.readerDone && queue.isEmpty()) {
+                        return null;
+                    }
+                    continue;
+                }
+                process(batch, header, run, jobName);
+            }
+        } catch (Exception e) {
+            run.fail(e);
+        }
+        return null;
+    }
+
+    private void process(Batch batch, String[] header, ImportRun run, String jobName) {
+        // Dédoublonnage par code-barres dans le lot (un upsert ne peut toucher deux fois la même ligne)
+        Map<String, Ingredient> products = new LinkedHashMap<>();
+        long skipped = 0;
+        long errors = 0;
+        for (String line : batch.lines()) {
+            try {
+                Ingredient ingredient = header != null ? csvIngredient(header, line) : openFoodFactsService.mapDumpLine(line);
+                if (ingredient == null || ingredient.getName() == null) {
+                    skipped++;
+                    continue;
+                }
+                products.put(ingredient.getBarcode(), ingredient);
+            } catch (Exception e) {
+                errors++;
+            }
+        }
+        run.skipped.addAndGet(skipped);
+        run.errors.addAndGet(errors);
+        run.upserted.addAndGet(upsert(products.values(), batch, skipped, errors, run, jobName));
+    }
+
+    // COPY dans une table temporaire, upsert sur barcode et avancée du point de reprise, dans une seule transaction
+    private int upsert(Collection<Ingredient> ingredients, Batch batch, long skipped, long errors,
+                       ImportRun run, String jobName) {
+        String columns = String.join(", ", COLUMNS);
+        String updates = COLUMNS.stream()
+                .filter(column -> !column.equals("barcode") && !column.equals("created_at"))
+                .map(column -> column + " = EXCLUDED." + column)
+                .collect(Collectors.joining(", "));
+        int openFoodFactsId = dictionaryService.idOf(DictionaryValue.Domain.DATA_SOURCE, "OPENFOODFACTS");
+        StringBuilder csv = new StringBuilder();
+        for (Ingredient ingredient : ingredients) {
+            appendRow(csv, ingredient);
+        }
+
+        Integer upserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                int count = 0;
+                if (!ingredients.isEmpty()) {
+                    statement.execute("CREATE TEMP TABLE IF NOT EXISTS ingredient_import_stage ON COMMIT DELETE ROWS AS SELECT "
+                            + columns + " FROM ingredient WITH NO DATA");
+                    connection.unwrap(PGConnection.class).getCopyAPI().copyIn(
+                            "COPY ingredient_import_stage (" + columns + ") FROM STDIN WITH (FORMAT csv)",
+                            new StringReader(csv.toString()));
+                    // Les ingrédients saisis manuellement ne sont jamais écrasés
+                    count = statement.executeUpdate("INSERT INTO ingredient (" + columns + ") SELECT " + columns
+                            + " FROM ingredient_import_stage ON CONFLICT (barcode) DO UPDATE SET " + updates
+                            + " WHERE ingredient.data_source_id = " + openFoodFactsId);
+                }
+                Counts counts = new Counts(batch.lines().size(), count, skipped, errors);
+                // Validations sérialisées entre workers : le point de reprise écrit ne couvre que des lots validés,
+                // et les compteurs de chaque lot n'y sont ajoutés qu'une fois
+                synchronized (run) {
+                    Checkpoint checkpoint = run.checkpointIfCompleted(batch.sequence(), batch.lastLine(), counts);
+                    if (checkpoint != null) {
+                        try (PreparedStatement update = connection.prepareStatement(CHECKPOINT_SQL)) {
+                            update.setLong(1, checkpoint.line());
+                            update.setLong(2, checkpoint.counts().lines());
+                            update.setLong(3, checkpoint.counts().upserted());
+                            update.setLong(4, checkpoint.counts().skipped());
+                            update.setLong(5, checkpoint.counts().failed());
+                            update.setString(6, jobName);
+                            update.executeUpdate();
+                        }
+                    }
+                    connection.commit();
+                    run.complete(batch.sequence(), batch.lastLine(), counts);
+                }
+                return count;
+            } catch (SQLException | IOException e) {
+                connection.rollback();
+                throw new SQLException("Échec de l'upsert du lot importé", e);
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        });
+        return upserted != null ? upserted : 0;
+    }
+
+    private void appendRow(StringBuilder csv, Ingredient ingredient) {
+        String[] texts = {ingredient.getName(), IngredientNameNormalizer.fold(ingredient.getName()), ingredient.getCategory(), ingredient.getBrand(), ingredient.getBarcode(),
+                ingredient.getOpenFoodFactsId()};
+        for (String text : texts) {
+            appendText(csv, text);
+            csv.append(',');
+        }
+        appendId(csv, DictionaryValue.Domain.INGREDIENT_CATEGORY, ingredient.getBasicCategory());
+        appendId(csv, DictionaryValue.Domain.DATA_SOURCE, ingredient.getDataSource());
+        String now = LocalDateTime.now().toString();
+        csv.append(now).append(',').append(now).append(',').append(now);
+        for (OpenFoodFactsColumns.NutrientColumn column : OpenFoodFactsColumns.NUTRIENTS) {
+            csv.append(',');
+            BigDecimal value = OpenFoodFactsColumns.normalize(column.getter().apply(ingredient));
+            if (value != null) {
+                csv.append(value.toPlainString());
+            }
+        }
+        csv.append('\n');
+    }
+
+    private void appendId(StringBuilder csv, DictionaryValue.Domain domain, String value) {
+        if (value != null) {
+            csv.append(dictionaryService.idOf(domain, value));
+        }
+        csv.append(',');
+    }
+
+    // Champ CSV : vide non quoté = NULL, sinon entre guillemets avec guillemets doublés
+    private static void appendText(StringBuilder csv, String value) {
+        if (value == null) {
+            return;
+        }
+        String truncated = value.length() > TEXT_LENGTH ? value.substring(0, TEXT_LENGTH) : value;
+        csv.append('"').append(truncated.replace("\"", "\"\"")).append('"');
+    }
+
+    private Ingredient csvIngredient(String[] header, String line) {
+        ObjectNode product = csvProduct(header, line);
+        String barcode = text(product, "code");
+        return barcode != null ? openFoodFactsService.mapProduct(product, barcode) : null;
+    }
+
+    // Ligne du dump CSV (tabulé) convertie au format JSON de l'API, pour réutiliser mapProduct
+    private ObjectNode csvProduct(String[] header, String line) {
+        String[] values = line.split("\t", -1);
+        ObjectNode product = objectMapper.createObjectNode();
+        ObjectNode nutriments = product.putObject("nutriments");
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            String value = values[i];
+            if (value.isEmpty()) {
+                continue;
+            }
+            if (header[i].endsWith("_100g")) {
+                try {
+                    nutriments.put(header[i], Double.parseDouble(value));
+                } catch (NumberFormatException e) {
+                    // valeur non numérique ignorée
+                }
+            } else {
+                product.put(header[i], value);
+            }
+        }
+        return product;
+    }
+
+    private static String text(JsonNode node, String key) {
+        JsonNode value = node.get(key);
+        return value != null && value.isValueNode() && !value.asText().isBlank() ? value.asText().trim() : null;
+    }
+
+    private Path resolve(String fileName) {
+        Path directory = Path.of(appConfig.getOpenFoodFactsImport().getDirectory()).toAbsolutePath().normalize();
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new BusinessException("Fichier d'import introuvable : " + fileName, HttpStatus.NOT_FOUND);
+        }
+        return file;
+    }
+
+    private static boolean isCsv(Path file) {
+        String name = file.getFileName().toString().replace(".gz", "");
+        return name.endsWith(".csv") || name.endsWith(".tsv");
+    }
+
+    private static BufferedReader open(Path file) throws IOException {
+        InputStream input = Files.newInputStream(file);
+        if (file.getFileName().toString().endsWith(".gz")) {
+            input = new GZIPInputStream(input, 1 << 16);
+        }
+        return new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8), 1 << 20);
+    }
+
+    private record Batch(long sequence, long lastLine, List<String> lines) {
+    }
+
+    // Compteurs d'un ou plusieurs lots : lignes lues, produits écrits, lignes ignorées, lignes en erreur
+    private record Counts(long lines, long upserted, long skipped, long failed) {
+
+        Counts plus(Counts other) {
+            return new Counts(lines + other.lines, upserted + other.upserted, skipped + other.skipped,
+                    failed + other.failed);
+        }
+    }
+
+    // Nouveau point de reprise et compteurs des lots qu'il couvre en plus du précédent
+    private record Checkpoint(long line, Counts counts) {
+    }
+
+    /**
+     * Compteurs d'un import et point de reprise : dernière ligne du plus long préfixe de lots validés.
+     */
+    private static final class ImportRun {
+        final Path file;
+        final long startNs = System.nanoTime();
+        final AtomicLong linesRead = new AtomicLong();
+        final AtomicLong upserted = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        // Lots validés hors ordre : numéro de séquence -> dernière ligne et compteurs
+        private final TreeMap<Long, Pending> pending = new TreeMap<>();
+        // Première erreur d'écriture ; arrête la lecture et les workers
+        volatile Exception failure;
+        volatile boolean readerDone;
+        private long nextSequence;
+        private long committedLine;
+
+        ImportRun(Path file, long resumeLine) {
+            this.file = file;
+            this.committedLine = resumeLine;
+        }
+
+        private record Pending(long lastLine, Counts counts) {
+        }
+
+        /**
+         * Point de reprise si ce lot est validé, sans modifier l'état ; null s'il n'avance pas
+         * (un lot précédent n'est pas encore validé).
+         */
+        synchronized Checkpoint checkpointIfCompleted(long sequence, long lastLine, Counts counts) {
+            if (sequence != nextSequence) {
+                return null;
+            }
+            long line = lastLine;
+            Counts covered = counts;
+            for (long next = sequence + 1; pending.containsKey(next); next++) {
+                Pending batch = pending.get(next);
+                line = batch.lastLine();
+                covered = covered.plus(batch.counts());
+            }
+            return new Checkpoint(line, covered);
+        }
+
+        // Appelé après le commit du lot
+        synchronized void complete(long sequence, long lastLine, Counts counts) {
+            pending.put(sequence, new Pending(lastLine, counts));
+            while (!pending.isEmpty() && pending.firstKey() == nextSequence) {
+                committedLine = pending.pollFirstEntry().getValue().lastLine();
+                nextSequence++;
+            }
+        }
+
+        synchronized void fail(Exception e) {
+            if (failure == null) {
+                failure = e;
+            }
+        }
+
+        synchronized long committedLines() {
+            return committedLine;
+        }
+    }
+}
@@ -1,94 +1,161 @@
 package com.kitchencraft.recipe.service;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.exception.OpenFoodFactsException;
 import com.kitchencraft.recipe.model.Ingredient;
-import lombok.RequiredArgsConstructor;
+import com.kitchencraft.recipe.util.AdaptiveTimeout;
+import com.kitchencraft.recipe.util.CircuitBreaker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.client.RestClientException;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 @Service
-@RequiredArgsConstructor
+@Slf4j
 public class OpenFoodFactsService {
 
-    private final RestTemplate restTemplate;
+    private final RestClient restClient;
     private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final CategoryClassificationService categoryClassificationService;
+
+    // Résilience : disjoncteur, cloison et délai adaptatif autour de chaque appel
+    private final CircuitBreaker circuitBreaker;
+    private final Semaphore bulkhead;
+    private final AdaptiveTimeout adaptiveTimeout;
+    private final long bulkheadMaxWaitNanos;
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder bulkheadRejections = new LongAdder();
+
+    public OpenFoodFactsService(@Qualifier("openFoodFactsRestClient") RestClient restClient,
+                                ObjectMapper objectMapper,
+                                @Qualifier("openFoodFactsExecutor") ExecutorService executor,
+                                CategoryClassificationService categoryClassificationService,
+                                AppConfig appConfig) {
+        this.restClient = restClient;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.categoryClassificationService = categoryClassificationService;
+
+        AppConfig.OpenFoodFactsConfig config = appConfig.getOpenFoodFacts();
+        this.circuitBreaker = new CircuitBreaker(config.getCircuitWindowSize(), config.getCircuitMinimumCalls(),
+                config.getFailureRateThreshold(), config.getSlowCallRateThreshold(), config.getSlowCallThreshold(),
+                config.getCircuitOpenDuration(), config.getHalfOpenCalls());
+        this.bulkhead = new Semaphore(config.getBulkheadMaxConcurrent());
+        this.bulkheadMaxWaitNanos = config.getBulkheadMaxWait().toNanos();
+        this.adaptiveTimeout = new AdaptiveTimeout(config.getMinTimeout(), config.getReadTimeout());
+    }
     
-    private static final String OPENFOODFACTS_API_URL = "https://world.openfoodfacts.org/api/v0/product/";
-    
-    // Mapping des catégories OpenFoodFacts vers nos catégories de base
-    private static final Map<String, String> CATEGORY_MAPPING = new HashMap<>();
+    private static final String OPENFOODFACTS_API_PATH = "/api/v0/product/";
     
-    static {
-        // Fruits et Légumes
-        CATEGORY_MAPPING.put("fruits", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("fresh-fruits", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("frozen-fruits", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("dried-fruits", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("vegetables", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("fresh-vegetables", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("frozen-vegetables", "Fruits et Légumes");
-        CATEGORY_MAPPING.put("canned-vegetables", "Fruits et Légumes");
-        
-        // Féculents
-        CATEGORY_MAPPING.put("cereals", "Féculents");
-        CATEGORY_MAPPING.put("breakfast-cereals", "Féculents");
-        CATEGORY_MAPPING.put("bread", "Féculents");
-        CATEGORY_MAPPING.put("pasta", "Féculents");
-        CATEGORY_MAPPING.put("rice", "Féculents");
-        CATEGORY_MAPPING.put("grains", "Féculents");
-        CATEGORY_MAPPING.put("potatoes", "Féculents");
-        
-        // Légumineuses
-        CATEGORY_MAPPING.put("legumes", "Légumineuses");
-        CATEGORY_MAPPING.put("beans", "Légumineuses");
-        CATEGORY_MAPPING.put("lentils", "Légumineuses");
-        CATEGORY_MAPPING.put("chickpeas", "Légumineuses");
-        CATEGORY_MAPPING.put("peas", "Légumineuses");
-        
-        // Viandes, Poissons, Oeufs
-        CATEGORY_MAPPING.put("meats", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("fish", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("seafood", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("poultry", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("eggs", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("beef", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("pork", "Viandes, Poissons, Oeufs");
-        CATEGORY_MAPPING.put("chicken", "Viandes, Poissons, Oeufs");
-        
-        // Produits laitiers
-        CATEGORY_MAPPING.put("dairy", "Produits laitiers");
-        CATEGORY_MAPPING.put("milk", "Produits laitiers");
-        CATEGORY_MAPPING.put("yogurt", "Produits laitiers");
-        CATEGORY_MAPPING.put("cheese", "Produits laitiers");
-        CATEGORY_MAPPING.put("cream", "Produits laitiers");
-        
-        // Matières grasses
-        CATEGORY_MAPPING.put("fats", "Matières grasses");
-        CATEGORY_MAPPING.put("oils", "Matières grasses");
-        CATEGORY_MAPPING.put("butter", "Matières grasses");
-        CATEGORY_MAPPING.put("margarine", "Matières grasses");
-        
-        // Produits sucrés
-        CATEGORY_MAPPING.put("sweets", "Produits sucrés");
-        CATEGORY_MAPPING.put("chocolate", "Produits sucrés");
-        CATEGORY_MAPPING.put("candy", "Produits sucrés");
-        CATEGORY_MAPPING.put("desserts", "Produits sucrés");
-        CATEGORY_MAPPING.put("ice-cream", "Produits sucrés");
-        CATEGORY_MAPPING.put("cookies", "Produits sucrés");
-        CATEGORY_MAPPING.put("cakes", "Produits sucrés");
+    // Clés OpenFoodFacts de chaque nutriment, par ordre de préférence
+    private record NutrimentField(BiConsumer<Ingredient, BigDecimal> setter, String... keys) {
     }
 
+    private static final List<NutrimentField> NUTRIMENT_FIELDS = List.of(
+            // Macronutriments
+            new NutrimentField(Ingredient::setEnergy, "energy-kj", "energy-kj_100g"),
+            new NutrimentField(Ingredient::setEnergyKcal, "energy-kcal", "energy-kcal_100g", "energy_100g"),
+            new NutrimentField(Ingredient::setCarbohydrates, "carbohydrates", "carbohydrates_100g"),
+            new NutrimentField(Ingredient::setSugars, "sugars", "sugars_100g"),
+            new NutrimentField(Ingredient::setFat, "fat", "fat_100g"),
+            new NutrimentField(Ingredient::setSaturatedFat, "saturated-fat", "saturated-fat_100g"),
+            new NutrimentField(Ingredient::setProtein, "proteins", "proteins_100g"),
+            new NutrimentField(Ingredient::setSalt, "salt", "salt_100g"),
+            new NutrimentField(Ingredient::setSodium, "sodium", "sodium_100g"),
+            new NutrimentField(Ingredient::setFiber, "fiber", "fiber_100g"),
+            new NutrimentField(Ingredient::setAlcohol, "alcohol", "alcohol_100g"),
+
+            // Graisses détaillées
+            new NutrimentField(Ingredient::setMonounsaturatedFat, "monounsaturated-fat", "monounsaturated-fat_100g"),
+            new NutrimentField(Ingredient::setPolyunsaturatedFat, "polyunsaturated-fat", "polyunsaturated-fat_100g"),
+            new NutrimentField(Ingredient::setTransFat, "trans-fat", "trans-fat_100g"),
+
+            // Vitamines
+            new NutrimentField(Ingredient::setVitaminA, "vitamin-a", "vitamin-a_100g"),
+            new NutrimentField(Ingredient::setVitaminB1, "vitamin-b1", "vitamin-b1_100g"),
+            new NutrimentField(Ingredient::setVitaminB2, "vitamin-b2", "vitamin-b2_100g"),
+            new NutrimentField(Ingredient::setVitaminB3, "vitamin-b3", "vitamin-b3_100g"),
+            new NutrimentField(Ingredient::setVitaminB5, "vitamin-b5", "vitamin-b5_100g"),
+            new NutrimentField(Ingredient::setVitaminB6, "vitamin-b6", "vitamin-b6_100g"),
+            new NutrimentField(Ingredient::setVitaminB7, "vitamin-b7", "vitamin-b7_100g"),
+            new NutrimentField(Ingredient::setVitaminB9, "vitamin-b9", "vitamin-b9_100g"),
+            new NutrimentField(Ingredient::setVitaminB12, "vitamin-b12", "vitamin-b12_100g"),
+            new NutrimentField(Ingredient::setVitaminC, "vitamin-c", "vitamin-c_100g"),
+            new NutrimentField(Ingredient::setVitaminD, "vitamin-d", "vitamin-d_100g"),
+            new NutrimentField(Ingredient::setVitaminE, "vitamin-e", "vitamin-e_100g"),
+            new NutrimentField(Ingredient::setVitaminK, "vitamin-k", "vitamin-k_100g"),
+
+            // Minéraux
+            new NutrimentField(Ingredient::setCalcium, "calcium", "calcium_100g"),
+            new NutrimentField(Ingredient::setIron, "iron", "iron_100g"),
+            new NutrimentField(Ingredient::setMagnesium, "magnesium", "magnesium_100g"),
+            new NutrimentField(Ingredient::setPhosphorus, "phosphorus", "phosphorus_100g"),
+            new NutrimentField(Ingredient::setPotassium, "potassium", "potassium_100g"),
+            new NutrimentField(Ingredient::setZinc, "zinc", "zinc_100g"),
+            new NutrimentField(Ingredient::setCopper, "copper", "copper_100g"),
+            new NutrimentField(Ingredient::setManganese, "manganese", "manganese_100g"),
+            new NutrimentField(Ingredient::setSelenium, "selenium", "selenium_100g"),
+            new NutrimentField(Ingredient::setIodine, "iodine", "iodine_100g"),
+            new NutrimentField(Ingredient::setChromium, "chromium", "chromium_100g"),
+            new NutrimentField(Ingredient::setMolybdenum, "molybdenum", "molybdenum_100g"),
+            new NutrimentField(Ingredient::setFluoride, "fluoride", "fluoride_100g")
+    );
+
+    // Seuls champs lus dans une réponse produit (voir mapToIngredient), le reste est sauté sans être chargé
+    private static final Set<String> PRODUCT_FIELDS = Set.of(
+            "product_name", "product_name_fr", "brands", "categories", "main_category");
+    private static final String NUTRIMENTS_FIELD = "nutriments";
+    private static final String BARCODE_FIELD = "code";
+    private static final Set<String> NUTRIMENT_KEYS = NUTRIMENT_FIELDS.stream()
+            .flatMap(field -> Arrays.stream(field.keys()))
+            .collect(Collectors.toUnmodifiableSet());
+
     public Ingredient searchByBarcode(String barcode) {
         return searchByBarcodeAsIngredient(barcode);
     }
     
+    /**
+     * Convertit un produit OpenFoodFacts (réponse API ou ligne de dump) en Ingredient.
+     */
+    public Ingredient mapProduct(JsonNode product, String barcode) {
+        return mapToIngredient(product, barcode);
+    }
+
     private Ingredient mapToIngredient(JsonNode product, String barcode) {
         Ingredient ingredient = new Ingredient();
         
@@ -118,69 +185,14 @@ public class OpenFoodFactsService {
     }
     
     private String mapCategory(JsonNode product) {
-        String categories = getTextValue(product, "categories");
-        if (categories == null) return "Autres";
-        
-        String categoriesLower = categories.toLowerCase();
-        
-        // Essayer de trouver une correspondance
-        for (Map.Entry<String, String> entry : CATEGORY_MAPPING.entrySet()) {
-            if (categoriesLower.contains(entry.getKey())) {
-                return entry.getValue();
-            }
-        }
-        
-        return "Autres";
+        // Classification déterministe selon la taxonomie (priorités, limites de mot)
+        return categoryClassificationService.classify(getTextValue(product, "categories"));
     }
     
     private void mapNutrients(JsonNode nutriments, Ingredient ingredient) {
-        // Macronutriments
-        ingredient.setEnergy(getBigDecimalValue(nutriments, "energy-kj", "energy-kj_100g"));
-        ingredient.setEnergyKcal(getBigDecimalValue(nutriments, "energy-kcal", "energy-kcal_100g", "energy_100g"));
-        ingredient.setCarbohydrates(getBigDecimalValue(nutriments, "carbohydrates", "carbohydrates_100g"));
-        ingredient.setSugars(getBigDecimalValue(nutriments, "sugars", "sugars_100g"));
-        ingredient.setFat(getBigDecimalValue(nutriments, "fat", "fat_100g"));
-        ingredient.setSaturatedFat(getBigDecimalValue(nutriments, "saturated-fat", "saturated-fat_100g"));
-        ingredient.setProtein(getBigDecimalValue(nutriments, "proteins", "proteins_100g"));
-        ingredient.setSalt(getBigDecimalValue(nutriments, "salt", "salt_100g"));
-        ingredient.setSodium(getBigDecimalValue(nutriments, "sodium", "sodium_100g"));
-        ingredient.setFiber(getBigDecimalValue(nutriments, "fiber", "fiber_100g"));
-        ingredient.setAlcohol(getBigDecimalValue(nutriments, "alcohol", "alcohol_100g"));
-        
-        // Graisses détaillées
-        ingredient.setMonounsaturatedFat(getBigDecimalValue(nutriments, "monounsaturated-fat", "monounsaturated-fat_100g"));
-        ingredient.setPolyunsaturatedFat(getBigDecimalValue(nutriments, "polyunsaturated-fat", "polyunsaturated-fat_100g"));
-        ingredient.setTransFat(getBigDecimalValue(nutriments, "trans-fat", "trans-fat_100g"));
-        
-        // Vitamines
-        ingredient.setVitaminA(getBigDecimalValue(nutriments, "vitamin-a", "vitamin-a_100g"));
-        ingredient.setVitaminB1(getBigDecimalValue(nutriments, "vitamin-b1", "vitamin-b1_100g"));
-        ingredient.setVitaminB2(getBigDecimalValue(nutriments, "vitamin-b2", "vitamin-b2_100g"));
-        ingredient.setVitaminB3(getBigDecimalValue(nutriments, "vitamin-b3", "vitamin-b3_100g"));
-        ingredient.setVitaminB5(getBigDecimalValue(nutriments, "vitamin-b5", "vitamin-b5_100g"));
-        ingredient.setVitaminB6(getBigDecimalValue(nutriments, "vitamin-b6", "vitamin-b6_100g"));
-        ingredient.setVitaminB7(getBigDecimalValue(nutriments, "vitamin-b7", "vitamin-b7_100g"));
-        ingredient.setVitaminB9(getBigDecimalValue(nutriments, "vitamin-b9", "vitamin-b9_100g"));
-        ingredient.setVitaminB12(getBigDecimalValue(nutriments, "vitamin-b12", "vitamin-b12_100g"));
-        ingredient.setVitaminC(getBigDecimalValue(nutriments, "vitamin-c", "vitamin-c_100g"));
-        ingredient.setVitaminD(getBigDecimalValue(nutriments, "vitamin-d", "vitamin-d_100g"));
-        ingredient.setVitaminE(getBigDecimalValue(nutriments, "vitamin-e", "vitamin-e_100g"));
-        ingredient.setVitaminK(getBigDecimalValue(nutriments, "vitamin-k", "vitamin-k_100g"));
-        
-        // Minéraux
-        ingredient.setCalcium(getBigDecimalValue(nutriments, "calcium", "calcium_100g"));
-        ingredient.setIron(getBigDecimalValue(nutriments, "iron", "iron_100g"));
-        ingredient.setMagnesium(getBigDecimalValue(nutriments, "magnesium", "magnesium_100g"));
-        ingredient.setPhosphorus(getBigDecimalValue(nutriments, "phosphorus", "phosphorus_100g"));
-        ingredient.setPotassium(getBigDecimalValue(nutriments, "potassium", "potassium_100g"));
-        ingredient.setZinc(getBigDecimalValue(nutriments, "zinc", "zinc_100g"));
-        ingredient.setCopper(getBigDecimalValue(nutriments, "copper", "copper_100g"));
-        ingredient.setManganese(getBigDecimalValue(nutriments, "manganese", "manganese_100g"));
-        ingredient.setSelenium(getBigDecimalValue(nutriments, "selenium", "selenium_100g"));
-        ingredient.setIodine(getBigDecimalValue(nutriments, "iodine", "iodine_100g"));
-        ingredient.setChromium(getBigDecimalValue(nutriments, "chromium", "chromium_100g"));
-        ingredient.setMolybdenum(getBigDecimalValue(nutriments, "molybdenum", "molybdenum_100g"));
-        ingredient.setFluoride(getBigDecimalValue(nutriments, "fluoride", "fluoride_100g"));
+        for (NutrimentField field : NUTRIMENT_FIELDS) {
+            field.setter().accept(ingredient, getBigDecimalValue(nutriments, field.keys()));
+        }
     }
     
     private String getTextValue(JsonNode node, String... keys) {
@@ -212,31 +224,250 @@ public class OpenFoodFactsService {
     // Nouvelle méthode pour récupérer directement un Ingredient
     public Ingredient searchByBarcodeAsIngredient(String barcode) {
         try {
-            String url = OPENFOODFACTS_API_URL + barcode + ".json";
-            String response = restTemplate.getForObject(url, String.class);
-            
-            if (response == null) {
-                return null;
+            return fetchProduct(barcode).orElse(null);
+        } catch (OpenFoodFactsException e) {
+            // Log l'erreur mais ne lance pas d'exception
+            log.warn("Erreur lors de la recherche OpenFoodFacts pour le code-barres {}: {}", barcode, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Interroge OpenFoodFacts pour un code-barres.
+     * Optional vide si le produit est inconnu ; OpenFoodFactsException si l'appel échoue,
+     * dépasse le délai adaptatif, ou est refusé (disjoncteur ouvert, cloison pleine).
+     */
+    public Optional<Ingredient> fetchProduct(String barcode) {
+        if (!circuitBreaker.tryAcquire()) {
+            throw new OpenFoodFactsException("OpenFoodFacts indisponible (disjoncteur ouvert), code-barres " + barcode);
+        }
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(bulkheadMaxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            circuitBreaker.onNotExecuted();
+            throw new OpenFoodFactsException("Appel OpenFoodFacts interrompu pour " + barcode, e);
+        }
+        if (!acquired) {
+            bulkheadRejections.increment();
+            circuitBreaker.onNotExecuted();
+            throw new OpenFoodFactsException("OpenFoodFacts saturé, code-barres " + barcode);
+        }
+
+        calls.increment();
+        long timeout = adaptiveTimeout.timeoutNanos();
+        long start = System.nanoTime();
+        // La cloison est libérée par la tâche elle-même : un appel abandonné sur délai garde sa place
+        // jusqu'à ce que la requête HTTP se termine réellement. Une tâche annulée avant son démarrage
+        // ne s'exécute pas, l'appelant libère alors la place (started arbitre entre les deux).
+        AtomicBoolean started = new AtomicBoolean();
+        Future<Optional<Ingredient>> call;
+        try {
+            call = executor.submit(() -> {
+                if (!started.compareAndSet(false, true)) {
+                    return Optional.empty();
+                }
+                try {
+                    return request(barcode);
+                } finally {
+                    bulkhead.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            circuitBreaker.onNotExecuted();
+            throw new OpenFoodFactsException("Appel OpenFoodFacts impossible pour " + barcode, e);
+        }
+        try {
+            Optional<Ingredient> result = call.get(timeout, TimeUnit.NANOSECONDS);
+            long elapsed = System.nanoTime() - start;
+            adaptiveTimeout.record(elapsed);
+            circuitBreaker.onResult(false, elapsed);
+            return result;
+        } catch (TimeoutException e) {
+            abandon(call, started);
+            timeouts.increment();
+            failures.increment();
+            adaptiveTimeout.recordTimeout(timeout);
+            circuitBreaker.onResult(true, System.nanoTime() - start);
+            throw new OpenFoodFactsException("Délai OpenFoodFacts dépassé (" + TimeUnit.NANOSECONDS.toMillis(timeout)
+                    + " ms) pour " + barcode, e);
+        } catch (ExecutionException e) {
+            failures.increment();
+            circuitBreaker.onResult(true, System.nanoTime() - start);
+            if (e.getCause() instanceof OpenFoodFactsException cause) {
+                throw cause;
             }
-            
-            JsonNode root = objectMapper.readTree(response);
-            
-            // Vérifier si le produit existe
-            if (root.get("status").asInt() != 1) {
-                return null;
+            throw new OpenFoodFactsException("Appel OpenFoodFacts impossible pour " + barcode, e.getCause());
+        } catch (InterruptedException e) {
+            abandon(call, started);
+            Thread.currentThread().interrupt();
+            circuitBreaker.onNotExecuted();
+            throw new OpenFoodFactsException("Appel OpenFoodFacts interrompu pour " + barcode, e);
+        }
+    }
+
+    private void abandon(Future<Optional<Ingredient>> call, AtomicBoolean started) {
+        call.cancel(true);
+        if (started.compareAndSet(false, true)) {
+            // Jamais démarrée : la tâche ne libérera pas sa place
+            bulkhead.release();
+        }
+    }
+
+    public boolean isCircuitOpen() {
+        return circuitBreaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    /**
+     * État de la dépendance OpenFoodFacts : UP, DEGRADED (demi-ouvert) ou DOWN (disjoncteur ouvert).
+     */
+    public Map<String, Object> getHealth() {
+        Map<String, Object> circuit = circuitBreaker.getMetrics();
+        CircuitBreaker.State state = (CircuitBreaker.State) circuit.get("state");
+        long callCount = calls.sum();
+        Map<String, Object> health = new LinkedHashMap<>();
+        health.put("status", switch (state) {
+            case CLOSED -> "UP";
+            case HALF_OPEN -> "DEGRADED";
+            case OPEN -> "DOWN";
+        });
+        health.put("circuit", circuit);
+        health.put("calls", callCount);
+        health.put("failures", failures.sum());
+        health.put("timeouts", timeouts.sum());
+        health.put("bulkheadAvailable", bulkhead.availablePermits());
+        health.put("bulkheadRejections", bulkheadRejections.sum());
+        health.put("currentTimeoutMs", TimeUnit.NANOSECONDS.toMillis(adaptiveTimeout.timeoutNanos()));
+        return health;
+    }
+
+    private Optional<Ingredient> request(String barcode) {
+        try {
+            return restClient.get()
+                    .uri(OPENFOODFACTS_API_PATH + "{barcode}.json", barcode)
+                    .exchange((request, response) -> {
+                        if (response.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                            return Optional.empty();
+                        }
+                        if (response.getStatusCode().isError()) {
+                            throw new OpenFoodFactsException("OpenFoodFacts a répondu " + response.getStatusCode().value()
+                                    + " pour " + barcode);
+                        }
+                        return readResponse(response.getBody(), barcode);
+                    });
+        } catch (RestClientException e) {
+            throw new OpenFoodFactsException("Appel OpenFoodFacts impossible pour " + barcode, e);
+        }
+    }
+
+    // Lecture en flux de la réponse, sans String ni arbre complet intermédiaires
+    Optional<Ingredient> readResponse(InputStream body, String barcode) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            return readResponse(parser, barcode);
+        } catch (JsonProcessingException e) {
+            throw new OpenFoodFactsException("Réponse OpenFoodFacts invalide pour " + barcode, e);
+        }
+    }
+
+    private Optional<Ingredient> readResponse(JsonParser parser, String barcode) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new OpenFoodFactsException("Réponse OpenFoodFacts vide pour " + barcode);
+        }
+        int status = 0;
+        ObjectNode product = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if ("status".equals(field) && token.isScalarValue()) {
+                status = parser.getValueAsInt();
+            } else if ("product".equals(field) && token == JsonToken.START_OBJECT) {
+                product = readProduct(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        // Vérifier si le produit existe
+        if (status != 1 || product == null) {
+            return Optional.empty();
+        }
+        return Optional.of(mapToIngredient(product, barcode));
+    }
+
+    /**
+     * Convertit une ligne de dump JSONL (un produit, code-barres dans "code") avec le même lecteur en flux
+     * que les réponses de l'API. null si la ligne n'a pas de code-barres.
+     */
+    public Ingredient mapDumpLine(String line) throws IOException {
+        try (JsonParser parser = objectMapper.createParser(line)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Produit attendu");
             }
-            
-            JsonNode product = root.get("product");
-            if (product == null) {
-                return null;
+            String barcode = null;
+            ObjectNode product = objectMapper.createObjectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if (BARCODE_FIELD.equals(field) && token.isScalarValue()) {
+                    // Texte ou nombre : getText conserve les chiffres tels qu'écrits
+                    barcode = parser.getText().trim();
+                } else {
+                    readProductField(parser, token, product, field);
+                }
             }
-            
-            return mapToIngredient(product, barcode);
-            
-        } catch (Exception e) {
-            // Log l'erreur mais ne lance pas d'exception
-            System.err.println("Erreur lors de la recherche OpenFoodFacts pour le code-barres " + barcode + ": " + e.getMessage());
-            return null;
+            return barcode != null && !barcode.isEmpty() ? mapToIngredient(product, barcode) : null;
         }
     }
+
+    // Ne conserve que les champs utiles du produit, dans un petit ObjectNode passé à mapToIngredient
+    private ObjectNode readProduct(JsonParser parser) throws IOException {
+        ObjectNode product = objectMapper.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            readProductField(parser, parser.nextToken(), product, field);
+        }
+        return product;
+    }
+
+    private void readProductField(JsonParser parser, JsonToken token, ObjectNode product, String field) throws IOException {
+        if (NUTRIMENTS_FIELD.equals(field) && token == JsonToken.START_OBJECT) {
+            product.set(field, readScalars(parser, NUTRIMENT_KEYS));
+        } else if (PRODUCT_FIELDS.contains(field)) {
+            copyScalar(parser, token, product, field);
+        } else {
+            parser.skipChildren();
+        }
+    }
+
+    private ObjectNode readScalars(JsonParser parser, Set<String> fields) throws IOException {
+        ObjectNode node = objectMapper.createObjectNode();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken token = parser.nextToken();
+            if (fields.contains(field)) {
+                copyScalar(parser, token, node, field);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return node;
+    }
+
+    // Textes et nombres uniquement, comme getTextValue et getBigDecimalValue
+    private static void copyScalar(JsonParser parser, JsonToken token, ObjectNode node, String field) throws IOException {
+        switch (token) {
+            case VALUE_STRING -> node.put(field, parser.getText());
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> node.put(field, parser.getDoubleValue());
+            default -> parser.skipChildren();
+        }
+    }
+
+    /**
+     * Version asynchrone de fetchProduct, exécutée sur un thread virtuel.
+     */
+    public CompletableFuture<Optional<Ingredient>> fetchProductAsync(String barcode) {
+        return CompletableFuture.supplyAsync(() -> fetchProduct(barcode), executor);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suppression en arrière-plan des ingrédients référencés par aucune recette ni aucune liste de courses.
+ * Parcours par identifiant croissant, un DELETE ... NOT EXISTS par lot de batchSize ingrédients,
+ * chacun dans sa propre transaction.
+ */
+@Service
+@Slf4j
+public class OrphanIngredientCleanupService {
+
+    private static final String ORPHAN_CONDITION =
+            "NOT EXISTS (SELECT 1 FROM recipe_ingredient r WHERE r.ingredient_id = i.id) "
+                    + "AND NOT EXISTS (SELECT 1 FROM shopping_list_item s WHERE s.ingredient_id = i.id)";
+
+    // Nouvelles tentatives d'un lot dont un ingrédient vient d'être référencé
+    private static final int MAX_BATCH_ATTEMPTS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final AppConfig appConfig;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong deleted = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private volatile long orphansAtStart;
+    private volatile long cursor;
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime completedAt;
+    private volatile String error;
+
+    public OrphanIngredientCleanupService(JdbcTemplate jdbcTemplate,
+                                          ApplicationEventPublisher eventPublisher,
+                                          AppConfig appConfig) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.appConfig = appConfig;
+    }
+
+    /**
+     * Nombre d'ingrédients que le nettoyage supprimerait maintenant.
+     */
+    public long countOrphans() {
+        Long count = jdbcTemplate.queryForObject("SELECT count(*) FROM ingredient i WHERE " + ORPHAN_CONDITION, Long.class);
+        return count != null ? count : 0;
+    }
+
+    public void startCleanup() {
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("Un nettoyage est déjà en cours", HttpStatus.CONFLICT);
+        }
+        startedAt = LocalDateTime.now();
+        completedAt = null;
+        error = null;
+        deleted.set(0);
+        batches.set(0);
+        cursor = 0;
+        orphansAtStart = 0;
+        Thread.ofVirtual().name("orphan-ingredient-cleanup").start(() -> {
+            try {
+                cleanup();
+            } catch (RuntimeException e) {
+                error = e.getMessage();
+                log.error("Orphan ingredient cleanup failed", e);
+            } finally {
+                completedAt = LocalDateTime.now();
+                running.set(false);
+                if (deleted.get() > 0) {
+                    eventPublisher.publishEvent(new IngredientChangedEvent(null, false));
+                }
+            }
+        });
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("startedAt", startedAt);
+        status.put("completedAt", completedAt);
+        status.put("orphansAtStart", orphansAtStart);
+        status.put("deletedCount", deleted.get());
+        status.put("batches", batches.get());
+        status.put("lastId", cursor);
+        status.put("error", error);
+        return status;
+    }
+
+    private void cleanup() {
+        orphansAtStart = countOrphans();
+        int batchSize = appConfig.getOrphanCleanup().getBatchSize();
+        int attempts = 0;
+        while (true) {
+            List<Long> ids;
+            try {
+                // Instruction autocommitée : chaque lot est sa propre transaction
+                ids = jdbcTemplate.queryForList(
+                        "DELETE FROM ingredient WHERE id IN ("
+                                + "SELECT i.id FROM ingredient i WHERE i.id > ? AND " + ORPHAN_CONDITION
+                                + " ORDER BY i.id LIMIT ?) RETURNING id",
+                        Long.class, cursor, batchSize);
+            } catch (DataIntegrityViolationException e) {
+                if (++attempts >= MAX_BATCH_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Orphan cleanup batch after id {} raced with a new reference, retrying", cursor);
+                continue;
+            }
+            attempts = 0;
+            if (ids.isEmpty()) {
+                break;
+            }
+            deleted.addAndGet(ids.size());
+            batches.incrementAndGet();
+            cursor = ids.stream().mapToLong(Long::longValue).max().orElse(cursor);
+        }
+        log.info("Orphan ingredient cleanup completed: {} ingredients deleted in {} batches", deleted.get(), batches.get());
+    }
+}
@@ -0,0 +1,179 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.ArchivedPlanDto;
+import com.kitchencraft.recipe.event.PlanChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.model.ArchivedPlan;
+import com.kitchencraft.recipe.model.WeeklyPlan;
+import com.kitchencraft.recipe.repository.ArchivedPlanRepository;
+import com.kitchencraft.recipe.repository.PlanRecipeRepository;
+import com.kitchencraft.recipe.repository.ShoppingListItemRepository;
+import com.kitchencraft.recipe.repository.WeeklyPlanRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Archivage des plannings terminés depuis plus de app.plan-archive.horizon-days jours.
+ * Chaque lot est copié dans weekly_plan_archive (une ligne jsonb par planning) puis supprimé
+ * des tables actives dans la même transaction, ce qui borne la taille de plan_recipe
+ * et shopping_list_item aux plannings récents.
+ */
+@Service
+@Slf4j
+public class PlanArchiveService {
+
+    private final WeeklyPlanRepository weeklyPlanRepository;
+    private final PlanRecipeRepository planRecipeRepository;
+    private final ShoppingListItemRepository shoppingListItemRepository;
+    private final ArchivedPlanRepository archivedPlanRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final AppConfig appConfig;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public PlanArchiveService(WeeklyPlanRepository weeklyPlanRepository,
+                              PlanRecipeRepository planRecipeRepository,
+                              ShoppingListItemRepository shoppingListItemRepository,
+                              ArchivedPlanRepository archivedPlanRepository,
+                              ApplicationEventPublisher eventPublisher,
+                              PlatformTransactionManager transactionManager,
+                              AppConfig appConfig) {
+        this.weeklyPlanRepository = weeklyPlanRepository;
+        this.planRecipeRepository = planRecipeRepository;
+        this.shoppingListItemRepository = shoppingListItemRepository;
+        this.archivedPlanRepository = archivedPlanRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.appConfig = appConfig;
+    }
+
+    @Scheduled(cron = "${app.plan-archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        if (appConfig.getPlanArchive().isEnabled()) {
+            archiveExpiredPlans(appConfig.getPlanArchive().getHorizonDays());
+        }
+    }
+
+    /**
+     * Archive par lots les plannings terminés avant aujourd'hui - horizonDays.
+     * @return nombre de plannings archivés
+     */
+    public int archiveExpiredPlans(Integer horizonDays) {
+        if (horizonDays == null) {
+            horizonDays = appConfig.getPlanArchive().getHorizonDays();
+        }
+        if (!running.compareAndSet(false, true)) {
+            throw new BusinessException("Un archivage est déjà en cours");
+        }
+        try {
+            LocalDate cutoff = LocalDate.now().minusDays(horizonDays);
+            int batchSize = appConfig.getPlanArchive().getBatchSize();
+            int archived = 0;
+            while (true) {
+                List<Long> ids = weeklyPlanRepository.findIdsEndedBefore(cutoff, PageRequest.of(0, batchSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Integer count = transactionTemplate.execute(status -> archiveBatch(ids));
+                archived += count != null ? count : 0;
+                if (ids.size() < batchSize) {
+                    break;
+                }
+            }
+            log.info("Archived {} plans ended before {}", archived, cutoff);
+            return archived;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private int archiveBatch(List<Long> ids) {
+        Map<Long, ArchivedPlan> archives = new HashMap<>();
+        LocalDate today = LocalDate.now();
+        for (WeeklyPlan plan : weeklyPlanRepository.findAllById(ids)) {
+            ArchivedPlan archive = new ArchivedPlan();
+            archive.setId(plan.getId());
+            archive.setName(plan.getName());
+            archive.setDescription(plan.getDescription());
+            archive.setStartDate(plan.getStartDate());
+            archive.setEndDate(plan.getEndDate());
+            archive.setDurationWeeks(plan.getDurationWeeks());
+            archive.setCreatedDate(plan.getCreatedDate());
+            archive.setArchivedDate(today);
+            archives.put(plan.getId(), archive);
+        }
+
+        for (Object[] row : planRecipeRepository.findArchiveRowsByPlanIds(ids)) {
+            archives.get((Long) row[0]).getRecipes().add(new ArchivedPlan.Recipe(
+                    (Long) row[1], (String) row[2], (LocalDate) row[3], (String) row[4], (Integer) row[5]));
+        }
+        for (Object[] row : shoppingListItemRepository.findArchiveRowsByPlanIds(ids)) {
+            archives.get((Long) row[0]).getShoppingItems().add(new ArchivedPlan.ShoppingItem(
+                    (Long) row[1], (String) row[2], (String) row[3],
+                    (BigDecimal) row[4], (BigDecimal) row[5], (Boolean) row[6]));
+        }
+        archives.values().forEach(archive -> archive.setRecipeCount(archive.getRecipes().size()));
+        archivedPlanRepository.saveAll(archives.values());
+
+        // Suppression ensembliste des tables actives
+        shoppingListItemRepository.deleteByWeeklyPlanIdIn(ids);
+        planRecipeRepository.deleteByWeeklyPlanIdIn(ids);
+        weeklyPlanRepository.deleteByIdIn(ids);
+        ids.forEach(id -> eventPublisher.publishEvent(new PlanChangedEvent(id)));
+        return archives.size();
+    }
+
+    @Transactional(readOnly = true)
+    public List<ArchivedPlanDto> getArchivedPlans() {
+        List<ArchivedPlanDto> plans = new ArrayList<>();
+        for (Object[] row : archivedPlanRepository.findSummaries()) {
+            ArchivedPlanDto dto = new ArchivedPlanDto();
+            dto.setId((Long) row[0]);
+            dto.setName((String) row[1]);
+            dto.setDescription((String) row[2]);
+            dto.setStartDate((LocalDate) row[3]);
+            dto.setEndDate((LocalDate) row[4]);
+            dto.setDurationWeeks((Integer) row[5]);
+            dto.setCreatedDate((LocalDate) row[6]);
+            dto.setArchivedDate((LocalDate) row[7]);
+            dto.setTotalRecipes((Integer) row[8]);
+            plans.add(dto);
+        }
+        return plans;
+    }
+
+    @Transactional(readOnly = true)
+    public ArchivedPlanDto getArchivedPlan(Long id) {
+        ArchivedPlan archive = archivedPlanRepository.findById(id)
+                .orElseThrow(() -> BusinessException.notFound("Planning archivé", id));
+        ArchivedPlanDto dto = new ArchivedPlanDto();
+        dto.setId(archive.getId());
+        dto.setName(archive.getName());
+        dto.setDescription(archive.getDescription());
+        dto.setStartDate(archive.getStartDate());
+        dto.setEndDate(archive.getEndDate());
+        dto.setDurationWeeks(archive.getDurationWeeks());
+        dto.setCreatedDate(archive.getCreatedDate());
+        dto.setArchivedDate(archive.getArchivedDate());
+        dto.setTotalRecipes(archive.getRecipeCount());
+        dto.setRecipes(archive.getRecipes());
+        dto.setShoppingItems(archive.getShoppingItems());
+        return dto;
+    }
+}
@@ -0,0 +1,203 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.dto.NutritionPeriodDto;
+import com.kitchencraft.recipe.dto.PlanNutritionDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.PlanChangedEvent;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import com.kitchencraft.recipe.model.WeeklyPlan;
+import com.kitchencraft.recipe.repository.PlanRecipeRepository;
+import com.kitchencraft.recipe.repository.WeeklyPlanRepository;
+import com.kitchencraft.recipe.util.Nutrient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Agrégats nutritionnels journaliers et hebdomadaires d'un planning.
+ * Chaque PlanRecipe contribue le vecteur de sa recette × scaledPerson / person ;
+ * le résultat est mis en cache par planning et invalidé à chaque modification.
+ */
+@Service
+public class PlanNutritionService {
+
+    private static final String UNSPECIFIED_MEAL = "non précisé";
+
+    private final WeeklyPlanRepository weeklyPlanRepository;
+    private final PlanRecipeRepository planRecipeRepository;
+    private final RecipeNutritionService recipeNutritionService;
+
+    private final Map<Long, PlanNutritionDto> cache = new ConcurrentHashMap<>();
+    private final AtomicLong epoch = new AtomicLong();
+
+    public PlanNutritionService(WeeklyPlanRepository weeklyPlanRepository,
+                                PlanRecipeRepository planRecipeRepository,
+                                RecipeNutritionService recipeNutritionService) {
+        this.weeklyPlanRepository = weeklyPlanRepository;
+        this.planRecipeRepository = planRecipeRepository;
+        this.recipeNutritionService = recipeNutritionService;
+    }
+
+    @Transactional(readOnly = true)
+    public PlanNutritionDto getPlanNutrition(Long planId) {
+        PlanNutritionDto cached = cache.get(planId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long startEpoch = epoch.get();
+        WeeklyPlan plan = weeklyPlanRepository.findById(planId)
+                .orElseThrow(() -> BusinessException.notFound("Planning", planId));
+
+        List<Object[]> rows = planRecipeRepository.findNutritionRowsByPlanId(planId);
+        Set<Long> recipeIds = new HashSet<>();
+        rows.forEach(row -> recipeIds.add((Long) row[3]));
+        Map<Long, double[]> vectors = recipeNutritionService.getVectors(recipeIds);
+
+        // Accumulation par jour puis par type de repas, en double pour rester en arithmétique pure
+        Map<LocalDate, DayAccumulator> days = new TreeMap<>();
+        for (Object[] row : rows) {
+            LocalDate date = (LocalDate) row[0];
+            String mealType = row[1] != null ? (String) row[1] : UNSPECIFIED_MEAL;
+            Integer scaledPerson = (Integer) row[2];
+            Integer person = (Integer) row[4];
+            double factor = (scaledPerson != null && person != null && person > 0)
+                    ? (double) scaledPerson / person
+                    : 1.0;
+
+            DayAccumulator day = days.computeIfAbsent(date, d -> new DayAccumulator());
+            day.recipeCount++;
+            double[] byMeal = day.byMealType.computeIfAbsent(mealType, m -> new double[Nutrient.COUNT]);
+            double[] vector = vectors.get((Long) row[3]);
+            for (int i = 0; i < Nutrient.COUNT; i++) {
+                double value = vector[i] * factor;
+                day.totals[i] += value;
+                byMeal[i] += value;
+            }
+        }
+
+        PlanNutritionDto dto = new PlanNutritionDto();
+        dto.setPlanId(planId);
+
+        PeriodAccumulator planPeriod = new PeriodAccumulator(plan.getStartDate(), plan.getEndDate());
+        List<PeriodAccumulator> weeks = new ArrayList<>();
+        for (LocalDate start = plan.getStartDate(); !start.isAfter(plan.getEndDate()); start = start.plusWeeks(1)) {
+            LocalDate end = start.plusDays(6).isAfter(plan.getEndDate()) ? plan.getEndDate() : start.plusDays(6);
+            weeks.add(new PeriodAccumulator(start, end));
+        }
+
+        for (Map.Entry<LocalDate, DayAccumulator> entry : days.entrySet()) {
+            LocalDate date = entry.getKey();
+            DayAccumulator day = entry.getValue();
+
+            PeriodAccumulator dayPeriod = new PeriodAccumulator(date, date);
+            dayPeriod.add(day);
+            dto.getDays().add(dayPeriod.toDto());
+
+            planPeriod.add(day);
+            long weekIndex = ChronoUnit.WEEKS.between(plan.getStartDate(), date);
+            if (weekIndex >= 0 && weekIndex < weeks.size()) {
+                weeks.get((int) weekIndex).add(day);
+            }
+        }
+
+        dto.setPlan(planPeriod.toDto());
+        weeks.forEach(week -> dto.getWeeks().add(week.toDto()));
+
+        if (epoch.get() == startEpoch) {
+            cache.put(planId, dto);
+        }
+        return dto;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPlanChanged(PlanChangedEvent event) {
+        epoch.incrementAndGet();
+        cache.remove(event.planId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        epoch.incrementAndGet();
+        cache.clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        if (event.created()) {
+            return;
+        }
+        epoch.incrementAndGet();
+        cache.clear();
+    }
+
+    private static class DayAccumulator {
+        private int recipeCount;
+        private final double[] totals = new double[Nutrient.COUNT];
+        private final Map<String, double[]> byMealType = new LinkedHashMap<>();
+    }
+
+    private static class PeriodAccumulator {
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private int plannedDays;
+        private int recipeCount;
+        private final double[] totals = new double[Nutrient.COUNT];
+        private final Map<String, double[]> byMealType = new TreeMap<>();
+
+        PeriodAccumulator(LocalDate startDate, LocalDate endDate) {
+            this.startDate = startDate;
+            this.endDate = endDate;
+        }
+
+        void add(DayAccumulator day) {
+            plannedDays++;
+            recipeCount += day.recipeCount;
+            for (int i = 0; i < Nutrient.COUNT; i++) {
+                totals[i] += day.totals[i];
+            }
+            day.byMealType.forEach((meal, values) -> {
+                double[] target = byMealType.computeIfAbsent(meal, m -> new double[Nutrient.COUNT]);
+                for (int i = 0; i < Nutrient.COUNT; i++) {
+                    target[i] += values[i];
+                }
+            });
+        }
+
+        NutritionPeriodDto toDto() {
+            NutritionPeriodDto dto = new NutritionPeriodDto();
+            dto.setStartDate(startDate);
+            dto.setEndDate(endDate);
+            dto.setPlannedDays(plannedDays);
+            dto.setRecipeCount(recipeCount);
+            dto.setTotals(toMap(totals, 1));
+            dto.setDailyAverages(toMap(totals, plannedDays));
+            byMealType.forEach((meal, values) -> dto.getByMealType().put(meal, toMap(values, 1)));
+            return dto;
+        }
+
+        private static Map<String, BigDecimal> toMap(double[] values, int divisor) {
+            Map<String, BigDecimal> map = new LinkedHashMap<>();
+            for (Nutrient nutrient : Nutrient.values()) {
+                double value = divisor > 0 ? values[nutrient.ordinal()] / divisor : 0.0;
+                map.put(nutrient.getKey(), BigDecimal.valueOf(value).setScale(3, RoundingMode.HALF_UP));
+            }
+            return map;
+        }
+    }
+}
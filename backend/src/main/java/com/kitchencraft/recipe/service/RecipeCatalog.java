@@ -0,0 +1,132 @@
+package com.kitchencraft.recipe.service;
+
+import java.util.Map;
+
+/**
+ * Instantané compact et immuable du catalogue de recettes, sous forme de tableaux primitifs.
+ * Les recettes sont indexées de 0 à size()-1, leurs ingrédients stockés en CSR
+ * (ingredientStart(i) .. ingredientEnd(i) dans les tableaux d'ingrédients).
+ * Origines, types, unités et ingrédients sont encodés par des entiers denses (-1 = absent).
+ */
+public final class RecipeCatalog {
+
+    private final long[] recipeIds;
+    private final String[] names;
+    private final int[] totalTimes;
+    private final int[] persons;
+    private final int[] originCodes;
+    private final int[] typeCodes;
+    private final boolean[] babyFriendly;
+    private final float[] kcalPerPortion;
+    private final float[] proteinPerPortion;
+
+    private final int[] ingredientOffsets;
+    private final int[] ingredientCodes;
+    private final double[] quantities;
+    private final int[] unitCodes;
+
+    private final long[] ingredientIds;
+    private final String[] origins;
+    private final String[] types;
+    private final String[] units;
+
+    private final Map<Long, Integer> indexByRecipeId;
+    private final Map<Long, Integer> codeByIngredientId;
+
+    RecipeCatalog(long[] recipeIds, String[] names, int[] totalTimes, int[] persons,
+                  int[] originCodes, int[] typeCodes, boolean[] babyFriendly,
+                  float[] kcalPerPortion, float[] proteinPerPortion,
+                  int[] ingredientOffsets, int[] ingredientCodes, double[] quantities, int[] unitCodes,
+                  long[] ingredientIds, String[] origins, String[] types, String[] units,
+                  Map<Long, Integer> indexByRecipeId, Map<Long, Integer> codeByIngredientId) {
+        this.recipeIds = recipeIds;
+        this.names = names;
+        this.totalTimes = totalTimes;
+        this.persons = persons;
+        this.originCodes = originCodes;
+        this.typeCodes = typeCodes;
+        this.babyFriendly = babyFriendly;
+        this.kcalPerPortion = kcalPerPortion;
+        this.proteinPerPortion = proteinPerPortion;
+        this.ingredientOffsets = ingredientOffsets;
+        this.ingredientCodes = ingredientCodes;
+        this.quantities = quantities;
+        this.unitCodes = unitCodes;
+        this.ingredientIds = ingredientIds;
+        this.origins = origins;
+        this.types = types;
+        this.units = units;
+        this.indexByRecipeId = indexByRecipeId;
+        this.codeByIngredientId = codeByIngredientId;
+    }
+
+    public int size() { return recipeIds.length; }
+
+    public long recipeId(int index) { return recipeIds[index]; }
+
+    public String name(int index) { return names[index]; }
+
+    public int totalTime(int index) { return totalTimes[index]; }
+
+    public int person(int index) { return persons[index]; }
+
+    public int originCode(int index) { return originCodes[index]; }
+
+    public int typeCode(int index) { return typeCodes[index]; }
+
+    public boolean isBabyFriendly(int index) { return babyFriendly[index]; }
+
+    public float kcalPerPortion(int index) { return kcalPerPortion[index]; }
+
+    public float proteinPerPortion(int index) { return proteinPerPortion[index]; }
+
+    public int ingredientStart(int index) { return ingredientOffsets[index]; }
+
+    public int ingredientEnd(int index) { return ingredientOffsets[index + 1]; }
+
+    public int ingredientCode(int position) { return ingredientCodes[position]; }
+
+    public double quantity(int position) { return quantities[position]; }
+
+    public int unitCode(int position) { return unitCodes[position]; }
+
+    public int ingredientCount() { return ingredientIds.length; }
+
+    public long ingredientId(int code) { return ingredientIds[code]; }
+
+    public int originCount() { return origins.length; }
+
+    public String origin(int code) { return code >= 0 ? origins[code] : null; }
+
+    public String type(int code) { return code >= 0 ? types[code] : null; }
+
+    public String unit(int code) { return code >= 0 ? units[code] : null; }
+
+    public int indexOf(Long recipeId) {
+        Integer index = indexByRecipeId.get(recipeId);
+        return index != null ? index : -1;
+    }
+
+    public int ingredientCodeOf(Long ingredientId) {
+        Integer code = codeByIngredientId.get(ingredientId);
+        return code != null ? code : -1;
+    }
+
+    public int typeCodeOf(String type) {
+        for (int code = 0; code < types.length; code++) {
+            if (types[code].equals(type)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+
+    public int unitCodeOf(String unit) {
+        for (int code = 0; code < units.length; code++) {
+            if (units[code].equals(unit)) {
+                return code;
+            }
+        }
+        return -1;
+    }
+}
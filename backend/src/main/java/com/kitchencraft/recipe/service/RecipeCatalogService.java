@@ -0,0 +1,190 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
+import com.kitchencraft.recipe.repository.RecipeIngredientRepository;
+import com.kitchencraft.recipe.repository.RecipeRepository;
+import com.kitchencraft.recipe.util.Nutrient;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Construit et met en cache le RecipeCatalog à partir de deux projections (recettes, lignes d'ingrédients)
+ * et des vecteurs nutritionnels de RecipeNutritionService. Aucune entité n'est chargée.
+ * Le catalogue est reconstruit paresseusement après toute modification de recette ou d'ingrédient.
+ */
+@Service
+@Slf4j
+public class RecipeCatalogService {
+
+    private final RecipeRepository recipeRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final RecipeNutritionService recipeNutritionService;
+
+    private volatile RecipeCatalog catalog;
+    private final AtomicLong epoch = new AtomicLong();
+
+    public RecipeCatalogService(RecipeRepository recipeRepository,
+                                RecipeIngredientRepository recipeIngredientRepository,
+                                RecipeNutritionService recipeNutritionService) {
+        this.recipeRepository = recipeRepository;
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.recipeNutritionService = recipeNutritionService;
+    }
+
+    @Transactional(readOnly = true)
+    public RecipeCatalog getCatalog() {
+        RecipeCatalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (catalog != null) {
+                return catalog;
+            }
+            long startEpoch = epoch.get();
+            long start = System.currentTimeMillis();
+            RecipeCatalog built = build();
+            log.info("Recipe catalog built: {} recipes, {} ingredients in {} ms",
+                    built.size(), built.ingredientCount(), System.currentTimeMillis() - start);
+            if (epoch.get() == startEpoch) {
+                catalog = built;
+            }
+            return built;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        invalidate();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        if (!event.created()) {
+            invalidate();
+        }
+    }
+
+    private void invalidate() {
+        epoch.incrementAndGet();
+        catalog = null;
+    }
+
+    private RecipeCatalog build() {
+        List<Object[]> recipeRows = recipeRepository.findCatalogRows();
+        List<Object[]> ingredientRows = recipeIngredientRepository.findCatalogRows();
+        Map<Long, double[]> vectors = recipeNutritionService.getAllVectors();
+
+        int size = recipeRows.size();
+        long[] recipeIds = new long[size];
+        String[] names = new String[size];
+        int[] totalTimes = new int[size];
+        int[] persons = new int[size];
+        int[] originCodes = new int[size];
+        int[] typeCodes = new int[size];
+        boolean[] babyFriendly = new boolean[size];
+        float[] kcalPerPortion = new float[size];
+        float[] proteinPerPortion = new float[size];
+        Map<Long, Integer> indexByRecipeId = new HashMap<>(size * 2);
+
+        Interner origins = new Interner();
+        Interner types = new Interner();
+        Interner units = new Interner();
+
+        for (int i = 0; i < size; i++) {
+            Object[] row = recipeRows.get(i);
+            recipeIds[i] = (Long) row[0];
+            names[i] = (String) row[1];
+            totalTimes[i] = row[2] != null ? (Integer) row[2] : 0;
+            persons[i] = row[3] != null && (Integer) row[3] > 0 ? (Integer) row[3] : 1;
+            originCodes[i] = origins.code((String) row[4]);
+            typeCodes[i] = types.code((String) row[5]);
+            babyFriendly[i] = Boolean.TRUE.equals(row[6]);
+            indexByRecipeId.put(recipeIds[i], i);
+
+            double[] vector = vectors.get(recipeIds[i]);
+            if (vector != null) {
+                kcalPerPortion[i] = (float) (vector[Nutrient.ENERGY_KCAL.ordinal()] / persons[i]);
+                proteinPerPortion[i] = (float) (vector[Nutrient.PROTEIN.ordinal()] / persons[i]);
+            }
+        }
+
+        // Regroupement des lignes d'ingrédients par recette (tri par comptage, format CSR)
+        int[] counts = new int[size + 1];
+        List<Integer> rowIndexes = new ArrayList<>(ingredientRows.size());
+        for (Object[] row : ingredientRows) {
+            Integer index = indexByRecipeId.get((Long) row[0]);
+            rowIndexes.add(index);
+            if (index != null) {
+                counts[index + 1]++;
+            }
+        }
+        int[] offsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            offsets[i + 1] = offsets[i] + counts[i + 1];
+        }
+
+        int total = offsets[size];
+        int[] ingredientCodes = new int[total];
+        double[] quantities = new double[total];
+        int[] unitCodes = new int[total];
+        int[] cursor = new int[size];
+        System.arraycopy(offsets, 0, cursor, 0, size);
+
+        Map<Long, Integer> codeByIngredientId = new HashMap<>();
+        List<Long> ingredientIds = new ArrayList<>();
+        for (int r = 0; r < ingredientRows.size(); r++) {
+            Integer index = rowIndexes.get(r);
+            if (index == null) {
+                continue;
+            }
+            Object[] row = ingredientRows.get(r);
+            Long ingredientId = (Long) row[1];
+            Integer code = codeByIngredientId.get(ingredientId);
+            if (code == null) {
+                code = ingredientIds.size();
+                ingredientIds.add(ingredientId);
+                codeByIngredientId.put(ingredientId, code);
+            }
+            int position = cursor[index]++;
+            ingredientCodes[position] = code;
+            quantities[position] = ((Number) row[2]).doubleValue();
+            unitCodes[position] = units.code((String) row[3]);
+        }
+
+        return new RecipeCatalog(recipeIds, names, totalTimes, persons, originCodes, typeCodes, babyFriendly,
+                kcalPerPortion, proteinPerPortion, offsets, ingredientCodes, quantities, unitCodes,
+                ingredientIds.stream().mapToLong(Long::longValue).toArray(),
+                origins.values(), types.values(), units.values(),
+                indexByRecipeId, codeByIngredientId);
+    }
+
+    // Dictionnaire chaîne -> code dense, construit au fil de l'eau
+    private static class Interner {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return -1;
+            }
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        String[] values() {
+            return values.toArray(new String[0]);
+        }
+    }
+}
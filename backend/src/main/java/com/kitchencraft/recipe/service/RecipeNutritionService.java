@@ -0,0 +1,124 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
+import com.kitchencraft.recipe.util.Nutrient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vecteurs nutritionnels précalculés par recette (totaux de la recette entière, pour sa quantité de base),
+ * indexés par Nutrient.ordinal(). Même règle que NutritionCalculator : valeur pour 100g × quantité / 100.
+ * Les vecteurs sont calculés en une requête agrégée, sans charger les entités Recipe/Ingredient.
+ */
+@Service
+public class RecipeNutritionService {
+
+    private static final int IN_CHUNK_SIZE = 1000;
+    private static final String SELECT_VECTORS = buildSelect();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final Map<Long, double[]> vectors = new ConcurrentHashMap<>();
+    // Incrémenté à chaque invalidation : un calcul démarré avant ne doit pas repeupler le cache
+    private final AtomicLong epoch = new AtomicLong();
+
+    @Transactional(readOnly = true)
+    public Map<Long, double[]> getVectors(Collection<Long> recipeIds) {
+        Map<Long, double[]> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long id : recipeIds) {
+            double[] vector = vectors.get(id);
+            if (vector != null) {
+                result.put(id, vector);
+            } else if (!result.containsKey(id)) {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long startEpoch = epoch.get();
+        Map<Long, double[]> loaded = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + IN_CHUNK_SIZE, missing.size()));
+            List<Object[]> rows = entityManager
+                    .createQuery(SELECT_VECTORS + " WHERE ri.recipe.id IN :ids GROUP BY ri.recipe.id", Object[].class)
+                    .setParameter("ids", chunk)
+                    .getResultList();
+            rows.forEach(row -> loaded.put((Long) row[0], toVector(row)));
+        }
+        // Recette sans ingrédient : vecteur nul
+        missing.forEach(id -> loaded.putIfAbsent(id, new double[Nutrient.COUNT]));
+
+        if (epoch.get() == startEpoch) {
+            vectors.putAll(loaded);
+        }
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Calcule les vecteurs de tout le catalogue en une seule requête GROUP BY.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, double[]> getAllVectors() {
+        long startEpoch = epoch.get();
+        Map<Long, double[]> loaded = new HashMap<>();
+        entityManager.createQuery(SELECT_VECTORS + " GROUP BY ri.recipe.id", Object[].class)
+                .getResultStream()
+                .forEach(row -> loaded.put((Long) row[0], toVector(row)));
+        if (epoch.get() == startEpoch) {
+            vectors.putAll(loaded);
+        }
+        return loaded;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRecipeChanged(RecipeChangedEvent event) {
+        epoch.incrementAndGet();
+        vectors.remove(event.recipeId());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIngredientChanged(IngredientChangedEvent event) {
+        if (event.created()) {
+            return;
+        }
+        // Un ingrédient peut entrer dans n'importe quelle recette : on repart de zéro
+        epoch.incrementAndGet();
+        vectors.clear();
+    }
+
+    private static double[] toVector(Object[] row) {
+        double[] vector = new double[Nutrient.COUNT];
+        for (int i = 0; i < Nutrient.COUNT; i++) {
+            Object value = row[i + 1];
+            vector[i] = value != null ? ((Number) value).doubleValue() / 100.0 : 0.0;
+        }
+        return vector;
+    }
+
+    private static String buildSelect() {
+        StringBuilder query = new StringBuilder("SELECT ri.recipe.id");
+        for (Nutrient nutrient : Nutrient.values()) {
+            query.append(", SUM(CASE WHEN ri.quantity > 0 THEN ri.quantity * i.")
+                    .append(nutrient.getKey())
+                    .append(" END)");
+        }
+        return query.append(" FROM RecipeIngredient ri JOIN ri.ingredient i").toString();
+    }
+}
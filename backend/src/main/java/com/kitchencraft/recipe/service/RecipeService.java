@@ -1,12 +1,16 @@
 package com.kitchencraft.recipe.service;
 
 import com.kitchencraft.recipe.dto.*;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
 import com.kitchencraft.recipe.mapper.RecipeMapper;
 import com.kitchencraft.recipe.model.*;
 import com.kitchencraft.recipe.repository.IngredientRepository;
+import com.kitchencraft.recipe.repository.RecipeIngredientRepository;
 import com.kitchencraft.recipe.repository.RecipeRepository;
 import com.kitchencraft.recipe.repository.PlanRecipeRepository;
+import com.kitchencraft.recipe.util.IngredientNameNormalizer;
 import jakarta.transaction.Transactional;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
@@ -14,8 +18,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class RecipeService {
@@ -23,13 +32,28 @@ public class RecipeService {
     private final RecipeRepository recipeRepository;
     private final IngredientRepository ingredientRepository;
     private final PlanRecipeRepository planRecipeRepository;
+    private final RecipeIngredientRepository recipeIngredientRepository;
+    private final CategoryTreeService categoryTreeService;
+    private final IngredientSynonymService ingredientSynonymService;
+    private final DictionaryService dictionaryService;
+    private final ApplicationEventPublisher eventPublisher;
 
     public RecipeService(RecipeRepository recipeRepository,
                          IngredientRepository ingredientRepository,
-                         PlanRecipeRepository planRecipeRepository) {
+                         PlanRecipeRepository planRecipeRepository,
+                         RecipeIngredientRepository recipeIngredientRepository,
+                         CategoryTreeService categoryTreeService,
+                         IngredientSynonymService ingredientSynonymService,
+                         DictionaryService dictionaryService,
+                         ApplicationEventPublisher eventPublisher) {
         this.recipeRepository = recipeRepository;
         this.ingredientRepository = ingredientRepository;
         this.planRecipeRepository = planRecipeRepository;
+        this.recipeIngredientRepository = recipeIngredientRepository;
+        this.categoryTreeService = categoryTreeService;
+        this.ingredientSynonymService = ingredientSynonymService;
+        this.dictionaryService = dictionaryService;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<RecipeDto> getAllRecipes(Integer scaledPerson) {
@@ -48,7 +72,7 @@ public class RecipeService {
             return List.of();
         }
 
-        return recipeRepository.findByNameContainingIgnoreCase(name.trim())
+        return recipeRepository.findByNormalizedNameContaining(IngredientNameNormalizer.fold(name))
                 .stream()
                 .map(recipe -> RecipeMapper.toDto(recipe, scaledPerson))
                 .toList();
@@ -63,7 +87,7 @@ public class RecipeService {
         if (request.getIngredients() != null) {
             request.getIngredients().forEach(riReq -> {
                 Ingredient ingredient = ingredientRepository
-                        .findByNameIgnoreCase(riReq.getIngredientName())
+                        .findFirstByNormalizedNameOrderByIdAsc(IngredientNameNormalizer.fold(riReq.getIngredientName()))
                         .orElseGet(() -> {
                             Ingredient newIng = new Ingredient();
                             newIng.setName(riReq.getIngredientName());
@@ -84,6 +108,7 @@ public class RecipeService {
         }
 
         Recipe saved = recipeRepository.save(recipe);
+        eventPublisher.publishEvent(new RecipeChangedEvent(saved.getId()));
         return RecipeMapper.toDto(saved, null);
     }
 
@@ -100,7 +125,7 @@ public class RecipeService {
         if (request.getIngredients() != null) {
             request.getIngredients().forEach(riReq -> {
                 Ingredient ingredient = ingredientRepository
-                        .findByNameIgnoreCase(riReq.getIngredientName())
+                        .findFirstByNormalizedNameOrderByIdAsc(IngredientNameNormalizer.fold(riReq.getIngredientName()))
                         .orElseGet(() -> {
                             Ingredient newIng = new Ingredient();
                             newIng.setName(riReq.getIngredientName());
@@ -121,6 +146,7 @@ public class RecipeService {
         }
 
         Recipe saved = recipeRepository.save(recipe);
+        eventPublisher.publishEvent(new RecipeChangedEvent(saved.getId()));
         return RecipeMapper.toDto(saved, null);
     }
 
@@ -130,6 +156,7 @@ public class RecipeService {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Recipe not found");
         }
         recipeRepository.deleteById(id);
+        eventPublisher.publishEvent(new RecipeChangedEvent(id));
     }
 
     @Transactional
@@ -139,8 +166,7 @@ public class RecipeService {
         }
 
         List<String> lowered = ingredientNames.stream()
-                .map(String::toLowerCase)
-                .map(String::trim)
+                .map(IngredientNameNormalizer::fold)
                 .filter(s -> !s.isEmpty())
                 .distinct()
                 .toList();
@@ -149,12 +175,41 @@ public class RecipeService {
             return List.of();
         }
 
-        return recipeRepository.findByIngredientNames(lowered, lowered.size())
+        return recipeRepository.findAllById(findRecipeIdsWithAllIngredients(lowered))
                 .stream()
                 .map(r -> RecipeMapper.toDto(r, scaledPerson))
                 .toList();
     }
 
+    // Recettes contenant chacun des termes ; un terme correspond à tous les ingrédients de son groupe de synonymes
+    private Set<Long> findRecipeIdsWithAllIngredients(List<String> terms) {
+        List<long[]> groups = ingredientSynonymService.resolve(terms);
+        Map<Long, Integer> groupByIngredientId = new HashMap<>();
+        for (int group = 0; group < groups.size(); group++) {
+            if (groups.get(group).length == 0) {
+                return Set.of();
+            }
+            for (long ingredientId : groups.get(group)) {
+                groupByIngredientId.put(ingredientId, group);
+            }
+        }
+        if (groupByIngredientId.isEmpty()) {
+            return Set.of();
+        }
+        Map<Long, BitSet> groupsByRecipeId = new HashMap<>();
+        for (Object[] row : recipeIngredientRepository.findRecipeIngredientPairs(groupByIngredientId.keySet())) {
+            groupsByRecipeId.computeIfAbsent((Long) row[0], id -> new BitSet(groups.size()))
+                    .set(groupByIngredientId.get((Long) row[1]));
+        }
+        Set<Long> recipeIds = new HashSet<>();
+        groupsByRecipeId.forEach((recipeId, matched) -> {
+            if (matched.cardinality() == groups.size()) {
+                recipeIds.add(recipeId);
+            }
+        });
+        return recipeIds;
+    }
+
     @Transactional
     public List<RecipeDto> searchByIngredients(List<String> ingredientNames) {
         return searchByIngredients(ingredientNames, null);
@@ -189,7 +244,15 @@ public class RecipeService {
         String search = query.trim();
         Pageable pageable = PageRequest.of(0, Math.min(limit, 50)); // Max 50 résultats
 
-        return recipeRepository.findRecipeNamesWithType(search, pageable);
+        String folded = IngredientNameNormalizer.fold(search);
+        // Types de recette correspondant à la saisie, résolus sur le dictionnaire : comparaison d'identifiants en base
+        List<Integer> typeIds = dictionaryService.values(DictionaryValue.Domain.RECIPE_TYPE).stream()
+                .filter(type -> IngredientNameNormalizer.fold(type).contains(folded))
+                .map(type -> dictionaryService.find(DictionaryValue.Domain.RECIPE_TYPE, type))
+                .toList();
+        return typeIds.isEmpty()
+                ? recipeRepository.findRecipeNamesMatching(folded, pageable)
+                : recipeRepository.findRecipeNamesWithType(folded, typeIds, pageable);
     }
 
     public List<String> autocompleteRecipes(String query) {
@@ -229,7 +292,7 @@ public class RecipeService {
         }
 
         Pageable pageable = PageRequest.of(0, Math.min(limit, 30));
-        return recipeRepository.findRecipeNamesByPrefix(prefix.trim(), pageable);
+        return recipeRepository.findRecipeNamesByPrefix(IngredientNameNormalizer.fold(prefix), pageable);
     }
 
     public List<String> findRecipesContaining(String search, int limit) {
@@ -238,20 +301,22 @@ public class RecipeService {
         }
 
         Pageable pageable = PageRequest.of(0, Math.min(limit, 30));
-        return recipeRepository.findRecipeNamesContaining(search.trim(), pageable);
+        return recipeRepository.findRecipeNamesContaining(IngredientNameNormalizer.fold(search), pageable);
     }
 
     // Filtrage avancé combiné
     public List<RecipeDto> filterRecipes(String searchTerm, List<String> ingredients, 
                                         Integer minTime, Integer maxTime, 
-                                        List<String> origins, Boolean isBabyFriendly, Integer scaledPerson) {
+                                        List<String> origins, Boolean isBabyFriendly, List<String> categories,
+                                        Integer scaledPerson) {
         
         // Si aucun filtre n'est appliqué, retourner toutes les recettes
         if ((searchTerm == null || searchTerm.trim().isEmpty()) &&
             (ingredients == null || ingredients.isEmpty()) &&
             minTime == null && maxTime == null &&
             (origins == null || origins.isEmpty()) &&
-            isBabyFriendly == null) {
+            isBabyFriendly == null &&
+            (categories == null || categories.isEmpty())) {
             
             return getAllRecipes(scaledPerson);
         }
@@ -262,34 +327,55 @@ public class RecipeService {
         // Préparation des ingrédients
         boolean hasIngredientFilter = ingredients != null && !ingredients.isEmpty();
         List<String> loweredIngredients = null;
-        Long ingredientCount = 0L;
         if (hasIngredientFilter) {
             loweredIngredients = ingredients.stream()
-                    .map(String::toLowerCase)
-                    .map(String::trim)
+                    .map(IngredientNameNormalizer::fold)
                     .filter(s -> !s.isEmpty())
                     .distinct()
                     .toList();
-            ingredientCount = (long) loweredIngredients.size();
             hasIngredientFilter = !loweredIngredients.isEmpty();
         }
         
-        // Préparation des origines
-        List<String> cleanOrigins = null;
+        // Préparation des origines, comparées par identifiant de dictionnaire
+        Set<Integer> cleanOrigins = null;
         if (origins != null && !origins.isEmpty()) {
-            cleanOrigins = origins.stream()
+            List<String> requested = origins.stream()
                     .filter(o -> o != null && !o.trim().isEmpty())
+                    .toList();
+            if (!requested.isEmpty()) {
+                cleanOrigins = new HashSet<>();
+                for (String origin : requested) {
+                    Integer originId = dictionaryService.find(DictionaryValue.Domain.RECIPE_ORIGIN, origin);
+                    if (originId != null) {
+                        cleanOrigins.add(originId);
+                    }
+                }
+                if (cleanOrigins.isEmpty()) {
+                    // Aucune origine connue : aucune recette ne peut correspondre
+                    return List.of();
+                }
+            }
+        }
+        
+        // Catégories d'ingrédients (code ou libellé d'un nœud, sous-catégories comprises)
+        Set<Long> categoryRecipeIds = null;
+        if (categories != null && !categories.isEmpty()) {
+            List<Long> nodeIds = categories.stream()
+                    .map(categoryTreeService::findNodeId)
+                    .flatMap(Optional::stream)
                     .distinct()
                     .toList();
-            if (cleanOrigins.isEmpty()) {
-                cleanOrigins = null;
+            if (nodeIds.isEmpty()) {
+                // Aucune catégorie connue : aucune recette ne peut correspondre
+                return List.of();
             }
+            categoryRecipeIds = new HashSet<>(recipeRepository.findRecipeIdsWithIngredientsUnder(nodeIds));
         }
         
         List<Recipe> recipes;
         try {
             // Test spécial pour filtrage bébé uniquement
-            if (isBabyFriendly != null && search == null && !hasIngredientFilter && 
+            if (isBabyFriendly != null && search == null && !hasIngredientFilter && categoryRecipeIds == null && 
                 minTime == null && maxTime == null && (cleanOrigins == null || cleanOrigins.isEmpty())) {
                 recipes = recipeRepository.findByIsBabyFriendly(isBabyFriendly);
                 return recipes.stream()
@@ -298,24 +384,26 @@ public class RecipeService {
             }
             
             // Préparation des listes vides pour éviter les problèmes NULL
-            List<String> safeOrigins = (cleanOrigins != null) ? cleanOrigins : List.of();
+            Set<Integer> safeOrigins = (cleanOrigins != null) ? cleanOrigins : Set.of();
             List<String> safeIngredients = (loweredIngredients != null) ? loweredIngredients : List.of();
-            String safeSearch = (search != null) ? search : "";
+            String safeSearch = (search != null) ? IngredientNameNormalizer.fold(search) : "";
+            Set<Long> safeCategoryRecipeIds = categoryRecipeIds;
             
             // Étape 1: Récupérer les recettes de base selon le critère principal
             if (hasIngredientFilter) {
-                recipes = recipeRepository.findRecipesWithIngredients(safeIngredients, ingredientCount);
+                recipes = recipeRepository.findAllById(findRecipeIdsWithAllIngredients(safeIngredients));
             } else {
                 recipes = recipeRepository.findAll();
             }
             
             // Étape 2: Filtrer en Java par tous les autres critères
             recipes = recipes.stream()
-                    .filter(r -> safeSearch.isEmpty() || r.getName().toLowerCase().contains(safeSearch.toLowerCase()))
+                    .filter(r -> safeSearch.isEmpty() || (r.getNormalizedName() != null && r.getNormalizedName().contains(safeSearch)))
                     .filter(r -> minTime == null || r.getTotalTime() >= minTime)
                     .filter(r -> maxTime == null || r.getTotalTime() <= maxTime)
-                    .filter(r -> safeOrigins.isEmpty() || safeOrigins.contains(r.getOrigin()))
+                    .filter(r -> safeOrigins.isEmpty() || safeOrigins.contains(r.getOriginId()))
                     .filter(r -> isBabyFriendly == null || r.getIsBabyFriendly().equals(isBabyFriendly))
+                    .filter(r -> safeCategoryRecipeIds == null || safeCategoryRecipeIds.contains(r.getId()))
                     .toList();
             
             return recipes.stream()
@@ -334,7 +422,10 @@ public class RecipeService {
 
     // Obtenir toutes les origines disponibles
     public List<String> getAllOrigins() {
-        return recipeRepository.findAllDistinctOrigins();
+        // Origines stockées par identifiant : tri alphabétique côté Java
+        return recipeRepository.findAllDistinctOrigins().stream()
+                .sorted()
+                .toList();
     }
 
     // helper to set basic scalar fields
@@ -4,10 +4,15 @@ import com.kitchencraft.recipe.model.*;
 import com.kitchencraft.recipe.repository.*;
 import com.kitchencraft.recipe.dto.*;
 import com.kitchencraft.recipe.mapper.*;
+import com.kitchencraft.recipe.event.PlanChangedEvent;
+import com.kitchencraft.recipe.exception.BusinessException;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -22,19 +27,29 @@ public class WeeklyPlanService {
     private final RecipeRepository recipeRepository;
     private final IngredientRepository ingredientRepository;
     private final WeeklyPlanMapper weeklyPlanMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final DictionaryService dictionaryService;
+
+    // Clé de regroupement de la liste de courses : ingrédient et identifiant d'unité
+    private record ItemKey(long ingredientId, Integer unitId) {
+    }
 
     public WeeklyPlanService(WeeklyPlanRepository weeklyPlanRepository,
                             PlanRecipeRepository planRecipeRepository,
                             ShoppingListItemRepository shoppingListItemRepository,
                             RecipeRepository recipeRepository,
                             IngredientRepository ingredientRepository,
-                            WeeklyPlanMapper weeklyPlanMapper) {
+                            WeeklyPlanMapper weeklyPlanMapper,
+                            ApplicationEventPublisher eventPublisher,
+                            DictionaryService dictionaryService) {
         this.weeklyPlanRepository = weeklyPlanRepository;
         this.planRecipeRepository = planRecipeRepository;
         this.shoppingListItemRepository = shoppingListItemRepository;
         this.recipeRepository = recipeRepository;
         this.ingredientRepository = ingredientRepository;
         this.weeklyPlanMapper = weeklyPlanMapper;
+        this.eventPublisher = eventPublisher;
+        this.dictionaryService = dictionaryService;
     }
 
     public List<WeeklyPlanDto> getAllPlans() {
@@ -73,8 +88,36 @@ public class WeeklyPlanService {
         return weeklyPlanMapper.toDto(saved);
     }
 
+    /**
+     * Crée un planning et toutes ses recettes en une transaction, les recettes étant insérées en un seul batch.
+     */
+    public Long createPlanWithRecipes(WeeklyPlanRequest request, List<PlanRecipeRequest> planRecipes) {
+        WeeklyPlan plan = new WeeklyPlan();
+        plan.setName(request.getName());
+        plan.setStartDate(request.getStartDate());
+        plan.setDurationWeeks(request.getDurationWeeks());
+        plan.setEndDate(request.getStartDate().plusWeeks(request.getDurationWeeks()).minusDays(1));
+        plan.setDescription(request.getDescription());
+
+        WeeklyPlan saved = weeklyPlanRepository.saveAndFlush(plan);
+        // Types de repas résolus ici (chemin d'écriture) : le repository ne reçoit que des identifiants
+        List<PlanRecipeRepositoryCustom.Row> rows = planRecipes.stream()
+                .map(pr -> new PlanRecipeRepositoryCustom.Row(
+                        pr.getRecipeId(),
+                        pr.getPlannedDate(),
+                        pr.getMealType() != null
+                                ? dictionaryService.idOf(DictionaryValue.Domain.MEAL_TYPE, pr.getMealType())
+                                : null,
+                        pr.getScaledPerson()))
+                .toList();
+        planRecipeRepository.batchInsert(saved.getId(), rows);
+        eventPublisher.publishEvent(new PlanChangedEvent(saved.getId()));
+        return saved.getId();
+    }
+
     public void deletePlan(Long id) {
         weeklyPlanRepository.deleteById(id);
+        eventPublisher.publishEvent(new PlanChangedEvent(id));
     }
 
     public PlanRecipeDto addRecipeToPlan(Long planId, PlanRecipeRequest request) {
@@ -92,6 +135,7 @@ public class WeeklyPlanService {
         planRecipe.setScaledPerson(request.getScaledPerson());
 
         PlanRecipe saved = planRecipeRepository.save(planRecipe);
+        eventPublisher.publishEvent(new PlanChangedEvent(planId));
         return PlanRecipeMapper.toDto(saved);
     }
 
@@ -103,6 +147,8 @@ public class WeeklyPlanService {
     }
 
     public void removeRecipeFromPlan(Long planRecipeId) {
+        planRecipeRepository.findById(planRecipeId)
+                .ifPresent(planRecipe -> eventPublisher.publishEvent(new PlanChangedEvent(planRecipe.getWeeklyPlan().getId())));
         planRecipeRepository.deleteById(planRecipeId);
     }
 
@@ -113,7 +159,7 @@ public class WeeklyPlanService {
         shoppingListItemRepository.deleteByWeeklyPlanId(planId);
         
         // Regrouper les ingrédients par ingrédient et unité
-        Map<String, ShoppingListItem> ingredientMap = new HashMap<>();
+        Map<ItemKey, ShoppingListItem> ingredientMap = new HashMap<>();
         
         for (PlanRecipe planRecipe : planRecipes) {
             Recipe recipe = planRecipe.getRecipe();
@@ -123,7 +169,7 @@ public class WeeklyPlanService {
             double scaleFactor = scaledPerson != null ? (double) scaledPerson / originalPerson : 1.0;
             
             for (RecipeIngredient recipeIngredient : recipe.getIngredients()) {
-                String key = recipeIngredient.getIngredient().getId() + "_" + recipeIngredient.getUnit();
+                ItemKey key = new ItemKey(recipeIngredient.getIngredient().getId(), recipeIngredient.getUnitId());
                 
                 ShoppingListItem item = ingredientMap.get(key);
                 if (item == null) {
@@ -168,6 +214,80 @@ public class WeeklyPlanService {
         return ShoppingListItemMapper.toDto(saved);
     }
 
+    public ShoppingListBulkUpdateResultDto bulkUpdateShoppingListItems(Long planId, ShoppingListBulkUpdateRequest request) {
+        if (!weeklyPlanRepository.existsById(planId)) {
+            throw BusinessException.notFound("Planning", planId);
+        }
+
+        // Dédoublonner par item (la dernière mise à jour l'emporte) et ignorer les mises à jour vides
+        Map<Long, ShoppingListItemUpdate> byItem = new LinkedHashMap<>();
+        for (ShoppingListItemUpdate update : request.getItems()) {
+            if (update.getItemId() == null || columnMask(update) == 0) {
+                continue;
+            }
+            byItem.put(update.getItemId(), update);
+        }
+
+        // Un UPDATE batché par ensemble de colonnes modifiées (+ contrôle de version ou non)
+        Map<Integer, List<ShoppingListItemUpdate>> groups = new LinkedHashMap<>();
+        for (ShoppingListItemUpdate update : byItem.values()) {
+            int key = columnMask(update) | (update.getVersion() != null ? 8 : 0);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(update);
+        }
+
+        Set<Long> appliedIds = new LinkedHashSet<>();
+        Set<Long> rejectedIds = new LinkedHashSet<>();
+        for (List<ShoppingListItemUpdate> group : groups.values()) {
+            int[] counts = shoppingListItemRepository.batchUpdate(planId, group);
+            for (int i = 0; i < group.size(); i++) {
+                // Statement.SUCCESS_NO_INFO (-2) : le driver n'a pas compté, la ligne est considérée écrite
+                if (counts[i] > 0 || counts[i] == Statement.SUCCESS_NO_INFO) {
+                    appliedIds.add(group.get(i).getItemId());
+                } else {
+                    rejectedIds.add(group.get(i).getItemId());
+                }
+            }
+        }
+
+        ShoppingListBulkUpdateResultDto result = new ShoppingListBulkUpdateResultDto();
+        if (!rejectedIds.isEmpty()) {
+            // Un rejet est soit un conflit de version (l'item existe dans le planning), soit un id inconnu
+            List<ShoppingListItem> current = shoppingListItemRepository.findByPlanIdAndIdInWithIngredient(planId, rejectedIds);
+            Set<Long> existing = new HashSet<>();
+            for (ShoppingListItem item : current) {
+                existing.add(item.getId());
+                result.getConflicts().add(ShoppingListItemMapper.toDto(item));
+            }
+            rejectedIds.stream()
+                    .filter(id -> !existing.contains(id))
+                    .forEach(result.getNotFound()::add);
+
+            if (request.isAtomic() && !result.getConflicts().isEmpty()) {
+                throw new BusinessException(
+                        String.format("%d item(s) modifié(s) entre-temps, aucune mise à jour appliquée", result.getConflicts().size()),
+                        HttpStatus.CONFLICT,
+                        "Concurrent Modification");
+            }
+        }
+
+        if (!appliedIds.isEmpty()) {
+            result.setUpdated(shoppingListItemRepository.findByPlanIdAndIdInWithIngredient(planId, appliedIds)
+                    .stream()
+                    .map(ShoppingListItemMapper::toDto)
+                    .collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    // Bits : 1 = quantité possédée, 2 = coché, 4 = validé
+    private static int columnMask(ShoppingListItemUpdate update) {
+        int mask = 0;
+        if (update.getQuantityOwned() != null) mask |= 1;
+        if (update.getIsChecked() != null) mask |= 2;
+        if (update.getIsValidated() != null) mask |= 4;
+        return mask;
+    }
+
     public WeeklyPlanDto copyPlan(Long planId, LocalDate newStartDate) {
         WeeklyPlan originalPlan = weeklyPlanRepository.findById(planId)
                 .orElseThrow(() -> new RuntimeException("Planning non trouvé avec l'id: " + planId));
@@ -0,0 +1,45 @@
+package com.kitchencraft.recipe.util;
+
+import java.time.Duration;
+
+/**
+ * Délai d'attente adaptatif, calculé comme le RTO de TCP : moyenne lissée des latences observées
+ * plus quatre fois leur écart moyen, borné entre min et max.
+ * Tant qu'aucune latence n'est connue, le délai vaut max.
+ */
+public class AdaptiveTimeout {
+
+    private final long minNanos;
+    private final long maxNanos;
+    private double smoothed = -1;
+    private double deviation;
+
+    public AdaptiveTimeout(Duration min, Duration max) {
+        this.minNanos = min.toNanos();
+        this.maxNanos = Math.max(minNanos, max.toNanos());
+    }
+
+    public synchronized void record(long latencyNanos) {
+        if (smoothed < 0) {
+            smoothed = latencyNanos;
+            deviation = latencyNanos / 2.0;
+            return;
+        }
+        double error = latencyNanos - smoothed;
+        smoothed += error / 8;
+        deviation += (Math.abs(error) - deviation) / 4;
+    }
+
+    // Un dépassement compte comme une latence égale au délai doublé, pour remonter rapidement le délai
+    public synchronized void recordTimeout(long timeoutNanos) {
+        record(Math.min(timeoutNanos * 2, maxNanos));
+    }
+
+    public synchronized long timeoutNanos() {
+        if (smoothed < 0) {
+            return maxNanos;
+        }
+        long timeout = (long) (smoothed + 4 * deviation);
+        return Math.max(minNanos, Math.min(maxNanos, timeout));
+    }
+}
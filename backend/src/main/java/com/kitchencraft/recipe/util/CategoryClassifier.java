@@ -0,0 +1,202 @@
+package com.kitchencraft.recipe.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Classifieur de catégories OpenFoodFacts : automate d'Aho-Corasick sur le vocabulaire de la taxonomie,
+ * en un seul passage sur le texte quel que soit le nombre de motifs.
+ *
+ * - texte et motifs comparés en minuscules, espaces et '_' équivalents à '-' ("Fresh fruits" = "fresh-fruits")
+ * - un motif ne correspond qu'entre deux limites de mot (caractère non alphanumérique ou bord du texte),
+ *   un 's' final étant toléré pour les pluriels ("chocolates")
+ * - entre plusieurs correspondances : priorité la plus haute, puis motif le plus long,
+ *   puis première position, puis ordre des règles
+ *
+ * Immuable et sûr entre threads.
+ */
+public final class CategoryClassifier {
+
+    public record Rule(String pattern, String category, int priority) {
+    }
+
+    private final Rule[] rules;
+    private final int[] patternLengths;
+    // Alphabet compact : symbole + 1 pour l'ASCII, table pour le reste
+    private final int[] asciiSymbols = new int[128];
+    private final Map<Character, Integer> otherSymbols = new HashMap<>();
+    private final int alphabetSize;
+    // Transitions complètes (échecs déjà repliés) : delta[état * alphabetSize + symbole]
+    private final int[] delta;
+    private final int[][] outputs;
+
+    public CategoryClassifier(List<Rule> rules) {
+        this.rules = rules.toArray(Rule[]::new);
+        this.patternLengths = new int[this.rules.length];
+
+        List<char[]> patterns = new ArrayList<>(this.rules.length);
+        int symbols = 0;
+        for (int i = 0; i < this.rules.length; i++) {
+            char[] pattern = normalize(this.rules[i].pattern()).toCharArray();
+            if (pattern.length == 0) {
+                throw new IllegalArgumentException("Empty pattern for category " + this.rules[i].category());
+            }
+            for (char c : pattern) {
+                if (symbol(c) < 0) {
+                    if (c < 128) {
+                        asciiSymbols[c] = ++symbols;
+                    } else {
+                        otherSymbols.put(c, symbols++ + 1);
+                    }
+                }
+            }
+            patterns.add(pattern);
+            patternLengths[i] = pattern.length;
+        }
+        this.alphabetSize = Math.max(symbols, 1);
+
+        // Trie
+        int[] transitions = newStates(null, 0, 64);
+        List<List<Integer>> ends = new ArrayList<>();
+        ends.add(new ArrayList<>());
+        int stateCount = 1;
+        for (int i = 0; i < patterns.size(); i++) {
+            int state = 0;
+            for (char c : patterns.get(i)) {
+                int index = state * alphabetSize + symbol(c);
+                if (transitions[index] < 0) {
+                    if ((stateCount + 1) * alphabetSize > transitions.length) {
+                        transitions = newStates(transitions, stateCount, stateCount * 2);
+                    }
+                    transitions[index] = stateCount++;
+                    ends.add(new ArrayList<>());
+                }
+                state = transitions[index];
+            }
+            ends.get(state).add(i);
+        }
+
+        // Liens d'échec en largeur, repliés dans la table de transitions
+        int[] fail = new int[stateCount];
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int a = 0; a < alphabetSize; a++) {
+            int child = transitions[a];
+            if (child < 0) {
+                transitions[a] = 0;
+            } else {
+                queue.add(child);
+            }
+        }
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            for (int a = 0; a < alphabetSize; a++) {
+                int index = state * alphabetSize + a;
+                int child = transitions[index];
+                int fallback = transitions[fail[state] * alphabetSize + a];
+                if (child < 0) {
+                    transitions[index] = fallback;
+                } else {
+                    fail[child] = fallback;
+                    ends.get(child).addAll(ends.get(fallback));
+                    queue.add(child);
+                }
+            }
+        }
+
+        this.delta = Arrays.copyOf(transitions, stateCount * alphabetSize);
+        this.outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            outputs[state] = ends.get(state).stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * Catégorie de la meilleure correspondance dans le texte, null si aucune.
+     */
+    public String classify(CharSequence text) {
+        if (text == null) {
+            return null;
+        }
+        int length = text.length();
+        int state = 0;
+        int best = -1;
+        int bestStart = 0;
+        for (int i = 0; i < length; i++) {
+            int a = symbol(normalize(text.charAt(i)));
+            state = a < 0 ? 0 : delta[state * alphabetSize + a];
+            for (int rule : outputs[state]) {
+                int start = i - patternLengths[rule] + 1;
+                if (isBoundaryBefore(text, start) && isBoundaryAfter(text, i + 1)
+                        && (best < 0 || isBetter(rule, start, best, bestStart))) {
+                    best = rule;
+                    bestStart = start;
+                }
+            }
+        }
+        return best < 0 ? null : rules[best].category();
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    private boolean isBetter(int rule, int start, int best, int bestStart) {
+        if (rules[rule].priority() != rules[best].priority()) {
+            return rules[rule].priority() > rules[best].priority();
+        }
+        if (patternLengths[rule] != patternLengths[best]) {
+            return patternLengths[rule] > patternLengths[best];
+        }
+        if (start != bestStart) {
+            return start < bestStart;
+        }
+        return rule < best;
+    }
+
+    private static boolean isBoundaryBefore(CharSequence text, int start) {
+        return start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+    }
+
+    private static boolean isBoundaryAfter(CharSequence text, int end) {
+        if (end == text.length() || !Character.isLetterOrDigit(text.charAt(end))) {
+            return true;
+        }
+        // Pluriel simple
+        return Character.toLowerCase(text.charAt(end)) == 's'
+                && (end + 1 == text.length() || !Character.isLetterOrDigit(text.charAt(end + 1)));
+    }
+
+    private int symbol(char c) {
+        if (c < 128) {
+            return asciiSymbols[c] - 1;
+        }
+        Integer symbol = otherSymbols.get(c);
+        return symbol == null ? -1 : symbol - 1;
+    }
+
+    private int[] newStates(int[] previous, int used, int capacity) {
+        int[] states = new int[capacity * alphabetSize];
+        Arrays.fill(states, -1);
+        if (previous != null) {
+            System.arraycopy(previous, 0, states, 0, used * alphabetSize);
+        }
+        return states;
+    }
+
+    private static char normalize(char c) {
+        return c == ' ' || c == '_' ? '-' : Character.toLowerCase(c);
+    }
+
+    private static String normalize(String pattern) {
+        StringBuilder normalized = new StringBuilder(pattern.length());
+        for (char c : pattern.trim().toCharArray()) {
+            normalized.append(normalize(c));
+        }
+        return normalized.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package com.kitchencraft.recipe.util;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+
+/**
+ * Formes normalisées des noms d'ingrédients, pour comparer "Tomate", "tomates" et " Tomâte ".
+ */
+public final class IngredientNameNormalizer {
+
+    private IngredientNameNormalizer() {
+    }
+
+    /**
+     * Sans accents, en minuscules ; ponctuation remplacée par des espaces, espaces réduits.
+     */
+    public static String fold(String name) {
+        if (name == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(name, Normalizer.Form.NFD);
+        StringBuilder folded = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (c == 'œ' || c == 'Œ') {
+                    folded.append("oe");
+                } else {
+                    folded.append(Character.toLowerCase(c));
+                }
+                space = false;
+            } else if (!space) {
+                folded.append(' ');
+                space = true;
+            }
+        }
+        int length = folded.length();
+        return length > 0 && folded.charAt(length - 1) == ' ' ? folded.substring(0, length - 1) : folded.toString();
+    }
+
+    /**
+     * fold puis suppression du pluriel de chaque mot (s ou x final des mots de plus de trois lettres).
+     * Appliquée des deux côtés, la règle n'a pas besoin d'être grammaticalement exacte.
+     */
+    public static String dedupKey(String name) {
+        String[] words = fold(name).split(" ");
+        StringBuilder key = new StringBuilder();
+        for (String word : words) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (key.length() > 0) {
+                key.append(' ');
+            }
+            char last = word.charAt(word.length() - 1);
+            key.append(word.length() > 3 && (last == 's' || last == 'x') ? word.substring(0, word.length() - 1) : word);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Trigrammes de caractères (clé encadrée d'espaces), chacun codé exactement sur un long, triés sans doublon,
+     * pour un calcul de Jaccard par fusion.
+     */
+    public static long[] trigrams(String key) {
+        String padded = " " + key + " ";
+        if (padded.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[padded.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int unique = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    /**
+     * Indice de Jaccard entre deux ensembles de trigrammes triés.
+     */
+    public static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) {
+            return 1.0;
+        }
+        int i = 0;
+        int j = 0;
+        int common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return (double) common / (a.length + b.length - common);
+    }
+}
@@ -0,0 +1,76 @@
+package com.kitchencraft.recipe.util;
+
+import com.kitchencraft.recipe.model.Ingredient;
+
+import java.math.BigDecimal;
+
+/**
+ * Nutriments exposés par recette (voir RecipeMapper), dans un ordre fixe.
+ * L'ordinal sert d'indice dans les vecteurs nutritionnels, la clé est à la fois
+ * le nom de la propriété JPA de Ingredient et la clé JSON des agrégats.
+ */
+public enum Nutrient {
+
+    // Macronutriments
+    ENERGY_KCAL("energyKcal", NutritionCalculator.ENERGY_KCAL),
+    CARBOHYDRATES("carbohydrates", NutritionCalculator.CARBOHYDRATES),
+    SUGARS("sugars", NutritionCalculator.SUGARS),
+    FIBER("fiber", NutritionCalculator.FIBER),
+    FAT("fat", NutritionCalculator.FAT),
+    SATURATED_FAT("saturatedFat", NutritionCalculator.SATURATED_FAT),
+    PROTEIN("protein", NutritionCalculator.PROTEIN),
+    SALT("salt", NutritionCalculator.SALT),
+    SODIUM("sodium", NutritionCalculator.SODIUM),
+
+    // Vitamines
+    VITAMIN_A("vitaminA", NutritionCalculator.VITAMIN_A),
+    VITAMIN_B1("vitaminB1", NutritionCalculator.VITAMIN_B1),
+    VITAMIN_B2("vitaminB2", NutritionCalculator.VITAMIN_B2),
+    VITAMIN_B3("vitaminB3", NutritionCalculator.VITAMIN_B3),
+    VITAMIN_B5("vitaminB5", NutritionCalculator.VITAMIN_B5),
+    VITAMIN_B6("vitaminB6", NutritionCalculator.VITAMIN_B6),
+    VITAMIN_B7("vitaminB7", NutritionCalculator.VITAMIN_B7),
+    VITAMIN_B9("vitaminB9", NutritionCalculator.VITAMIN_B9),
+    VITAMIN_B12("vitaminB12", NutritionCalculator.VITAMIN_B12),
+    VITAMIN_C("vitaminC", NutritionCalculator.VITAMIN_C),
+    VITAMIN_D("vitaminD", NutritionCalculator.VITAMIN_D),
+    VITAMIN_E("vitaminE", NutritionCalculator.VITAMIN_E),
+    VITAMIN_K("vitaminK", NutritionCalculator.VITAMIN_K),
+
+    // Minéraux
+    CALCIUM("calcium", NutritionCalculator.CALCIUM),
+    IRON("iron", NutritionCalculator.IRON),
+    MAGNESIUM("magnesium", NutritionCalculator.MAGNESIUM),
+    PHOSPHORUS("phosphorus", NutritionCalculator.PHOSPHORUS),
+    POTASSIUM("potassium", NutritionCalculator.POTASSIUM),
+    ZINC("zinc", NutritionCalculator.ZINC),
+    COPPER("copper", NutritionCalculator.COPPER),
+    MANGANESE("manganese", NutritionCalculator.MANGANESE),
+    SELENIUM("selenium", NutritionCalculator.SELENIUM),
+    IODINE("iodine", NutritionCalculator.IODINE),
+    CHROMIUM("chromium", NutritionCalculator.CHROMIUM),
+    MOLYBDENUM("molybdenum", NutritionCalculator.MOLYBDENUM),
+    FLUORIDE("fluoride", NutritionCalculator.FLUORIDE);
+
+    public static final int COUNT = values().length;
+
+    private final String key;
+    private final NutritionCalculator.NutrientExtractor extractor;
+
+    Nutrient(String key, NutritionCalculator.NutrientExtractor extractor) {
+        this.key = key;
+        this.extractor = extractor;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public NutritionCalculator.NutrientExtractor getExtractor() {
+        return extractor;
+    }
+
+    public BigDecimal extract(Ingredient ingredient) {
+        return extractor.extract(ingredient);
+    }
+}
@@ -0,0 +1,97 @@
+package com.kitchencraft.recipe.util;
+
+import com.kitchencraft.recipe.model.Ingredient;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Colonnes nutritionnelles de la table ingredient alimentées par OpenFoodFacts
+ * (voir OpenFoodFactsService.mapNutrients), avec leurs accesseurs sur l'entité.
+ * Utilisé par les traitements JDBC en masse (synchronisation, import) pour comparer
+ * et écrire les valeurs sans passer par Hibernate.
+ */
+public final class OpenFoodFactsColumns {
+
+    public record NutrientColumn(String column,
+                                 Function<Ingredient, BigDecimal> getter,
+                                 BiConsumer<Ingredient, BigDecimal> setter) {
+    }
+
+    // Toutes les colonnes nutritionnelles sont en numeric(8, 3)
+    private static final int SCALE = 3;
+    private static final int PRECISION = 8;
+
+    public static final List<NutrientColumn> NUTRIENTS = List.of(
+            new NutrientColumn("energy", Ingredient::getEnergy, Ingredient::setEnergy),
+            new NutrientColumn("energy_kcal", Ingredient::getEnergyKcal, Ingredient::setEnergyKcal),
+            new NutrientColumn("carbohydrates", Ingredient::getCarbohydrates, Ingredient::setCarbohydrates),
+            new NutrientColumn("sugars", Ingredient::getSugars, Ingredient::setSugars),
+            new NutrientColumn("fiber", Ingredient::getFiber, Ingredient::setFiber),
+            new NutrientColumn("fat", Ingredient::getFat, Ingredient::setFat),
+            new NutrientColumn("saturated_fat", Ingredient::getSaturatedFat, Ingredient::setSaturatedFat),
+            new NutrientColumn("monounsaturated_fat", Ingredient::getMonounsaturatedFat, Ingredient::setMonounsaturatedFat),
+            new NutrientColumn("polyunsaturated_fat", Ingredient::getPolyunsaturatedFat, Ingredient::setPolyunsaturatedFat),
+            new NutrientColumn("trans_fat", Ingredient::getTransFat, Ingredient::setTransFat),
+            new NutrientColumn("protein", Ingredient::getProtein, Ingredient::setProtein),
+            new NutrientColumn("salt", Ingredient::getSalt, Ingredient::setSalt),
+            new NutrientColumn("sodium", Ingredient::getSodium, Ingredient::setSodium),
+            new NutrientColumn("alcohol", Ingredient::getAlcohol, Ingredient::setAlcohol),
+            new NutrientColumn("vitamin_a", Ingredient::getVitaminA, Ingredient::setVitaminA),
+            new NutrientColumn("vitamin_b1", Ingredient::getVitaminB1, Ingredient::setVitaminB1),
+            new NutrientColumn("vitamin_b2", Ingredient::getVitaminB2, Ingredient::setVitaminB2),
+            new NutrientColumn("vitamin_b3", Ingredient::getVitaminB3, Ingredient::setVitaminB3),
+            new NutrientColumn("vitamin_b5", Ingredient::getVitaminB5, Ingredient::setVitaminB5),
+            new NutrientColumn("vitamin_b6", Ingredient::getVitaminB6, Ingredient::setVitaminB6),
+            new NutrientColumn("vitamin_b7", Ingredient::getVitaminB7, Ingredient::setVitaminB7),
+            new NutrientColumn("vitamin_b9", Ingredient::getVitaminB9, Ingredient::setVitaminB9),
+            new NutrientColumn("vitamin_b12", Ingredient::getVitaminB12, Ingredient::setVitaminB12),
+            new NutrientColumn("vitamin_c", Ingredient::getVitaminC, Ingredient::setVitaminC),
+            new NutrientColumn("vitamin_d", Ingredient::getVitaminD, Ingredient::setVitaminD),
+            new NutrientColumn("vitamin_e", Ingredient::getVitaminE, Ingredient::setVitaminE),
+            new NutrientColumn("vitamin_k", Ingredient::getVitaminK, Ingredient::setVitaminK),
+            new NutrientColumn("calcium", Ingredient::getCalcium, Ingredient::setCalcium),
+            new NutrientColumn("iron", Ingredient::getIron, Ingredient::setIron),
+            new NutrientColumn("magnesium", Ingredient::getMagnesium, Ingredient::setMagnesium),
+            new NutrientColumn("phosphorus", Ingredient::getPhosphorus, Ingredient::setPhosphorus),
+            new NutrientColumn("potassium", Ingredient::getPotassium, Ingredient::setPotassium),
+            new NutrientColumn("zinc", Ingredient::getZinc, Ingredient::setZinc),
+            new NutrientColumn("copper", Ingredient::getCopper, Ingredient::setCopper),
+            new NutrientColumn("manganese", Ingredient::getManganese, Ingredient::setManganese),
+            new NutrientColumn("selenium", Ingredient::getSelenium, Ingredient::setSelenium),
+            new NutrientColumn("iodine", Ingredient::getIodine, Ingredient::setIodine),
+            new NutrientColumn("chromium", Ingredient::getChromium, Ingredient::setChromium),
+            new NutrientColumn("molybdenum", Ingredient::getMolybdenum, Ingredient::setMolybdenum),
+            new NutrientColumn("fluoride", Ingredient::getFluoride, Ingredient::setFluoride)
+    );
+
+    private OpenFoodFactsColumns() {
+    }
+
+    /**
+     * Valeur telle qu'elle sera stockée (échelle 3) ; null si elle dépasse la précision de la colonne.
+     */
+    public static BigDecimal normalize(BigDecimal value) {
+        if (value == null) {
+            return null;
+        }
+        BigDecimal scaled = value.setScale(SCALE, RoundingMode.HALF_UP);
+        return scaled.precision() > PRECISION ? null : scaled;
+    }
+
+    /**
+     * true si au moins une valeur nutritionnelle stockée diffère.
+     */
+    public static boolean nutrientsDiffer(Ingredient current, Ingredient fresh) {
+        for (NutrientColumn column : NUTRIENTS) {
+            if (!Objects.equals(normalize(column.getter().apply(current)), normalize(column.getter().apply(fresh)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,109 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.IngredientDto;
+import com.kitchencraft.recipe.model.Ingredient;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Single-flight du cache de codes-barres : des recherches simultanées d'un même code-barres
+ * ne déclenchent qu'un seul appel OpenFoodFacts (appel simulé).
+ */
+class BarcodeLookupServiceTest {
+
+    private static final String BARCODE = "3017620422003";
+
+    private final OpenFoodFactsService openFoodFactsService = mock(OpenFoodFactsService.class);
+    private final BarcodeFilterService barcodeFilterService = mock(BarcodeFilterService.class);
+    private final BarcodeLookupService service =
+            new BarcodeLookupService(openFoodFactsService, barcodeFilterService, new AppConfig());
+
+    @Test
+    void concurrentLookupsShareOneFetch() throws Exception {
+        CompletableFuture<Optional<Ingredient>> upstream = new CompletableFuture<>();
+        when(openFoodFactsService.fetchProductAsync(BARCODE)).thenReturn(upstream);
+
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService requests = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Optional<IngredientDto>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                results.add(requests.submit(() -> {
+                    start.await();
+                    return service.lookup(BARCODE);
+                }));
+            }
+            start.countDown();
+            // Laisse les recherches se rejoindre sur le vol en cours avant de répondre
+            Thread.sleep(100);
+            upstream.complete(Optional.of(product()));
+
+            for (Future<Optional<IngredientDto>> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).map(IngredientDto::name).contains("Pâte à tartiner");
+            }
+        } finally {
+            requests.shutdownNow();
+        }
+        assertThat(service.lookup(BARCODE)).isPresent();
+        verify(openFoodFactsService, times(1)).fetchProductAsync(BARCODE);
+    }
+
+    @Test
+    void lookupMissingCacheWhileFlightEndsDoesNotFetchAgain() throws Exception {
+        when(openFoodFactsService.fetchProductAsync(BARCODE))
+                .thenReturn(CompletableFuture.completedFuture(Optional.of(product())));
+        // La première recherche est suspendue entre la lecture du cache et la prise du vol
+        CountDownLatch paused = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        AtomicInteger checks = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (checks.getAndIncrement() == 0) {
+                paused.countDown();
+                resume.await();
+            }
+            return false;
+        }).when(barcodeFilterService).isKnownMissing(BARCODE);
+
+        ExecutorService requests = Executors.newSingleThreadExecutor();
+        try {
+            Future<Optional<IngredientDto>> late = requests.submit(() -> service.lookup(BARCODE));
+            assertThat(paused.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // Un vol complet a lieu pendant la pause : cache rempli, vol retiré
+            assertThat(service.lookup(BARCODE)).isPresent();
+            resume.countDown();
+
+            assertThat(late.get(5, TimeUnit.SECONDS)).isPresent();
+        } finally {
+            requests.shutdownNow();
+        }
+        verify(openFoodFactsService, times(1)).fetchProductAsync(BARCODE);
+        assertThat(service.getStats()).containsEntry("upstreamCalls", 1L);
+    }
+
+    private static Ingredient product() {
+        Ingredient ingredient = new Ingredient();
+        ingredient.setName("Pâte à tartiner");
+        ingredient.setBarcode(BARCODE);
+        return ingredient;
+    }
+}
@@ -0,0 +1,170 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.CategoryNodeDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Arbre des catégories du classpath écrit dans un JdbcTemplate simulé : table de fermeture
+ * (profondeurs, ancêtres d'un nœud profond) et rattachement des ingrédients par lots successifs.
+ */
+class CategoryTreeServiceTest {
+
+    private static final int INGREDIENTS = 2_500;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final CategoryTreeService service = new CategoryTreeService(new DefaultResourceLoader(), jdbcTemplate,
+            mock(PlatformTransactionManager.class), new AppConfig());
+
+    private final Map<String, Long> idByCode = new ConcurrentHashMap<>();
+    // Lots passés à batchUpdate, par requête
+    private final Map<String, List<Object[]>> batches = new ConcurrentHashMap<>();
+    // Table ingredient simulée : id, source, catégorie, catégorie de base, nœud actuel
+    private final List<Object[]> ingredients = new ArrayList<>();
+    private final List<Long> cursors = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AtomicLong nextId = new AtomicLong(100);
+        when(jdbcTemplate.queryForObject(startsWith("INSERT INTO category_node"), eq(Long.class),
+                any(), any(), any(), any()))
+                .thenAnswer(invocation -> idByCode.computeIfAbsent(invocation.getArgument(2), code -> nextId.getAndIncrement()));
+        doAnswer(invocation -> {
+            List<Object[]> rows = invocation.getArgument(1);
+            batches.computeIfAbsent(invocation.getArgument(0), sql -> new CopyOnWriteArrayList<>()).addAll(rows);
+            return new int[rows.size()];
+        }).when(jdbcTemplate).batchUpdate(anyString(), anyList());
+
+        AtomicReference<Object[]> current = new AtomicReference<>();
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getLong(1)).thenAnswer(invocation -> current.get()[0]);
+        when(resultSet.getString(2)).thenAnswer(invocation -> current.get()[1]);
+        when(resultSet.getString(3)).thenAnswer(invocation -> current.get()[2]);
+        when(resultSet.getString(4)).thenAnswer(invocation -> current.get()[3]);
+        when(resultSet.getObject(5, Long.class)).thenAnswer(invocation -> current.get()[4]);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(), any())).thenAnswer(invocation -> {
+            RowMapper<?> rowMapper = invocation.getArgument(1);
+            long cursor = ((Number) invocation.getArgument(2)).longValue();
+            int limit = ((Number) invocation.getArgument(3)).intValue();
+            cursors.add(cursor);
+            List<Object> ids = new ArrayList<>();
+            for (Object[] row : ingredients) {
+                if ((long) row[0] > cursor && ids.size() < limit) {
+                    current.set(row);
+                    ids.add(rowMapper.mapRow(resultSet, ids.size()));
+                }
+            }
+            return ids;
+        });
+    }
+
+    @Test
+    void closureListsEveryAncestorWithItsDistance() throws Exception {
+        int nodes = service.reloadTree();
+        awaitRelink();
+
+        List<Object[]> closure = batches.get("INSERT INTO category_closure (ancestor_id, descendant_id, depth) VALUES (?, ?, ?)");
+        Map<Long, Integer> depthById = new HashMap<>();
+        for (CategoryNodeDto node : service.getNodes()) {
+            depthById.put(node.id(), node.depth());
+        }
+        assertThat(depthById).hasSize(nodes);
+        // Une ligne par couple (ancêtre, descendant), le nœud lui-même compris
+        assertThat(closure).hasSize(depthById.values().stream().mapToInt(depth -> depth + 1).sum());
+
+        CategoryNodeDto frozen = service.getNodes().stream()
+                .filter(node -> node.code().equals("fruits-surgeles"))
+                .findFirst()
+                .orElseThrow();
+        assertThat(frozen.depth()).isEqualTo(3);
+        Map<Long, Integer> ancestors = new HashMap<>();
+        for (Object[] row : closure) {
+            if (row[1].equals(frozen.id())) {
+                ancestors.put((Long) row[0], (Integer) row[2]);
+            }
+        }
+        assertThat(ancestors).containsOnly(
+                Map.entry(idByCode.get("fruits-surgeles"), 0),
+                Map.entry(idByCode.get("fruits"), 1),
+                Map.entry(idByCode.get("fruits-et-legumes"), 2),
+                Map.entry(idByCode.get("aliments"), 3));
+    }
+
+    @Test
+    void relinkWalksEveryBatchAndRewritesOnlyChangedRows() throws Exception {
+        service.reloadTree();
+        awaitRelink();
+        long rootId = idByCode.get("aliments");
+        long feculentsId = idByCode.get("feculents");
+        long autresId = service.findNodeId("Autres").orElseThrow();
+
+        Map<Long, Long> expected = new HashMap<>();
+        for (long id = 1; id <= INGREDIENTS; id++) {
+            String basicCategory = switch ((int) (id % 3)) {
+                case 0 -> "Féculents";
+                case 1 -> null;
+                default -> "Catégorie inconnue";
+            };
+            long nodeId = switch ((int) (id % 3)) {
+                case 0 -> feculentsId;
+                case 1 -> autresId;
+                default -> rootId;
+            };
+            // Un ingrédient sur deux est déjà rattaché au bon nœud
+            Long currentNode = id % 2 == 0 ? nodeId : null;
+            ingredients.add(new Object[] {id, "MANUAL", null, basicCategory, currentNode});
+            if (currentNode == null) {
+                expected.put(id, nodeId);
+            }
+        }
+        cursors.clear();
+        batches.clear();
+
+        service.reloadTree();
+        awaitRelink();
+
+        assertThat(cursors).containsExactly(0L, 1_000L, 2_000L, 2_500L);
+        Map<Long, Long> updated = new HashMap<>();
+        for (Object[] update : batches.get("UPDATE ingredient SET category_node_id = ? WHERE id = ?")) {
+            assertThat(updated.put((Long) update[1], (Long) update[0])).isNull();
+        }
+        assertThat(updated).isEqualTo(expected);
+        assertThat(service.getStatus())
+                .containsEntry("processed", (long) INGREDIENTS)
+                .containsEntry("changed", (long) expected.size());
+        assertThat(service.isLinked()).isTrue();
+    }
+
+    private void awaitRelink() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (Boolean.TRUE.equals(service.getStatus().get("running")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.getStatus()).containsEntry("running", false);
+    }
+}
@@ -0,0 +1,182 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.DuplicateIngredientGroupDto;
+import com.kitchencraft.recipe.dto.IngredientMergeRequest;
+import com.kitchencraft.recipe.event.IngredientsMergedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Détection des doublons sur une table ingredient simulée : clés normalisées, similarité dans les blocs
+ * (y compris redécoupés), règles marque / code-barres et choix du survivant ; fusion et groupes en mémoire.
+ */
+class IngredientDeduplicationServiceTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final AppConfig appConfig = new AppConfig();
+    private final IngredientDeduplicationService service = new IngredientDeduplicationService(jdbcTemplate,
+            mock(PlatformTransactionManager.class), eventPublisher, appConfig);
+
+    // id, nom, marque, code-barres, source, valeurs nutritionnelles, utilisations
+    private final List<Object[]> rows = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Object[] row : rows) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getLong(1)).thenReturn((Long) row[0]);
+                when(resultSet.getString(2)).thenReturn((String) row[1]);
+                when(resultSet.getString(3)).thenReturn((String) row[2]);
+                when(resultSet.getString(4)).thenReturn((String) row[3]);
+                when(resultSet.getString(5)).thenReturn("MANUAL");
+                when(resultSet.getBoolean(6)).thenReturn((Boolean) row[4]);
+                when(resultSet.getInt(7)).thenReturn((Integer) row[5]);
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void groupsSameKeysAndSimilarNames() throws Exception {
+        add(1L, "Tomate", null, null, false, 5);
+        add(2L, "tomates", null, null, false, 9);
+        add(3L, "Tomate ", null, null, false, 0);
+        add(4L, "Chocolat noir pâtissier", null, null, false, 1);
+        add(5L, "Chocolat noire pâtissier", null, null, false, 2);
+        add(6L, "Chocolat blanc", null, null, false, 3);
+        add(7L, "Farine", null, null, false, 4);
+
+        List<DuplicateIngredientGroupDto> groups = detect();
+
+        assertThat(groups).hasSize(2);
+        // Même clé : le plus utilisé l'emporte, similarité maximale
+        assertThat(groups.get(0).getWinnerId()).isEqualTo(2L);
+        assertThat(groups.get(0).getMembers()).extracting(DuplicateIngredientGroupDto.Member::getId)
+                .containsExactly(2L, 1L, 3L);
+        assertThat(groups.get(0).getMembers()).allSatisfy(member -> assertThat(member.getSimilarity()).isEqualTo(1.0));
+        // Clés distinctes au-dessus du seuil de similarité
+        assertThat(groups.get(1).getWinnerId()).isEqualTo(5L);
+        assertThat(groups.get(1).getMembers()).extracting(DuplicateIngredientGroupDto.Member::getId)
+                .containsExactly(5L, 4L);
+        assertThat(groups.get(1).getMembers().get(1).getSimilarity())
+                .isGreaterThanOrEqualTo(appConfig.getIngredientDeduplication().getSimilarityThreshold())
+                .isLessThan(1.0);
+    }
+
+    @Test
+    void productsWithBarcodesOrOtherBrandsStayApart() throws Exception {
+        add(10L, "Lait demi-écrémé", "Lactel", "3252210390014", false, 0);
+        add(11L, "Lait demi écrémé", "Lactel", "3252210390021", false, 0);
+        add(12L, "lait demi-ecreme", "Lactel", null, false, 0);
+        add(13L, "Lait demi-écrémé", "Candia", null, false, 8);
+        add(14L, "Lait demi-écrémé ", "Candia", null, true, 0);
+        add(15L, "Lait demi-écrémé", null, null, false, 0);
+
+        List<DuplicateIngredientGroupDto> groups = detect();
+
+        // Lactel : deux produits distincts, le troisième reste seul ; Candia : valeurs nutritionnelles d'abord
+        assertThat(groups).singleElement().satisfies(group -> {
+            assertThat(group.getWinnerId()).isEqualTo(14L);
+            assertThat(group.getMembers()).extracting(DuplicateIngredientGroupDto.Member::getId)
+                    .containsExactly(14L, 13L);
+        });
+    }
+
+    @Test
+    void oversizedBlocksAreSplitOnLongerPrefixes() throws Exception {
+        appConfig.getIngredientDeduplication().setMaxBlockSize(2);
+        add(4L, "Chocolat noir pâtissier", null, null, false, 1);
+        add(5L, "Chocolat noire pâtissier", null, null, false, 2);
+        add(6L, "Chocolat blanc", null, null, false, 0);
+        add(7L, "Chocolat au lait", null, null, false, 0);
+        add(8L, "Chocolat en poudre", null, null, false, 0);
+
+        List<DuplicateIngredientGroupDto> groups = detect();
+
+        assertThat(groups).singleElement().extracting(DuplicateIngredientGroupDto::getWinnerId).isEqualTo(5L);
+        // Seul le bloc "chocolat no" garde deux noms : une seule comparaison
+        assertThat(service.getDetectionStatus())
+                .containsEntry("distinctNames", 5)
+                .containsEntry("blocks", 1)
+                .containsEntry("comparisons", 1L);
+    }
+
+    @Test
+    void mergeLocksInIdOrderAndUpdatesGroupsOnCommit() throws Exception {
+        add(1L, "Tomate", null, null, false, 5);
+        add(2L, "tomates", null, null, false, 9);
+        add(6L, "Oignon", null, null, false, 0);
+        add(7L, "oignons", null, null, false, 1);
+        assertThat(detect()).hasSize(2);
+
+        ArgumentCaptor<PreparedStatementCreator> lock = ArgumentCaptor.forClass(PreparedStatementCreator.class);
+        when(jdbcTemplate.query(lock.capture(), any(RowMapper.class))).thenReturn(List.of(1L, 2L));
+        when(jdbcTemplate.update(anyString(), any(PreparedStatementSetter.class))).thenReturn(0);
+        IngredientMergeRequest request = new IngredientMergeRequest();
+        IngredientMergeRequest.Merge merge = new IngredientMergeRequest.Merge();
+        merge.setWinnerId(2L);
+        merge.setLoserIds(List.of(1L));
+        request.getMerges().add(merge);
+
+        service.merge(request);
+
+        Connection connection = mock(Connection.class);
+        when(connection.prepareStatement(anyString())).thenReturn(mock(PreparedStatement.class));
+        lock.getValue().createPreparedStatement(connection);
+        verify(connection).prepareStatement("SELECT id FROM ingredient WHERE id = ANY (?) ORDER BY id FOR UPDATE");
+
+        // Groupes inchangés tant que la transaction n'est pas validée
+        assertThat(service.getDuplicateGroups(10)).hasSize(2);
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        IngredientsMergedEvent merged = (IngredientsMergedEvent) events.getAllValues().get(0);
+        assertThat(merged).isEqualTo(new IngredientsMergedEvent(Set.of(1L), Set.of(2L)));
+
+        service.onIngredientsMerged(merged);
+        assertThat(service.getDuplicateGroups(10)).singleElement()
+                .extracting(DuplicateIngredientGroupDto::getWinnerId).isEqualTo(7L);
+    }
+
+    private void add(long id, String name, String brand, String barcode, boolean hasNutrition, int usage) {
+        rows.add(new Object[] {id, name, brand, barcode, hasNutrition, usage});
+    }
+
+    private List<DuplicateIngredientGroupDto> detect() throws InterruptedException {
+        service.startDetection();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (Boolean.TRUE.equals(service.getDetectionStatus().get("running")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.getDetectionStatus()).containsEntry("phase", "COMPLETED");
+        return service.getDuplicateGroups(100);
+    }
+}
@@ -0,0 +1,106 @@
+package com.kitchencraft.recipe.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Mises à jour incrémentales du graphe de co-occurrence (ajout, remplacement, suppression de recettes)
+ * comparées à une construction complète sur l'état final des recettes (graine fixe).
+ */
+class IngredientPairingGraphTest {
+
+    private static final int INGREDIENTS = 100;
+
+    @Test
+    void setRecipeMatchesFullBuild() {
+        SplittableRandom random = new SplittableRandom(5L);
+        Map<Long, long[]> recipes = new LinkedHashMap<>();
+        for (long recipeId = 1; recipeId <= 300; recipeId++) {
+            // Ingrédients 80 à 99 introduits seulement par les mises à jour
+            recipes.put(recipeId, randomIngredients(random, 80));
+        }
+        IngredientPairingGraph graph = IngredientPairingGraph.build(recipes);
+
+        for (int step = 0; step < 2_000; step++) {
+            long recipeId = 1 + random.nextInt(400);
+            int operation = random.nextInt(10);
+            long[] ingredientIds;
+            if (operation < 2) {
+                ingredientIds = new long[0];
+            } else if (operation < 3 && recipes.containsKey(recipeId)) {
+                // Même recette dans un autre ordre : aucun changement attendu
+                ingredientIds = reversed(recipes.get(recipeId));
+            } else {
+                ingredientIds = randomIngredients(random, INGREDIENTS);
+            }
+            graph.setRecipe(recipeId, ingredientIds);
+            if (ingredientIds.length == 0) {
+                recipes.remove(recipeId);
+            } else {
+                recipes.put(recipeId, ingredientIds);
+            }
+        }
+
+        assertSameGraph(graph, IngredientPairingGraph.build(recipes));
+    }
+
+    @Test
+    void setRecipeFromEmptyGraphMatchesFullBuild() {
+        SplittableRandom random = new SplittableRandom(9L);
+        Map<Long, long[]> recipes = new LinkedHashMap<>();
+        IngredientPairingGraph graph = new IngredientPairingGraph();
+        for (long recipeId = 1; recipeId <= 200; recipeId++) {
+            long[] ingredientIds = randomIngredients(random, INGREDIENTS);
+            graph.setRecipe(recipeId, ingredientIds);
+            recipes.put(recipeId, ingredientIds);
+        }
+
+        assertSameGraph(graph, IngredientPairingGraph.build(recipes));
+    }
+
+    private static void assertSameGraph(IngredientPairingGraph actual, IngredientPairingGraph expected) {
+        assertThat(actual.recipeCount()).isEqualTo(expected.recipeCount());
+        assertThat(actual.edgeCount()).isEqualTo(expected.edgeCount());
+        for (long ingredientId = 0; ingredientId < INGREDIENTS; ingredientId++) {
+            Map<Long, IngredientPairingGraph.Pairing> actualPairings = byNeighbor(actual, ingredientId);
+            Map<Long, IngredientPairingGraph.Pairing> expectedPairings = byNeighbor(expected, ingredientId);
+            assertThat(actualPairings.keySet()).as("voisins de %d", ingredientId).isEqualTo(expectedPairings.keySet());
+            expectedPairings.forEach((neighbor, pairing) -> {
+                assertThat(actualPairings.get(neighbor).recipeCount()).isEqualTo(pairing.recipeCount());
+                assertThat(actualPairings.get(neighbor).pmi()).isCloseTo(pairing.pmi(), within(1e-9));
+            });
+        }
+    }
+
+    private static Map<Long, IngredientPairingGraph.Pairing> byNeighbor(IngredientPairingGraph graph, long ingredientId) {
+        Map<Long, IngredientPairingGraph.Pairing> pairings = new HashMap<>();
+        for (IngredientPairingGraph.Pairing pairing : graph.topPairings(ingredientId, INGREDIENTS, 1)) {
+            pairings.put(pairing.ingredientId(), pairing);
+        }
+        return pairings;
+    }
+
+    // 1 à 10 ingrédients, doublons possibles (même ingrédient sur plusieurs lignes)
+    private static long[] randomIngredients(SplittableRandom random, int bound) {
+        long[] ingredientIds = new long[1 + random.nextInt(10)];
+        for (int i = 0; i < ingredientIds.length; i++) {
+            ingredientIds[i] = random.nextInt(bound);
+        }
+        return ingredientIds;
+    }
+
+    private static long[] reversed(long[] ingredientIds) {
+        long[] result = new long[ingredientIds.length];
+        for (int i = 0; i < ingredientIds.length; i++) {
+            result[i] = ingredientIds[ingredientIds.length - 1 - i];
+        }
+        return result;
+    }
+}
@@ -0,0 +1,199 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.dto.IngredientStatsDto;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.model.DictionaryValue;
+import com.kitchencraft.recipe.model.Ingredient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Statistiques d'ingrédients générés (graine fixe) : lignes GROUPING SETS simulées depuis les mêmes
+ * entités, comptes comparés aux anciens filtres Java (hasNutritionalData, isFromOpenFoodFacts),
+ * puis cache de l'instantané et invalidation par époque.
+ */
+class IngredientStatsServiceTest {
+
+    private static final Map<Integer, String> DICTIONARY = Map.of(
+            1, "MANUAL", 2, "OPENFOODFACTS", 10, "Fruits et Légumes", 11, "Féculents", 12, "Autres");
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final DictionaryService dictionaryService = mock(DictionaryService.class);
+    private final IngredientStatsService service = new IngredientStatsService(jdbcTemplate, dictionaryService);
+
+    private final List<Ingredient> ingredients = new ArrayList<>();
+    // Appelé au début de chaque requête simulée
+    private Runnable onQuery = () -> { };
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Map<String, Integer> idOf = DICTIONARY.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getValue, Map.Entry::getKey));
+        when(dictionaryService.find(DictionaryValue.Domain.DATA_SOURCE, "OPENFOODFACTS")).thenReturn(2);
+        when(dictionaryService.valueOf(anyInt())).thenAnswer(invocation -> DICTIONARY.get(invocation.<Integer>getArgument(0)));
+
+        SplittableRandom random = new SplittableRandom(3L);
+        String[] categories = {"Fruits et Légumes", "Féculents", "Autres", null};
+        String[] sources = {"MANUAL", "OPENFOODFACTS", null};
+        for (int i = 0; i < 2_000; i++) {
+            Ingredient ingredient = new Ingredient();
+            ingredient.setName("Ingrédient " + i);
+            ingredient.setBasicCategory(categories[random.nextInt(categories.length)]);
+            ingredient.setDataSource(sources[random.nextInt(sources.length)]);
+            ingredient.setOpenFoodFactsId(random.nextBoolean() ? "off-" + i : null);
+            // 60 marques, une sur cinq sans marque
+            ingredient.setBrand(random.nextInt(5) == 0 ? null : "Marque " + random.nextInt(60));
+            ingredient.setEnergyKcal(random.nextInt(4) == 0 ? BigDecimal.valueOf(120) : null);
+            ingredient.setProtein(random.nextInt(6) == 0 ? BigDecimal.TEN : null);
+            ingredients.add(ingredient);
+        }
+
+        doAnswer(invocation -> {
+            onQuery.run();
+            Integer openFoodFactsId = invocation.getArgument(2);
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map<String, Object> row : groupingSets(idOf, openFoodFactsId)) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getInt(anyString())).thenAnswer(column -> row.get(column.<String>getArgument(0)));
+                when(resultSet.getLong(anyString())).thenAnswer(column -> row.get(column.<String>getArgument(0)));
+                when(resultSet.getString(anyString())).thenAnswer(column -> row.get(column.<String>getArgument(0)));
+                when(resultSet.getObject(anyString(), eq(Integer.class)))
+                        .thenAnswer(column -> row.get(column.<String>getArgument(0)));
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class), any());
+    }
+
+    @Test
+    void countsMatchPerCountFilters() {
+        IngredientStatsDto stats = service.getStats();
+
+        assertThat(stats.getTotal()).isEqualTo(ingredients.size());
+        assertThat(stats.getWithNutritionalData())
+                .isEqualTo(ingredients.stream().filter(Ingredient::hasNutritionalData).count());
+        assertThat(stats.getFromOpenFoodFacts())
+                .isEqualTo(ingredients.stream().filter(Ingredient::isFromOpenFoodFacts).count());
+        assertThat(service.countWithNutritionalData()).isEqualTo(stats.getWithNutritionalData());
+        assertThat(service.countFromOpenFoodFacts()).isEqualTo(stats.getFromOpenFoodFacts());
+
+        assertBreakdown(stats.getByBasicCategory(), Ingredient::getBasicCategory);
+        assertBreakdown(stats.getByDataSource(), Ingredient::getDataSource);
+        // Marques : sans marque exclu, 50 plus représentées, triées par effectif décroissant
+        assertThat(stats.getBrandCount()).isEqualTo(60);
+        assertThat(stats.getTopBrands()).hasSize(50).isSortedAccordingTo(
+                (a, b) -> Long.compare(b.getTotal(), a.getTotal()));
+        Map<String, Long> brandTotals = ingredients.stream().filter(i -> i.getBrand() != null)
+                .collect(Collectors.groupingBy(Ingredient::getBrand, Collectors.counting()));
+        stats.getTopBrands().forEach(brand -> assertThat(brand.getTotal()).isEqualTo(brandTotals.get(brand.getKey())));
+    }
+
+    @Test
+    void snapshotIsCachedUntilIngredientChanges() {
+        IngredientStatsDto first = service.getStats();
+        assertThat(service.getStats()).isSameAs(first);
+        verify(jdbcTemplate, times(1)).query(anyString(), any(RowCallbackHandler.class), any());
+
+        service.onIngredientChanged(new IngredientChangedEvent(1L, false));
+        assertThat(service.getStats()).isNotSameAs(first);
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any());
+    }
+
+    @Test
+    void changeDuringComputationIsNotCached() {
+        // Écriture d'ingrédient pendant le calcul : l'époque avance, le résultat n'est pas conservé
+        onQuery = () -> {
+            onQuery = () -> { };
+            service.onIngredientChanged(new IngredientChangedEvent(null, false));
+        };
+        IngredientStatsDto stale = service.getStats();
+        IngredientStatsDto fresh = service.getStats();
+
+        assertThat(fresh).isNotSameAs(stale);
+        assertThat(service.getStats()).isSameAs(fresh);
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class), any());
+    }
+
+    private void assertBreakdown(List<IngredientStatsDto.GroupCount> counts, Function<Ingredient, String> key) {
+        Map<String, List<Ingredient>> expected = ingredients.stream()
+                .collect(Collectors.groupingBy(i -> Objects.requireNonNullElse(key.apply(i), ""), LinkedHashMap::new,
+                        Collectors.toList()));
+        assertThat(counts).hasSize(expected.size());
+        for (IngredientStatsDto.GroupCount count : counts) {
+            List<Ingredient> group = expected.get(Objects.requireNonNullElse(count.getKey(), ""));
+            assertThat(count.getTotal()).isEqualTo(group.size());
+            assertThat(count.getWithNutritionalData())
+                    .isEqualTo(group.stream().filter(Ingredient::hasNutritionalData).count());
+            assertThat(count.getFromOpenFoodFacts())
+                    .isEqualTo(group.stream().filter(Ingredient::isFromOpenFoodFacts).count());
+        }
+    }
+
+    // Lignes de GROUP BY GROUPING SETS ((basic_category_id), (data_source_id), (brand), ()), sans ordre garanti
+    private List<Map<String, Object>> groupingSets(Map<String, Integer> idOf, Integer openFoodFactsId) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Map<List<Object>, List<Ingredient>> byCategory = new HashMap<>();
+        Map<List<Object>, List<Ingredient>> bySource = new HashMap<>();
+        Map<List<Object>, List<Ingredient>> byBrand = new HashMap<>();
+        for (Ingredient ingredient : ingredients) {
+            byCategory.computeIfAbsent(keyOf(idOf.get(ingredient.getBasicCategory())), k -> new ArrayList<>()).add(ingredient);
+            bySource.computeIfAbsent(keyOf(idOf.get(ingredient.getDataSource())), k -> new ArrayList<>()).add(ingredient);
+            byBrand.computeIfAbsent(keyOf(ingredient.getBrand()), k -> new ArrayList<>()).add(ingredient);
+        }
+        byCategory.forEach((key, group) -> rows.add(row(0, 1, 1, key.get(0), null, null, group, idOf, openFoodFactsId)));
+        bySource.forEach((key, group) -> rows.add(row(1, 0, 1, null, key.get(0), null, group, idOf, openFoodFactsId)));
+        byBrand.forEach((key, group) -> rows.add(row(1, 1, 0, null, null, key.get(0), group, idOf, openFoodFactsId)));
+        rows.add(row(1, 1, 1, null, null, null, ingredients, idOf, openFoodFactsId));
+        return rows;
+    }
+
+    private static List<Object> keyOf(Object value) {
+        List<Object> key = new ArrayList<>(1);
+        key.add(value);
+        return key;
+    }
+
+    private static Map<String, Object> row(int byCategory, int bySource, int byBrand, Object categoryId, Object sourceId,
+                                           Object brand, List<Ingredient> group, Map<String, Integer> idOf,
+                                           Integer openFoodFactsId) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("by_category", byCategory);
+        row.put("by_source", bySource);
+        row.put("by_brand", byBrand);
+        row.put("basic_category_id", categoryId);
+        row.put("data_source_id", sourceId);
+        row.put("brand", brand);
+        row.put("total", (long) group.size());
+        // Prédicats SQL de la requête, évalués sur les colonnes
+        row.put("with_nutrition", group.stream().filter(i -> i.getEnergy() != null || i.getEnergyKcal() != null
+                || i.getCarbohydrates() != null || i.getProtein() != null || i.getFat() != null).count());
+        row.put("from_off", group.stream().filter(i -> openFoodFactsId != null
+                && openFoodFactsId.equals(idOf.get(i.getDataSource())) && i.getOpenFoodFactsId() != null).count());
+        return row;
+    }
+}
@@ -0,0 +1,119 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.event.IngredientChangedEvent;
+import com.kitchencraft.recipe.event.RecipeChangedEvent;
+import com.kitchencraft.recipe.model.IngredientSynonym;
+import com.kitchencraft.recipe.repository.IngredientSynonymRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Dictionnaire compilé depuis des synonymes et des ingrédients simulés (repository et JDBC) :
+ * résolution des termes, autocomplétion et invalidation.
+ */
+class IngredientSynonymServiceTest {
+
+    private final IngredientSynonymRepository ingredientSynonymRepository = mock(IngredientSynonymRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    // Ingrédients utilisés dans des recettes : id -> nom normalisé
+    private final Map<Long, String> ingredients = new LinkedHashMap<>();
+    private IngredientSynonymService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(ingredientSynonymRepository.findAll()).thenReturn(List.of(
+                synonym("oeuf", "egg"),
+                synonym("oeuf", "oeuf entier"),
+                synonym("pomme de terre", "patate")));
+        ingredients.put(1L, "oeuf");
+        ingredients.put(2L, "oeufs");
+        ingredients.put(3L, "pomme de terre");
+        ingredients.put(4L, "farine");
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (Map.Entry<Long, String> ingredient : ingredients.entrySet()) {
+                ResultSet resultSet = mock(ResultSet.class);
+                when(resultSet.getLong(1)).thenReturn(ingredient.getKey());
+                when(resultSet.getString(2)).thenReturn(ingredient.getValue());
+                handler.processRow(resultSet);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        service = new IngredientSynonymService(ingredientSynonymRepository, jdbcTemplate,
+                new DefaultResourceLoader(), new AppConfig());
+    }
+
+    private static IngredientSynonym synonym(String canonical, String term) {
+        IngredientSynonym synonym = new IngredientSynonym();
+        synonym.setCanonical(canonical);
+        synonym.setTerm(term);
+        return synonym;
+    }
+
+    @Test
+    void resolvesSynonymsAndPluralsToTheSameGroup() {
+        List<long[]> eggs = service.resolve(List.of("Eggs"));
+        assertThat(eggs).hasSize(1);
+        assertThat(eggs.get(0)).containsExactlyInAnyOrder(1L, 2L);
+
+        // Termes synonymes entre eux fusionnés, terme inconnu signalé par un tableau vide
+        List<long[]> mixed = service.resolve(List.of("Œuf entier", "oeuf", "Patates", "sucre"));
+        assertThat(mixed).hasSize(3);
+        assertThat(mixed.get(0)).isEmpty();
+        assertThat(mixed.get(1)).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(mixed.get(2)).containsExactly(3L);
+    }
+
+    @Test
+    void expandsPrefixToGroupNames() {
+        assertThat(service.expandPrefix("eg", 5)).contains("oeuf", "egg", "oeufs");
+        assertThat(service.expandPrefix("pat", 5)).contains("pomme de terre", "patate");
+        assertThat(service.expandPrefix("zzz", 5)).isEmpty();
+    }
+
+    @Test
+    void renameInvalidatesDictionary() {
+        assertThat(service.resolve(List.of("farine de ble")).get(0)).isEmpty();
+
+        ingredients.put(4L, "farine de ble");
+        // Modification sans changement de nom : dictionnaire conservé
+        service.onIngredientChanged(new IngredientChangedEvent(4L, false));
+        assertThat(service.resolve(List.of("farine de ble")).get(0)).isEmpty();
+
+        service.onIngredientChanged(new IngredientChangedEvent(4L, false, true));
+        assertThat(service.resolve(List.of("farine de ble")).get(0)).containsExactly(4L);
+        assertThat(service.resolve(List.of("farine")).get(0)).isEmpty();
+        verify(jdbcTemplate, times(2)).query(anyString(), any(RowCallbackHandler.class));
+    }
+
+    @Test
+    void bulkAndRecipeChangesInvalidateDictionary() {
+        service.resolve(List.of("oeuf"));
+        service.onIngredientChanged(new IngredientChangedEvent(null, false));
+        service.resolve(List.of("oeuf"));
+        service.onRecipeChanged(new RecipeChangedEvent(1L));
+        service.resolve(List.of("oeuf"));
+        service.resolve(List.of("oeuf"));
+
+        verify(jdbcTemplate, times(3)).query(anyString(), any(RowCallbackHandler.class));
+    }
+}
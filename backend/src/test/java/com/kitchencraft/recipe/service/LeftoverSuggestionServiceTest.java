@@ -0,0 +1,156 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.dto.LeftoverDto;
+import com.kitchencraft.recipe.dto.LeftoverSuggestionDto;
+import com.kitchencraft.recipe.dto.LeftoverSuggestionRequest;
+import com.kitchencraft.recipe.dto.LeftoverSuggestionResultDto;
+import com.kitchencraft.recipe.repository.ShoppingListItemRepository;
+import com.kitchencraft.recipe.repository.WeeklyPlanRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Notation des recettes sur un petit catalogue construit à la main : ingrédients listés sur
+ * plusieurs lignes comptés une seule fois, et accumulateur creux au-delà de sa capacité initiale.
+ */
+class LeftoverSuggestionServiceTest {
+
+    private static final String[] UNITS = {"g", "ml", "pièce"};
+    // Codes d'ingrédient (identifiant = code + 1)
+    private static final int FARINE = 0;
+    private static final int LAIT = 1;
+    private static final int OEUF = 2;
+    private static final int SUCRE = 3;
+    // Recettes de remplissage utilisant uniquement du sucre
+    private static final int FILLERS = 40;
+
+    private final RecipeCatalogService recipeCatalogService = mock(RecipeCatalogService.class);
+    private final ShoppingListItemRepository shoppingListItemRepository = mock(ShoppingListItemRepository.class);
+    private final WeeklyPlanRepository weeklyPlanRepository = mock(WeeklyPlanRepository.class);
+    private final LeftoverSuggestionService service =
+            new LeftoverSuggestionService(recipeCatalogService, shoppingListItemRepository, weeklyPlanRepository);
+
+    @BeforeEach
+    void setUp() {
+        when(recipeCatalogService.getCatalog()).thenReturn(catalog());
+        when(weeklyPlanRepository.existsById(1L)).thenReturn(true);
+        when(shoppingListItemRepository.findLeftoverRowsByPlanId(1L)).thenReturn(List.of(
+                row(1L, FARINE, "farine", "g", 300),
+                row(2L, LAIT, "lait", "ml", 200),
+                row(3L, LAIT, "lait", "g", 100),
+                row(4L, SUCRE, "sucre", "g", 400)));
+    }
+
+    @Test
+    void ingredientOnSeveralLinesCountsOnce() {
+        LeftoverSuggestionResultDto result = service.suggest(1L, request());
+
+        // Crêpes : farine, lait (deux unités), oeuf (deux lignes) -> seul l'oeuf manque
+        LeftoverSuggestionDto.SuggestedRecipe crepes = suggested(result, 1L);
+        assertThat(crepes.getMissingIngredients()).isEqualTo(1);
+        assertThat(crepes.getLeftoversUsed()).isEqualTo(3);
+
+        // Pâte : farine sur deux lignes -> rien ne manque, un seul reste utilisé, quantités cumulées
+        LeftoverSuggestionDto.SuggestedRecipe pate = suggested(result, 2L);
+        assertThat(pate.getMissingIngredients()).isZero();
+        assertThat(pate.getLeftoversUsed()).isEqualTo(1);
+        LeftoverSuggestionDto suggestion = suggestion(result, 2L);
+        assertThat(suggestion.getRemaining())
+                .filteredOn(leftover -> leftover.getIngredientId() == FARINE + 1L)
+                .singleElement()
+                .extracting(LeftoverDto::getQuantity)
+                .isEqualTo(100.0);
+        assertThat(result.getSuggestions())
+                .allSatisfy(s -> assertThat(s.getConsumedRatio()).isBetween(0.0, 1.0));
+    }
+
+    @Test
+    void scoresEveryTouchedRecipe() {
+        LeftoverSuggestionResultDto result = service.suggest(1L, request());
+
+        assertThat(result.getCandidatesScored()).isEqualTo(2 + FILLERS);
+        assertThat(result.getSuggestions()).hasSize(20);
+    }
+
+    private static LeftoverSuggestionRequest request() {
+        LeftoverSuggestionRequest request = new LeftoverSuggestionRequest();
+        request.setMaxRecipes(1);
+        request.setLimit(20);
+        return request;
+    }
+
+    private static LeftoverSuggestionDto suggestion(LeftoverSuggestionResultDto result, long recipeId) {
+        return result.getSuggestions().stream()
+                .filter(s -> s.getRecipes().get(0).getRecipeId() == recipeId)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static LeftoverSuggestionDto.SuggestedRecipe suggested(LeftoverSuggestionResultDto result, long recipeId) {
+        return suggestion(result, recipeId).getRecipes().get(0);
+    }
+
+    private static Object[] row(long itemId, int code, String name, String unit, int owned) {
+        return new Object[] {itemId, code + 1L, name, unit, BigDecimal.ZERO, BigDecimal.valueOf(owned)};
+    }
+
+    private static RecipeCatalog catalog() {
+        List<int[]> lines = new ArrayList<>();
+        List<double[]> amounts = new ArrayList<>();
+        // Crêpes : farine (g), lait (ml), lait (g), oeuf (pièce), oeuf (g)
+        lines.add(new int[] {FARINE, 0, LAIT, 1, LAIT, 0, OEUF, 2, OEUF, 0});
+        amounts.add(new double[] {200, 100, 50, 2, 20});
+        // Pâte : farine (g) sur deux lignes
+        lines.add(new int[] {FARINE, 0, FARINE, 0});
+        amounts.add(new double[] {100, 100});
+        for (int f = 0; f < FILLERS; f++) {
+            lines.add(new int[] {SUCRE, 0});
+            amounts.add(new double[] {10});
+        }
+
+        int size = lines.size();
+        long[] recipeIds = new long[size];
+        String[] names = new String[size];
+        int[] totalTimes = new int[size];
+        int[] persons = new int[size];
+        int[] offsets = new int[size + 1];
+        int total = lines.stream().mapToInt(l -> l.length / 2).sum();
+        int[] ingredientCodes = new int[total];
+        double[] quantities = new double[total];
+        int[] unitCodes = new int[total];
+        Map<Long, Integer> indexByRecipeId = new HashMap<>();
+        int position = 0;
+        for (int recipe = 0; recipe < size; recipe++) {
+            recipeIds[recipe] = recipe + 1L;
+            names[recipe] = "Recette " + recipe;
+            totalTimes[recipe] = 30;
+            persons[recipe] = 2;
+            indexByRecipeId.put(recipeIds[recipe], recipe);
+            offsets[recipe] = position;
+            int[] recipeLines = lines.get(recipe);
+            for (int k = 0; k < recipeLines.length / 2; k++) {
+                ingredientCodes[position] = recipeLines[2 * k];
+                unitCodes[position] = recipeLines[2 * k + 1];
+                quantities[position] = amounts.get(recipe)[k];
+                position++;
+            }
+        }
+        offsets[size] = position;
+
+        long[] ingredientIds = {1L, 2L, 3L, 4L};
+        Map<Long, Integer> codeByIngredientId = Map.of(1L, FARINE, 2L, LAIT, 3L, OEUF, 4L, SUCRE);
+        return new RecipeCatalog(recipeIds, names, totalTimes, persons, new int[size], new int[size],
+                new boolean[size], new float[size], new float[size], offsets, ingredientCodes, quantities, unitCodes,
+                ingredientIds, new String[0], new String[0], UNITS, indexByRecipeId, codeByIngredientId);
+    }
+}
@@ -0,0 +1,223 @@
+package com.kitchencraft.recipe.service;
+
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.dto.MealPlanGenerationRequest;
+import com.kitchencraft.recipe.dto.MealPlanGenerationResultDto;
+import com.kitchencraft.recipe.dto.PlanRecipeRequest;
+import com.kitchencraft.recipe.dto.WeeklyPlanDto;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Recuit simulé sur un catalogue généré (graine fixe) : cohérence de l'évaluation incrémentale
+ * et qualité du planning produit (objectifs, contraintes), y compris pour des générations simultanées.
+ */
+class MealPlanGeneratorServiceTest {
+
+    private static final String[] ORIGINS = {"France", "Italie", "Japon", "Mexique", "Inde", "Maroc"};
+    private static final String[] TYPES = {"Plat principal", "Entrée", "Dessert"};
+    private static final String[] UNITS = {"g", "ml", "pièce"};
+
+    private final RecipeCatalogService recipeCatalogService = mock(RecipeCatalogService.class);
+    private final WeeklyPlanService weeklyPlanService = mock(WeeklyPlanService.class);
+    private final AppConfig appConfig = new AppConfig();
+    private final MealPlanGeneratorService service =
+            new MealPlanGeneratorService(recipeCatalogService, weeklyPlanService, appConfig);
+
+    @Test
+    void deltaMatchesFullCostRecomputation() {
+        MealPlanGeneratorService.Problem problem = new MealPlanGeneratorService.Problem(catalog(2_000, 300, 1L), request());
+        SplittableRandom random = new SplittableRandom(7L);
+        MealPlanGeneratorService.Chain chain = new MealPlanGeneratorService.Chain(problem);
+        for (int slot = 0; slot < problem.slots; slot++) {
+            chain.place(slot, problem.randomCandidate(slot, random));
+        }
+
+        for (int move = 0; move < 20_000; move++) {
+            int slot = random.nextInt(problem.slots);
+            int next = move % 10 == 0 ? chain.assign[random.nextInt(problem.slots)] : problem.randomCandidate(slot, random);
+            if (next == chain.assign[slot] || !problem.fits(slot, next)) {
+                continue;
+            }
+            double before = chain.fullCost();
+            double delta = chain.delta(slot, next);
+            chain.place(slot, next);
+            assertThat(chain.fullCost() - before).isCloseTo(delta, within(1e-6));
+        }
+    }
+
+    @Test
+    void annealedCostMatchesBestAssignment() {
+        MealPlanGeneratorService.Problem problem = new MealPlanGeneratorService.Problem(catalog(5_000, 500, 2L), request());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+
+        MealPlanGeneratorService.Chain chain = service.anneal(problem, new SplittableRandom(11L), deadline);
+
+        // Le coût cumulé par deltas ne doit pas dériver du coût réel de la meilleure affectation
+        MealPlanGeneratorService.Chain replay = new MealPlanGeneratorService.Chain(problem);
+        for (int slot = 0; slot < problem.slots; slot++) {
+            replay.place(slot, chain.best[slot]);
+            assertThat(problem.fits(slot, chain.best[slot])).isTrue();
+        }
+        assertThat(replay.fullCost()).isCloseTo(chain.bestCost, within(1e-6));
+        assertThat(chain.iterations).isPositive();
+    }
+
+    @Test
+    void generatesPlanFromFiftyThousandRecipes() {
+        RecipeCatalog catalog = catalog(50_000, 4_000, 3L);
+        when(recipeCatalogService.getCatalog()).thenReturn(catalog);
+        when(weeklyPlanService.createPlanWithRecipes(any(), any())).thenReturn(1L);
+        when(weeklyPlanService.getPlanById(anyLong())).thenReturn(Optional.of(new WeeklyPlanDto()));
+        appConfig.getPlanGenerator().setTimeBudgetMs(1_000);
+
+        MealPlanGenerationResultDto result = service.generatePlan(request());
+
+        assertThat(result.getIterations()).isPositive();
+        assertPlanQuality(catalog, result);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<PlanRecipeRequest>> planRecipes = ArgumentCaptor.forClass(List.class);
+        verify(weeklyPlanService).createPlanWithRecipes(any(), planRecipes.capture());
+        assertThat(planRecipes.getValue()).hasSize(4 * 7 * 2);
+        assertThat(planRecipes.getValue()).allSatisfy(planRecipe -> {
+            int recipe = catalog.indexOf(planRecipe.getRecipeId());
+            assertThat(catalog.typeCode(recipe)).isZero();
+            if (planRecipe.getPlannedDate().getDayOfWeek().getValue() <= 5) {
+                assertThat(catalog.totalTime(recipe)).isLessThanOrEqualTo(45);
+            }
+        });
+    }
+
+    @Test
+    void concurrentGenerationsAreBothOptimized() throws Exception {
+        RecipeCatalog catalog = catalog(20_000, 2_000, 4L);
+        when(recipeCatalogService.getCatalog()).thenReturn(catalog);
+        when(weeklyPlanService.createPlanWithRecipes(any(), any())).thenReturn(1L);
+        when(weeklyPlanService.getPlanById(anyLong())).thenReturn(Optional.of(new WeeklyPlanDto()));
+        appConfig.getPlanGenerator().setTimeBudgetMs(500);
+
+        ExecutorService requests = Executors.newFixedThreadPool(2);
+        try {
+            Future<MealPlanGenerationResultDto> first = requests.submit(() -> service.generatePlan(request()));
+            Future<MealPlanGenerationResultDto> second = requests.submit(() -> service.generatePlan(request()));
+            for (MealPlanGenerationResultDto result : List.of(first.get(), second.get())) {
+                // Chaque requête a ses propres chaînes : aucune n'est sautée faute d'avoir pu démarrer à temps
+                assertThat(result.getChains()).isEqualTo(Runtime.getRuntime().availableProcessors());
+                assertPlanQuality(catalog, result);
+            }
+        } finally {
+            requests.shutdown();
+        }
+    }
+
+    @Test
+    void chainsStartingAfterDeadlineAreSkipped() {
+        MealPlanGeneratorService.Problem problem = new MealPlanGeneratorService.Problem(catalog(2_000, 300, 5L), request());
+
+        List<MealPlanGeneratorService.Chain> chains = service.search(problem, 4, System.nanoTime() - 1);
+
+        // Seule la première chaîne tourne, pour qu'un planning existe
+        assertThat(chains).hasSize(1);
+        assertThat(chains.get(0).best).hasSize(problem.slots);
+    }
+
+    // Objectifs nutritionnels approchés, bien mieux qu'une affectation aléatoire
+    private static void assertPlanQuality(RecipeCatalog catalog, MealPlanGenerationResultDto result) {
+        MealPlanGeneratorService.Problem problem = new MealPlanGeneratorService.Problem(catalog, request());
+        SplittableRandom random = new SplittableRandom(13L);
+        double randomCost = 0;
+        for (int sample = 0; sample < 10; sample++) {
+            MealPlanGeneratorService.Chain chain = new MealPlanGeneratorService.Chain(problem);
+            for (int slot = 0; slot < problem.slots; slot++) {
+                chain.place(slot, problem.randomCandidate(slot, random));
+            }
+            randomCost += chain.fullCost() / 10;
+        }
+        assertThat(result.getCost()).isLessThan(randomCost / 4);
+        assertThat(result.getAverageDailyKcal()).isCloseTo(2_000.0, within(200.0));
+        assertThat(result.getAverageDailyProtein()).isCloseTo(80.0, within(8.0));
+        assertThat(result.getRepeatedRecipes()).isZero();
+    }
+
+    private static MealPlanGenerationRequest request() {
+        MealPlanGenerationRequest request = new MealPlanGenerationRequest();
+        request.setName("Test");
+        request.setStartDate(LocalDate.of(2026, 1, 5));
+        request.setDurationWeeks(4);
+        request.setTargetKcalPerDay(2_000.0);
+        request.setTargetProteinPerDay(80.0);
+        request.setMaxWeekdayTotalTime(45);
+        return request;
+    }
+
+    // Catalogue pseudo-aléatoire reproductible : 3 à 12 ingrédients par recette
+    private static RecipeCatalog catalog(int size, int ingredientCount, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] recipeIds = new long[size];
+        String[] names = new String[size];
+        int[] totalTimes = new int[size];
+        int[] persons = new int[size];
+        int[] originCodes = new int[size];
+        int[] typeCodes = new int[size];
+        boolean[] babyFriendly = new boolean[size];
+        float[] kcal = new float[size];
+        float[] protein = new float[size];
+        int[] offsets = new int[size + 1];
+        int[] ingredientCodes = new int[size * 12];
+        double[] quantities = new double[size * 12];
+        int[] unitCodes = new int[size * 12];
+        Map<Long, Integer> indexByRecipeId = new HashMap<>();
+
+        int position = 0;
+        for (int recipe = 0; recipe < size; recipe++) {
+            recipeIds[recipe] = recipe + 1L;
+            names[recipe] = "Recette " + recipe;
+            totalTimes[recipe] = 10 + random.nextInt(110);
+            persons[recipe] = 1 + random.nextInt(6);
+            originCodes[recipe] = random.nextInt(ORIGINS.length + 1) - 1;
+            typeCodes[recipe] = random.nextInt(TYPES.length);
+            babyFriendly[recipe] = random.nextInt(4) == 0;
+            kcal[recipe] = 200 + random.nextInt(900);
+            protein[recipe] = 5 + random.nextInt(50);
+            indexByRecipeId.put(recipeIds[recipe], recipe);
+            offsets[recipe] = position;
+            int count = 3 + random.nextInt(10);
+            for (int k = 0; k < count; k++) {
+                ingredientCodes[position] = random.nextInt(ingredientCount);
+                quantities[position] = 1 + random.nextInt(500);
+                unitCodes[position] = random.nextInt(UNITS.length);
+                position++;
+            }
+        }
+        offsets[size] = position;
+
+        long[] ingredientIds = new long[ingredientCount];
+        Map<Long, Integer> codeByIngredientId = new HashMap<>();
+        for (int code = 0; code < ingredientCount; code++) {
+            ingredientIds[code] = code + 1L;
+            codeByIngredientId.put(ingredientIds[code], code);
+        }
+        return new RecipeCatalog(recipeIds, names, totalTimes, persons, originCodes, typeCodes, babyFriendly,
+                kcal, protein, offsets, ingredientCodes, quantities, unitCodes,
+                ingredientIds, ORIGINS, TYPES, UNITS, indexByRecipeId, codeByIngredientId);
+    }
+}
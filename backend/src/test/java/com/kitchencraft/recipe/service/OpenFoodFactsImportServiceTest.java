@@ -0,0 +1,214 @@
+package com.kitchencraft.recipe.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.model.DictionaryValue;
+import com.kitchencraft.recipe.model.SyncProgress;
+import com.kitchencraft.recipe.repository.SyncProgressRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Import d'un dump JSONL de test : base simulée au niveau JDBC (COPY capturé), pas de réseau.
+ */
+class OpenFoodFactsImportServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final SyncProgressRepository syncProgressRepository = mock(SyncProgressRepository.class);
+    private final List<String> copiedRows = Collections.synchronizedList(new ArrayList<>());
+    private final SyncProgress progress = new SyncProgress();
+    // Écriture du point de reprise refusée par la base simulée
+    private final AtomicBoolean checkpointFails = new AtomicBoolean();
+    private OpenFoodFactsImportService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AppConfig appConfig = new AppConfig();
+        appConfig.getOpenFoodFactsImport().setDirectory(directory.toString());
+        appConfig.getOpenFoodFactsImport().setBatchSize(3);
+        appConfig.getOpenFoodFactsImport().setWorkers(2);
+
+        CategoryClassificationService categoryClassificationService = mock(CategoryClassificationService.class);
+        when(categoryClassificationService.classify(any())).thenReturn("Épicerie");
+        ObjectMapper objectMapper = new ObjectMapper();
+        OpenFoodFactsService openFoodFactsService = new OpenFoodFactsService(mock(RestClient.class), objectMapper,
+                Executors.newVirtualThreadPerTaskExecutor(), categoryClassificationService, appConfig);
+
+        progress.setJobName("openfoodfacts-import:products.jsonl");
+        when(syncProgressRepository.findById(anyString())).thenReturn(Optional.of(progress));
+        when(syncProgressRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(connection()));
+
+        DictionaryService dictionaryService = mock(DictionaryService.class);
+        when(dictionaryService.idOf(eq(DictionaryValue.Domain.INGREDIENT_CATEGORY), anyString())).thenReturn(7);
+        when(dictionaryService.idOf(DictionaryValue.Domain.DATA_SOURCE, "OPENFOODFACTS")).thenReturn(2);
+
+        service = new OpenFoodFactsImportService(openFoodFactsService, syncProgressRepository,
+                mock(ApplicationEventPublisher.class), jdbcTemplate, objectMapper, appConfig, dictionaryService);
+    }
+
+    @Test
+    void importsFixtureDump() throws Exception {
+        Path file = fixture();
+
+        service.importFile(file);
+
+        assertThat(service.getStatus())
+                .containsEntry("linesRead", 10L)
+                .containsEntry("upserted", 6L)
+                .containsEntry("skipped", 2L)
+                .containsEntry("errors", 1L)
+                .containsEntry("checkpointLine", 10L);
+        assertThat(progress.getCompletedAt()).isNotNull();
+        // Point de reprise et compteurs propres à l'import, cumulés dans les transactions des lots
+        assertThat(progress.getCursor()).isEqualTo(10L);
+        assertThat(progress.getProcessed()).isEqualTo(10L);
+        assertThat(progress.getUpserted()).isEqualTo(6L);
+        assertThat(progress.getSkipped()).isEqualTo(2L);
+        assertThat(progress.getFailed()).isEqualTo(1L);
+        assertThat(progress.getChanged()).isZero();
+        assertThat(progress.getNotFound()).isZero();
+        // Code-barres numérique conservé tel quel, dernier doublon du lot retenu
+        assertThat(copiedRows).hasSize(6)
+                .anyMatch(row -> row.startsWith("\"Eau minérale naturelle\",") && row.contains("\"3274080005003\""))
+                .anyMatch(row -> row.startsWith("\"Nutella\",") && row.contains("\"Ferrero\""))
+                .anyMatch(row -> row.startsWith("\"Nutella 2\","))
+                .anyMatch(row -> row.startsWith("\"Farine T55\","))
+                .noneMatch(row -> row.startsWith("\"Farine\","))
+                // Catégorie et source écrites par identifiant de dictionnaire
+                .allMatch(row -> row.contains(",7,2,"));
+    }
+
+    @Test
+    void stopsReadingWhenUpsertFails() throws Exception {
+        Path file = largeDump();
+        when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+                .thenThrow(new DataAccessResourceFailureException("base indisponible"));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThatThrownBy(() -> service.importFile(file)).isInstanceOf(IllegalStateException.class));
+        assertThat((Long) service.getStatus().get("linesRead")).isLessThan(10_000L);
+        assertThat(progress.getCompletedAt()).isNull();
+    }
+
+    @Test
+    void failsWhenCheckpointCannotBeSaved() throws Exception {
+        Path file = largeDump();
+        checkpointFails.set(true);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () ->
+                assertThatThrownBy(() -> service.importFile(file)).isInstanceOf(IllegalStateException.class));
+        assertThat((Long) service.getStatus().get("linesRead")).isLessThan(10_000L);
+        assertThat(progress.getCompletedAt()).isNull();
+    }
+
+    private Path fixture() throws Exception {
+        Path file = directory.resolve("products.jsonl");
+        try (InputStream input = getClass().getResourceAsStream("/openfoodfacts/products.jsonl")) {
+            Files.copy(input, file);
+        }
+        return file;
+    }
+
+    private Path largeDump() throws Exception {
+        Path file = directory.resolve("products.jsonl");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            lines.add("{\"code\":\"" + (4_000_000_000_000L + i) + "\",\"product_name\":\"Produit " + i + "\"}");
+        }
+        Files.write(file, lines);
+        return file;
+    }
+
+    // Connexion simulée : COPY capturé, l'upsert renvoie le nombre de lignes copiées ;
+    // le point de reprise n'est appliqué à la ligne sync_progress qu'au commit
+    private Connection connection() throws Exception {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        PGConnection pgConnection = mock(PGConnection.class);
+        CopyManager copyManager = mock(CopyManager.class);
+        int[] copied = new int[1];
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenAnswer(invocation -> {
+            StringWriter csv = new StringWriter();
+            ((Reader) invocation.getArgument(1)).transferTo(csv);
+            List<String> rows = csv.toString().lines().toList();
+            copiedRows.addAll(rows);
+            copied[0] = rows.size();
+            return (long) rows.size();
+        });
+        when(statement.executeUpdate(anyString())).thenAnswer(invocation -> copied[0]);
+
+        long[] checkpoint = new long[5];
+        boolean[] pending = new boolean[1];
+        PreparedStatement update = mock(PreparedStatement.class);
+        when(connection.prepareStatement(anyString())).thenReturn(update);
+        doAnswer(invocation -> {
+            checkpoint[invocation.<Integer>getArgument(0) - 1] = invocation.getArgument(1);
+            return null;
+        }).when(update).setLong(anyInt(), anyLong());
+        when(update.executeUpdate()).thenAnswer(invocation -> {
+            if (checkpointFails.get()) {
+                throw new SQLException("base indisponible");
+            }
+            pending[0] = true;
+            return 1;
+        });
+        doAnswer(invocation -> {
+            if (pending[0]) {
+                synchronized (progress) {
+                    progress.setCursor(checkpoint[0]);
+                    progress.setProcessed(progress.getProcessed() + checkpoint[1]);
+                    progress.setUpserted(progress.getUpserted() + checkpoint[2]);
+                    progress.setSkipped(progress.getSkipped() + checkpoint[3]);
+                    progress.setFailed(progress.getFailed() + checkpoint[4]);
+                }
+            }
+            return null;
+        }).when(connection).commit();
+        return connection;
+    }
+}
@@ -0,0 +1,135 @@
+package com.kitchencraft.recipe.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.model.Ingredient;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.web.client.RestClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lecture d'une réponse produit OpenFoodFacts : lecteur en flux sélectif (readResponse) contre l'arbre
+ * complet readTree + mapProduct qu'il remplace, en temps et en octets alloués par lecture
+ * (gc.alloc.rate.norm du profileur GC).
+ *
+ * Tailles : la fixture de ~15 Ko, et des documents de 100 et 300 Ko comme les fiches réelles les plus
+ * complètes, obtenus en la complétant des champs qui les font grossir (images, textes d'ingrédients
+ * par langue, données écoscore) ; les nutriments sont placés en fin de document.
+ *
+ * Hors de la suite de tests ; lancement par main() depuis l'IDE, ou :
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) com.kitchencraft.recipe.service.OpenFoodFactsServiceBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenFoodFactsServiceBenchmark {
+
+    private static final String BARCODE = "3017620422003";
+
+    private ObjectMapper objectMapper;
+    private ExecutorService executor;
+    private OpenFoodFactsService service;
+    @Param({"15", "100", "300"})
+    public int sizeKb;
+
+    private byte[] response;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = new ObjectMapper();
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        CategoryClassificationService categoryClassificationService = Mockito.mock(CategoryClassificationService.class);
+        Mockito.when(categoryClassificationService.classify(Mockito.any())).thenReturn("Épicerie");
+        service = new OpenFoodFactsService(Mockito.mock(RestClient.class), objectMapper, executor,
+                categoryClassificationService, new AppConfig());
+        try (InputStream input = Objects.requireNonNull(
+                getClass().getResourceAsStream("/openfoodfacts/product-response.json"))) {
+            response = inflate(input.readAllBytes(), sizeKb * 1024);
+        }
+        // Les deux lectures doivent produire le même ingrédient
+        if (!streaming().getName().equals(tree().getName())) {
+            throw new IllegalStateException("Lectures divergentes");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public Ingredient streaming() throws IOException {
+        return service.readResponse(new ByteArrayInputStream(response), BARCODE).orElseThrow();
+    }
+
+    @Benchmark
+    public Ingredient tree() throws IOException {
+        JsonNode root = objectMapper.readTree(new ByteArrayInputStream(response));
+        return service.mapProduct(root.get("product"), BARCODE);
+    }
+
+    // Champs volumineux recopiés sous de nouvelles clés jusqu'à la taille visée
+    private byte[] inflate(byte[] fixture, int targetBytes) throws IOException {
+        if (fixture.length >= targetBytes) {
+            return fixture;
+        }
+        ObjectNode root = (ObjectNode) objectMapper.readTree(fixture);
+        ObjectNode product = (ObjectNode) root.get("product");
+        JsonNode nutriments = product.remove("nutriments");
+        ObjectNode images = (ObjectNode) product.get("images");
+        Map.Entry<String, JsonNode> image = images.fields().next();
+        JsonNode ingredientsText = product.get("ingredients_text_fr");
+        JsonNode ingredients = product.get("ingredients");
+        JsonNode ecoscore = product.get("ecoscore_data");
+        byte[] inflated = fixture;
+        for (int n = 0; inflated.length < targetBytes; n++) {
+            images.set(image.getKey() + "_" + n, image.getValue());
+            String lang = "l" + n;
+            product.set("ingredients_text_" + lang, ingredientsText);
+            product.set("ingredients_" + lang, ingredients);
+            if (n % 4 == 0) {
+                product.set("ecoscore_data_" + lang, ecoscore);
+            }
+            inflated = objectMapper.writeValueAsBytes(root);
+        }
+        product.set("nutriments", nutriments);
+        return objectMapper.writeValueAsBytes(root);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(OpenFoodFactsServiceBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
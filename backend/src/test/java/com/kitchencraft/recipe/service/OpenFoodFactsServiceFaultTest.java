@@ -0,0 +1,221 @@
+package com.kitchencraft.recipe.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kitchencraft.recipe.config.AppConfig;
+import com.kitchencraft.recipe.config.HttpClientConfig;
+import com.kitchencraft.recipe.exception.OpenFoodFactsException;
+import com.kitchencraft.recipe.model.Ingredient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * OpenFoodFactsService contre un serveur HTTP local dont les pannes sont injectées :
+ * erreurs 5xx, réponses lentes ou tronquées, disjoncteur et cloison.
+ */
+class OpenFoodFactsServiceFaultTest {
+
+    private static final String BARCODE = "3017620422003";
+
+    // Comportement du serveur, modifiable en cours de test
+    private enum Fault { NONE, NOT_FOUND, SERVER_ERROR, SLOW, TRUNCATED }
+
+    private volatile Fault fault = Fault.NONE;
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService clientExecutor;
+    private HttpClient httpClient;
+    private byte[] product;
+    private AppConfig appConfig;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream input = Objects.requireNonNull(
+                getClass().getResourceAsStream("/openfoodfacts/product-response.json"))) {
+            product = input.readAllBytes();
+        }
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/v0/product/", this::handle);
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        appConfig = new AppConfig();
+        AppConfig.OpenFoodFactsConfig config = appConfig.getOpenFoodFacts();
+        config.setBaseUrl("http://127.0.0.1:" + server.getAddress().getPort());
+        config.setReadTimeout(Duration.ofMillis(400));
+        config.setMinTimeout(Duration.ofMillis(100));
+        config.setCircuitWindowSize(4);
+        config.setCircuitMinimumCalls(4);
+        config.setCircuitOpenDuration(Duration.ofMillis(200));
+        config.setHalfOpenCalls(1);
+        config.setBulkheadMaxConcurrent(1);
+        config.setBulkheadMaxWait(Duration.ofMillis(20));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        if (httpClient != null) {
+            httpClient.close();
+        }
+        if (clientExecutor != null) {
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    private OpenFoodFactsService service() {
+        HttpClientConfig httpClientConfig = new HttpClientConfig();
+        clientExecutor = httpClientConfig.openFoodFactsExecutor();
+        httpClient = httpClientConfig.openFoodFactsHttpClient(appConfig, clientExecutor);
+        CategoryClassificationService categoryClassificationService = mock(CategoryClassificationService.class);
+        when(categoryClassificationService.classify(any())).thenReturn("Épicerie");
+        return new OpenFoodFactsService(httpClientConfig.openFoodFactsRestClient(appConfig, httpClient),
+                new ObjectMapper(), clientExecutor, categoryClassificationService, appConfig);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            switch (fault) {
+                case NOT_FOUND -> exchange.sendResponseHeaders(404, -1);
+                case SERVER_ERROR -> exchange.sendResponseHeaders(503, -1);
+                case SLOW -> {
+                    sleep(2_000);
+                    respond(exchange, product);
+                }
+                case TRUNCATED -> respond(exchange, "{\"status\":1,\"product\":{\"product_name\":\"Nut".getBytes(StandardCharsets.UTF_8));
+                case NONE -> respond(exchange, product);
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void readsProductFromStub() {
+        Optional<Ingredient> ingredient = service().fetchProduct(BARCODE);
+
+        assertThat(ingredient).hasValueSatisfying(value -> {
+            assertThat(value.getName()).isEqualTo("Nutella");
+            assertThat(value.getBrand()).isEqualTo("Ferrero");
+            assertThat(value.getBarcode()).isEqualTo(BARCODE);
+            assertThat(value.getEnergyKcal()).isNotNull();
+        });
+    }
+
+    @Test
+    void unknownProductIsNotAFailure() {
+        fault = Fault.NOT_FOUND;
+        OpenFoodFactsService service = service();
+
+        for (int i = 0; i < 6; i++) {
+            assertThat(service.fetchProduct(BARCODE)).isEmpty();
+        }
+        assertThat(service.getHealth()).containsEntry("status", "UP").containsEntry("failures", 0L);
+    }
+
+    @Test
+    void truncatedBodyFails() {
+        fault = Fault.TRUNCATED;
+
+        assertThatThrownBy(() -> service().fetchProduct(BARCODE)).isInstanceOf(OpenFoodFactsException.class);
+    }
+
+    @Test
+    void slowResponseTimesOutBeforeReadTimeout() {
+        fault = Fault.SLOW;
+        OpenFoodFactsService service = service();
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> service.fetchProduct(BARCODE))
+                .isInstanceOf(OpenFoodFactsException.class)
+                .hasMessageContaining("Délai");
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_500);
+        assertThat(service.getHealth()).containsEntry("timeouts", 1L);
+        // La place de la cloison revient une fois l'appel abandonné terminé
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(3);
+        while (!Integer.valueOf(1).equals(service.getHealth().get("bulkheadAvailable")) && System.nanoTime() < deadline) {
+            sleep(10);
+        }
+        assertThat(service.getHealth()).containsEntry("bulkheadAvailable", 1);
+    }
+
+    @Test
+    void serverErrorsOpenCircuitThenTrialCallCloses() {
+        fault = Fault.SERVER_ERROR;
+        OpenFoodFactsService service = service();
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> service.fetchProduct(BARCODE)).isInstanceOf(OpenFoodFactsException.class);
+        }
+        assertThat(service.isCircuitOpen()).isTrue();
+        assertThat(service.getHealth()).containsEntry("status", "DOWN");
+
+        // Circuit ouvert : refus immédiat, sans requête
+        assertThatThrownBy(() -> service.fetchProduct(BARCODE))
+                .isInstanceOf(OpenFoodFactsException.class)
+                .hasMessageContaining("disjoncteur");
+        assertThat(requests.get()).isEqualTo(4);
+
+        fault = Fault.NONE;
+        sleep(250);
+        assertThat(service.getHealth()).containsEntry("status", "DEGRADED");
+        assertThat(service.fetchProduct(BARCODE)).isPresent();
+        assertThat(service.getHealth()).containsEntry("status", "UP");
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondLimit() throws Exception {
+        fault = Fault.SLOW;
+        OpenFoodFactsService service = service();
+        CompletableFuture<Optional<Ingredient>> first = service.fetchProductAsync(BARCODE);
+        while (requests.get() == 0) {
+            sleep(5);
+        }
+
+        assertThatThrownBy(() -> service.fetchProduct(BARCODE))
+                .isInstanceOf(OpenFoodFactsException.class)
+                .hasMessageContaining("saturé");
+        assertThat(service.getHealth()).containsEntry("bulkheadRejections", 1L);
+        assertThat(first).failsWithin(Duration.ofSeconds(2));
+    }
+}
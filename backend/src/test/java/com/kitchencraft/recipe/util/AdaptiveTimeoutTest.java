@@ -0,0 +1,54 @@
+package com.kitchencraft.recipe.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveTimeoutTest {
+
+    private static final long MS = Duration.ofMillis(1).toNanos();
+
+    private final AdaptiveTimeout timeout = new AdaptiveTimeout(Duration.ofMillis(100), Duration.ofSeconds(5));
+
+    @Test
+    void usesMaximumUntilFirstSample() {
+        assertThat(timeout.timeoutNanos()).isEqualTo(5_000 * MS);
+    }
+
+    @Test
+    void firstSampleGivesThreeTimesLatency() {
+        // Moyenne = latence, écart = latence / 2 : délai = latence + 4 * latence / 2
+        timeout.record(200 * MS);
+        assertThat(timeout.timeoutNanos()).isEqualTo(600 * MS);
+    }
+
+    @Test
+    void convergesTowardStableLatencyWithinBounds() {
+        for (int i = 0; i < 200; i++) {
+            timeout.record(150 * MS);
+        }
+        assertThat(timeout.timeoutNanos()).isBetween(150 * MS, 160 * MS);
+
+        for (int i = 0; i < 200; i++) {
+            timeout.record(10 * MS);
+        }
+        assertThat(timeout.timeoutNanos()).isEqualTo(100 * MS);
+    }
+
+    @Test
+    void timeoutsRaiseTheDelayUpToMaximum() {
+        for (int i = 0; i < 50; i++) {
+            timeout.record(150 * MS);
+        }
+        long before = timeout.timeoutNanos();
+        timeout.recordTimeout(before);
+        assertThat(timeout.timeoutNanos()).isGreaterThan(before);
+
+        for (int i = 0; i < 50; i++) {
+            timeout.recordTimeout(timeout.timeoutNanos());
+        }
+        assertThat(timeout.timeoutNanos()).isEqualTo(5_000 * MS);
+    }
+}
@@ -0,0 +1,90 @@
+package com.kitchencraft.recipe.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    private static final int COUNT = 100_000;
+    private static final double RATE = 0.01;
+
+    // Codes-barres EAN-13 synthétiques, distincts d'un préfixe à l'autre
+    private static String barcode(String prefix, int i) {
+        return prefix + String.format("%010d", i);
+    }
+
+    @Test
+    void neverReportsAnAddedValueAsAbsent() {
+        BloomFilter filter = new BloomFilter(COUNT, RATE);
+        for (int i = 0; i < COUNT; i++) {
+            filter.put(barcode("301", i));
+        }
+        for (int i = 0; i < COUNT; i++) {
+            assertThat(filter.mightContain(barcode("301", i))).isTrue();
+        }
+    }
+
+    @Test
+    void falsePositiveRateStaysNearTarget() {
+        BloomFilter filter = new BloomFilter(COUNT, RATE);
+        for (int i = 0; i < COUNT; i++) {
+            filter.put(barcode("301", i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < COUNT; i++) {
+            if (filter.mightContain(barcode("761", i))) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / COUNT;
+        assertThat(observed).isLessThan(RATE * 1.5);
+        assertThat(filter.estimatedFalsePositiveRate()).isBetween(RATE / 2, RATE * 1.5);
+        assertThat(filter.approximateSize()).isBetween((long) (COUNT * 0.99), (long) COUNT);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(0, RATE);
+        assertThat(filter.mightContain("3017620422003")).isFalse();
+        assertThat(filter.estimatedFalsePositiveRate()).isZero();
+        assertThat(filter.approximateSize()).isZero();
+
+        filter.put("3017620422003");
+        filter.put("3017620422003");
+        assertThat(filter.mightContain("3017620422003")).isTrue();
+        assertThat(filter.approximateSize()).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentPutsLoseNoBits() throws Exception {
+        BloomFilter filter = new BloomFilter(COUNT, RATE);
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = offset; i < COUNT; i += threads) {
+                        filter.put(barcode("301", i));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < COUNT; i++) {
+            assertThat(filter.mightContain(barcode("301", i))).isTrue();
+        }
+    }
+}
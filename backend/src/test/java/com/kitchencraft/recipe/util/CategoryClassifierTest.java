@@ -0,0 +1,138 @@
+package com.kitchencraft.recipe.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CategoryClassifierTest {
+
+    private static CategoryClassifier classifier(CategoryClassifier.Rule... rules) {
+        return new CategoryClassifier(List.of(rules));
+    }
+
+    @Test
+    void matchesWholeWordsOnly() {
+        CategoryClassifier classifier = classifier(new CategoryClassifier.Rule("cheese", "Crémerie", 0));
+
+        assertThat(classifier.classify("Cheese, Blue cheese")).isEqualTo("Crémerie");
+        assertThat(classifier.classify("en:cheesecakes")).isNull();
+        assertThat(classifier.classify("en:cheeses")).isEqualTo("Crémerie");
+        assertThat(classifier.classify("Cheesesteak")).isNull();
+        assertThat(classifier.classify(null)).isNull();
+    }
+
+    @Test
+    void treatsSpacesAndUnderscoresAsDashes() {
+        CategoryClassifier classifier = classifier(new CategoryClassifier.Rule("Fresh fruits", "Fruits", 0));
+
+        assertThat(classifier.classify("en:fresh-fruits")).isEqualTo("Fruits");
+        assertThat(classifier.classify("FRESH_FRUITS")).isEqualTo("Fruits");
+        assertThat(classifier.classify("fresh fruit")).isNull();
+    }
+
+    @Test
+    void matchesNonAsciiPatterns() {
+        CategoryClassifier classifier = classifier(
+                new CategoryClassifier.Rule("œufs", "Œufs", 0),
+                new CategoryClassifier.Rule("pâtes", "Épicerie", 0));
+
+        assertThat(classifier.classify("fr:Œufs-frais")).isEqualTo("Œufs");
+        assertThat(classifier.classify("Pâtes alimentaires")).isEqualTo("Épicerie");
+        assertThat(classifier.classify("pates")).isNull();
+    }
+
+    @Test
+    void prefersPriorityThenLengthThenPositionThenRuleOrder() {
+        CategoryClassifier classifier = classifier(
+                new CategoryClassifier.Rule("milk", "Crémerie", 0),
+                new CategoryClassifier.Rule("soy-milk", "Boissons végétales", 0),
+                new CategoryClassifier.Rule("dessert", "Desserts", 5),
+                new CategoryClassifier.Rule("juice", "Boissons", 0),
+                new CategoryClassifier.Rule("water", "Eaux", 0),
+                new CategoryClassifier.Rule("juice", "Jus", 0));
+
+        // Plus long : les liens d'échec reportent "milk" dans l'état de "soy-milk"
+        assertThat(classifier.classify("en:soy-milks")).isEqualTo("Boissons végétales");
+        assertThat(classifier.classify("soy milk dessert")).isEqualTo("Desserts");
+        // Même longueur : première position, puis première règle pour un motif en double
+        assertThat(classifier.classify("water, juice")).isEqualTo("Eaux");
+        assertThat(classifier.classify("juice, water")).isEqualTo("Boissons");
+        assertThat(classifier.classify("Milk, soy")).isEqualTo("Crémerie");
+    }
+
+    @Test
+    void rejectsEmptyPattern() {
+        assertThatThrownBy(() -> classifier(new CategoryClassifier.Rule("  ", "Autres", 0)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void agreesWithNaiveScanOnRandomTexts() {
+        Random random = new Random(42);
+        String alphabet = "abé -_:,s";
+        List<CategoryClassifier.Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            rules.add(new CategoryClassifier.Rule(randomText(random, "abé-", 1 + random.nextInt(5)),
+                    "C" + i, random.nextInt(3)));
+        }
+        CategoryClassifier classifier = new CategoryClassifier(rules);
+
+        for (int i = 0; i < 5_000; i++) {
+            String text = randomText(random, alphabet, random.nextInt(30));
+            assertThat(classifier.classify(text)).as(text).isEqualTo(naive(rules, text));
+        }
+    }
+
+    private static String randomText(Random random, String alphabet, int length) {
+        StringBuilder text = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return text.toString();
+    }
+
+    // Référence quadratique : mêmes règles de normalisation, de limites de mot et de départage
+    private static String naive(List<CategoryClassifier.Rule> rules, String text) {
+        String normalized = normalize(text);
+        int best = -1;
+        int bestStart = 0;
+        for (int rule = 0; rule < rules.size(); rule++) {
+            String pattern = normalize(rules.get(rule).pattern().trim());
+            for (int start = normalized.indexOf(pattern); start >= 0; start = normalized.indexOf(pattern, start + 1)) {
+                int end = start + pattern.length();
+                boolean before = start == 0 || !Character.isLetterOrDigit(text.charAt(start - 1));
+                boolean after = end == text.length() || !Character.isLetterOrDigit(text.charAt(end))
+                        || (Character.toLowerCase(text.charAt(end)) == 's'
+                        && (end + 1 == text.length() || !Character.isLetterOrDigit(text.charAt(end + 1))));
+                if (before && after && (best < 0 || better(rules, rule, pattern.length(), start, best, bestStart))) {
+                    best = rule;
+                    bestStart = start;
+                }
+            }
+        }
+        return best < 0 ? null : rules.get(best).category();
+    }
+
+    private static boolean better(List<CategoryClassifier.Rule> rules, int rule, int length, int start, int best, int bestStart) {
+        int bestLength = normalize(rules.get(best).pattern().trim()).length();
+        if (rules.get(rule).priority() != rules.get(best).priority()) {
+            return rules.get(rule).priority() > rules.get(best).priority();
+        }
+        if (length != bestLength) {
+            return length > bestLength;
+        }
+        if (start != bestStart) {
+            return start < bestStart;
+        }
+        return rule < best;
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase().replace(' ', '-').replace('_', '-');
+    }
+}
@@ -0,0 +1,103 @@
+package com.kitchencraft.recipe.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(3).toNanos();
+
+    // Fenêtre de 4 appels, 4 appels minimum, seuils de 50 %, appels lents à partir de 1 s
+    private static CircuitBreaker breaker(Duration openDuration, int halfOpenCalls) {
+        return new CircuitBreaker(4, 4, 0.5, 0.5, Duration.ofSeconds(1), openDuration, halfOpenCalls);
+    }
+
+    private static void call(CircuitBreaker breaker, boolean failure, long durationNanos) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(failure, durationNanos);
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1), 1);
+        for (int i = 0; i < 3; i++) {
+            call(breaker, true, FAST);
+        }
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(breaker, true, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getMetrics()).containsEntry("notPermittedCalls", 1L).containsEntry("openings", 1L);
+    }
+
+    @Test
+    void opensOnSlowCallRate() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1), 1);
+        call(breaker, false, FAST);
+        call(breaker, false, FAST);
+        call(breaker, false, SLOW);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        call(breaker, false, SLOW);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    void slidingWindowForgetsOldFailures() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1), 1);
+        call(breaker, true, FAST);
+        call(breaker, false, FAST);
+        call(breaker, false, FAST);
+        call(breaker, false, FAST);
+        // Le premier échec sort de la fenêtre : 1 échec sur 4, sous le seuil
+        call(breaker, true, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.getMetrics()).containsEntry("failureRate", 0.25);
+    }
+
+    @Test
+    void halfOpenTrialsCloseOrReopen() throws InterruptedException {
+        CircuitBreaker breaker = breaker(Duration.ofMillis(50), 2);
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, FAST);
+        }
+        Thread.sleep(60);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+
+        // Deux essais au plus ; un essai non exécuté rend sa place
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onNotExecuted();
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(false, FAST);
+        breaker.onResult(false, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, FAST);
+        }
+        Thread.sleep(60);
+        assertThat(breaker.tryAcquire()).isTrue();
+        breaker.onResult(true, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getMetrics()).containsEntry("openings", 3L);
+    }
+
+    @Test
+    void ignoresResultsOfCallsStartedBeforeOpening() {
+        CircuitBreaker breaker = breaker(Duration.ofMinutes(1), 1);
+        assertThat(breaker.tryAcquire()).isTrue();
+        for (int i = 0; i < 4; i++) {
+            call(breaker, true, FAST);
+        }
+        breaker.onResult(false, FAST);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.getMetrics()).containsEntry("bufferedCalls", 0);
+    }
+}
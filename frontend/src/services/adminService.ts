@@ -170,6 +170,29 @@ class AdminService {
       throw new Error('Erreur lors du nettoyage des données');
     }
     
+    // Le nettoyage tourne en arrière-plan : attendre sa fin
+    const started = await response.json();
+    let status = await this.getCleanupStatus();
+    while (status.running) {
+      await new Promise(resolve => setTimeout(resolve, 1000));
+      status = await this.getCleanupStatus();
+    }
+    if (status.error) {
+      throw new Error(`Erreur lors du nettoyage des données : ${status.error}`);
+    }
+    
+    return { message: 'Nettoyage terminé', deletedCount: status.deletedCount, description: started.description };
+  }
+
+  async getCleanupStatus(): Promise<{ running: boolean; deletedCount: number; orphansAtStart: number; error: string | null }> {
+    const response = await fetch(`${API_BASE_URL}/data/cleanup`, {
+      headers: this.getAuthHeaders(),
+    });
+    
+    if (!response.ok) {
+      throw new Error('Erreur lors de la récupération de l\'état du nettoyage');
+    }
+    
     return response.json();
   }
 